@@ -0,0 +1,49 @@
+package net.mbi.wcloud.dispatch.solver.controller.admin.matrix;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.framework.common.pojo.CommonResult;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixService;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/matrix")
+@Tag(name = "管理端-距离矩阵 Matrix", description = "距离/时间矩阵缓存与持久化存储的运维操作")
+public class MatrixController {
+
+        private final MatrixService matrixService;
+
+        /**
+         * 作废租户的矩阵缓存
+         */
+        @PostMapping("/tenants/{tenantId}/invalidate")
+        @Operation(summary = "作废租户的矩阵缓存", description = """
+                        清除租户在跨求解内存缓存与内存映射持久化存储中的全部矩阵行，之后的求解重新计算距离/时间。
+
+                        在距离表（dispatch_node_distance）或距离文件更新后调用；集群模式下广播到所有实例。
+                        节点坐标变化不需要调用：缓存按坐标指纹识别节点，旧坐标的单元格自动不再命中
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "已作废", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
+        })
+        public CommonResult<Boolean> invalidateTenant(
+                        @Parameter(description = "租户ID", required = true, example = "1") @PathVariable Long tenantId) {
+
+                log.info("MATRIX_INVALIDATE_REQUEST tenantId={}", tenantId);
+                matrixService.invalidateTenant(tenantId);
+                return CommonResult.success(true);
+        }
+}
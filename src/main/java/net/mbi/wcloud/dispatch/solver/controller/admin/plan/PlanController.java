@@ -3,6 +3,7 @@ package net.mbi.wcloud.dispatch.solver.controller.admin.plan;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.InsertTasksVO;
 import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanRouteVO;
 import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanUnassignedVO;
 import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanVO;
@@ -10,14 +11,38 @@ import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveTaskStatusVO
 import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveTaskSubmitVO;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchSolveJobDO;
 import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchSolveJobMapper;
+import net.mbi.wcloud.dispatch.solver.framework.common.exception.ErrorCodeConstants;
+import net.mbi.wcloud.dispatch.solver.framework.common.exception.ServiceException;
 import net.mbi.wcloud.dispatch.solver.framework.common.pojo.CommonResult;
+import net.mbi.wcloud.dispatch.solver.framework.queue.DistributedJobQueue;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanInsertService;
 import net.mbi.wcloud.dispatch.solver.service.plan.PlanQueryService;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanReadCache;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanRouteExporter;
 import net.mbi.wcloud.dispatch.solver.service.plan.PlanSolveService;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveClusterProperties;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveDispatcher;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveJobStatusCache;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveProgressHub;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.InsertTasksDTO;
 import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Locale;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,9 +58,19 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @Tag(name = "管理端-调度方案 Plan", description = "调度方案查询、求解任务提交与执行状态查询")
 public class PlanController {
 
+        /** 线路分页单页上限，更大的量走导出接口 */
+        private static final int MAX_ROUTE_PAGE_SIZE = 500;
+
         private final PlanSolveService planSolveService;
         private final PlanQueryService planQueryService;
+        private final PlanInsertService planInsertService;
         private final DispatchSolveJobMapper solveJobMapper;
+        private final SolveDispatcher solveDispatcher;
+        private final SolveProgressHub progressHub;
+        private final SolveJobStatusCache statusCache;
+        private final SolveClusterProperties clusterProperties;
+        private final DistributedJobQueue jobQueue;
+        private final PlanRouteExporter routeExporter;
 
         /**
          * 提交异步求解任务
@@ -48,6 +83,8 @@ public class PlanController {
                         - 异步执行，立即返回 taskId
                         - 建议幂等：同一 plan 在 RUNNING 状态下重复提交，应返回同一个 taskId
                         - 任务执行状态需通过「查询求解任务状态」接口获取
+                        - 求解线程池与排队队列均已占满时拒绝受理（错误码 1003001，任务状态 REJECTED），请稍后重试
+                        - 可通过「取消求解任务」「提前结束求解」接口中止，取消后任务状态为 CANCELLED
                         """)
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "提交成功，返回求解任务信息", content = @Content(schema = @Schema(implementation = CommonResult.class))),
@@ -69,68 +106,247 @@ public class PlanController {
                 return CommonResult.success(vo);
         }
 
+        /**
+         * 增量插入紧急任务
+         */
+        @PostMapping("/{planId}/tasks/insert")
+        @Operation(summary = "增量插入任务", description = """
+                        把少量新任务插入方案当前已落库的线路，不重新求解。
+
+                        特性说明：
+                        - 同步执行：按最便宜可行位置插入，再对新任务附近站点做有界局部修复
+                        - 只改写受影响的线路与停靠点，其余线路保持不变
+                        - 无可行位置的任务记入未分配明细
+                        - 方案正在求解时拒绝插入，请稍后重试
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "插入完成，返回插入位置与受影响线路数", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "400", description = "请求参数不合法"),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效"),
+                        @ApiResponse(responseCode = "403", description = "无权限访问")
+        })
+        public CommonResult<InsertTasksVO> insertTasks(
+                        @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
+
+                        @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "插入参数", required = true) @RequestBody @Valid InsertTasksDTO req) {
+
+                log.info("HTTP_INSERT planId={}, tenantId={}, tasks={}", planId, req.getTenantId(), req.getTaskIds());
+
+                return CommonResult.success(planInsertService.insertTasks(planId, req));
+        }
+
         /**
          * 查询方案详情
          */
         @GetMapping("/{planId}")
-        @Operation(summary = "查询方案详情", description = "根据租户ID与方案ID查询调度方案的基础信息及求解结果汇总")
+        @Operation(summary = "查询方案详情", description = """
+                        根据租户ID与方案ID查询调度方案的基础信息及求解结果汇总。
+
+                        支持条件请求：响应带 ETag，轮询时带 If-None-Match，内容未变化返回 304（无响应体）
+                        """)
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "查询成功", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "304", description = "内容未变化"),
                         @ApiResponse(responseCode = "404", description = "方案不存在"),
                         @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
         })
         public CommonResult<PlanVO> getPlan(
                         @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
 
-                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId) {
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId,
+
+                        WebRequest request) {
 
-                return CommonResult.success(
-                                planQueryService.getPlan(tenantId, planId));
+                return conditional(planQueryService.readPlan(tenantId, planId), request);
         }
 
         /**
          * 查询线路明细
          */
         @GetMapping("/{planId}/routes")
-        @Operation(summary = "查询方案线路明细", description = "查询指定方案下的车辆线路信息（按车辆维度）")
+        @Operation(summary = "查询方案线路明细", description = """
+                        查询指定方案当前生效解版本下的车辆线路信息（按车辆维度）。
+
+                        支持条件请求：响应带 ETag，轮询时带 If-None-Match，内容未变化返回 304（无响应体）
+                        """)
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "查询成功", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "304", description = "内容未变化"),
                         @ApiResponse(responseCode = "404", description = "方案不存在"),
                         @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
         })
         public CommonResult<List<PlanRouteVO.Route>> getRoutes(
                         @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
 
-                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId) {
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId,
+
+                        WebRequest request) {
+
+                return conditional(planQueryService.readRoutes(tenantId, planId), request);
+        }
+
+        /**
+         * 查询线路明细（protobuf）
+         */
+        @GetMapping(value = "/{planId}/routes", produces = PlanRouteProtobuf.MEDIA_TYPE_VALUE)
+        @Operation(summary = "查询方案线路明细（protobuf）", description = """
+                        与「查询方案线路明细」同一路径，请求头 Accept: application/x-protobuf 时返回二进制格式，供下游系统拉取整份解。
+
+                        响应体为 RouteList 消息（见 resources/proto/plan_route.proto），不包装 CommonResult；方案不存在返回 HTTP 404（无响应体）。
+                        同样支持 ETag / If-None-Match 条件请求
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "查询成功", content = @Content(mediaType = PlanRouteProtobuf.MEDIA_TYPE_VALUE)),
+                        @ApiResponse(responseCode = "304", description = "内容未变化"),
+                        @ApiResponse(responseCode = "404", description = "方案不存在"),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
+        })
+        public ResponseEntity<byte[]> getRoutesProtobuf(
+                        @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
+
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId,
+
+                        ServletWebRequest request) {
+
+                PlanReadCache.Entry<List<PlanRouteVO.Route>> entry = planQueryService.readRoutes(tenantId, planId);
+                if (entry == null) {
+                        return ResponseEntity.notFound().build();
+                }
+                // 同一内容的 JSON 与 protobuf 是不同表示，ETag 需要区分；先判断 304，命中时不编码响应体
+                String etag = entry.etag();
+                String pbEtag = etag.substring(0, etag.length() - 1) + "-pb\"";
+                if (request.checkNotModified(pbEtag)) {
+                        request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                        return null;
+                }
+                return ResponseEntity.ok()
+                                .contentType(PlanRouteProtobuf.MEDIA_TYPE)
+                                .eTag(pbEtag)
+                                .varyBy(HttpHeaders.ACCEPT)
+                                .body(PlanRouteProtobuf.encode(entry.body()));
+        }
+
+        /**
+         * 分页查询线路明细
+         */
+        @GetMapping("/{planId}/routes/page")
+        @Operation(summary = "分页查询方案线路明细", description = """
+                        按车辆ID升序分页查询当前生效解版本的线路（含停靠点），适用于车辆较多的大方案。
+
+                        游标翻页：首页不传 cursor，之后把上一页返回的 nextCursor 作为 cursor 传入，hasMore=false 时结束。
+                        limit 默认 50，最大 500
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "查询成功", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "404", description = "方案不存在"),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
+        })
+        public CommonResult<PlanRouteVO.Page> pageRoutes(
+                        @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
+
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId,
+
+                        @Parameter(description = "游标：上一页最后一辆车的车辆ID", example = "30050") @RequestParam(value = "cursor", required = false) Long cursor,
+
+                        @Parameter(description = "每页线路数（1~500）", example = "50") @RequestParam(value = "limit", defaultValue = "50") int limit) {
+
+                PlanRouteVO.Page page = planQueryService.pageRoutes(tenantId, planId, cursor,
+                                Math.max(1, Math.min(limit, MAX_ROUTE_PAGE_SIZE)));
+                if (page == null) {
+                        return CommonResult.error(404, "Plan not found");
+                }
+                return CommonResult.success(page);
+        }
+
+        /**
+         * 导出线路停靠点
+         */
+        @GetMapping("/{planId}/routes/export")
+        @Operation(summary = "导出方案线路停靠点", description = """
+                        以流的方式导出当前生效解版本的全部停靠点，一行一个停靠点，按线路、站序排列；边读库边写出，不受方案规模限制。
+
+                        format=ndjson（默认）：每行一个 JSON 对象；format=csv：带表头
+                        （vehicle_id,route_id,seq,task_id,node_id,eta_sec,etd_sec,service_time_sec）。
+                        响应不包装 CommonResult
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "导出成功"),
+                        @ApiResponse(responseCode = "404", description = "方案不存在"),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
+        })
+        public ResponseEntity<StreamingResponseBody> exportRoutes(
+                        @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
+
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId,
+
+                        @Parameter(description = "导出格式：ndjson / csv", example = "ndjson") @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+
+                PlanRouteExporter.Format fmt;
+                try {
+                        fmt = PlanRouteExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                        throw new ServiceException(ErrorCodeConstants.BAD_REQUEST, "Unsupported export format: " + format);
+                }
+                PlanVO plan = planQueryService.getPlan(tenantId, planId);
+                if (plan == null) {
+                        throw new ServiceException(ErrorCodeConstants.NOT_FOUND, "Plan not found");
+                }
+                // 先定下版本：导出过程中重新求解切换了版本，本次导出仍是同一版本的完整数据
+                long version = plan.getActiveVersion();
+                String filename = "plan-" + planId + "-v" + version + (fmt == PlanRouteExporter.Format.CSV ? ".csv" : ".ndjson");
 
-                return CommonResult.success(
-                                planQueryService.listRoutes(tenantId, planId));
+                return ResponseEntity.ok()
+                                .contentType(fmt == PlanRouteExporter.Format.CSV
+                                                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                                                : MediaType.APPLICATION_NDJSON)
+                                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                                .filename(filename).build().toString())
+                                .body(out -> routeExporter.export(tenantId, planId, version, fmt, out));
         }
 
         /**
          * 查询未分配任务明细
          */
         @GetMapping("/{planId}/unassigned")
-        @Operation(summary = "查询未分配任务明细", description = "查询调度方案中因约束冲突等原因未被分配的任务/订单")
+        @Operation(summary = "查询未分配任务明细", description = """
+                        查询调度方案当前生效解版本中因约束冲突等原因未被分配的任务/订单。
+
+                        支持条件请求：响应带 ETag，轮询时带 If-None-Match，内容未变化返回 304（无响应体）
+                        """)
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "查询成功", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "304", description = "内容未变化"),
                         @ApiResponse(responseCode = "404", description = "方案不存在"),
                         @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
         })
         public CommonResult<List<PlanUnassignedVO.Item>> getUnassigned(
                         @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
 
-                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId) {
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId,
+
+                        WebRequest request) {
 
-                return CommonResult.success(
-                                planQueryService.listUnassigned(tenantId, planId));
+                return conditional(planQueryService.readUnassigned(tenantId, planId), request);
+        }
+
+        /**
+         * 条件请求：If-None-Match 与当前 ETag 一致时返回 null，由框架直接回 304，不序列化响应体
+         */
+        private static <T> CommonResult<T> conditional(PlanReadCache.Entry<T> entry, WebRequest request) {
+                if (entry == null) {
+                        return CommonResult.error(404, "Plan not found");
+                }
+                if (request.checkNotModified(entry.etag())) {
+                        return null;
+                }
+                return CommonResult.success(entry.body());
         }
 
         /**
          * 查询求解任务状态
          */
         @GetMapping("/{planId}/solve/{taskId}")
-        @Operation(summary = "查询求解任务状态", description = "根据方案ID与任务ID查询调度求解任务的当前执行状态")
+        @Operation(summary = "查询求解任务状态", description = "根据方案ID与任务ID查询调度求解任务的当前执行状态；排队中的任务同时返回排队位置与预计开始时间")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "查询成功", content = @Content(schema = @Schema(implementation = CommonResult.class))),
                         @ApiResponse(responseCode = "404", description = "任务不存在"),
@@ -143,18 +359,145 @@ public class PlanController {
 
                         @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId) {
 
-                DispatchSolveJobDO job = solveJobMapper.selectOne(
-                                new LambdaQueryWrapper<DispatchSolveJobDO>()
-                                                .eq(DispatchSolveJobDO::getTenantId, tenantId)
-                                                .eq(DispatchSolveJobDO::getPlanId, planId)
-                                                .eq(DispatchSolveJobDO::getTaskId, taskId)
-                                                .eq(DispatchSolveJobDO::getDeleted, 0));
+                SolveTaskStatusVO vo = loadSolveTask(tenantId, planId, taskId);
+                if (vo == null) {
+                        return CommonResult.error(404, "Solve task not found");
+                }
+                return CommonResult.success(vo);
+        }
 
+        /**
+         * 订阅求解进度（SSE）
+         */
+        @GetMapping(value = "/{planId}/solve/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        @Operation(summary = "订阅求解进度", description = """
+                        以 Server-Sent Events 推送求解任务的进度与状态，替代轮询「查询求解任务状态」。
+
+                        事件说明：
+                        - status：订阅时先推送一次当前状态，之后每次状态变化推送（数据同 SolveTaskStatusVO）
+                        - progress：搜索找到更优解时推送，最多每秒一次（数据同 SolveProgressVO：目标值、已分配任务数、耗时）
+                        - 任务进入终态（SOLVED / FAILED / REJECTED / CANCELLED）后推送最终 status 并关闭连接
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "事件流"),
+                        @ApiResponse(responseCode = "404", description = "任务不存在"),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
+        })
+        public SseEmitter subscribeSolveTask(
+                        @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
+
+                        @Parameter(description = "任务ID", required = true, example = "task_20260122_0001") @PathVariable String taskId,
+
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId) {
+
+                SolveTaskStatusVO current = loadSolveTask(tenantId, planId, taskId);
+                if (current == null) {
+                        throw new ServiceException(ErrorCodeConstants.NOT_FOUND, "Solve task not found");
+                }
+                // 登记之后再读一次状态，避免登记前刚好结束的任务收不到终态
+                return progressHub.subscribe(taskId, () -> {
+                        SolveTaskStatusVO vo = loadSolveTask(tenantId, planId, taskId);
+                        return vo == null ? current : vo;
+                });
+        }
+
+        private SolveTaskStatusVO loadSolveTask(Long tenantId, Long planId, String taskId) {
+                // 状态缓存优先：活跃任务的状态轮询不查库
+                SolveJobStatusCache.JobState job = statusCache.get(taskId);
                 if (job == null) {
-                        return CommonResult.error(404, "Solve task not found");
+                        DispatchSolveJobDO row = solveJobMapper.selectOne(
+                                        new LambdaQueryWrapper<DispatchSolveJobDO>()
+                                                        .eq(DispatchSolveJobDO::getTenantId, tenantId)
+                                                        .eq(DispatchSolveJobDO::getPlanId, planId)
+                                                        .eq(DispatchSolveJobDO::getTaskId, taskId)
+                                                        .eq(DispatchSolveJobDO::getDeleted, 0));
+                        if (row == null) {
+                                return null;
+                        }
+                        job = SolveJobStatusCache.JobState.of(row);
+                        statusCache.put(job);
+                } else if (!job.belongsTo(tenantId, planId)) {
+                        return null;
                 }
 
-                return CommonResult.success(
-                                new SolveTaskStatusVO(job.getTaskId(), job.getStatus(), job.getMessage()));
+                SolveTaskStatusVO vo = new SolveTaskStatusVO(job.taskId(), job.status(), job.message());
+                if (SolveTaskStatus.ACCEPTED.code().equals(job.status())) {
+                        SolveDispatcher.QueueInfo queue = solveDispatcher.queueInfo(taskId);
+                        if (queue != null) {
+                                vo.setQueuePosition(queue.position());
+                                vo.setExpectedStartTime(LocalDateTime.ofInstant(
+                                                Instant.ofEpochMilli(queue.expectedStartMillis()), ZoneId.systemDefault()));
+                        } else if (clusterProperties.isEnabled()) {
+                                // 集群队列只给出排队位置，开始时间取决于各工作节点的空闲名额
+                                vo.setQueuePosition(jobQueue.position(taskId));
+                        }
+                }
+                return vo;
+        }
+
+        /**
+         * 取消求解任务
+         */
+        @DeleteMapping("/{planId}/solve/{taskId}")
+        @Operation(summary = "取消求解任务", description = """
+                        取消排队中或执行中的求解任务，不保存本次求解结果，方案保留原有线路。
+
+                        特性说明：
+                        - 排队中的任务立即移出队列，状态置为 CANCELLED
+                        - 执行中的任务中断搜索并立即释放求解名额，状态随后置为 CANCELLED，需通过「查询求解任务状态」确认
+                        - 已结束的任务原样返回当前状态
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "取消请求已受理", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "404", description = "任务不存在"),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
+        })
+        public CommonResult<SolveTaskStatusVO> cancelSolveTask(
+                        @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
+
+                        @Parameter(description = "任务ID", required = true, example = "task_20260122_0001") @PathVariable String taskId,
+
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId) {
+
+                return stopSolveTask(tenantId, planId, taskId, false);
+        }
+
+        /**
+         * 提前结束求解，采用当前最优解
+         */
+        @PostMapping("/{planId}/solve/{taskId}/stop")
+        @Operation(summary = "提前结束求解", description = """
+                        中断执行中的求解，把已找到的最优解按正常结果保存，任务状态为 SOLVED。
+
+                        特性说明：
+                        - 尚未找到可行解时不保存结果，状态置为 CANCELLED
+                        - 排队中的任务直接取消（CANCELLED）
+                        - 已结束的任务原样返回当前状态
+                        """)
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "结束请求已受理", content = @Content(schema = @Schema(implementation = CommonResult.class))),
+                        @ApiResponse(responseCode = "404", description = "任务不存在"),
+                        @ApiResponse(responseCode = "401", description = "未认证或 Token 无效")
+        })
+        public CommonResult<SolveTaskStatusVO> acceptBestSolveTask(
+                        @Parameter(description = "方案ID", required = true, example = "10001") @PathVariable Long planId,
+
+                        @Parameter(description = "任务ID", required = true, example = "task_20260122_0001") @PathVariable String taskId,
+
+                        @Parameter(description = "租户ID", required = true, example = "1") @RequestParam("tenantId") Long tenantId) {
+
+                return stopSolveTask(tenantId, planId, taskId, true);
+        }
+
+        private CommonResult<SolveTaskStatusVO> stopSolveTask(Long tenantId, Long planId, String taskId,
+                        boolean acceptBest) {
+                log.info("HTTP_SOLVE_STOP planId={}, tenantId={}, taskId={}, acceptBest={}", planId, tenantId, taskId,
+                                acceptBest);
+
+                SolveTaskStatusVO vo = planSolveService.cancelSolve(tenantId, planId, taskId, acceptBest);
+                if (vo == null) {
+                        return CommonResult.error(404, "Solve task not found");
+                }
+                return CommonResult.success(vo);
         }
 }
@@ -0,0 +1,127 @@
+package net.mbi.wcloud.dispatch.solver.controller.admin.plan;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanRouteVO;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * 线路明细的 protobuf 编码，格式见 resources/proto/plan_route.proto（RouteList）。
+ * <p>
+ * 直接用 CodedOutputStream 按字段编号写出，不依赖 protoc 生成类：先算出各层消息长度，
+ * 一次分配准确大小的数组再顺序写入。为 null 的字段不写（解码端 has_xxx 为 false）。
+ */
+final class PlanRouteProtobuf {
+
+    static final String MEDIA_TYPE_VALUE = "application/x-protobuf";
+    static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    // RouteList
+    private static final int LIST_ROUTES = 1;
+    // Route
+    private static final int ROUTE_ID = 1;
+    private static final int ROUTE_PLAN_ID = 2;
+    private static final int ROUTE_VEHICLE_ID = 3;
+    private static final int ROUTE_TOTAL_DISTANCE_M = 4;
+    private static final int ROUTE_TOTAL_TIME_SEC = 5;
+    private static final int ROUTE_STOPS = 6;
+    // Stop
+    private static final int STOP_ID = 1;
+    private static final int STOP_SEQ = 2;
+    private static final int STOP_TASK_ID = 3;
+    private static final int STOP_NODE_ID = 4;
+    private static final int STOP_ETA_SEC = 5;
+    private static final int STOP_ETD_SEC = 6;
+    private static final int STOP_SERVICE_TIME_SEC = 7;
+
+    private PlanRouteProtobuf() {
+    }
+
+    static byte[] encode(List<PlanRouteVO.Route> routes) {
+        int[] routeSizes = new int[routes.size()];
+        int total = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            routeSizes[i] = routeSize(routes.get(i));
+            total += CodedOutputStream.computeTagSize(LIST_ROUTES)
+                    + CodedOutputStream.computeUInt32SizeNoTag(routeSizes[i]) + routeSizes[i];
+        }
+
+        byte[] buf = new byte[total];
+        CodedOutputStream out = CodedOutputStream.newInstance(buf);
+        try {
+            for (int i = 0; i < routes.size(); i++) {
+                out.writeTag(LIST_ROUTES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                out.writeUInt32NoTag(routeSizes[i]);
+                writeRoute(out, routes.get(i));
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Encode routes failed: " + e.getMessage(), e);
+        }
+        return buf;
+    }
+
+    private static void writeRoute(CodedOutputStream out, PlanRouteVO.Route r) throws IOException {
+        writeInt64(out, ROUTE_ID, r.getId());
+        writeInt64(out, ROUTE_PLAN_ID, r.getPlanId());
+        writeInt64(out, ROUTE_VEHICLE_ID, r.getVehicleId());
+        writeInt64(out, ROUTE_TOTAL_DISTANCE_M, r.getTotalDistanceM());
+        writeInt64(out, ROUTE_TOTAL_TIME_SEC, r.getTotalTimeSec());
+        for (PlanRouteVO.Stop s : r.getStops()) {
+            out.writeTag(ROUTE_STOPS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(stopSize(s));
+            writeInt64(out, STOP_ID, s.getId());
+            writeInt32(out, STOP_SEQ, s.getSeq());
+            writeInt64(out, STOP_TASK_ID, s.getTaskId());
+            writeInt64(out, STOP_NODE_ID, s.getNodeId());
+            writeInt64(out, STOP_ETA_SEC, s.getEtaSec());
+            writeInt64(out, STOP_ETD_SEC, s.getEtdSec());
+            writeInt32(out, STOP_SERVICE_TIME_SEC, s.getServiceTimeSec());
+        }
+    }
+
+    private static int routeSize(PlanRouteVO.Route r) {
+        int size = int64Size(ROUTE_ID, r.getId())
+                + int64Size(ROUTE_PLAN_ID, r.getPlanId())
+                + int64Size(ROUTE_VEHICLE_ID, r.getVehicleId())
+                + int64Size(ROUTE_TOTAL_DISTANCE_M, r.getTotalDistanceM())
+                + int64Size(ROUTE_TOTAL_TIME_SEC, r.getTotalTimeSec());
+        for (PlanRouteVO.Stop s : r.getStops()) {
+            int stop = stopSize(s);
+            size += CodedOutputStream.computeTagSize(ROUTE_STOPS) + CodedOutputStream.computeUInt32SizeNoTag(stop) + stop;
+        }
+        return size;
+    }
+
+    private static int stopSize(PlanRouteVO.Stop s) {
+        return int64Size(STOP_ID, s.getId())
+                + int32Size(STOP_SEQ, s.getSeq())
+                + int64Size(STOP_TASK_ID, s.getTaskId())
+                + int64Size(STOP_NODE_ID, s.getNodeId())
+                + int64Size(STOP_ETA_SEC, s.getEtaSec())
+                + int64Size(STOP_ETD_SEC, s.getEtdSec())
+                + int32Size(STOP_SERVICE_TIME_SEC, s.getServiceTimeSec());
+    }
+
+    private static int int64Size(int field, Long v) {
+        return v == null ? 0 : CodedOutputStream.computeInt64Size(field, v);
+    }
+
+    private static int int32Size(int field, Integer v) {
+        return v == null ? 0 : CodedOutputStream.computeInt32Size(field, v);
+    }
+
+    private static void writeInt64(CodedOutputStream out, int field, Long v) throws IOException {
+        if (v != null)
+            out.writeInt64(field, v);
+    }
+
+    private static void writeInt32(CodedOutputStream out, int field, Integer v) throws IOException {
+        if (v != null)
+            out.writeInt32(field, v);
+    }
+}
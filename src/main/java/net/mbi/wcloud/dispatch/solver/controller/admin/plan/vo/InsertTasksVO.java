@@ -0,0 +1,41 @@
+package net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Schema(name = "InsertTasksVO", description = "增量插入结果")
+public class InsertTasksVO {
+
+    @Schema(description = "已插入的任务及其所在线路位置")
+    private List<Item> inserted = new ArrayList<>();
+
+    @Schema(description = "没有可行插入位置的任务ID（已记入未分配明细）", example = "[90102]")
+    private List<Long> unassignedTaskIds = new ArrayList<>();
+
+    @Schema(description = "本次改写的线路数（未涉及的线路保持不变）", example = "2")
+    private int affectedRouteCount;
+
+    @Schema(description = "处理耗时（毫秒）", example = "180")
+    private long costMillis;
+
+    @Data
+    @Schema(name = "InsertTasksVO.Item", description = "插入位置")
+    public static class Item {
+
+        @Schema(description = "任务ID", example = "90101", requiredMode = Schema.RequiredMode.REQUIRED)
+        private Long taskId;
+
+        @Schema(description = "车辆ID", example = "30001", requiredMode = Schema.RequiredMode.REQUIRED)
+        private Long vehicleId;
+
+        @Schema(description = "停靠点序号（从 0 开始）", example = "3")
+        private Integer seq;
+
+        @Schema(description = "预计到达时间（秒）", example = "36000")
+        private Long etaSec;
+    }
+}
@@ -10,6 +10,20 @@ import java.util.List;
 
 public class PlanRouteVO {
 
+    @Data
+    @Schema(name = "PlanRouteVO.Page", description = "线路分页（按车辆ID游标翻页）")
+    public static class Page {
+
+        @Schema(description = "本页线路（按车辆ID升序，含停靠点）")
+        private List<Route> list = new ArrayList<>();
+
+        @Schema(description = "下一页游标（传给 afterVehicleId），没有更多时为空", example = "30050")
+        private Long nextCursor;
+
+        @Schema(description = "是否还有下一页", example = "true")
+        private boolean hasMore;
+    }
+
     @Data
     @Schema(name = "PlanRouteVO.Route", description = "线路信息（车辆维度的路径/统计）")
     public static class Route {
@@ -49,6 +49,9 @@ public class PlanVO {
         @Schema(description = "求解耗时（毫秒）", example = "15234")
         private Long solveMillis;
 
+        @Schema(description = "当前生效的解版本（0-尚无求解结果），线路与未分配明细均来自该版本", example = "3")
+        private Long activeVersion;
+
         @Schema(description = "创建时间", example = "2026-01-22T10:15:30")
         private LocalDateTime createdAt;
 
@@ -70,6 +73,7 @@ public class PlanVO {
                 vo.setAssignedCount(d.getAssignedCount());
                 vo.setUnassignedCount(d.getUnassignedCount());
                 vo.setSolveMillis(d.getSolveMillis());
+                vo.setActiveVersion(d.getActiveVersion() == null ? 0L : d.getActiveVersion());
                 vo.setCreatedAt(d.getCreateTime());
                 vo.setUpdatedAt(d.getUpdateTime());
                 return vo;
@@ -0,0 +1,21 @@
+package net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+@Schema(name = "SolveProgressVO", description = "求解进度（搜索找到更优解时推送）")
+public class SolveProgressVO {
+
+    @Schema(description = "求解任务ID", example = "task_20260122_0001", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String taskId;
+
+    @Schema(description = "当前最优解的目标值（越小越好）", example = "1285400")
+    private long objective;
+
+    @Schema(description = "当前最优解已分配的任务数", example = "118")
+    private int assignedTaskCount;
+
+    @Schema(description = "自搜索开始的耗时（毫秒）", example = "4200")
+    private long elapsedMillis;
+}
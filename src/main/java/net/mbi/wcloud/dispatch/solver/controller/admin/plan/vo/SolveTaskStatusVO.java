@@ -2,6 +2,8 @@ package net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.time.LocalDateTime;
+
 @Schema(name = "SolveTaskStatusVO", description = "求解任务状态信息")
 public class SolveTaskStatusVO {
 
@@ -14,6 +16,12 @@ public class SolveTaskStatusVO {
     @Schema(description = "任务状态说明或失败原因", example = "Solver is running")
     private String message;
 
+    @Schema(description = "排队位置（从 1 开始，仅 ACCEPTED 排队中时返回；集群模式为集群队列中的位置）", example = "3")
+    private Integer queuePosition;
+
+    @Schema(description = "预计开始执行时间（按执行中任务的时间上限推算，仅本实例调度的排队任务返回）", example = "2026-01-22T10:15:30")
+    private LocalDateTime expectedStartTime;
+
     public SolveTaskStatusVO() {
     }
 
@@ -46,4 +54,20 @@ public class SolveTaskStatusVO {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    public LocalDateTime getExpectedStartTime() {
+        return expectedStartTime;
+    }
+
+    public void setExpectedStartTime(LocalDateTime expectedStartTime) {
+        this.expectedStartTime = expectedStartTime;
+    }
 }
@@ -0,0 +1,34 @@
+package net.mbi.wcloud.dispatch.solver.dal.dataobject;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("dispatch_node")
+public class DispatchNodeDO {
+
+    @TableId(type = IdType.INPUT)
+    private Long id;
+
+    private Long tenantId;
+    private String nodeCode;
+    private String nodeType;
+
+    private Double lat;
+    private Double lng;
+
+    private String creator;
+    private LocalDateTime createTime;
+    private String updater;
+    private LocalDateTime updateTime;
+
+    @TableLogic
+    @TableField("deleted")
+    private Integer deleted;
+}
@@ -0,0 +1,35 @@
+package net.mbi.wcloud.dispatch.solver.dal.dataobject;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableLogic;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("dispatch_node_distance")
+public class DispatchNodeDistanceDO {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long tenantId;
+
+    private Long fromNodeId;
+    private Long toNodeId;
+
+    private Long distanceM;
+    private Long timeSec;
+
+    private String creator;
+    private LocalDateTime createTime;
+    private String updater;
+    private LocalDateTime updateTime;
+
+    @TableLogic
+    @TableField("deleted")
+    private Integer deleted;
+}
@@ -1,5 +1,6 @@
 package net.mbi.wcloud.dispatch.solver.dal.dataobject;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
@@ -32,6 +33,10 @@ public class DispatchPlanDO {
     private Integer unassignedCount;
     private Long solveMillis;
 
+    /** 当前生效的解版本，只由 DispatchPlanMapper.switchActiveVersion 修改，updateById 不写 */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Long activeVersion;
+
     private String creator;
     private LocalDateTime createTime;
     private String updater;
@@ -25,6 +25,9 @@ public class DispatchRouteDO {
     private Long totalDistanceM;
     private Long totalTimeSec;
 
+    /** 解版本 */
+    private Long solutionVersion;
+
     private String creator;
     private LocalDateTime createTime;
     private String updater;
@@ -29,6 +29,9 @@ public class DispatchRouteStopDO {
     private Long etdSec;
     private Integer serviceTimeSec;
 
+    /** 解版本 */
+    private Long solutionVersion;
+
     private String creator;
     private LocalDateTime createTime;
     private String updater;
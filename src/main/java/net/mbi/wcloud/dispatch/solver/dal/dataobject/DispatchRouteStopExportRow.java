@@ -0,0 +1,19 @@
+package net.mbi.wcloud.dispatch.solver.dal.dataobject;
+
+import lombok.Data;
+
+/**
+ * 线路停靠点导出投影：dispatch_route_stop 关联所属线路的车辆，一行一个停靠点
+ */
+@Data
+public class DispatchRouteStopExportRow {
+
+    private Long vehicleId;
+    private Long routeId;
+    private Integer seq;
+    private Long taskId;
+    private Long nodeId;
+    private Long etaSec;
+    private Long etdSec;
+    private Integer serviceTimeSec;
+}
@@ -0,0 +1,19 @@
+package net.mbi.wcloud.dispatch.solver.dal.dataobject;
+
+import lombok.Data;
+
+/**
+ * dispatch_task 的求解投影：只含组装求解输入用到的列，流式读取大方案时不带审计字段等无关列
+ */
+@Data
+public class DispatchTaskSolveRow {
+
+    private Long id;
+    private Long nodeId;
+    private Double lat;
+    private Double lng;
+    private Integer twStartSec;
+    private Integer twEndSec;
+    private Integer serviceTimeSec;
+    private Integer demandWeight;
+}
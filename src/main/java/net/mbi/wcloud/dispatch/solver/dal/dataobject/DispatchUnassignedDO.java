@@ -23,6 +23,9 @@ public class DispatchUnassignedDO {
     private String reasonCode;
     private String detail;
 
+    /** 解版本 */
+    private Long solutionVersion;
+
     private String creator;
     private LocalDateTime createTime;
     private String updater;
@@ -0,0 +1,9 @@
+package net.mbi.wcloud.dispatch.solver.dal.mysql;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchNodeDO;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface DispatchNodeMapper extends BaseMapper<DispatchNodeDO> {
+}
@@ -3,7 +3,19 @@ package net.mbi.wcloud.dispatch.solver.dal.mysql;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchPlanDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 @Mapper
 public interface DispatchPlanMapper extends BaseMapper<DispatchPlanDO> {
+
+    /**
+     * 切换生效的解版本（比较并设置）：当前版本不是 expected 时不更新，返回 0
+     */
+    @Update("""
+            UPDATE dispatch_plan SET active_version = #{next}
+            WHERE id = #{planId} AND tenant_id = #{tenantId} AND active_version = #{expected} AND deleted = 0
+            """)
+    int switchActiveVersion(@Param("tenantId") Long tenantId, @Param("planId") Long planId,
+            @Param("expected") long expected, @Param("next") long next);
 }
@@ -2,8 +2,43 @@ package net.mbi.wcloud.dispatch.solver.dal.mysql;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteDO;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Options;
+
+import java.util.List;
 
 @Mapper
 public interface DispatchRouteMapper extends BaseMapper<DispatchRouteDO> {
+
+    /**
+     * 多行 INSERT，一次往返写入整批路线；自增主键按行回填到 id
+     */
+    @Insert("""
+            <script>
+            INSERT INTO dispatch_route (tenant_id, plan_id, vehicle_id, total_distance_m, total_time_sec,
+                solution_version, deleted)
+            VALUES
+            <foreach collection="list" item="r" separator=",">
+                (#{r.tenantId}, #{r.planId}, #{r.vehicleId}, #{r.totalDistanceM}, #{r.totalTimeSec},
+                #{r.solutionVersion}, 0)
+            </foreach>
+            </script>
+            """)
+    @Options(useGeneratedKeys = true, keyProperty = "id", keyColumn = "id")
+    int insertBatch(List<DispatchRouteDO> list);
+
+    /**
+     * 物理删除旧版本（以及当前版本里已逻辑删除的行），每次最多 limit 行，返回删除行数
+     */
+    @Delete("""
+            DELETE FROM dispatch_route
+            WHERE tenant_id = #{tenantId} AND plan_id = #{planId}
+              AND (solution_version < #{activeVersion} OR deleted = 1)
+            LIMIT #{limit}
+            """)
+    int purgeStale(@Param("tenantId") Long tenantId, @Param("planId") Long planId,
+            @Param("activeVersion") long activeVersion, @Param("limit") int limit);
 }
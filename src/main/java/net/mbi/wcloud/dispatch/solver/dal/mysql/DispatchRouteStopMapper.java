@@ -2,8 +2,63 @@ package net.mbi.wcloud.dispatch.solver.dal.mysql;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteStopDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteStopExportRow;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
 
 @Mapper
 public interface DispatchRouteStopMapper extends BaseMapper<DispatchRouteStopDO> {
+
+    /**
+     * 多行 INSERT，一次往返写入整批停靠点
+     */
+    @Insert("""
+            <script>
+            INSERT INTO dispatch_route_stop (tenant_id, plan_id, route_id, seq, task_id, node_id, eta_sec, etd_sec,
+                service_time_sec, solution_version, deleted)
+            VALUES
+            <foreach collection="list" item="s" separator=",">
+                (#{s.tenantId}, #{s.planId}, #{s.routeId}, #{s.seq}, #{s.taskId}, #{s.nodeId}, #{s.etaSec}, #{s.etdSec},
+                #{s.serviceTimeSec}, #{s.solutionVersion}, 0)
+            </foreach>
+            </script>
+            """)
+    int insertBatch(List<DispatchRouteStopDO> list);
+
+    /**
+     * 物理删除旧版本（以及当前版本里已逻辑删除的行），每次最多 limit 行，返回删除行数
+     */
+    @Delete("""
+            DELETE FROM dispatch_route_stop
+            WHERE tenant_id = #{tenantId} AND plan_id = #{planId}
+              AND (solution_version < #{activeVersion} OR deleted = 1)
+            LIMIT #{limit}
+            """)
+    int purgeStale(@Param("tenantId") Long tenantId, @Param("planId") Long planId,
+            @Param("activeVersion") long activeVersion, @Param("limit") int limit);
+
+    /**
+     * 流式读取某个解版本的全部停靠点（带车辆ID），按线路、站序排列，逐行回调 handler
+     */
+    @Select("""
+            SELECT r.vehicle_id, s.route_id, s.seq, s.task_id, s.node_id, s.eta_sec, s.etd_sec, s.service_time_sec
+            FROM dispatch_route_stop s
+            JOIN dispatch_route r ON r.id = s.route_id AND r.deleted = 0
+            WHERE s.tenant_id = #{tenantId} AND s.plan_id = #{planId} AND s.solution_version = #{version}
+              AND s.deleted = 0
+            ORDER BY s.route_id, s.seq
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(DispatchRouteStopExportRow.class)
+    void streamForExport(@Param("tenantId") Long tenantId, @Param("planId") Long planId,
+            @Param("version") long version, ResultHandler<DispatchRouteStopExportRow> handler);
 }
@@ -2,8 +2,38 @@ package net.mbi.wcloud.dispatch.solver.dal.mysql;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchTaskDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchTaskSolveRow;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.Collection;
 
 @Mapper
 public interface DispatchTaskMapper extends BaseMapper<DispatchTaskDO> {
+
+    /**
+     * 流式读取方案的待调度任务（求解投影），逐行回调 handler，不在内存里攒整张结果集；
+     * taskIds 为空时取方案全部 WAITING 任务
+     */
+    @Select("""
+            <script>
+            SELECT id, node_id, lat, lng, tw_start_sec, tw_end_sec, service_time_sec, demand_weight
+            FROM dispatch_task
+            WHERE tenant_id = #{tenantId} AND plan_id = #{planId} AND status = 'WAITING' AND deleted = 0
+            <if test="taskIds != null and taskIds.size() > 0">
+                AND id IN
+                <foreach collection="taskIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </if>
+            ORDER BY id
+            </script>
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(DispatchTaskSolveRow.class)
+    void streamWaitingForSolve(@Param("tenantId") Long tenantId, @Param("planId") Long planId,
+            @Param("taskIds") Collection<Long> taskIds, ResultHandler<DispatchTaskSolveRow> handler);
 }
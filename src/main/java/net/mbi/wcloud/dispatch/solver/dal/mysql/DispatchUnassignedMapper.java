@@ -2,8 +2,40 @@ package net.mbi.wcloud.dispatch.solver.dal.mysql;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchUnassignedDO;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface DispatchUnassignedMapper extends BaseMapper<DispatchUnassignedDO> {
+
+    /**
+     * 多行 INSERT，一次往返写入整批未分配明细
+     */
+    @Insert("""
+            <script>
+            INSERT INTO dispatch_unassigned (tenant_id, plan_id, task_id, reason_code, detail, solution_version,
+                deleted)
+            VALUES
+            <foreach collection="list" item="u" separator=",">
+                (#{u.tenantId}, #{u.planId}, #{u.taskId}, #{u.reasonCode}, #{u.detail}, #{u.solutionVersion}, 0)
+            </foreach>
+            </script>
+            """)
+    int insertBatch(List<DispatchUnassignedDO> list);
+
+    /**
+     * 物理删除旧版本（以及当前版本里已逻辑删除的行），每次最多 limit 行，返回删除行数
+     */
+    @Delete("""
+            DELETE FROM dispatch_unassigned
+            WHERE tenant_id = #{tenantId} AND plan_id = #{planId}
+              AND (solution_version < #{activeVersion} OR deleted = 1)
+            LIMIT #{limit}
+            """)
+    int purgeStale(@Param("tenantId") Long tenantId, @Param("planId") Long planId,
+            @Param("activeVersion") long activeVersion, @Param("limit") int limit);
 }
@@ -3,7 +3,30 @@ package net.mbi.wcloud.dispatch.solver.dal.mysql;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchVehicleDO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface DispatchVehicleMapper extends BaseMapper<DispatchVehicleDO> {
+
+    /**
+     * 租户的可用车辆，只查求解用到的列；vehicleIds 为空时取全部可用车辆
+     */
+    @Select("""
+            <script>
+            SELECT id, start_node_id, end_node_id, capacity_weight, work_start_sec, work_end_sec
+            FROM dispatch_vehicle
+            WHERE tenant_id = #{tenantId} AND status = 'AVAILABLE' AND deleted = 0
+            <if test="vehicleIds != null and vehicleIds.size() > 0">
+                AND id IN
+                <foreach collection="vehicleIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </if>
+            ORDER BY id
+            </script>
+            """)
+    List<DispatchVehicleDO> selectAvailableForSolve(@Param("tenantId") Long tenantId,
+            @Param("vehicleIds") Collection<Long> vehicleIds);
 }
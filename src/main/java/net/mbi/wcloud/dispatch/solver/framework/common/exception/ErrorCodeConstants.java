@@ -16,4 +16,8 @@ public final class ErrorCodeConstants {
     public static final int VALIDATE_FAILED = 1002001;
     public static final int DB_ERROR = 1001001;
     public static final int SQL_BAD_GRAMMAR = 1001002;
+
+    // 求解
+    public static final int SOLVE_QUEUE_FULL = 1003001;
+    public static final int SOLVE_TENANT_BUDGET_EXCEEDED = 1003002;
 }
@@ -1,21 +1,82 @@
 package net.mbi.wcloud.dispatch.solver.framework.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
+@EnableScheduling
 public class AsyncConfig {
 
+    /**
+     * 求解任务池：SolveDispatcher 提交的求解任务在这里执行，分解求解的子问题也借用空闲线程；
+     * 线程与队列都满时拒绝（AbortPolicy），由提交方显式标记为 REJECTED，不在请求线程上执行
+     */
     @Bean("solveExecutor")
-    public Executor solveExecutor() {
+    public ThreadPoolTaskExecutor solveExecutor(
+            @Value("${dispatch.solver.executor.core-size:4}") int coreSize,
+            @Value("${dispatch.solver.executor.max-size:16}") int maxSize,
+            @Value("${dispatch.solver.executor.queue-capacity:200}") int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(16);
-        executor.setQueueCapacity(200);
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("solve-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 组合求解的额外搜索：线程数等于 CPU 预算（与 PortfolioSolver 的名额数相同），不排队；
+     * 没有空闲线程时拒绝，组合求解按拿到的线程数降级，不占用求解任务池的线程与队列
+     */
+    @Bean("portfolioExecutor")
+    public ThreadPoolTaskExecutor portfolioExecutor(
+            @Value("${dispatch.solver.portfolio.cpu-budget:0}") int cpuBudget) {
+        int threads = cpuBudget > 0 ? cpuBudget : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("portfolio-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 矩阵按行分块并行计算，线程数与 CPU 核数一致；队列满时由提交线程自己执行，不丢任务
+     */
+    @Bean("matrixExecutor")
+    public Executor matrixExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(cores);
+        executor.setMaxPoolSize(cores);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("matrix-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * SSE 推送：单线程按顺序向订阅者写出事件，求解线程只负责投递；积压时由投递线程自己写出，不丢终态事件
+     */
+    @Bean("sseExecutor")
+    public Executor sseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("sse-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         executor.initialize();
         return executor;
     }
@@ -5,4 +5,35 @@ public interface DistributedLock {
     boolean tryLock(String key, int ttlSeconds);
 
     void unlock(String key);
+
+    /**
+     * 租约锁：由 owner（如求解 taskId）持有而不是线程，任何线程/节点凭 owner 续租或释放。
+     * <p>
+     * 租约相关方法的 false 只表示确定的结果（被他人持有/已不再持有）；Redis 访问出错时抛出异常，由调用方决定重试
+     *
+     * @return 已被其他 owner 持有时返回 false；同一 owner 重复获取视为成功并重置租期
+     */
+    boolean tryLease(String key, String owner, long leaseMillis);
+
+    /**
+     * 续租；租约已过期或已被其他 owner 持有时返回 false
+     */
+    boolean renewLease(String key, String owner, long leaseMillis);
+
+    /**
+     * 交接租约：当前由 fromOwner 持有、已过期或已由 toOwner 持有时改为 toOwner 持有并重置租期
+     *
+     * @return 被其他 owner 持有时返回 false
+     */
+    boolean handoverLease(String key, String fromOwner, String toOwner, long leaseMillis);
+
+    /**
+     * 当前持有者；没有（已过期或已释放）时返回 null
+     */
+    String leaseOwner(String key);
+
+    /**
+     * 释放；只删除 owner 自己持有的租约。出错时只记录日志，租约到期自然失效
+     */
+    void releaseLease(String key, String owner);
 }
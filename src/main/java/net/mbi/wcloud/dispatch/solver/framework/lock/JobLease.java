@@ -0,0 +1,101 @@
+package net.mbi.wcloud.dispatch.solver.framework.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务级租约：锁的持有者是任务（owner），不是线程。
+ * <p>
+ * 获取后由本实例的看门狗按固定间隔续租，直到任一线程/节点以同一 owner 释放；
+ * 确定已不再持有（租约已过期被他人获取、或已在别处释放）即停止续租并通知持有者，Redis 访问出错时下一轮照常重试。
+ * 实例宕机后租约在 leaseMillis 内自然过期。
+ */
+@Slf4j
+@Component
+public class JobLease {
+
+    private final DistributedLock distributedLock;
+    private final long leaseMillis;
+
+    /** 本实例负责续租的租约：key -> 持有者 */
+    private final Map<String, Watch> watched = new ConcurrentHashMap<>();
+
+    /**
+     * @param onLost 确定失去租约时调用（看门狗线程），如停止仍在写入的求解；null 表示无需通知
+     */
+    private record Watch(String owner, Runnable onLost) {
+    }
+
+    public JobLease(DistributedLock distributedLock,
+            @Value("${dispatch.solver.lease-millis:30000}") long leaseMillis) {
+        this.distributedLock = distributedLock;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * 获取租约并开始续租；已被其他 owner 持有时返回 false
+     */
+    public boolean acquire(String key, String owner) {
+        if (!distributedLock.tryLease(key, owner, leaseMillis))
+            return false;
+        watched.put(key, new Watch(owner, null));
+        return true;
+    }
+
+    /**
+     * 接手提交时获取的租约（如排队后在其他线程/节点开始执行）：由 submitter 持有、已过期或已由 owner 持有时
+     * 改为 owner 持有并开始续租。被其他 owner 持有时返回 false
+     *
+     * @param onLost 续租时发现租约已被他人持有时调用
+     */
+    public boolean adopt(String key, String submitter, String owner, Runnable onLost) {
+        if (!distributedLock.handoverLease(key, submitter, owner, leaseMillis))
+            return false;
+        watched.put(key, new Watch(owner, onLost));
+        return true;
+    }
+
+    /**
+     * 当前持有者，没有时返回 null
+     */
+    public String owner(String key) {
+        return distributedLock.leaseOwner(key);
+    }
+
+    /**
+     * 停止续租并释放；可以在任意线程/节点调用
+     */
+    public void release(String key, String owner) {
+        watched.computeIfPresent(key, (k, w) -> w.owner().equals(owner) ? null : w);
+        distributedLock.releaseLease(key, owner);
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.solver.lease-renew-interval-ms:10000}")
+    public void renew() {
+        for (Map.Entry<String, Watch> e : watched.entrySet()) {
+            String key = e.getKey();
+            Watch w = e.getValue();
+            try {
+                if (distributedLock.renewLease(key, w.owner(), leaseMillis))
+                    continue;
+            } catch (RuntimeException ex) {
+                // 网络抖动/Redis 暂时不可用：不能断定失去租约，保持续租，下一轮重试
+                log.warn("LEASE_RENEW_ERROR key={}, owner={}, err={}", key, w.owner(), ex.getMessage());
+                continue;
+            }
+            // 本实例释放的已不在 watched 中；仍在说明已在别处释放、被他人持有或已过期
+            if (!watched.remove(key, w))
+                continue;
+            log.info("LEASE_RENEW_STOPPED key={}, owner={}", key, w.owner());
+            if (w.onLost() != null) {
+                log.warn("LEASE_LOST key={}, owner={}", key, w.owner());
+                w.onLost().run();
+            }
+        }
+    }
+}
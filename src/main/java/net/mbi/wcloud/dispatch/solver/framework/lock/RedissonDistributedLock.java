@@ -3,9 +3,12 @@ package net.mbi.wcloud.dispatch.solver.framework.lock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -16,6 +19,27 @@ public class RedissonDistributedLock implements DistributedLock {
     private final RedissonClient redissonClient;
 
     private static final String LOCK_PREFIX = "dispatch:solver:lock:";
+    private static final String LEASE_PREFIX = "dispatch:solver:lease:";
+
+    private static final String LEASE_ACQUIRE = ""
+            + "local cur = redis.call('GET', KEYS[1]) "
+            + "if cur and cur ~= ARGV[1] then return 0 end "
+            + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+            + "return 1";
+
+    private static final String LEASE_RENEW = ""
+            + "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+            + "return 0";
+
+    private static final String LEASE_HANDOVER = ""
+            + "local cur = redis.call('GET', KEYS[1]) "
+            + "if cur and cur ~= ARGV[1] and cur ~= ARGV[2] then return 0 end "
+            + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) "
+            + "return 1";
+
+    private static final String LEASE_RELEASE = ""
+            + "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+            + "return 0";
 
     @Override
     public boolean tryLock(String key, int ttlSeconds) {
@@ -52,4 +76,43 @@ public class RedissonDistributedLock implements DistributedLock {
             log.error("Unlock error: {}", lockKey, e);
         }
     }
+
+    @Override
+    public boolean tryLease(String key, String owner, long leaseMillis) {
+        return evalLease(LEASE_ACQUIRE, key, owner, String.valueOf(leaseMillis));
+    }
+
+    @Override
+    public boolean renewLease(String key, String owner, long leaseMillis) {
+        return evalLease(LEASE_RENEW, key, owner, String.valueOf(leaseMillis));
+    }
+
+    @Override
+    public boolean handoverLease(String key, String fromOwner, String toOwner, long leaseMillis) {
+        return evalLease(LEASE_HANDOVER, key, fromOwner, toOwner, String.valueOf(leaseMillis));
+    }
+
+    @Override
+    public String leaseOwner(String key) {
+        return redissonClient.<String>getBucket(LEASE_PREFIX + key, StringCodec.INSTANCE).get();
+    }
+
+    @Override
+    public void releaseLease(String key, String owner) {
+        try {
+            if (!evalLease(LEASE_RELEASE, key, owner))
+                log.warn("Lease release skipped (not held by owner): {}, owner={}", LEASE_PREFIX + key, owner);
+        } catch (Exception e) {
+            log.error("Lease release error: {}, owner={}", LEASE_PREFIX + key, owner, e);
+        }
+    }
+
+    /**
+     * 脚本返回 0 时为 false；Redis 访问出错时异常直接抛出，不当作失去租约
+     */
+    private boolean evalLease(String script, String key, Object... args) {
+        Long ok = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, script,
+                RScript.ReturnType.LONG, List.of(LEASE_PREFIX + key), args);
+        return ok != null && ok == 1L;
+    }
 }
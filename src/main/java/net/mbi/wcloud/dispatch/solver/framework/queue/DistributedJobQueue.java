@@ -0,0 +1,83 @@
+package net.mbi.wcloud.dispatch.solver.framework.queue;
+
+import java.util.List;
+
+/**
+ * 跨实例的任务队列：提交方入队，工作节点按空闲名额领取，执行期间定期续租，
+ * 租约过期（工作节点宕机/失联）的任务由任意节点回收后重新入队
+ */
+public interface DistributedJobQueue {
+
+    /**
+     * @param jobId   任务唯一标识
+     * @param attempt 第几次被领取（从 1 开始）
+     */
+    record Claim(String jobId, String payload, int attempt) {
+    }
+
+    /**
+     * @param requeued 重新入队的任务数
+     * @param dead     领取次数已用完、不再重试的任务
+     */
+    record Reaped(int requeued, List<String> dead) {
+    }
+
+    /**
+     * 入队；同一 jobId 已在队列中时视为成功
+     *
+     * @param priority 0-9，越大越先被领取
+     * @param capacity 排队任务数上限，0 表示不限
+     * @return 队列已满时返回 false
+     */
+    boolean offer(String jobId, String payload, int priority, int capacity);
+
+    /**
+     * 领取一个任务并持有 leaseMillis 的租约，队列为空时返回 null
+     */
+    Claim claim(String workerId, long leaseMillis);
+
+    /**
+     * 续租；任务已被回收或不属于该工作节点时返回 false
+     */
+    boolean heartbeat(String jobId, String workerId, long leaseMillis);
+
+    /**
+     * 执行结束，移出队列
+     */
+    void complete(String jobId, String workerId);
+
+    /**
+     * 放弃已领取的任务（本节点暂时无法执行），不计入领取次数：按原优先级重新排队，backoffMillis 内不会被再次领取，
+     * 避免在节点之间反复弹跳
+     */
+    void release(String jobId, String workerId, int priority, long backoffMillis);
+
+    /**
+     * 从排队中移除；已被领取或不在队列中返回 false
+     */
+    boolean cancel(String jobId);
+
+    /**
+     * 给已领取的任务发停止信号，由执行它的工作节点轮询读取；任务结束出队时一并清除
+     *
+     * @return 任务不在执行中时返回 false
+     */
+    boolean signalStop(String jobId, String signal);
+
+    /**
+     * 读取停止信号，没有则返回 null
+     */
+    String stopSignal(String jobId);
+
+    /**
+     * 回收租约已过期的任务：领取次数未超过 maxAttempts 的放回队首，否则丢弃并返回
+     */
+    Reaped reapExpired(int maxAttempts);
+
+    /**
+     * 排队位置（从 1 开始），不在排队中返回 null
+     */
+    Integer position(String jobId);
+
+    int size();
+}
@@ -0,0 +1,219 @@
+package net.mbi.wcloud.dispatch.solver.framework.queue;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis 实现：每个操作是一段 Lua 脚本，领取/续租/回收都是原子的，多个工作节点并发领取不会重复。
+ * <p>
+ * 数据结构（前缀 dispatch:solver:{queue}:，哈希标签保证集群模式下所有键落在同一槽位，脚本才能同时操作）：
+ * <ul>
+ * <li>pending：ZSET，score = (9 - 优先级) × 1e13 + 入队毫秒，回收的任务 score 为 0 排在队首；
+ * 工作节点放回的任务按原优先级、以“放回时间 + 退避”重新排队；</li>
+ * <li>inflight：ZSET，score = 租约到期毫秒（取 Redis 服务器时间，避免节点间时钟偏差）；</li>
+ * <li>payload / owner / attempts / stop：HASH，jobId -> 任务内容 / 工作节点 / 领取次数 / 停止信号；</li>
+ * <li>notbefore：HASH，jobId -> 放回的任务最早可再次领取的毫秒，领取时跳过未到期的任务（只看队首 CLAIM_SCAN 个）。</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedissonDistributedJobQueue implements DistributedJobQueue {
+
+    private final RedissonClient redissonClient;
+
+    private static final String PREFIX = "dispatch:solver:{queue}:";
+    private static final String PENDING = PREFIX + "pending";
+    private static final String INFLIGHT = PREFIX + "inflight";
+    private static final String PAYLOAD = PREFIX + "payload";
+    private static final String OWNER = PREFIX + "owner";
+    private static final String ATTEMPTS = PREFIX + "attempts";
+    private static final String STOP = PREFIX + "stop";
+    private static final String NOT_BEFORE = PREFIX + "notbefore";
+
+    /** 单次回收的任务数上限，避免脚本执行过久阻塞 Redis */
+    private static final int REAP_BATCH = 100;
+    /** 领取时最多查看的队首任务数（跳过退避中的任务） */
+    private static final int CLAIM_SCAN = 32;
+
+    private static final String NOW = "local t = redis.call('TIME') "
+            + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) ";
+
+    private static final String OFFER = ""
+            + "if redis.call('HEXISTS', KEYS[2], ARGV[1]) == 1 then return 1 end "
+            + "if tonumber(ARGV[4]) > 0 and redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[4]) then return 0 end "
+            + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) "
+            + "redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1]) "
+            + "return 1";
+
+    private static final String CLAIM = NOW
+            + "local ids = redis.call('ZRANGE', KEYS[1], 0, tonumber(ARGV[3]) - 1) "
+            + "local id = nil "
+            + "for _, c in ipairs(ids) do "
+            + "  if tonumber(redis.call('HGET', KEYS[6], c) or '0') <= now then id = c break end "
+            + "end "
+            + "if not id then return {} end "
+            + "redis.call('ZREM', KEYS[1], id) "
+            + "redis.call('HDEL', KEYS[6], id) "
+            + "redis.call('ZADD', KEYS[3], now + tonumber(ARGV[2]), id) "
+            + "redis.call('HSET', KEYS[4], id, ARGV[1]) "
+            + "local attempt = redis.call('HINCRBY', KEYS[5], id, 1) "
+            + "return {id, redis.call('HGET', KEYS[2], id) or '', tostring(attempt)}";
+
+    private static final String HEARTBEAT = NOW
+            + "if redis.call('HGET', KEYS[2], ARGV[1]) ~= ARGV[2] then return 0 end "
+            + "redis.call('ZADD', KEYS[1], now + tonumber(ARGV[3]), ARGV[1]) "
+            + "return 1";
+
+    private static final String COMPLETE = ""
+            + "if redis.call('HGET', KEYS[2], ARGV[1]) ~= ARGV[2] then return 0 end "
+            + "redis.call('ZREM', KEYS[1], ARGV[1]) "
+            + "redis.call('HDEL', KEYS[2], ARGV[1]) "
+            + "redis.call('HDEL', KEYS[3], ARGV[1]) "
+            + "redis.call('HDEL', KEYS[4], ARGV[1]) "
+            + "redis.call('HDEL', KEYS[5], ARGV[1]) "
+            + "return 1";
+
+    private static final String CANCEL = ""
+            + "if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then return 0 end "
+            + "redis.call('HDEL', KEYS[2], ARGV[1]) "
+            + "redis.call('HDEL', KEYS[3], ARGV[1]) "
+            + "redis.call('HDEL', KEYS[4], ARGV[1]) "
+            + "return 1";
+
+    private static final String SIGNAL_STOP = ""
+            + "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end "
+            + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) "
+            + "return 1";
+
+    private static final String RELEASE = NOW
+            + "if redis.call('HGET', KEYS[4], ARGV[1]) ~= ARGV[2] then return 0 end "
+            + "redis.call('ZREM', KEYS[3], ARGV[1]) "
+            + "redis.call('HDEL', KEYS[4], ARGV[1]) "
+            + "redis.call('HINCRBY', KEYS[5], ARGV[1], -1) "
+            + "local due = now + tonumber(ARGV[4]) "
+            + "redis.call('HSET', KEYS[6], ARGV[1], due) "
+            + "redis.call('ZADD', KEYS[1], tonumber(ARGV[3]) + due, ARGV[1]) "
+            + "return 1";
+
+    private static final String REAP = NOW
+            + "local ids = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', now, 'LIMIT', 0, tonumber(ARGV[2])) "
+            + "local out = {'0'} "
+            + "local requeued = 0 "
+            + "for _, id in ipairs(ids) do "
+            + "  redis.call('ZREM', KEYS[3], id) "
+            + "  redis.call('HDEL', KEYS[4], id) "
+            + "  if tonumber(redis.call('HGET', KEYS[5], id) or '0') >= tonumber(ARGV[1]) then "
+            + "    redis.call('HDEL', KEYS[2], id) "
+            + "    redis.call('HDEL', KEYS[5], id) "
+            + "    redis.call('HDEL', KEYS[6], id) "
+            + "    table.insert(out, id) "
+            + "  else "
+            + "    redis.call('ZADD', KEYS[1], 0, id) "
+            + "    requeued = requeued + 1 "
+            + "  end "
+            + "end "
+            + "out[1] = tostring(requeued) "
+            + "return out";
+
+    @Override
+    public boolean offer(String jobId, String payload, int priority, int capacity) {
+        long score = priorityBase(priority) + System.currentTimeMillis();
+        Long ok = script().eval(RScript.Mode.READ_WRITE, OFFER, RScript.ReturnType.LONG,
+                List.of(PENDING, PAYLOAD), jobId, payload, String.valueOf(score), String.valueOf(capacity));
+        return ok != null && ok == 1L;
+    }
+
+    @Override
+    public Claim claim(String workerId, long leaseMillis) {
+        List<Object> r = script().eval(RScript.Mode.READ_WRITE, CLAIM, RScript.ReturnType.LIST,
+                List.of(PENDING, PAYLOAD, INFLIGHT, OWNER, ATTEMPTS, NOT_BEFORE), workerId, String.valueOf(leaseMillis),
+                String.valueOf(CLAIM_SCAN));
+        if (r == null || r.isEmpty())
+            return null;
+        return new Claim(String.valueOf(r.get(0)), String.valueOf(r.get(1)), Integer.parseInt(String.valueOf(r.get(2))));
+    }
+
+    @Override
+    public boolean heartbeat(String jobId, String workerId, long leaseMillis) {
+        Long ok = script().eval(RScript.Mode.READ_WRITE, HEARTBEAT, RScript.ReturnType.LONG,
+                List.of(INFLIGHT, OWNER), jobId, workerId, String.valueOf(leaseMillis));
+        return ok != null && ok == 1L;
+    }
+
+    @Override
+    public void complete(String jobId, String workerId) {
+        Long ok = script().eval(RScript.Mode.READ_WRITE, COMPLETE, RScript.ReturnType.LONG,
+                List.of(INFLIGHT, OWNER, PAYLOAD, ATTEMPTS, STOP), jobId, workerId);
+        if (ok == null || ok != 1L)
+            log.warn("JOB_QUEUE_COMPLETE_SKIPPED jobId={}, workerId={} (lease lost)", jobId, workerId);
+    }
+
+    @Override
+    public void release(String jobId, String workerId, int priority, long backoffMillis) {
+        script().eval(RScript.Mode.READ_WRITE, RELEASE, RScript.ReturnType.LONG,
+                List.of(PENDING, PAYLOAD, INFLIGHT, OWNER, ATTEMPTS, NOT_BEFORE), jobId, workerId,
+                String.valueOf(priorityBase(priority)), String.valueOf(backoffMillis));
+    }
+
+    @Override
+    public boolean cancel(String jobId) {
+        Long ok = script().eval(RScript.Mode.READ_WRITE, CANCEL, RScript.ReturnType.LONG,
+                List.of(PENDING, PAYLOAD, ATTEMPTS, NOT_BEFORE), jobId);
+        return ok != null && ok == 1L;
+    }
+
+    @Override
+    public boolean signalStop(String jobId, String signal) {
+        Long ok = script().eval(RScript.Mode.READ_WRITE, SIGNAL_STOP, RScript.ReturnType.LONG,
+                List.of(OWNER, STOP), jobId, signal);
+        return ok != null && ok == 1L;
+    }
+
+    @Override
+    public String stopSignal(String jobId) {
+        return redissonClient.<String, String>getMap(STOP, StringCodec.INSTANCE).get(jobId);
+    }
+
+    @Override
+    public Reaped reapExpired(int maxAttempts) {
+        List<Object> r = script().eval(RScript.Mode.READ_WRITE, REAP, RScript.ReturnType.LIST,
+                List.of(PENDING, PAYLOAD, INFLIGHT, OWNER, ATTEMPTS, STOP), String.valueOf(maxAttempts),
+                String.valueOf(REAP_BATCH));
+        if (r == null || r.isEmpty())
+            return new Reaped(0, List.of());
+        List<String> dead = new ArrayList<>(r.size() - 1);
+        for (int i = 1; i < r.size(); i++)
+            dead.add(String.valueOf(r.get(i)));
+        return new Reaped(Integer.parseInt(String.valueOf(r.get(0))), dead);
+    }
+
+    @Override
+    public Integer position(String jobId) {
+        Integer rank = redissonClient.<String>getScoredSortedSet(PENDING, StringCodec.INSTANCE).rank(jobId);
+        return rank == null ? null : rank + 1;
+    }
+
+    @Override
+    public int size() {
+        return redissonClient.getScoredSortedSet(PENDING, StringCodec.INSTANCE).size();
+    }
+
+    /**
+     * pending 的优先级部分：优先级越高越小
+     */
+    private static long priorityBase(int priority) {
+        return (9L - priority) * 10_000_000_000_000L;
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+}
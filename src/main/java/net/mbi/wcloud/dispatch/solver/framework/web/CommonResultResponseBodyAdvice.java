@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import net.mbi.wcloud.dispatch.solver.framework.common.pojo.CommonResult;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServerHttpRequest;
@@ -11,6 +12,7 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 @RestControllerAdvice
 public class CommonResultResponseBodyAdvice implements ResponseBodyAdvice<Object> {
@@ -37,11 +39,21 @@ public class CommonResultResponseBodyAdvice implements ResponseBodyAdvice<Object
             return false;
         }
 
+        // SSE 等流式响应逐条写出事件，不能整体包装
+        if (ResponseBodyEmitter.class.isAssignableFrom(paramType)) {
+            return false;
+        }
+
         // 避免 byte[] / String 的 converter 写出时发生类型转换异常
         if (byte[].class == paramType || String.class == paramType) {
             return false;
         }
 
+        // ResponseEntity<byte[]>（如 protobuf 等二进制表示）的参数类型是 ResponseEntity，按选中的 converter 判断
+        if (ByteArrayHttpMessageConverter.class.isAssignableFrom(converterType)) {
+            return false;
+        }
+
         return true;
     }
 
@@ -0,0 +1,79 @@
+package net.mbi.wcloud.dispatch.solver.matrix;
+
+import lombok.Data;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "dispatch.solver.matrix")
+public class MatrixProperties {
+
+    /** 默认矩阵提供者：haversine / table / file */
+    private String defaultProvider = "haversine";
+
+    /** 按租户指定矩阵提供者：tenantId -> provider name */
+    private Map<Long, String> tenantProviders = new HashMap<>();
+
+    /** 矩阵存储精度：INT（int 米/秒）或 SHORT（16 位量化，内存减半） */
+    private MatrixData.Precision precision = MatrixData.Precision.INT;
+
+    /** 矩阵缓冲区是否放在堆外（direct ByteBuffer） */
+    private boolean offHeap = false;
+
+    private Haversine haversine = new Haversine();
+
+    private File file = new File();
+
+    private Cache cache = new Cache();
+
+    private Store store = new Store();
+
+    @Data
+    public static class Haversine {
+        /** 绕行系数：路网距离 / 球面直线距离 */
+        private double detourFactor = 1.3;
+        /** 平均车速（km/h），用于由距离推算行驶时间 */
+        private double speedKmh = 30;
+    }
+
+    @Data
+    public static class File {
+        /** 本地矩阵文件目录，文件名 tenant-{tenantId}.csv，每行 from_node_id,to_node_id,distance_m,time_sec */
+        private String dir = "./matrix";
+    }
+
+    @Data
+    public static class Cache {
+        /** 是否启用跨求解矩阵行缓存 */
+        private boolean enabled = true;
+        /** 缓存占用上限（字节） */
+        private long maxBytes = 256L * 1024 * 1024;
+        /** 行多久未被访问后过期（分钟） */
+        private long expireAfterAccessMinutes = 360;
+    }
+
+    @Data
+    public static class Store {
+        /** 是否启用内存映射的持久化矩阵存储（启用的租户不再走内存行缓存） */
+        private boolean enabled = false;
+        /** 启用的租户，为空表示全部租户 */
+        private Set<Long> tenants = new HashSet<>();
+        /** 存储根目录，同机多个 JVM 指向同一目录即可共享 */
+        private String dir = "./matrix-store";
+        /**
+         * 每个区域最多容纳的节点行数（1-16383，仅在新建文件时生效），文件大小 = capacity² × 8 字节（稀疏）。
+         * 坐标变化的节点会追加新行；写满后新节点每次都由提供者计算（计入 dispatch.matrix.store.full.misses），
+         * 调大后作废租户即按新容量建新一代
+         */
+        private int capacity = 4096;
+        /** 本实例是否写入新节点；只读实例只映射读取 */
+        private boolean writable = true;
+    }
+}
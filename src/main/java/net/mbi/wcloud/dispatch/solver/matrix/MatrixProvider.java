@@ -0,0 +1,29 @@
+package net.mbi.wcloud.dispatch.solver.matrix;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+
+/**
+ * 距离/时间矩阵提供者 SPI
+ * <p>
+ * 实现类需保证 fill 可被多个线程针对互不重叠的 rows 并发调用。
+ */
+public interface MatrixProvider {
+
+    /**
+     * 提供者名称，用于按租户选择（dispatch.solver.matrix.tenant-providers）
+     */
+    String name();
+
+    /**
+     * 计算 rows × cols 范围内的单元格并写入 out，下标均为 MatrixRequest 中的节点下标
+     */
+    void fill(MatrixRequest req, int[] rows, int[] cols, MatrixData out);
+
+    /**
+     * 稀疏矩阵：只计算 rows 中每行已登记的候选列（out.columns(row)），默认逐行调用 fill
+     */
+    default void fillCandidates(MatrixRequest req, int[] rows, MatrixData out) {
+        for (int i : rows)
+            fill(req, new int[] { i }, out.columns(i), out);
+    }
+}
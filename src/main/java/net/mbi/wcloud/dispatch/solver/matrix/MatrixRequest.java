@@ -0,0 +1,49 @@
+package net.mbi.wcloud.dispatch.solver.matrix;
+
+import lombok.Getter;
+
+/**
+ * 矩阵计算请求：节点ID与坐标按节点下标对齐，缺失坐标为 NaN；
+ * candidates 非空时只计算每行登记的候选列（k 近邻稀疏矩阵）
+ */
+@Getter
+public class MatrixRequest {
+
+    private final Long tenantId;
+    private final long[] nodeIds;
+    private final double[] lat;
+    private final double[] lng;
+    private final int[][] candidates;
+
+    public MatrixRequest(Long tenantId, long[] nodeIds, double[] lat, double[] lng) {
+        this(tenantId, nodeIds, lat, lng, null);
+    }
+
+    public MatrixRequest(Long tenantId, long[] nodeIds, double[] lat, double[] lng, int[][] candidates) {
+        this.tenantId = tenantId;
+        this.nodeIds = nodeIds;
+        this.lat = lat;
+        this.lng = lng;
+        this.candidates = candidates;
+    }
+
+    public int size() {
+        return nodeIds.length;
+    }
+
+    public boolean isSparse() {
+        return candidates != null;
+    }
+
+    public boolean hasCoordinate(int node) {
+        return !Double.isNaN(lat[node]) && !Double.isNaN(lng[node]);
+    }
+
+    /**
+     * 节点坐标指纹：行来源按 (节点ID, 指纹) 识别节点，同一节点ID的坐标变化后，按旧坐标算出的行/列不再命中
+     */
+    public long fingerprint(int node) {
+        long h = Double.doubleToLongBits(lat[node]) * 0x9E3779B97F4A7C15L;
+        return h ^ Long.rotateLeft(Double.doubleToLongBits(lng[node]), 32);
+    }
+}
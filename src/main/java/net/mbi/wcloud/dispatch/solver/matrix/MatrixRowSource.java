@@ -0,0 +1,33 @@
+package net.mbi.wcloud.dispatch.solver.matrix;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+
+/**
+ * 已算好的矩阵行来源（内存缓存 / 持久化存储），MatrixService 先从这里拼装，只为缺失部分调用 MatrixProvider。
+ * <p>
+ * lookup / store 均可被多个线程针对互不重叠的 rows 并发调用。
+ */
+public interface MatrixRowSource {
+
+    /** 行状态：整行命中 */
+    byte ROW_HIT = 0;
+    /** 行状态：没有该行 */
+    byte ROW_ABSENT = 1;
+    /** 行状态：有该行但缺部分列 */
+    byte ROW_PARTIAL = 2;
+
+    /**
+     * 把已有的单元格写入 out，并标记每行状态与需要计算的列
+     *
+     * @param rowState   输出：每行的 ROW_HIT / ROW_ABSENT / ROW_PARTIAL
+     * @param missingCol 输出：ROW_PARTIAL 行中缺失的列
+     */
+    void lookup(String provider, MatrixRequest req, int[] rows, MatrixData out, byte[] rowState, boolean[] missingCol);
+
+    /**
+     * 把 out 中 rows 对应的整行（当前请求的全部列）写回
+     *
+     * @param colOrder 按节点ID升序排列的列下标
+     */
+    void store(String provider, MatrixRequest req, int[] rows, int[] colOrder, MatrixData out);
+}
@@ -0,0 +1,209 @@
+package net.mbi.wcloud.dispatch.solver.matrix;
+
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.matrix.cache.MatrixCache;
+import net.mbi.wcloud.dispatch.solver.matrix.store.MappedMatrixStore;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveClusterProperties;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * 距离/时间矩阵构建：按租户选择 MatrixProvider，先从已有行来源（持久化存储或跨求解缓存）拼装，
+ * 只为缺失的行列调用提供者，按行分块在 matrixExecutor 上并行计算
+ */
+@Slf4j
+@Service
+public class MatrixService {
+
+    /** 每块最少行数，行数太少时并行调度开销大于计算本身 */
+    private static final int MIN_ROWS_PER_CHUNK = 16;
+
+    static final String INVALIDATE_TOPIC = "dispatch:solver:matrix-invalidate";
+
+    private final MatrixProperties properties;
+    private final Map<String, MatrixProvider> providers = new HashMap<>();
+    private final MatrixCache matrixCache;
+    private final MappedMatrixStore mappedStore;
+    private final Executor matrixExecutor;
+    /** 集群模式下的失效广播主题；单机模式为空 */
+    private final RTopic invalidateTopic;
+
+    public MatrixService(MatrixProperties properties, List<MatrixProvider> providerList, MatrixCache matrixCache,
+            MappedMatrixStore mappedStore, @Qualifier("matrixExecutor") Executor matrixExecutor,
+            SolveClusterProperties clusterProperties, RedissonClient redissonClient) {
+        this.properties = properties;
+        this.matrixCache = matrixCache;
+        this.mappedStore = mappedStore;
+        this.matrixExecutor = matrixExecutor;
+        for (MatrixProvider p : providerList)
+            providers.put(p.name(), p);
+
+        if (clusterProperties.isEnabled()) {
+            this.invalidateTopic = redissonClient.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE);
+            this.invalidateTopic.addListener(String.class, (channel, msg) -> {
+                int sep = msg.indexOf(':');
+                invalidateLocal(Long.valueOf(msg.substring(0, sep)), msg.substring(sep + 1));
+            });
+        } else {
+            this.invalidateTopic = null;
+        }
+    }
+
+    /**
+     * 作废租户已缓存/持久化的矩阵行，距离表（dispatch_node_distance）或距离文件更新后由运维调用。
+     * 节点坐标变化不需要调用：行来源按坐标指纹识别节点，旧坐标的单元格自动不再命中。
+     * 集群模式下广播到所有实例
+     */
+    public void invalidateTenant(Long tenantId) {
+        String invalidationId = UUID.randomUUID().toString();
+        invalidateLocal(tenantId, invalidationId);
+        if (invalidateTopic != null)
+            invalidateTopic.publishAsync(tenantId + ":" + invalidationId);
+    }
+
+    private void invalidateLocal(Long tenantId, String invalidationId) {
+        matrixCache.invalidateTenant(tenantId);
+        mappedStore.invalidateTenant(tenantId, invalidationId);
+    }
+
+    public MatrixData build(MatrixRequest req) {
+        long start = System.currentTimeMillis();
+        MatrixProvider provider = resolve(req.getTenantId());
+
+        int n = req.size();
+        int[] all = range(n);
+
+        // 稀疏（k 近邻候选弧）：只计算 O(n·k) 个单元格；缓存/持久化存储按整行组织，稀疏请求不经过它们
+        if (req.isSparse()) {
+            MatrixData out = MatrixData.allocateSparse(req.getCandidates(), properties.getPrecision(),
+                    properties.isOffHeap());
+            parallelRows(all, chunk -> provider.fillCandidates(req, chunk, out));
+            log.info("MATRIX_BUILD tenantId={}, provider={}, nodes={}, sparse=true, cells={}, precision={}, "
+                    + "offHeap={}, bytes={}, cost={}ms",
+                    req.getTenantId(), provider.name(), n, out.cellCount(), out.getPrecision(), out.isOffHeap(),
+                    out.bytes(), System.currentTimeMillis() - start);
+            return out;
+        }
+
+        MatrixData out = MatrixData.allocate(n, properties.getPrecision(), properties.isOffHeap());
+
+        MatrixRowSource source = resolveRowSource(req.getTenantId());
+        if (source == null) {
+            fill(provider, req, all, all, out);
+            log.info("MATRIX_BUILD tenantId={}, provider={}, nodes={}, precision={}, offHeap={}, bytes={}, cost={}ms",
+                    req.getTenantId(), provider.name(), n, out.getPrecision(), out.isOffHeap(), out.bytes(),
+                    System.currentTimeMillis() - start);
+            return out;
+        }
+
+        // 1) 从已有行拼装：标记整行缺失 / 部分缺失的行，以及部分缺失行里缺的列
+        byte[] rowState = new byte[n];
+        boolean[] missingCol = new boolean[n];
+        parallelRows(all, chunk -> source.lookup(provider.name(), req, chunk, out, rowState, missingCol));
+
+        int[] absentRows = rowsInState(rowState, MatrixRowSource.ROW_ABSENT);
+        int[] partialRows = rowsInState(rowState, MatrixRowSource.ROW_PARTIAL);
+        int[] partialCols = IntStream.range(0, n).filter(j -> missingCol[j]).toArray();
+
+        // 2) 只计算缺失部分：新行算全部列，旧行只补新列
+        fill(provider, req, absentRows, all, out);
+        fill(provider, req, partialRows, partialCols, out);
+
+        // 3) 回写
+        int[] dirtyRows = IntStream.concat(Arrays.stream(absentRows), Arrays.stream(partialRows)).toArray();
+        if (dirtyRows.length > 0) {
+            long[] nodeIds = req.getNodeIds();
+            int[] colOrder = IntStream.range(0, n).boxed()
+                    .sorted(Comparator.comparingLong(j -> nodeIds[j]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            parallelRows(dirtyRows, chunk -> source.store(provider.name(), req, chunk, colOrder, out));
+        }
+
+        log.info("MATRIX_BUILD tenantId={}, provider={}, source={}, nodes={}, cachedRows={}, absentRows={}, "
+                + "partialRows={}, partialCols={}, precision={}, offHeap={}, bytes={}, cost={}ms",
+                req.getTenantId(), provider.name(), source.getClass().getSimpleName(), n, n - dirtyRows.length,
+                absentRows.length, partialRows.length, partialCols.length,
+                out.getPrecision(), out.isOffHeap(), out.bytes(), System.currentTimeMillis() - start);
+        return out;
+    }
+
+    public MatrixProvider resolve(Long tenantId) {
+        String name = properties.getTenantProviders().getOrDefault(tenantId, properties.getDefaultProvider());
+        MatrixProvider provider = providers.get(name);
+        if (provider == null)
+            throw new IllegalStateException("Unknown matrix provider: " + name);
+        return provider;
+    }
+
+    /**
+     * 持久化存储优先（面向固定区域路网的租户），其次跨求解内存缓存，都未启用时返回 null
+     */
+    private MatrixRowSource resolveRowSource(Long tenantId) {
+        if (mappedStore.isEnabled(tenantId))
+            return mappedStore;
+        if (matrixCache.isEnabled())
+            return matrixCache;
+        return null;
+    }
+
+    /**
+     * 计算 rows × cols 并写入 out；行按块切分后并行，各块写入互不重叠的行
+     */
+    public void fill(MatrixProvider provider, MatrixRequest req, int[] rows, int[] cols, MatrixData out) {
+        if (rows.length == 0 || cols.length == 0)
+            return;
+        parallelRows(rows, chunk -> provider.fill(req, chunk, cols, out));
+    }
+
+    private void parallelRows(int[] rows, Consumer<int[]> task) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int chunkSize = Math.max(MIN_ROWS_PER_CHUNK, (rows.length + cores * 4 - 1) / (cores * 4));
+        if (rows.length <= chunkSize) {
+            task.accept(rows);
+            return;
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int from = 0; from < rows.length; from += chunkSize) {
+            int[] chunk = Arrays.copyOfRange(rows, from, Math.min(rows.length, from + chunkSize));
+            futures.add(CompletableFuture.runAsync(() -> task.accept(chunk), matrixExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw e;
+        }
+    }
+
+    private static int[] rowsInState(byte[] rowState, byte state) {
+        return IntStream.range(0, rowState.length).filter(i -> rowState[i] == state).toArray();
+    }
+
+    private static int[] range(int n) {
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++)
+            out[i] = i;
+        return out;
+    }
+}
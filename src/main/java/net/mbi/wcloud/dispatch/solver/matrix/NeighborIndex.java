@@ -0,0 +1,251 @@
+package net.mbi.wcloud.dispatch.solver.matrix;
+
+import java.util.Arrays;
+
+/**
+ * 节点坐标上的二维 kd 树，用于求 k 近邻候选弧。
+ * <p>
+ * 经纬度按等距圆柱投影到平面（米），城市/区域范围内的近邻次序与球面距离基本一致。
+ * 树以隐式方式存放：points[lo, hi) 的中位元素为子树根，左右两半分别为左右子树。
+ */
+public final class NeighborIndex {
+
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    /** kd 树顺序存放的节点下标 */
+    private final int[] points;
+    /** 投影坐标，按节点下标寻址 */
+    private final double[] x;
+    private final double[] y;
+
+    private NeighborIndex(int[] points, double[] x, double[] y) {
+        this.points = points;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * 对 nodes 建树（节点必须有坐标）
+     */
+    public static NeighborIndex build(double[] lat, double[] lng, int[] nodes) {
+        double lat0 = 0;
+        for (int i : nodes)
+            lat0 += lat[i];
+        double cos0 = Math.cos(Math.toRadians(nodes.length == 0 ? 0 : lat0 / nodes.length));
+
+        double[] x = new double[lat.length];
+        double[] y = new double[lat.length];
+        for (int i : nodes) {
+            x[i] = EARTH_RADIUS_M * Math.toRadians(lng[i]) * cos0;
+            y[i] = EARTH_RADIUS_M * Math.toRadians(lat[i]);
+        }
+
+        NeighborIndex index = new NeighborIndex(nodes.clone(), x, y);
+        index.build(0, nodes.length, 0);
+        return index;
+    }
+
+    /**
+     * node 的 k 个最近节点（不含自身，不保证顺序），树中节点不足时返回全部
+     */
+    public int[] nearest(int node, int k) {
+        Query q = new Query(node, x[node], y[node], Math.min(k, Math.max(points.length - 1, 0)));
+        if (q.k > 0)
+            search(0, points.length, 0, q);
+        return Arrays.copyOf(q.heapNode, q.size);
+    }
+
+    /**
+     * 候选弧：普通节点与各自 k 个最近的普通节点相连（取对称闭包，保证 i->j 与 j->i 同时存在），
+     * hub 节点（车场、无坐标节点）与所有节点双向相连，每个节点保留到自身的弧。
+     *
+     * @return 每个节点的候选列下标，升序、无重复，可直接用于 MatrixData.allocateSparse
+     */
+    public static int[][] candidateColumns(double[] lat, double[] lng, boolean[] hub, int k) {
+        int n = lat.length;
+        boolean[] isHub = new boolean[n];
+        int hubCount = 0;
+        for (int i = 0; i < n; i++) {
+            isHub[i] = hub[i] || Double.isNaN(lat[i]) || Double.isNaN(lng[i]);
+            if (isHub[i])
+                hubCount++;
+        }
+
+        int[] hubs = new int[hubCount];
+        int[] normal = new int[n - hubCount];
+        for (int i = 0, h = 0, m = 0; i < n; i++) {
+            if (isHub[i])
+                hubs[h++] = i;
+            else
+                normal[m++] = i;
+        }
+
+        NeighborIndex index = build(lat, lng, normal);
+        int[][] nearest = new int[n][];
+        int[] degree = new int[n];
+        for (int i : normal) {
+            nearest[i] = index.nearest(i, k);
+            degree[i] += nearest[i].length;
+            for (int j : nearest[i])
+                degree[j]++;
+        }
+
+        int[][] cols = new int[n][];
+        int[] fill = new int[n];
+        for (int i : normal) {
+            cols[i] = new int[1 + hubCount + degree[i]];
+            cols[i][fill[i]++] = i;
+            for (int h : hubs)
+                cols[i][fill[i]++] = h;
+        }
+        for (int i : normal) {
+            for (int j : nearest[i]) {
+                cols[i][fill[i]++] = j;
+                cols[j][fill[j]++] = i;
+            }
+        }
+
+        int[] all = new int[n];
+        for (int j = 0; j < n; j++)
+            all[j] = j;
+        for (int h : hubs)
+            cols[h] = all.clone();
+
+        for (int i : normal)
+            cols[i] = sortedDistinct(cols[i]);
+        return cols;
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1)
+            return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, (depth & 1) == 0 ? x : y);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * 快速选择：使 points[nth] 为 [lo, hi] 内按 key 排序后的第 nth 个，左侧不大于它、右侧不小于它
+     */
+    private void select(int lo, int hi, int nth, double[] key) {
+        while (hi > lo) {
+            double pivot = key[points[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (key[points[i]] < pivot)
+                    i++;
+                while (key[points[j]] > pivot)
+                    j--;
+                if (i <= j) {
+                    int t = points[i];
+                    points[i++] = points[j];
+                    points[j--] = t;
+                }
+            }
+            if (nth <= j)
+                hi = j;
+            else if (nth >= i)
+                lo = i;
+            else
+                return;
+        }
+    }
+
+    private void search(int lo, int hi, int depth, Query q) {
+        if (lo >= hi)
+            return;
+        int mid = (lo + hi) >>> 1;
+        int p = points[mid];
+        if (p != q.node) {
+            double dx = x[p] - q.qx;
+            double dy = y[p] - q.qy;
+            q.offer(p, dx * dx + dy * dy);
+        }
+
+        double diff = (depth & 1) == 0 ? q.qx - x[p] : q.qy - y[p];
+        if (diff < 0) {
+            search(lo, mid, depth + 1, q);
+            if (diff * diff < q.worst())
+                search(mid + 1, hi, depth + 1, q);
+        } else {
+            search(mid + 1, hi, depth + 1, q);
+            if (diff * diff < q.worst())
+                search(lo, mid, depth + 1, q);
+        }
+    }
+
+    private static int[] sortedDistinct(int[] a) {
+        Arrays.sort(a);
+        int m = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (m == 0 || a[i] != a[m - 1])
+                a[m++] = a[i];
+        }
+        return m == a.length ? a : Arrays.copyOf(a, m);
+    }
+
+    /**
+     * 定长大顶堆，堆顶为当前第 k 近的候选
+     */
+    private static final class Query {
+
+        final int node;
+        final double qx;
+        final double qy;
+        final int k;
+        final int[] heapNode;
+        final double[] heapDist;
+        int size;
+
+        Query(int node, double qx, double qy, int k) {
+            this.node = node;
+            this.qx = qx;
+            this.qy = qy;
+            this.k = k;
+            this.heapNode = new int[k];
+            this.heapDist = new double[k];
+        }
+
+        double worst() {
+            return size < k ? Double.POSITIVE_INFINITY : heapDist[0];
+        }
+
+        void offer(int p, double d) {
+            if (size < k) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (heapDist[parent] >= d)
+                        break;
+                    heapNode[i] = heapNode[parent];
+                    heapDist[i] = heapDist[parent];
+                    i = parent;
+                }
+                heapNode[i] = p;
+                heapDist[i] = d;
+                return;
+            }
+            if (d >= heapDist[0])
+                return;
+
+            // 替换堆顶后下沉
+            int i = 0;
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= k)
+                    break;
+                if (c + 1 < k && heapDist[c + 1] > heapDist[c])
+                    c++;
+                if (heapDist[c] <= d)
+                    break;
+                heapNode[i] = heapNode[c];
+                heapDist[i] = heapDist[c];
+                i = c;
+            }
+            heapNode[i] = p;
+            heapDist[i] = d;
+        }
+    }
+}
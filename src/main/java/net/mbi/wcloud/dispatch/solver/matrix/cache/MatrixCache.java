@@ -0,0 +1,122 @@
+package net.mbi.wcloud.dispatch.solver.matrix.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRowSource;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 跨求解的距离/时间矩阵缓存：按 (租户, 提供者, 起点节点ID) 缓存整行，行内按终点节点ID存放。
+ * <p>
+ * 重复求解或同车场的重叠方案只需为新增节点计算行列，其余单元格直接从缓存拼装。
+ * 起点与终点都按坐标指纹校验，节点坐标变化后旧单元格自动失效；距离表等非坐标数据变化由 invalidateTenant 清除。
+ * 容量按字节计重，由 Caffeine（W-TinyLFU）淘汰；命中/未命中与占用字节通过 Micrometer 暴露。
+ */
+@Slf4j
+@Component
+public class MatrixCache implements MatrixRowSource {
+
+    private record RowKey(Long tenantId, String provider, long fromNodeId) {
+    }
+
+    private final MatrixProperties.Cache config;
+    private final Cache<RowKey, MatrixRow> rows;
+
+    private final Counter cellHits;
+    private final Counter cellMisses;
+
+    public MatrixCache(MatrixProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getCache();
+        this.rows = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxBytes())
+                .weigher((RowKey k, MatrixRow v) -> v.bytes())
+                .expireAfterAccess(Duration.ofMinutes(config.getExpireAfterAccessMinutes()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, rows, "dispatch.matrix.rows");
+        Gauge.builder("dispatch.matrix.cache.bytes", rows,
+                c -> c.policy().eviction().map(e -> (double) e.weightedSize().orElse(0L)).orElse(0.0))
+                .description("Bytes held by the matrix row cache")
+                .register(meterRegistry);
+        this.cellHits = Counter.builder("dispatch.matrix.cache.cells").tag("result", "hit").register(meterRegistry);
+        this.cellMisses = Counter.builder("dispatch.matrix.cache.cells").tag("result", "miss").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    @Override
+    public void lookup(String provider, MatrixRequest req, int[] rows, MatrixData out,
+            byte[] rowState, boolean[] missingCol) {
+        long[] nodeIds = req.getNodeIds();
+        long hits = 0;
+        long misses = 0;
+
+        for (int i : rows) {
+            MatrixRow row = this.rows.getIfPresent(new RowKey(req.getTenantId(), provider, nodeIds[i]));
+            // 起点坐标变化后整行作废，回写时整行替换
+            if (row == null || row.fromFingerprint != req.fingerprint(i)) {
+                rowState[i] = ROW_ABSENT;
+                misses += nodeIds.length;
+                continue;
+            }
+
+            byte state = ROW_HIT;
+            for (int j = 0; j < nodeIds.length; j++) {
+                int pos = row.indexOf(nodeIds[j], req.fingerprint(j));
+                if (pos < 0) {
+                    state = ROW_PARTIAL;
+                    missingCol[j] = true;
+                    misses++;
+                } else {
+                    out.set(i, j, row.dist[pos], row.time[pos]);
+                    hits++;
+                }
+            }
+            rowState[i] = state;
+        }
+
+        cellHits.increment(hits);
+        cellMisses.increment(misses);
+    }
+
+    @Override
+    public void store(String provider, MatrixRequest req, int[] rows, int[] colOrder, MatrixData out) {
+        long[] nodeIds = req.getNodeIds();
+        for (int i : rows) {
+            long[] ids = new long[colOrder.length];
+            long[] fps = new long[colOrder.length];
+            int[] d = new int[colOrder.length];
+            int[] t = new int[colOrder.length];
+            for (int k = 0; k < colOrder.length; k++) {
+                int j = colOrder[k];
+                ids[k] = nodeIds[j];
+                fps[k] = req.fingerprint(j);
+                d[k] = out.dist(i, j);
+                t[k] = out.time(i, j);
+            }
+            this.rows.asMap().merge(new RowKey(req.getTenantId(), provider, nodeIds[i]),
+                    new MatrixRow(req.fingerprint(i), ids, fps, d, t), MatrixRow::merge);
+        }
+    }
+
+    /**
+     * 清除某租户的全部缓存行（距离表变更后由 MatrixService.invalidateTenant 调用）
+     */
+    public void invalidateTenant(Long tenantId) {
+        rows.asMap().keySet().removeIf(k -> k.tenantId().equals(tenantId));
+        log.info("MATRIX_CACHE_INVALIDATE tenantId={}", tenantId);
+    }
+}
@@ -0,0 +1,74 @@
+package net.mbi.wcloud.dispatch.solver.matrix.cache;
+
+import java.util.Arrays;
+
+/**
+ * 缓存中的一行：某个起点节点到若干终点节点的距离/时间，按终点节点ID升序存放，查找用二分。
+ * 起点与每个终点都带计算时的坐标指纹，指纹不一致的单元格视为缺失
+ */
+final class MatrixRow {
+
+    /** 对象头 + 数组头的粗略开销 */
+    private static final int OVERHEAD_BYTES = 128;
+
+    final long fromFingerprint;
+    final long[] toIds;
+    final long[] toFingerprints;
+    final int[] dist;
+    final int[] time;
+
+    MatrixRow(long fromFingerprint, long[] toIds, long[] toFingerprints, int[] dist, int[] time) {
+        this.fromFingerprint = fromFingerprint;
+        this.toIds = toIds;
+        this.toFingerprints = toFingerprints;
+        this.dist = dist;
+        this.time = time;
+    }
+
+    /**
+     * @return 终点在行内的位置；不存在或坐标指纹不一致时为负数
+     */
+    int indexOf(long toNodeId, long toFingerprint) {
+        int pos = Arrays.binarySearch(toIds, toNodeId);
+        return pos >= 0 && toFingerprints[pos] == toFingerprint ? pos : -1;
+    }
+
+    int bytes() {
+        return OVERHEAD_BYTES + toIds.length * 24;
+    }
+
+    /**
+     * 合并两行（同一终点以 newer 为准）；起点坐标已变化时整行以 newer 替换
+     */
+    static MatrixRow merge(MatrixRow older, MatrixRow newer) {
+        if (older.fromFingerprint != newer.fromFingerprint)
+            return newer;
+
+        long[] ids = new long[older.toIds.length + newer.toIds.length];
+        long[] fps = new long[ids.length];
+        int[] d = new int[ids.length];
+        int[] t = new int[ids.length];
+
+        int a = 0, b = 0, k = 0;
+        while (a < older.toIds.length || b < newer.toIds.length) {
+            if (b >= newer.toIds.length || (a < older.toIds.length && older.toIds[a] < newer.toIds[b])) {
+                ids[k] = older.toIds[a];
+                fps[k] = older.toFingerprints[a];
+                d[k] = older.dist[a];
+                t[k++] = older.time[a++];
+            } else {
+                if (a < older.toIds.length && older.toIds[a] == newer.toIds[b])
+                    a++;
+                ids[k] = newer.toIds[b];
+                fps[k] = newer.toFingerprints[b];
+                d[k] = newer.dist[b];
+                t[k++] = newer.time[b++];
+            }
+        }
+
+        if (k == ids.length)
+            return new MatrixRow(older.fromFingerprint, ids, fps, d, t);
+        return new MatrixRow(older.fromFingerprint, Arrays.copyOf(ids, k), Arrays.copyOf(fps, k),
+                Arrays.copyOf(d, k), Arrays.copyOf(t, k));
+    }
+}
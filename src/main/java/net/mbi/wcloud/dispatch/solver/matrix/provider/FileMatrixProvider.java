@@ -0,0 +1,108 @@
+package net.mbi.wcloud.dispatch.solver.matrix.provider;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProvider;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地文件矩阵：{dir}/tenant-{tenantId}.csv，每行 from_node_id,to_node_id,distance_m,time_sec（# 开头为注释）
+ * <p>
+ * 文件按租户加载一次并常驻内存，修改时间变化后重新加载；缺失点对按球面距离补齐。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileMatrixProvider implements MatrixProvider {
+
+    public static final String NAME = "file";
+
+    private final MatrixProperties properties;
+    private final HaversineMatrixProvider haversine;
+
+    private final Map<Long, Loaded> loaded = new ConcurrentHashMap<>();
+
+    private record Loaded(long lastModified, NodePairTable table) {
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void fill(MatrixRequest req, int[] rows, int[] cols, MatrixData out) {
+        NodePairTable table = load(req.getTenantId());
+        long[] nodeIds = req.getNodeIds();
+
+        for (int i : rows) {
+            for (int j : cols) {
+                long packed = i == j ? 0L : table.get(nodeIds[i], nodeIds[j]);
+                if (packed == NodePairTable.MISSING) {
+                    long[] cell = haversine.cell(req, i, j);
+                    out.set(i, j, cell[0], cell[1]);
+                } else {
+                    out.set(i, j, NodePairTable.dist(packed), NodePairTable.time(packed));
+                }
+            }
+        }
+    }
+
+    private NodePairTable load(Long tenantId) {
+        Path path = Paths.get(properties.getFile().getDir(), "tenant-" + tenantId + ".csv");
+        try {
+            if (!Files.exists(path))
+                throw new IllegalStateException("Matrix file not found: " + path);
+
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            Loaded cur = loaded.get(tenantId);
+            if (cur != null && cur.lastModified() == lastModified)
+                return cur.table();
+
+            return loaded.compute(tenantId, (k, old) -> {
+                if (old != null && old.lastModified() == lastModified)
+                    return old;
+                return new Loaded(lastModified, parse(path));
+            }).table();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Read matrix file failed: " + path, e);
+        }
+    }
+
+    private NodePairTable parse(Path path) {
+        long start = System.currentTimeMillis();
+        NodePairTable table = new NodePairTable();
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] cols = line.split(",");
+                if (cols.length < 4)
+                    throw new IllegalStateException("Bad matrix line in " + path + ": " + line);
+                table.put(Long.parseLong(cols[0].trim()), Long.parseLong(cols[1].trim()),
+                        Long.parseLong(cols[2].trim()), Long.parseLong(cols[3].trim()));
+                lines++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Read matrix file failed: " + path, e);
+        }
+        log.info("MATRIX_FILE_LOADED path={}, pairs={}, cost={}ms", path, lines, System.currentTimeMillis() - start);
+        return table;
+    }
+}
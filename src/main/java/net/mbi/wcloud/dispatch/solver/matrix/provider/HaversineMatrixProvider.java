@@ -0,0 +1,102 @@
+package net.mbi.wcloud.dispatch.solver.matrix.provider;
+
+import lombok.RequiredArgsConstructor;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProvider;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.springframework.stereotype.Component;
+
+/**
+ * 球面大圆距离矩阵：距离 = 大圆距离 × 绕行系数，时间 = 距离 / 平均车速
+ */
+@Component
+@RequiredArgsConstructor
+public class HaversineMatrixProvider implements MatrixProvider {
+
+    public static final String NAME = "haversine";
+
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    private final MatrixProperties properties;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void fill(MatrixRequest req, int[] rows, int[] cols, MatrixData out) {
+        double[] lat = req.getLat();
+        double[] lng = req.getLng();
+        double detour = properties.getHaversine().getDetourFactor();
+        double meterPerSec = properties.getHaversine().getSpeedKmh() / 3.6;
+
+        // 列坐标预先转弧度，行循环内只做乘加和三角函数
+        double[] colLat = new double[cols.length];
+        double[] colLng = new double[cols.length];
+        double[] colCos = new double[cols.length];
+        for (int c = 0; c < cols.length; c++) {
+            requireCoordinate(req, cols[c]);
+            colLat[c] = Math.toRadians(lat[cols[c]]);
+            colLng[c] = Math.toRadians(lng[cols[c]]);
+            colCos[c] = Math.cos(colLat[c]);
+        }
+
+        for (int i : rows) {
+            requireCoordinate(req, i);
+            double lat1 = Math.toRadians(lat[i]);
+            double lng1 = Math.toRadians(lng[i]);
+            double cos1 = Math.cos(lat1);
+
+            for (int c = 0; c < cols.length; c++) {
+                int j = cols[c];
+                if (i == j) {
+                    out.set(i, j, 0, 0);
+                    continue;
+                }
+                double road = haversine(lat1, lng1, cos1, colLat[c], colLng[c], colCos[c]) * detour;
+                out.set(i, j, Math.round(road), Math.round(road / meterPerSec));
+            }
+        }
+    }
+
+    /**
+     * 单个点对的距离/时间（米 / 秒），供其他提供者补齐缺失单元格
+     */
+    long[] cell(MatrixRequest req, int from, int to) {
+        if (from == to)
+            return new long[] { 0, 0 };
+        requireCoordinate(req, from);
+        requireCoordinate(req, to);
+        return toCell(greatCircleMeter(req.getLat()[from], req.getLng()[from], req.getLat()[to], req.getLng()[to]));
+    }
+
+    /**
+     * 两点间大圆距离（米），参数为角度制经纬度
+     */
+    public static double greatCircleMeter(double lat1, double lng1, double lat2, double lng2) {
+        double rLat1 = Math.toRadians(lat1);
+        double rLat2 = Math.toRadians(lat2);
+        return haversine(rLat1, Math.toRadians(lng1), Math.cos(rLat1), rLat2, Math.toRadians(lng2), Math.cos(rLat2));
+    }
+
+    private long[] toCell(double meter) {
+        MatrixProperties.Haversine cfg = properties.getHaversine();
+        double road = meter * cfg.getDetourFactor();
+        double meterPerSec = cfg.getSpeedKmh() / 3.6;
+        return new long[] { Math.round(road), Math.round(road / meterPerSec) };
+    }
+
+    private static double haversine(double lat1, double lng1, double cos1, double lat2, double lng2, double cos2) {
+        double sinLat = Math.sin((lat2 - lat1) / 2);
+        double sinLng = Math.sin((lng2 - lng1) / 2);
+        double h = sinLat * sinLat + cos1 * cos2 * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    private static void requireCoordinate(MatrixRequest req, int node) {
+        if (!req.hasCoordinate(node))
+            throw new IllegalStateException("Missing coordinates for node " + req.getNodeIds()[node]);
+    }
+}
@@ -0,0 +1,38 @@
+package net.mbi.wcloud.dispatch.solver.matrix.provider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 点对距离/时间查找表：fromNodeId -> (toNodeId -> 距离高 32 位 | 时间低 32 位)
+ */
+final class NodePairTable {
+
+    static final long MISSING = -1L;
+
+    private final Map<Long, Map<Long, Long>> rows = new HashMap<>();
+
+    void put(long fromNodeId, long toNodeId, long distMeter, long timeSec) {
+        long packed = (Math.min(distMeter, Integer.MAX_VALUE) << 32) | (Math.min(timeSec, Integer.MAX_VALUE) & 0xFFFFFFFFL);
+        rows.computeIfAbsent(fromNodeId, k -> new HashMap<>()).put(toNodeId, packed);
+    }
+
+    /**
+     * @return 打包值，不存在时返回 {@link #MISSING}
+     */
+    long get(long fromNodeId, long toNodeId) {
+        Map<Long, Long> row = rows.get(fromNodeId);
+        if (row == null)
+            return MISSING;
+        Long packed = row.get(toNodeId);
+        return packed == null ? MISSING : packed;
+    }
+
+    static long dist(long packed) {
+        return packed >>> 32;
+    }
+
+    static long time(long packed) {
+        return packed & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,146 @@
+package net.mbi.wcloud.dispatch.solver.matrix.provider;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchNodeDistanceDO;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchNodeDistanceMapper;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProvider;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预计算距离表（dispatch_node_distance），表中缺失的点对按球面距离补齐。
+ * <p>
+ * 按 from/to 两端的节点集合分块查表（IN 列表各不超过 QUERY_CHUNK），只取本次请求的单元格，
+ * 查到的行直接写入 MatrixData，不经过中间的查找表。
+ */
+@Component
+@RequiredArgsConstructor
+public class TableMatrixProvider implements MatrixProvider {
+
+    public static final String NAME = "table";
+
+    private static final int QUERY_CHUNK = 500;
+
+    private final DispatchNodeDistanceMapper nodeDistanceMapper;
+    private final HaversineMatrixProvider haversine;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void fill(MatrixRequest req, int[] rows, int[] cols, MatrixData out) {
+        int[] sorted = cols.clone();
+        Arrays.sort(sorted);
+        int[][] colsOf = new int[rows.length][];
+        Arrays.fill(colsOf, sorted);
+        fill(req, rows, colsOf, out);
+    }
+
+    /**
+     * 稀疏矩阵同样按块查表，避免逐行一次查询
+     */
+    @Override
+    public void fillCandidates(MatrixRequest req, int[] rows, MatrixData out) {
+        int[][] colsOf = new int[rows.length][];
+        for (int r = 0; r < rows.length; r++)
+            colsOf[r] = out.columns(rows[r]);
+        fill(req, rows, colsOf, out);
+    }
+
+    /**
+     * @param colsOf 第 r 个行对应的列下标，升序
+     */
+    private void fill(MatrixRequest req, int[] rows, int[][] colsOf, MatrixData out) {
+        long[] nodeIds = req.getNodeIds();
+
+        // 节点 id -> 请求内下标（同一节点可能出现多次，如共用的车场）
+        Map<Long, int[]> indexOf = new HashMap<>();
+        for (int i = 0; i < nodeIds.length; i++)
+            indexOf.merge(nodeIds[i], new int[] { i }, TableMatrixProvider::concat);
+
+        int[] rowPos = new int[nodeIds.length];
+        Arrays.fill(rowPos, -1);
+        int[] base = new int[rows.length + 1];
+        for (int r = 0; r < rows.length; r++) {
+            rowPos[rows[r]] = r;
+            base[r + 1] = base[r] + colsOf[r].length;
+        }
+        BitSet filled = new BitSet(base[rows.length]);
+
+        for (int offset = 0; offset < rows.length; offset += QUERY_CHUNK) {
+            int end = Math.min(rows.length, offset + QUERY_CHUNK);
+            Set<Long> fromIds = new LinkedHashSet<>();
+            Set<Long> toIds = new LinkedHashSet<>();
+            for (int r = offset; r < end; r++) {
+                fromIds.add(nodeIds[rows[r]]);
+                for (int j : colsOf[r])
+                    toIds.add(nodeIds[j]);
+            }
+
+            List<Long> to = new ArrayList<>(toIds);
+            for (int toOffset = 0; toOffset < to.size(); toOffset += QUERY_CHUNK) {
+                List<DispatchNodeDistanceDO> list = nodeDistanceMapper.selectList(
+                        new LambdaQueryWrapper<DispatchNodeDistanceDO>()
+                                .select(DispatchNodeDistanceDO::getFromNodeId, DispatchNodeDistanceDO::getToNodeId,
+                                        DispatchNodeDistanceDO::getDistanceM, DispatchNodeDistanceDO::getTimeSec)
+                                .eq(DispatchNodeDistanceDO::getTenantId, req.getTenantId())
+                                .eq(DispatchNodeDistanceDO::getDeleted, 0)
+                                .in(DispatchNodeDistanceDO::getFromNodeId, fromIds)
+                                .in(DispatchNodeDistanceDO::getToNodeId,
+                                        to.subList(toOffset, Math.min(to.size(), toOffset + QUERY_CHUNK))));
+
+                for (DispatchNodeDistanceDO d : list) {
+                    int[] fromIdx = indexOf.get(d.getFromNodeId());
+                    int[] toIdx = indexOf.get(d.getToNodeId());
+                    if (fromIdx == null || toIdx == null)
+                        continue;
+                    for (int i : fromIdx) {
+                        int r = rowPos[i];
+                        if (r < 0)
+                            continue;
+                        for (int j : toIdx) {
+                            int c = Arrays.binarySearch(colsOf[r], j);
+                            if (c < 0 || i == j)
+                                continue;
+                            out.set(i, j, d.getDistanceM(), d.getTimeSec());
+                            filled.set(base[r] + c);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int r = 0; r < rows.length; r++) {
+            int i = rows[r];
+            int[] cols = colsOf[r];
+            for (int c = 0; c < cols.length; c++) {
+                int j = cols[c];
+                if (i == j) {
+                    out.set(i, j, 0, 0);
+                } else if (!filled.get(base[r] + c)) {
+                    long[] cell = haversine.cell(req, i, j);
+                    out.set(i, j, cell[0], cell[1]);
+                }
+            }
+        }
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+}
@@ -0,0 +1,444 @@
+package net.mbi.wcloud.dispatch.solver.matrix.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRowSource;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存映射的持久化矩阵存储，面向车场/网点固定、距离表很少变化的区域路网。
+ * <p>
+ * 每个区域（租户 + 提供者）一个目录，数据按代（generation）存放，当前代号记在 generation 文件里：
+ * <ul>
+ * <li>nodes.&lt;代&gt;.idx：追加写的 (节点ID, 坐标指纹) 序列（每条 16 字节），位置即行号；
+ * 同一节点坐标变化后追加新行，以最后一条为准</li>
+ * <li>matrix.&lt;代&gt;.dat：capacity × capacity 的定宽单元格（距离+1、时间，各 int），按行号寻址；
+ * 创建时一次性按容量扩展为稀疏文件，新增节点只写自己的行和已有行里的对应列，不重写文件</li>
+ * </ul>
+ * 距离存为 +1 后的值，0 表示单元格尚未计算；写入时先写时间、再以 release 写距离，读取以 acquire 读距离。
+ * 文件通过 page cache 在同机多个 JVM 间共享，只读实例（writable=false）只映射不写入；写入时用文件锁串行化节点追加。
+ * 距离表等非坐标数据变化后由 invalidateTenant 切换到新的一代，各 JVM 在 GENERATION_CHECK_MS 内改读新代。
+ * <p>
+ * 区域行数固定为创建时的 capacity：写满后新节点（包括坐标变化后重新追加的节点）不再入库，每次都由提供者计算，
+ * 这类未命中计入 dispatch.matrix.store.full.misses。调大 capacity 后作废租户，新一代按新容量创建。
+ */
+@Slf4j
+@Component
+public class MappedMatrixStore implements MatrixRowSource {
+
+    private static final String GENERATION_FILE = "generation";
+    private static final String LOCK_FILE = "store.lock";
+
+    private static final int CELL_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 16;
+    private static final int MAX_CAPACITY = 16383;
+    /** 检查其他 JVM 是否已切换代的最小间隔 */
+    private static final long GENERATION_CHECK_MS = 1000;
+
+    /** 映射区上的 int 视图，单元格按 4 字节对齐，支持 acquire/release 访问 */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final MatrixProperties.Store config;
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+    /** 区域已写满、节点无法入库导致的行未命中 */
+    private final Counter fullMisses;
+
+    public MappedMatrixStore(MatrixProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getStore();
+        this.fullMisses = Counter.builder("dispatch.matrix.store.full.misses").register(meterRegistry);
+    }
+
+    public boolean isEnabled(Long tenantId) {
+        return config.isEnabled() && (config.getTenants().isEmpty() || config.getTenants().contains(tenantId));
+    }
+
+    @Override
+    public void lookup(String provider, MatrixRequest req, int[] rows, MatrixData out,
+            byte[] rowState, boolean[] missingCol) {
+        Region region = region(req.getTenantId(), provider);
+        if (region == null) {
+            for (int i : rows)
+                rowState[i] = ROW_ABSENT;
+            return;
+        }
+
+        region.refreshIndex();
+        int[] storeRow = region.rowsOf(req);
+        ByteBuffer data = region.data;
+        long rowBytes = (long) region.capacity * CELL_BYTES;
+        boolean full = region.full();
+
+        // 逐单元格从映射区复制到 out（MatrixData 自有存储，不能引用映射区），不经过中间对象
+        for (int i : rows) {
+            int ri = storeRow[i];
+            if (ri < 0) {
+                rowState[i] = ROW_ABSENT;
+                if (full)
+                    fullMisses.increment();
+                continue;
+            }
+
+            byte state = ROW_HIT;
+            for (int j = 0; j < storeRow.length; j++) {
+                int cj = storeRow[j];
+                int off = cj < 0 ? -1 : (int) (ri * rowBytes + (long) cj * CELL_BYTES);
+                // acquire 读标记：看到非 0 的距离时，写入方在它之前写的时间一定可见
+                int distEnc = off < 0 ? 0 : (int) INT.getAcquire(data, off);
+                if (distEnc == 0) {
+                    state = ROW_PARTIAL;
+                    missingCol[j] = true;
+                } else {
+                    out.set(i, j, distEnc - 1L, (int) INT.get(data, off + 4));
+                }
+            }
+            rowState[i] = state;
+        }
+    }
+
+    @Override
+    public void store(String provider, MatrixRequest req, int[] rows, int[] colOrder, MatrixData out) {
+        if (!config.isWritable())
+            return;
+        Region region = region(req.getTenantId(), provider);
+        if (region == null)
+            return;
+
+        int[] storeRow = region.ensureIndexed(req);
+        ByteBuffer data = region.data;
+        long rowBytes = (long) region.capacity * CELL_BYTES;
+
+        for (int i : rows) {
+            int ri = storeRow[i];
+            if (ri < 0)
+                continue;
+            for (int j = 0; j < storeRow.length; j++) {
+                int cj = storeRow[j];
+                if (cj < 0)
+                    continue;
+                int off = (int) (ri * rowBytes + (long) cj * CELL_BYTES);
+                // 先写时间，最后以 release 写入距离（即“已计算”标记），读方不会看到有标记而时间未写的单元格
+                INT.set(data, off + 4, out.time(i, j));
+                INT.setRelease(data, off, (int) Math.min(out.dist(i, j) + 1L, Integer.MAX_VALUE));
+            }
+        }
+    }
+
+    /**
+     * 作废租户在本机的全部区域：切换到新的一代并删除旧代文件（其他 JVM 已映射的旧文件在其切换前仍可读）。
+     * 同一次作废（invalidationId 相同）在同机多个 JVM 上重复执行时只生效一次；只读实例只丢弃本地映射
+     */
+    public void invalidateTenant(Long tenantId, String invalidationId) {
+        Path tenantDir = Paths.get(config.getDir(), "tenant-" + tenantId);
+        if (config.isWritable() && Files.isDirectory(tenantDir)) {
+            try (DirectoryStream<Path> providers = Files.newDirectoryStream(tenantDir, Files::isDirectory)) {
+                for (Path dir : providers)
+                    nextGeneration(dir, invalidationId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Invalidate matrix store failed: " + tenantDir, e);
+            }
+        }
+        regions.entrySet().removeIf(e -> {
+            if (!e.getKey().startsWith(tenantId + "/"))
+                return false;
+            e.getValue().close();
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Region r : regions.values())
+            r.close();
+        regions.clear();
+    }
+
+    private Region region(Long tenantId, String provider) {
+        String key = tenantId + "/" + provider;
+        Region r = regions.get(key);
+        if (r != null && !r.stale())
+            return r;
+
+        Path dir = Paths.get(config.getDir(), "tenant-" + tenantId, provider);
+        long generation = readGeneration(dir).generation();
+        if (!config.isWritable() && !Files.exists(dir.resolve(dataFile(generation))))
+            return null;
+
+        return regions.compute(key, (k, old) -> {
+            if (old != null && old.generation == generation)
+                return old;
+            if (old != null)
+                old.close();
+            return new Region(dir, generation);
+        });
+    }
+
+    private void nextGeneration(Path dir, String invalidationId) throws IOException {
+        try (FileChannel lockChannel = FileChannel.open(dir.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = lockChannel.lock();
+            try {
+                Generation current = readGeneration(dir);
+                if (invalidationId.equals(current.invalidationId()))
+                    return;
+                long next = current.generation() + 1;
+                Path tmp = dir.resolve(GENERATION_FILE + ".tmp");
+                Files.writeString(tmp, next + " " + invalidationId, StandardCharsets.UTF_8);
+                Files.move(tmp, dir.resolve(GENERATION_FILE), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+
+                // 已映射旧文件的进程在切换前仍可读（删除只移除目录项）
+                Files.deleteIfExists(dir.resolve(dataFile(current.generation())));
+                Files.deleteIfExists(dir.resolve(indexFile(current.generation())));
+                log.info("MATRIX_STORE_INVALIDATE dir={}, generation={}", dir, next);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private record Generation(long generation, String invalidationId) {
+    }
+
+    private static Generation readGeneration(Path dir) {
+        Path file = dir.resolve(GENERATION_FILE);
+        try {
+            if (!Files.exists(file))
+                return new Generation(0, "");
+            String[] parts = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ", 2);
+            return new Generation(Long.parseLong(parts[0]), parts.length > 1 ? parts[1] : "");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Read matrix store generation failed: " + file, e);
+        }
+    }
+
+    private static String dataFile(long generation) {
+        return "matrix." + generation + ".dat";
+    }
+
+    private static String indexFile(long generation) {
+        return "nodes." + generation + ".idx";
+    }
+
+    private record IndexEntry(int row, long fingerprint) {
+    }
+
+    private final class Region {
+
+        private final Path dir;
+        private final long generation;
+        private final Path indexPath;
+        private final FileChannel dataChannel;
+        private final ByteBuffer data;
+        private final int capacity;
+
+        /** nodeId -> 最新一条 (行号, 坐标指纹)，整体替换发布 */
+        private volatile Map<Long, IndexEntry> index = Map.of();
+        private volatile int usedRows;
+        private long indexedBytes;
+        private volatile long generationCheckedAt = System.currentTimeMillis();
+
+        Region(Path dir, long generation) {
+            this.dir = dir;
+            this.generation = generation;
+            this.indexPath = dir.resolve(indexFile(generation));
+            try {
+                Path dataPath = dir.resolve(dataFile(generation));
+                if (config.isWritable()) {
+                    Files.createDirectories(dir);
+                    this.dataChannel = FileChannel.open(dataPath, StandardOpenOption.CREATE,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    if (dataChannel.size() == 0) {
+                        int cap = config.getCapacity();
+                        if (cap <= 0 || cap > MAX_CAPACITY)
+                            throw new IllegalStateException("Matrix store capacity must be in (0, " + MAX_CAPACITY + "]");
+                        // 写最后一个字节把文件扩展为定长稀疏文件
+                        dataChannel.write(ByteBuffer.wrap(new byte[1]), (long) cap * cap * CELL_BYTES - 1);
+                    }
+                } else {
+                    this.dataChannel = FileChannel.open(dataPath, StandardOpenOption.READ);
+                }
+
+                long size = dataChannel.size();
+                this.capacity = (int) Math.sqrt((double) (size / CELL_BYTES));
+                MappedByteBuffer mapped = dataChannel.map(
+                        config.isWritable() ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                        0, (long) capacity * capacity * CELL_BYTES);
+                this.data = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+                log.info("MATRIX_STORE_OPEN dir={}, generation={}, capacity={}, writable={}",
+                        dir, generation, capacity, config.isWritable());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Open matrix store failed: " + dir, e);
+            }
+        }
+
+        /**
+         * 其他 JVM 是否已切换到新的一代（按 GENERATION_CHECK_MS 节流）
+         */
+        boolean stale() {
+            long now = System.currentTimeMillis();
+            if (now - generationCheckedAt < GENERATION_CHECK_MS)
+                return false;
+            generationCheckedAt = now;
+            return readGeneration(dir).generation() != generation;
+        }
+
+        /**
+         * 行号已用完，之后的新节点无法入库
+         */
+        boolean full() {
+            return usedRows >= capacity;
+        }
+
+        /**
+         * 读取索引文件中新追加的节点（包括其他 JVM 追加的）
+         */
+        synchronized void refreshIndex() {
+            try {
+                if (!Files.exists(indexPath))
+                    return;
+                long size = Files.size(indexPath) / INDEX_ENTRY_BYTES * INDEX_ENTRY_BYTES;
+                if (size <= indexedBytes)
+                    return;
+
+                ByteBuffer buf = ByteBuffer.allocate((int) (size - indexedBytes)).order(ByteOrder.LITTLE_ENDIAN);
+                try (FileChannel ch = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+                    while (buf.hasRemaining() && ch.read(buf, indexedBytes + buf.position()) > 0) {
+                        // read until full
+                    }
+                }
+                buf.flip();
+
+                Map<Long, IndexEntry> next = new HashMap<>(index);
+                int row = (int) (indexedBytes / INDEX_ENTRY_BYTES);
+                while (buf.remaining() >= INDEX_ENTRY_BYTES) {
+                    long nodeId = buf.getLong();
+                    next.put(nodeId, new IndexEntry(row++, buf.getLong()));
+                }
+
+                index = next;
+                usedRows = row;
+                indexedBytes = (long) row * INDEX_ENTRY_BYTES;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Read matrix store index failed: " + indexPath, e);
+            }
+        }
+
+        /**
+         * @return 请求节点的行号；未入库或入库时坐标不同的为 -1
+         */
+        int[] rowsOf(MatrixRequest req) {
+            Map<Long, IndexEntry> idx = index;
+            long[] nodeIds = req.getNodeIds();
+            int[] out = new int[nodeIds.length];
+            for (int i = 0; i < nodeIds.length; i++) {
+                IndexEntry e = idx.get(nodeIds[i]);
+                out[i] = e == null || e.fingerprint() != req.fingerprint(i) ? -1 : e.row();
+            }
+            return out;
+        }
+
+        /**
+         * 为尚未入库（或坐标已变化）的节点追加行号（文件锁保护，多 JVM 安全），超出容量的节点不入库
+         */
+        synchronized int[] ensureIndexed(MatrixRequest req) {
+            refreshIndex();
+            if (missing(req).isEmpty())
+                return rowsOf(req);
+
+            try (FileChannel lockChannel = FileChannel.open(dir.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    appendMissing(req);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Append matrix store index failed: " + dir, e);
+            }
+            return rowsOf(req);
+        }
+
+        /**
+         * 持有文件锁时调用
+         */
+        private void appendMissing(MatrixRequest req) throws IOException {
+            refreshIndex();
+            List<Map.Entry<Long, Long>> missing = missing(req);
+            int free = capacity - usedRows;
+            if (missing.size() > free) {
+                log.warn("MATRIX_STORE_FULL dir={}, capacity={}, dropped={}", dir, capacity, missing.size() - free);
+                missing = missing.subList(0, Math.max(free, 0));
+            }
+
+            if (!missing.isEmpty()) {
+                ByteBuffer buf = ByteBuffer.allocate(missing.size() * INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (Map.Entry<Long, Long> e : missing)
+                    buf.putLong(e.getKey()).putLong(e.getValue());
+                buf.flip();
+                try (FileChannel ch = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    while (buf.hasRemaining())
+                        ch.write(buf);
+                    ch.force(false);
+                }
+                refreshIndex();
+            }
+        }
+
+        /**
+         * @return 需要（重新）入库的 (节点ID, 坐标指纹)，按请求顺序去重
+         */
+        private List<Map.Entry<Long, Long>> missing(MatrixRequest req) {
+            Map<Long, IndexEntry> idx = index;
+            long[] nodeIds = req.getNodeIds();
+            Map<Long, Long> out = new LinkedHashMap<>();
+            for (int i = 0; i < nodeIds.length; i++) {
+                IndexEntry e = idx.get(nodeIds[i]);
+                long fp = req.fingerprint(i);
+                if (e == null || e.fingerprint() != fp)
+                    out.putIfAbsent(nodeIds[i], fp);
+            }
+            return new ArrayList<>(out.entrySet());
+        }
+
+        void close() {
+            try {
+                if (data instanceof MappedByteBuffer mapped && config.isWritable())
+                    mapped.force();
+                dataChannel.close();
+            } catch (IOException e) {
+                log.warn("Close matrix store failed: {}", dir, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 求解模型的编译形态：按路由节点下标（与 SolveInput.indexToNodeId 对齐）展开的原始类型数组。
+ * <p>
+ * 每次求解只构建一次，OR-Tools 回调、时间窗设置和结果提取都直接读数组，回调路径上没有装箱和对象分配。
+ * 同一节点上挂多个任务时，以第一个任务为准（与原 findTaskByNodeId 语义一致）。
+ */
+@Getter
+public final class CompiledModel {
+
+    private final int nodeCount;
+    private final int vehicleCount;
+
+    /** 节点下标 -> 业务节点ID */
+    private final long[] nodeIds;
+
+    private final int[] demand;
+    private final int[] serviceSec;
+    private final int[] twStart;
+    private final int[] twEnd;
+
+    /** 节点下标 -> 任务下标（tasks 数组），非任务节点（车场等）为 -1 */
+    private final int[] taskOfNode;
+    /** 任务下标 -> 节点下标 */
+    private final int[] nodeOfTask;
+    private final TaskNode[] tasks;
+
+    private final VehicleResource[] vehicles;
+    private final int[] vehicleStart;
+    private final int[] vehicleEnd;
+    private final long[] capacity;
+    private final int[] workStart;
+    private final int[] workEnd;
+
+    private final MatrixData matrix;
+
+    /** 原生矩阵回调用的 n×n 展开（距离 / 时间+服务时长），首次使用时构建，组合求解的各 worker 共享只读 */
+    @Getter(AccessLevel.NONE)
+    private long[][] expandedDistance;
+    @Getter(AccessLevel.NONE)
+    private long[][] expandedTime;
+
+    private CompiledModel(int nodeCount, TaskNode[] tasks, VehicleResource[] vehicles, MatrixData matrix) {
+        this.nodeCount = nodeCount;
+        this.vehicleCount = vehicles.length;
+        this.nodeIds = new long[nodeCount];
+        this.demand = new int[nodeCount];
+        this.serviceSec = new int[nodeCount];
+        this.twStart = new int[nodeCount];
+        this.twEnd = new int[nodeCount];
+        this.taskOfNode = new int[nodeCount];
+        this.nodeOfTask = new int[tasks.length];
+        this.tasks = tasks;
+        this.vehicles = vehicles;
+        this.vehicleStart = new int[vehicles.length];
+        this.vehicleEnd = new int[vehicles.length];
+        this.capacity = new long[vehicles.length];
+        this.workStart = new int[vehicles.length];
+        this.workEnd = new int[vehicles.length];
+        this.matrix = matrix;
+    }
+
+    public static CompiledModel compile(SolveInput in) {
+        List<Long> indexToNodeId = in.getIndexToNodeId();
+        Map<Long, Integer> nodeIdToIndex = in.getNodeIdToIndex();
+        List<TaskNode> taskList = in.getTasks();
+        List<VehicleResource> vehicleList = in.getVehicles();
+
+        int n = indexToNodeId == null ? 0 : indexToNodeId.size();
+        TaskNode[] tasks = taskList == null ? new TaskNode[0] : taskList.toArray(new TaskNode[0]);
+        VehicleResource[] vehicles = vehicleList == null ? new VehicleResource[0]
+                : vehicleList.toArray(new VehicleResource[0]);
+
+        CompiledModel m = new CompiledModel(n, tasks, vehicles, in.getMatrix());
+
+        for (int i = 0; i < n; i++)
+            m.nodeIds[i] = indexToNodeId.get(i);
+
+        Arrays.fill(m.taskOfNode, -1);
+        Arrays.fill(m.twEnd, 24 * 3600);
+
+        for (int t = 0; t < tasks.length; t++) {
+            Integer nodeIdx = nodeIdToIndex.get(tasks[t].getNodeId());
+            if (nodeIdx == null) {
+                m.nodeOfTask[t] = -1;
+                continue;
+            }
+            m.nodeOfTask[t] = nodeIdx;
+            if (m.taskOfNode[nodeIdx] >= 0)
+                continue;
+
+            TaskNode task = tasks[t];
+            m.taskOfNode[nodeIdx] = t;
+            m.demand[nodeIdx] = task.getDemandWeight();
+            m.serviceSec[nodeIdx] = task.getServiceTimeSec();
+            m.twStart[nodeIdx] = task.getTwStartSec();
+            m.twEnd[nodeIdx] = task.getTwEndSec();
+        }
+
+        for (int v = 0; v < vehicles.length; v++) {
+            VehicleResource vr = vehicles[v];
+            m.vehicleStart[v] = nodeIdToIndex.get(vr.getStartNodeId());
+            m.vehicleEnd[v] = nodeIdToIndex.get(vr.getEndNodeId());
+            m.capacity[v] = vr.getCapacityWeight();
+            m.workStart[v] = vr.getWorkStartSec();
+            m.workEnd[v] = vr.getWorkEndSec();
+        }
+
+        return m;
+    }
+
+    public int taskCount() {
+        return tasks.length;
+    }
+
+    /**
+     * 展开的距离矩阵，调用方不得修改
+     */
+    public synchronized long[][] expandedDistance() {
+        if (expandedDistance == null) {
+            int n = matrix.getSize();
+            long[][] out = new long[n][n];
+            for (int i = 0; i < n; i++) {
+                long[] dst = out[i];
+                for (int j = 0; j < n; j++)
+                    dst[j] = matrix.dist(i, j);
+            }
+            expandedDistance = out;
+        }
+        return expandedDistance;
+    }
+
+    /**
+     * 展开的时间矩阵，服务时长折算进出发节点所在行；调用方不得修改
+     */
+    public synchronized long[][] expandedTime() {
+        if (expandedTime == null) {
+            int n = matrix.getSize();
+            long[][] out = new long[n][n];
+            for (int i = 0; i < n; i++) {
+                long[] dst = out[i];
+                long service = serviceSec[i];
+                for (int j = 0; j < n; j++)
+                    dst[j] = matrix.time(i, j) + service;
+            }
+            expandedTime = out;
+        }
+        return expandedTime;
+    }
+}
@@ -0,0 +1,642 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveOptionsDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.DecompositionMode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveProgressListener;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+/**
+ * 大规模方案的地理分解求解：
+ * <ol>
+ * <li>任务节点按极角扫描或 k-means 分区，车辆按分区需求比例、就近分配到各分区</li>
+ * <li>各分区子问题在 solveExecutor 上并行求解（当前线程同时参与，线程池满时也能推进，不会互相等待）</li>
+ * <li>相邻分区之间做边界修复：边界任务重定位到更便宜的相邻分区路线，各分区丢弃的任务尝试插入相邻分区</li>
+ * <li>合并为一个 SolveResult，附带每个分区的耗时</li>
+ * </ol>
+ */
+@Slf4j
+@Component
+public class DecompositionSolver {
+
+    /** 边界任务判定：到某个相邻分区中心的距离不超过到本分区中心距离的该倍数 */
+    private static final double BOUNDARY_RATIO = 1.25;
+    /** 每个分区参与边界修复的最近相邻分区数 */
+    private static final int NEIGHBOR_CLUSTERS = 2;
+
+    /** 单次分解求解最多同时占用的线程数（含当前线程） */
+    @Value("${dispatch.solver.decomposition.max-parallel:4}")
+    private int maxParallel = 4;
+
+    private final Executor solveExecutor;
+
+    public DecompositionSolver(@Qualifier("solveExecutor") Executor solveExecutor) {
+        this.solveExecutor = solveExecutor;
+    }
+
+    private static final class ClusterRun {
+        final int index;
+        final List<TaskNode> tasks = new ArrayList<>();
+        final List<VehicleResource> vehicles = new ArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        SolveResult result;
+        long millis;
+
+        ClusterRun(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * 分区进度汇总：各分区各自上报自己的当前最优解，全部分区都有结果后按目标值、已分配任务数之和上报整体进度。
+     * 任一分区改进都会使总目标值下降，订阅方按“只推送更优的目标值”过滤时不会丢掉分区的改进；
+     * 分区之间目标值不可比，不能逐条透传
+     */
+    private static final class ClusterProgress {
+        final SolveProgressListener target;
+        final long start = System.currentTimeMillis();
+        final long[] objective;
+        final int[] assigned;
+        final boolean[] reported;
+        int pending;
+
+        ClusterProgress(SolveProgressListener target, int clusters) {
+            this.target = target;
+            this.objective = new long[clusters];
+            this.assigned = new int[clusters];
+            this.reported = new boolean[clusters];
+            this.pending = clusters;
+        }
+
+        synchronized void report(int cluster, long obj, int assignedTaskCount) {
+            if (reported[cluster] && obj >= objective[cluster])
+                return;
+            objective[cluster] = obj;
+            assigned[cluster] = assignedTaskCount;
+            if (!reported[cluster]) {
+                reported[cluster] = true;
+                pending--;
+            }
+            if (pending > 0)
+                return;
+            long total = 0;
+            int totalAssigned = 0;
+            for (int c = 0; c < objective.length; c++) {
+                total += objective[c];
+                totalAssigned += assigned[c];
+            }
+            target.onProgress(total, totalAssigned, System.currentTimeMillis() - start);
+        }
+
+        /**
+         * 分区结束：搜索中没有上报过（无解或失败）的分区按最终结果计入，不让它挡住整体进度
+         */
+        synchronized void finish(int cluster, SolveResult result) {
+            if (reported[cluster])
+                return;
+            boolean solved = result != null && SolveTaskStatus.SOLVED.code().equals(result.getStatus());
+            report(cluster, solved ? result.getKpi().getObjective() : 0,
+                    solved ? result.getKpi().getAssignedTaskCount() : 0);
+        }
+    }
+
+    /**
+     * @param subSolver 单个 RoutingModel 的求解入口（不再分解）
+     */
+    public SolveResult solve(SolveRequestDTO req, SolveInput in,
+            BiFunction<SolveRequestDTO, SolveInput, SolveResult> subSolver) {
+        SolveOptionsDTO options = req.getOptions();
+        CompiledModel model = CompiledModel.compile(in);
+        double[] lat = in.getNodeLat();
+        double[] lng = in.getNodeLng();
+
+        int k = Math.min((model.taskCount() + options.getClusterMaxTasks() - 1) / options.getClusterMaxTasks(),
+                model.getVehicleCount());
+        if (k < 2 || lat == null || lng == null) {
+            log.info("DECOMPOSE_SKIP planId={}, tasks={}, vehicles={}, clusters={}, hasCoordinates={}",
+                    req.getPlanId(), model.taskCount(), model.getVehicleCount(), k, lat != null);
+            return subSolver.apply(req, in);
+        }
+
+        long start = System.currentTimeMillis();
+
+        // 1) 分区：平面坐标，经度按平均纬度余弦缩放
+        int n = model.getNodeCount();
+        int[] taskOfNode = model.getTaskOfNode();
+        double cos0 = Math.cos(Math.toRadians(meanLat(lat, taskOfNode)));
+        double[] px = new double[n];
+        double[] py = new double[n];
+        for (int i = 0; i < n; i++) {
+            px[i] = lng[i] * cos0;
+            py[i] = lat[i];
+        }
+
+        int[] clusterOfNode = clusterTaskNodes(options.getDecomposition(), model, px, py, k);
+
+        ClusterRun[] runs = new ClusterRun[k];
+        for (int c = 0; c < k; c++)
+            runs[c] = new ClusterRun(c);
+        TaskNode[] tasks = model.getTasks();
+        for (int t = 0; t < tasks.length; t++) {
+            int node = model.getNodeOfTask()[t];
+            if (node >= 0)
+                runs[clusterOfNode[node]].tasks.add(tasks[t]);
+        }
+
+        double[] cx = new double[k];
+        double[] cy = new double[k];
+        centroids(model, clusterOfNode, px, py, cx, cy);
+
+        int[] clusterOfVehicle = assignVehicles(model, runs, px, py, cx, cy);
+        for (int v = 0; v < clusterOfVehicle.length; v++)
+            runs[clusterOfVehicle[v]].vehicles.add(model.getVehicles()[v]);
+
+        int parallel = Math.max(1, Math.min(k, maxParallel));
+        int subLimit = Math.max(1, options.getTimeLimitSeconds() * parallel / k);
+        log.info("DECOMPOSE_START planId={}, mode={}, tasks={}, vehicles={}, clusters={}, parallel={}, subTimeLimit={}s",
+                req.getPlanId(), options.getDecomposition(), model.taskCount(), model.getVehicleCount(), k,
+                parallel, subLimit);
+
+        // 2) 并行求解子问题
+        runClusters(req, in, runs, subLimit, parallel, subSolver);
+
+        // 3) 子问题路线映射回全局节点下标
+        Map<Long, Integer> vehicleIndex = new HashMap<>();
+        for (int v = 0; v < model.getVehicleCount(); v++)
+            vehicleIndex.put(model.getVehicles()[v].getVehicleId(), v);
+
+        int[][] routes = new int[model.getVehicleCount()][];
+        SolveResult.RouteResult[] subRoutes = new SolveResult.RouteResult[model.getVehicleCount()];
+        Map<Long, SolveResult.UnassignedResult> subUnassigned = new HashMap<>();
+        boolean anySolved = false;
+        for (ClusterRun run : runs) {
+            if (!SolveTaskStatus.SOLVED.code().equals(run.result.getStatus()))
+                continue;
+            anySolved = true;
+            for (SolveResult.RouteResult rr : run.result.getRoutes()) {
+                int v = vehicleIndex.get(rr.getVehicleId());
+                routes[v] = rr.getStops().stream().mapToInt(s -> in.getNodeIdToIndex().get(s.getNodeId())).toArray();
+                subRoutes[v] = rr;
+            }
+            for (SolveResult.UnassignedResult u : run.result.getUnassigned())
+                subUnassigned.put(u.getTaskId(), u);
+        }
+
+        // 4) 边界修复
+        long repairStart = System.currentTimeMillis();
+        InsertionHeuristic heuristic = new InsertionHeuristic(model, routes);
+        boolean[] touched = repair(model, heuristic, clusterOfNode, clusterOfVehicle, px, py, cx, cy, lat);
+        long repairMillis = System.currentTimeMillis() - repairStart;
+
+        // 5) 合并
+        SolveResult out = merge(model, heuristic, subRoutes, touched, subUnassigned);
+        out.setStatus(anySolved ? SolveTaskStatus.SOLVED.code() : SolveTaskStatus.FAILED.code());
+        out.setMessage(anySolved ? "OK" : "No solution");
+        out.getKpi().setRepairMillis(repairMillis);
+        for (ClusterRun run : runs) {
+            SolveResult.ClusterResult cr = new SolveResult.ClusterResult();
+            cr.setCluster(run.index);
+            cr.setTaskCount(run.tasks.size());
+            cr.setVehicleCount(run.vehicles.size());
+            cr.setStatus(run.result.getStatus());
+            cr.setAssignedTaskCount(run.result.getKpi().getAssignedTaskCount());
+            cr.setSolveMillis(run.millis);
+            out.getClusters().add(cr);
+        }
+
+        int touchedCount = 0;
+        for (boolean t : touched) {
+            if (t)
+                touchedCount++;
+        }
+        log.info("DECOMPOSE_END planId={}, clusters={}, repairedRoutes={}, repairCost={}ms, cost={}ms, "
+                + "assigned={}, unassigned={}, distance={}",
+                req.getPlanId(), k, touchedCount, repairMillis, System.currentTimeMillis() - start,
+                out.getKpi().getAssignedTaskCount(), out.getKpi().getUnassignedTaskCount(),
+                out.getKpi().getTotalDistanceM());
+        return out;
+    }
+
+    private int[] clusterTaskNodes(DecompositionMode mode, CompiledModel model, double[] px, double[] py, int k) {
+        int n = model.getNodeCount();
+        int[] taskOfNode = model.getTaskOfNode();
+
+        List<Integer> located = new ArrayList<>();
+        List<Integer> unlocated = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (taskOfNode[i] < 0)
+                continue;
+            if (Double.isNaN(px[i]) || Double.isNaN(py[i]))
+                unlocated.add(i);
+            else
+                located.add(i);
+        }
+
+        double[] x = new double[located.size()];
+        double[] y = new double[located.size()];
+        for (int r = 0; r < x.length; r++) {
+            x[r] = px[located.get(r)];
+            y[r] = py[located.get(r)];
+        }
+
+        int[] label;
+        if (x.length < k) {
+            label = new int[x.length];
+            for (int r = 0; r < x.length; r++)
+                label[r] = r % k;
+        } else if (mode == DecompositionMode.KMEANS) {
+            label = GeoClustering.kMeans(x, y, k);
+        } else {
+            double[] center = depotCenter(model, px, py, x, y);
+            label = GeoClustering.sweep(x, y, center[0], center[1], k);
+        }
+
+        int[] clusterOfNode = new int[n];
+        Arrays.fill(clusterOfNode, -1);
+        int[] size = new int[k];
+        for (int r = 0; r < label.length; r++) {
+            clusterOfNode[located.get(r)] = label[r];
+            size[label[r]]++;
+        }
+        // 无坐标的任务节点放入当前最小的分区
+        for (int node : unlocated) {
+            int smallest = 0;
+            for (int c = 1; c < k; c++) {
+                if (size[c] < size[smallest])
+                    smallest = c;
+            }
+            clusterOfNode[node] = smallest;
+            size[smallest]++;
+        }
+        return clusterOfNode;
+    }
+
+    private static double[] depotCenter(CompiledModel model, double[] px, double[] py, double[] x, double[] y) {
+        double sx = 0;
+        double sy = 0;
+        int cnt = 0;
+        for (int v = 0; v < model.getVehicleCount(); v++) {
+            int s = model.getVehicleStart()[v];
+            if (!Double.isNaN(px[s]) && !Double.isNaN(py[s])) {
+                sx += px[s];
+                sy += py[s];
+                cnt++;
+            }
+        }
+        if (cnt == 0) {
+            for (int r = 0; r < x.length; r++) {
+                sx += x[r];
+                sy += y[r];
+            }
+            cnt = x.length;
+        }
+        return new double[] { sx / cnt, sy / cnt };
+    }
+
+    private static void centroids(CompiledModel model, int[] clusterOfNode, double[] px, double[] py,
+            double[] cx, double[] cy) {
+        int[] cnt = new int[cx.length];
+        for (int i = 0; i < clusterOfNode.length; i++) {
+            int c = clusterOfNode[i];
+            if (c < 0 || Double.isNaN(px[i]) || Double.isNaN(py[i]))
+                continue;
+            cx[c] += px[i];
+            cy[c] += py[i];
+            cnt[c]++;
+        }
+        for (int c = 0; c < cx.length; c++) {
+            cx[c] = cnt[c] == 0 ? Double.NaN : cx[c] / cnt[c];
+            cy[c] = cnt[c] == 0 ? Double.NaN : cy[c] / cnt[c];
+        }
+    }
+
+    /**
+     * 每个分区至少一辆车，其余按分区需求（无需求时按任务数）最大余数法分配名额；
+     * 再按车辆起点到分区中心的距离从近到远贪心落位
+     */
+    private static int[] assignVehicles(CompiledModel model, ClusterRun[] runs, double[] px, double[] py,
+            double[] cx, double[] cy) {
+        int k = runs.length;
+        int vehicleCount = model.getVehicleCount();
+
+        double[] weight = new double[k];
+        double total = 0;
+        for (int c = 0; c < k; c++) {
+            long demand = 0;
+            for (TaskNode t : runs[c].tasks)
+                demand += t.getDemandWeight();
+            weight[c] = demand > 0 ? demand : runs[c].tasks.size();
+            total += weight[c];
+        }
+
+        int[] quota = new int[k];
+        double[] remainder = new double[k];
+        int spare = vehicleCount - k;
+        int given = 0;
+        for (int c = 0; c < k; c++) {
+            double share = total > 0 ? spare * weight[c] / total : (double) spare / k;
+            quota[c] = 1 + (int) share;
+            remainder[c] = share - (int) share;
+            given += quota[c];
+        }
+        Integer[] byRemainder = new Integer[k];
+        for (int c = 0; c < k; c++)
+            byRemainder[c] = c;
+        Arrays.sort(byRemainder, (a, b) -> Double.compare(remainder[b], remainder[a]));
+        for (int r = 0; given < vehicleCount; r = (r + 1) % k, given++)
+            quota[byRemainder[r]]++;
+
+        int pairs = vehicleCount * k;
+        double[] dist = new double[pairs];
+        for (int v = 0; v < vehicleCount; v++) {
+            int s = model.getVehicleStart()[v];
+            for (int c = 0; c < k; c++) {
+                double d = GeoClustering.sq(px[s] - cx[c]) + GeoClustering.sq(py[s] - cy[c]);
+                dist[v * k + c] = Double.isNaN(d) ? Double.POSITIVE_INFINITY : d;
+            }
+        }
+        Integer[] pairOrder = new Integer[pairs];
+        for (int p = 0; p < pairs; p++)
+            pairOrder[p] = p;
+        Arrays.sort(pairOrder, Comparator.comparingDouble(p -> dist[p]));
+
+        int[] clusterOfVehicle = new int[vehicleCount];
+        Arrays.fill(clusterOfVehicle, -1);
+        for (int p : pairOrder) {
+            int v = p / k;
+            int c = p % k;
+            if (clusterOfVehicle[v] < 0 && quota[c] > 0) {
+                clusterOfVehicle[v] = c;
+                quota[c]--;
+            }
+        }
+        return clusterOfVehicle;
+    }
+
+    private void runClusters(SolveRequestDTO req, SolveInput in, ClusterRun[] runs, int subLimit, int parallel,
+            BiFunction<SolveRequestDTO, SolveInput, SolveResult> subSolver) {
+        ClusterProgress progress = in.getProgressListener() == null ? null
+                : new ClusterProgress(in.getProgressListener(), runs.length);
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int c;
+            while ((c = next.getAndIncrement()) < runs.length)
+                runCluster(req, in, runs[c], subLimit, subSolver, progress);
+        };
+
+        for (int h = 1; h < parallel; h++) {
+            try {
+                CompletableFuture.runAsync(worker, solveExecutor);
+            } catch (RejectedExecutionException e) {
+                log.warn("DECOMPOSE_EXECUTOR_BUSY planId={}, helpers={}", req.getPlanId(), h - 1);
+                break;
+            }
+        }
+        // 当前线程也领取分区，排队中的辅助任务即使迟迟不运行也不影响完成
+        worker.run();
+
+        for (ClusterRun run : runs)
+            run.done.join();
+    }
+
+    private void runCluster(SolveRequestDTO req, SolveInput in, ClusterRun run, int subLimit,
+            BiFunction<SolveRequestDTO, SolveInput, SolveResult> subSolver, ClusterProgress progress) {
+        long t0 = System.currentTimeMillis();
+        try {
+            SolveOptionsDTO options = new SolveOptionsDTO();
+            BeanUtils.copyProperties(req.getOptions(), options);
+            options.setDecomposition(DecompositionMode.NONE);
+            options.setTimeLimitSeconds(subLimit);
+
+            SolveRequestDTO subReq = new SolveRequestDTO();
+            subReq.setTenantId(req.getTenantId());
+            subReq.setPlanId(req.getPlanId());
+            subReq.setOptions(options);
+
+            SolveProgressListener listener = progress == null ? null
+                    : (objective, assigned, elapsed) -> progress.report(run.index, objective, assigned);
+            run.result = subSolver.apply(subReq, subInput(in, run.tasks, run.vehicles, listener));
+        } catch (Exception e) {
+            log.error("DECOMPOSE_CLUSTER_FAIL planId={}, cluster={}, err={}", req.getPlanId(), run.index,
+                    e.getMessage(), e);
+            SolveResult failed = new SolveResult();
+            failed.setStatus(SolveTaskStatus.FAILED.code());
+            failed.setMessage(e.getMessage());
+            run.result = failed;
+        } finally {
+            run.millis = System.currentTimeMillis() - t0;
+            if (progress != null)
+                progress.finish(run.index, run.result);
+            log.info("DECOMPOSE_CLUSTER planId={}, cluster={}, tasks={}, vehicles={}, status={}, assigned={}, cost={}ms",
+                    req.getPlanId(), run.index, run.tasks.size(), run.vehicles.size(),
+                    run.result == null ? null : run.result.getStatus(),
+                    run.result == null ? 0 : run.result.getKpi().getAssignedTaskCount(), run.millis);
+            run.done.complete(null);
+        }
+    }
+
+    private static SolveInput subInput(SolveInput in, List<TaskNode> tasks, List<VehicleResource> vehicles,
+            SolveProgressListener progressListener) {
+        Set<Long> nodeIdSet = new LinkedHashSet<>();
+        for (VehicleResource v : vehicles) {
+            nodeIdSet.add(v.getStartNodeId());
+            nodeIdSet.add(v.getEndNodeId());
+        }
+        for (TaskNode t : tasks)
+            nodeIdSet.add(t.getNodeId());
+
+        List<Long> indexToNodeId = new ArrayList<>(nodeIdSet);
+        Map<Long, Integer> nodeIdToIndex = new HashMap<>();
+        int[] globalNodes = new int[indexToNodeId.size()];
+        double[] lat = new double[globalNodes.length];
+        double[] lng = new double[globalNodes.length];
+        for (int i = 0; i < globalNodes.length; i++) {
+            nodeIdToIndex.put(indexToNodeId.get(i), i);
+            globalNodes[i] = in.getNodeIdToIndex().get(indexToNodeId.get(i));
+            lat[i] = in.getNodeLat()[globalNodes[i]];
+            lng[i] = in.getNodeLng()[globalNodes[i]];
+        }
+
+        SolveInput sub = new SolveInput();
+        sub.setTenantId(in.getTenantId());
+        sub.setPlanId(in.getPlanId());
+        sub.setPlan(in.getPlan());
+        sub.setVehicles(vehicles);
+        sub.setTasks(tasks);
+        sub.setIndexToNodeId(indexToNodeId);
+        sub.setNodeIdToIndex(nodeIdToIndex);
+        sub.setNodeLat(lat);
+        sub.setNodeLng(lng);
+        sub.setMatrix(in.getMatrix().subMatrix(globalNodes));
+        sub.setInitialRoutes(in.getInitialRoutes());
+        sub.setControl(in.getControl());
+        sub.setProgressListener(progressListener);
+        return sub;
+    }
+
+    /**
+     * 边界任务在本分区与相邻分区的车辆间重定位，随后把未分配任务插入本分区或相邻分区的路线
+     *
+     * @return 被修改过的车辆
+     */
+    private static boolean[] repair(CompiledModel model, InsertionHeuristic heuristic, int[] clusterOfNode,
+            int[] clusterOfVehicle, double[] px, double[] py, double[] cx, double[] cy, double[] lat) {
+        int k = cx.length;
+        boolean[][] adjacent = adjacentClusters(cx, cy);
+
+        int[][] repairVehicles = new int[k][];
+        for (int c = 0; c < k; c++) {
+            final int cc = c;
+            repairVehicles[c] = IntStream.range(0, clusterOfVehicle.length)
+                    .filter(v -> clusterOfVehicle[v] == cc || adjacent[cc][clusterOfVehicle[v]])
+                    .toArray();
+        }
+
+        boolean[] touched = new boolean[model.getVehicleCount()];
+        int[] taskOfNode = model.getTaskOfNode();
+
+        for (int c = 0; c < k; c++) {
+            List<Integer> boundary = new ArrayList<>();
+            for (int i = 0; i < clusterOfNode.length; i++) {
+                if (clusterOfNode[i] != c || heuristic.vehicleOf(i) < 0 || Double.isNaN(lat[i]))
+                    continue;
+                double own = GeoClustering.sq(px[i] - cx[c]) + GeoClustering.sq(py[i] - cy[c]);
+                for (int o = 0; o < k; o++) {
+                    double other = GeoClustering.sq(px[i] - cx[o]) + GeoClustering.sq(py[i] - cy[o]);
+                    if (adjacent[c][o] && other <= own * BOUNDARY_RATIO * BOUNDARY_RATIO) {
+                        boundary.add(i);
+                        break;
+                    }
+                }
+            }
+            boolean[] moved = heuristic.relocate(boundary.stream().mapToInt(Integer::intValue).toArray(),
+                    repairVehicles[c]);
+            for (int v = 0; v < moved.length; v++)
+                touched[v] |= moved[v];
+        }
+
+        for (int i = 0; i < clusterOfNode.length; i++) {
+            if (taskOfNode[i] < 0 || heuristic.vehicleOf(i) >= 0)
+                continue;
+            InsertionHeuristic.Insertion ins = heuristic.cheapest(i, repairVehicles[clusterOfNode[i]]);
+            if (ins != null) {
+                heuristic.apply(i, ins);
+                touched[ins.vehicle()] = true;
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * 每个分区与中心最近的 NEIGHBOR_CLUSTERS 个分区相邻（取对称）
+     */
+    private static boolean[][] adjacentClusters(double[] cx, double[] cy) {
+        int k = cx.length;
+        boolean[][] adjacent = new boolean[k][k];
+        for (int c = 0; c < k; c++) {
+            final int cc = c;
+            Integer[] others = IntStream.range(0, k).filter(o -> o != cc).boxed()
+                    .toArray(Integer[]::new);
+            Arrays.sort(others, Comparator.comparingDouble(o -> {
+                double d = GeoClustering.sq(cx[o] - cx[cc]) + GeoClustering.sq(cy[o] - cy[cc]);
+                return Double.isNaN(d) ? Double.POSITIVE_INFINITY : d;
+            }));
+            for (int r = 0; r < Math.min(NEIGHBOR_CLUSTERS, others.length); r++) {
+                adjacent[c][others[r]] = true;
+                adjacent[others[r]][c] = true;
+            }
+        }
+        return adjacent;
+    }
+
+    private static SolveResult merge(CompiledModel model, InsertionHeuristic heuristic,
+            SolveResult.RouteResult[] subRoutes, boolean[] touched,
+            Map<Long, SolveResult.UnassignedResult> subUnassigned) {
+        SolveResult out = new SolveResult();
+        VehicleResource[] vehicles = model.getVehicles();
+        TaskNode[] tasks = model.getTasks();
+        int[] taskOfNode = model.getTaskOfNode();
+
+        long totalDistance = 0;
+        int assigned = 0;
+        for (int v = 0; v < vehicles.length; v++) {
+            SolveResult.RouteResult rr;
+            if (!touched[v] && subRoutes[v] != null) {
+                rr = subRoutes[v];
+            } else {
+                rr = new SolveResult.RouteResult();
+                rr.setVehicleId(vehicles[v].getVehicleId());
+                int[] seq = heuristic.route(v);
+                long[] eta = heuristic.schedule(v, seq);
+                if (eta == null)
+                    throw new IllegalStateException("Repaired route infeasible, vehicleId=" + vehicles[v].getVehicleId());
+                for (int s = 0; s < seq.length; s++) {
+                    TaskNode task = tasks[taskOfNode[seq[s]]];
+                    SolveResult.StopResult sr = new SolveResult.StopResult();
+                    sr.setSeq(s);
+                    sr.setTaskId(task.getTaskId());
+                    sr.setNodeId(task.getNodeId());
+                    sr.setEtaSec(eta[s + 1]);
+                    sr.setServiceTimeSec(task.getServiceTimeSec());
+                    sr.setEtdSec(eta[s + 1] + task.getServiceTimeSec());
+                    rr.getStops().add(sr);
+                }
+                if (seq.length > 0) {
+                    rr.setTotalDistanceM(heuristic.distance(v, seq));
+                    rr.setTotalTimeSec(eta[seq.length + 1] - eta[0]);
+                }
+            }
+            totalDistance += rr.getTotalDistanceM();
+            assigned += rr.getStops().size();
+            out.getRoutes().add(rr);
+        }
+
+        for (int t = 0; t < tasks.length; t++) {
+            int node = model.getNodeOfTask()[t];
+            if (node >= 0 && taskOfNode[node] == t && heuristic.vehicleOf(node) >= 0)
+                continue;
+            SolveResult.UnassignedResult u = subUnassigned.get(tasks[t].getTaskId());
+            if (u == null) {
+                u = new SolveResult.UnassignedResult();
+                u.setTaskId(tasks[t].getTaskId());
+                u.setReasonCode("DROPPED");
+                u.setDetail("Dropped by penalty");
+            }
+            out.getUnassigned().add(u);
+        }
+
+        out.getKpi().setAssignedTaskCount(assigned);
+        out.getKpi().setUnassignedTaskCount(out.getUnassigned().size());
+        out.getKpi().setTotalDistanceM(totalDistance);
+        return out;
+    }
+
+    private static double meanLat(double[] lat, int[] taskOfNode) {
+        double sum = 0;
+        int cnt = 0;
+        for (int i = 0; i < lat.length; i++) {
+            if (taskOfNode[i] >= 0 && !Double.isNaN(lat[i])) {
+                sum += lat[i];
+                cnt++;
+            }
+        }
+        return cnt == 0 ? 0 : sum / cnt;
+    }
+}
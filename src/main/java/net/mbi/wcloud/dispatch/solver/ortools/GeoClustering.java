@@ -0,0 +1,147 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * 任务节点的地理分区：平面坐标（经度按纬度余弦缩放，单位为度）上的极角扫描与 k-means
+ */
+final class GeoClustering {
+
+    private static final int KMEANS_MAX_ITER = 50;
+    private static final long KMEANS_SEED = 17L;
+
+    private GeoClustering() {
+    }
+
+    /**
+     * 以 (cx, cy) 为中心按极角排序，从最大角度间隙处切开，按任务数均分为 k 段
+     *
+     * @return 与 x / y 对齐的分区号
+     */
+    static int[] sweep(double[] x, double[] y, double cx, double cy, int k) {
+        int n = x.length;
+        double[] angle = new double[n];
+        for (int i = 0; i < n; i++)
+            angle[i] = Math.atan2(y[i] - cy, x[i] - cx);
+
+        Integer[] order = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(i -> angle[i]));
+
+        // 从最大间隙之后开始扫描，避免把一簇点从中间切成首尾两段
+        int startAt = 0;
+        double maxGap = -1;
+        for (int r = 0; r < n; r++) {
+            double next = r + 1 < n ? angle[order[r + 1]] : angle[order[0]] + 2 * Math.PI;
+            double gap = next - angle[order[r]];
+            if (gap > maxGap) {
+                maxGap = gap;
+                startAt = (r + 1) % n;
+            }
+        }
+
+        int[] label = new int[n];
+        for (int r = 0; r < n; r++)
+            label[order[(startAt + r) % n]] = (int) ((long) r * k / n);
+        return label;
+    }
+
+    /**
+     * k-means++ 初始化的 Lloyd 迭代，空分区用离所属中心最远的点重新播种
+     *
+     * @return 与 x / y 对齐的分区号
+     */
+    static int[] kMeans(double[] x, double[] y, int k) {
+        int n = x.length;
+        Random rnd = new Random(KMEANS_SEED);
+        double[] cx = new double[k];
+        double[] cy = new double[k];
+
+        // k-means++
+        double[] d2 = new double[n];
+        Arrays.fill(d2, Double.POSITIVE_INFINITY);
+        int first = rnd.nextInt(n);
+        cx[0] = x[first];
+        cy[0] = y[first];
+        for (int c = 1; c < k; c++) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                d2[i] = Math.min(d2[i], sq(x[i] - cx[c - 1]) + sq(y[i] - cy[c - 1]));
+                sum += d2[i];
+            }
+            double r = rnd.nextDouble() * sum;
+            int pick = n - 1;
+            for (int i = 0; i < n; i++) {
+                r -= d2[i];
+                if (r <= 0) {
+                    pick = i;
+                    break;
+                }
+            }
+            cx[c] = x[pick];
+            cy[c] = y[pick];
+        }
+
+        int[] label = new int[n];
+        Arrays.fill(label, -1);
+        for (int iter = 0; iter < KMEANS_MAX_ITER; iter++) {
+            boolean changed = false;
+            for (int i = 0; i < n; i++) {
+                int best = 0;
+                double bestD = Double.POSITIVE_INFINITY;
+                for (int c = 0; c < k; c++) {
+                    double d = sq(x[i] - cx[c]) + sq(y[i] - cy[c]);
+                    if (d < bestD) {
+                        bestD = d;
+                        best = c;
+                    }
+                }
+                if (label[i] != best) {
+                    label[i] = best;
+                    changed = true;
+                }
+            }
+            if (!changed)
+                break;
+
+            double[] sx = new double[k];
+            double[] sy = new double[k];
+            int[] cnt = new int[k];
+            for (int i = 0; i < n; i++) {
+                sx[label[i]] += x[i];
+                sy[label[i]] += y[i];
+                cnt[label[i]]++;
+            }
+            for (int c = 0; c < k; c++) {
+                if (cnt[c] > 0) {
+                    cx[c] = sx[c] / cnt[c];
+                    cy[c] = sy[c] / cnt[c];
+                } else {
+                    int far = farthestFromOwnCenter(x, y, label, cx, cy);
+                    cx[c] = x[far];
+                    cy[c] = y[far];
+                }
+            }
+        }
+        return label;
+    }
+
+    private static int farthestFromOwnCenter(double[] x, double[] y, int[] label, double[] cx, double[] cy) {
+        int far = 0;
+        double farD = -1;
+        for (int i = 0; i < x.length; i++) {
+            double d = sq(x[i] - cx[label[i]]) + sq(y[i] - cy[label[i]]);
+            if (d > farD) {
+                farD = d;
+                far = i;
+            }
+        }
+        return far;
+    }
+
+    static double sq(double v) {
+        return v * v;
+    }
+}
@@ -0,0 +1,144 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * 增量插入：在已有路线上插入少量新任务，不重新求解。
+ * <p>
+ * 新任务逐个按最便宜可行位置插入，随后对新任务及其附近的已排站点做一轮有界重定位（只接受降低总距离的移动）。
+ * 只需要新任务、附近站点与车场的整行整列，以及现有路线上相邻节点间的弧，矩阵可按 candidateColumns 稀疏计算。
+ */
+public final class IncrementalInsertion {
+
+    /**
+     * @param routes   车辆下标 -> 插入后的路线节点序列
+     * @param touched  路线有变化的车辆
+     * @param unplaced 没有可行位置的新任务节点
+     */
+    public record Result(int[][] routes, boolean[] touched, int[] unplaced) {
+    }
+
+    private IncrementalInsertion() {
+    }
+
+    /**
+     * 稀疏矩阵的候选列：full 节点（车场、新任务、参与修复的站点）与所有节点双向相连；
+     * 其余节点保留自身、路线上的前后相邻节点，参与修复的站点移出后其前后节点直接相连
+     *
+     * @param routes 车辆下标 -> 现有路线节点序列（不含起终点车场）
+     */
+    public static int[][] candidateColumns(int nodeCount, int[][] routes, int[] vehicleStart, int[] vehicleEnd,
+            boolean[] full) {
+        int fullCount = 0;
+        for (boolean f : full) {
+            if (f)
+                fullCount++;
+        }
+        int[] fullNodes = new int[fullCount];
+        for (int i = 0, m = 0; i < nodeCount; i++) {
+            if (full[i])
+                fullNodes[m++] = i;
+        }
+
+        // 普通节点的相邻弧：前驱、后继，以及作为修复站点前后节点时的跨越弧（可能重复，最后去重）
+        int[][] extra = new int[nodeCount][4];
+        int[] extraCount = new int[nodeCount];
+        for (int v = 0; v < routes.length; v++) {
+            int[] seq = routes[v];
+            for (int p = 0; p < seq.length; p++) {
+                int prev = p == 0 ? vehicleStart[v] : seq[p - 1];
+                int next = p == seq.length - 1 ? vehicleEnd[v] : seq[p + 1];
+                link(extra, extraCount, full, prev, seq[p]);
+                link(extra, extraCount, full, seq[p], next);
+                if (full[seq[p]])
+                    link(extra, extraCount, full, prev, next);
+            }
+        }
+
+        int[] all = IntStream.range(0, nodeCount).toArray();
+        int[][] cols = new int[nodeCount][];
+        for (int i = 0; i < nodeCount; i++) {
+            if (full[i]) {
+                cols[i] = all.clone();
+                continue;
+            }
+            int[] c = Arrays.copyOf(fullNodes, fullCount + 1 + extraCount[i]);
+            c[fullCount] = i;
+            System.arraycopy(extra[i], 0, c, fullCount + 1, extraCount[i]);
+            cols[i] = sortedDistinct(c);
+        }
+        return cols;
+    }
+
+    /**
+     * @param routes      车辆下标 -> 现有路线节点序列
+     * @param newNodes    待插入的任务节点
+     * @param repairNodes 插入后参与重定位的已排站点（通常为新任务的近邻）
+     */
+    public static Result insert(CompiledModel model, int[][] routes, int[] newNodes, int[] repairNodes) {
+        InsertionHeuristic heuristic = new InsertionHeuristic(model, routes);
+        int vehicleCount = model.getVehicleCount();
+        int[] allVehicles = IntStream.range(0, vehicleCount).toArray();
+        boolean[] touched = new boolean[vehicleCount];
+
+        int[] unplaced = new int[newNodes.length];
+        int unplacedCount = 0;
+        int[] placed = new int[newNodes.length];
+        int placedCount = 0;
+        for (int node : newNodes) {
+            InsertionHeuristic.Insertion ins = heuristic.cheapest(node, allVehicles);
+            if (ins == null) {
+                unplaced[unplacedCount++] = node;
+                continue;
+            }
+            heuristic.apply(node, ins);
+            touched[ins.vehicle()] = true;
+            placed[placedCount++] = node;
+        }
+
+        // 有界修复：新任务与其近邻站点，在涉及的车辆之间重定位
+        int[] moving = new int[placedCount + repairNodes.length];
+        System.arraycopy(placed, 0, moving, 0, placedCount);
+        System.arraycopy(repairNodes, 0, moving, placedCount, repairNodes.length);
+
+        boolean[] candidate = touched.clone();
+        for (int node : repairNodes) {
+            if (heuristic.vehicleOf(node) >= 0)
+                candidate[heuristic.vehicleOf(node)] = true;
+        }
+        int[] candidateVehicles = IntStream.range(0, vehicleCount).filter(v -> candidate[v]).toArray();
+
+        boolean[] moved = heuristic.relocate(moving, candidateVehicles);
+        for (int v = 0; v < vehicleCount; v++)
+            touched[v] |= moved[v];
+
+        int[][] out = new int[vehicleCount][];
+        for (int v = 0; v < vehicleCount; v++)
+            out[v] = heuristic.route(v);
+        return new Result(out, touched, Arrays.copyOf(unplaced, unplacedCount));
+    }
+
+    private static void link(int[][] extra, int[] extraCount, boolean[] full, int a, int b) {
+        if (!full[a])
+            add(extra, extraCount, a, b);
+        if (!full[b])
+            add(extra, extraCount, b, a);
+    }
+
+    private static void add(int[][] extra, int[] extraCount, int node, int col) {
+        if (extraCount[node] == extra[node].length)
+            extra[node] = Arrays.copyOf(extra[node], extra[node].length * 2);
+        extra[node][extraCount[node]++] = col;
+    }
+
+    private static int[] sortedDistinct(int[] a) {
+        Arrays.sort(a);
+        int m = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (m == 0 || a[i] != a[m - 1])
+                a[m++] = a[i];
+        }
+        return m == a.length ? a : Arrays.copyOf(a, m);
+    }
+}
@@ -0,0 +1,203 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+
+import java.util.Arrays;
+
+/**
+ * 基于 CompiledModel 的路线插入/重定位启发式，约束与 OrToolsSolverEngine 的模型一致：
+ * 载重、任务时间窗、车辆班次、相邻节点间等待不超过 TIME_SLACK_SEC（出车时刻可在班次内推后）。
+ * <p>
+ * 路线以节点下标序列表示（不含起终点车场），代价为距离，与求解器的弧代价一致。
+ * 用于分解求解后的边界修复，以及增量插入新任务。非线程安全。
+ */
+public final class InsertionHeuristic {
+
+    private final CompiledModel model;
+    private final MatrixData matrix;
+
+    /** 车辆下标 -> 路线节点序列 */
+    private final int[][] routes;
+    /** 节点下标 -> 所在车辆，未分配为 -1 */
+    private final int[] vehicleOf;
+
+    /**
+     * 一次插入：车辆、插入位置（在该位置之前插入）、增加的距离
+     */
+    public record Insertion(int vehicle, int position, long delta) {
+    }
+
+    public InsertionHeuristic(CompiledModel model, int[][] routes) {
+        this.model = model;
+        this.matrix = model.getMatrix();
+        this.routes = new int[model.getVehicleCount()][];
+        this.vehicleOf = new int[model.getNodeCount()];
+        Arrays.fill(vehicleOf, -1);
+        for (int v = 0; v < this.routes.length; v++) {
+            this.routes[v] = routes[v] == null ? new int[0] : routes[v].clone();
+            for (int node : this.routes[v])
+                vehicleOf[node] = v;
+        }
+    }
+
+    public int[] route(int v) {
+        return routes[v];
+    }
+
+    public int vehicleOf(int node) {
+        return vehicleOf[node];
+    }
+
+    /**
+     * 推算路线各位置的最早可行时刻：下标 0 为出车，1..seq.length 为各站服务开始，最后一位为收车；不可行时返回 null。
+     * <p>
+     * 相邻位置满足 cumul(next) - cumul(prev) ∈ [行驶+服务, 行驶+服务+slack]，各位置落在时间窗/班次内；
+     * 链式差分约束前向一遍得到可行区间，后向一遍把等待过长的前序时刻推后，结果与求解器 cumul 的最小值一致。
+     */
+    public long[] schedule(int v, int[] seq) {
+        int len = seq.length;
+        if (len == 0)
+            return new long[] { model.getWorkStart()[v], model.getWorkStart()[v] };
+
+        int[] demand = model.getDemand();
+        int[] serviceSec = model.getServiceSec();
+        long load = 0;
+        for (int node : seq)
+            load += demand[node];
+        if (load > model.getCapacity()[v])
+            return null;
+
+        long[] lo = new long[len + 2];
+        long[] hi = new long[len + 2];
+        long[] transit = new long[len + 2];
+        lo[0] = model.getWorkStart()[v];
+        hi[0] = Math.min(model.getWorkEnd()[v], OrToolsSolverEngine.HORIZON_SEC);
+
+        int prev = model.getVehicleStart()[v];
+        for (int p = 1; p <= len + 1; p++) {
+            boolean end = p == len + 1;
+            int node = end ? model.getVehicleEnd()[v] : seq[p - 1];
+            int travel = matrix.time(prev, node);
+            if (travel >= MatrixData.UNREACHABLE)
+                return null;
+            transit[p] = travel + serviceSec[prev];
+
+            long domLo = end ? model.getWorkStart()[v] : model.getTwStart()[node];
+            long domHi = Math.min(end ? model.getWorkEnd()[v] : model.getTwEnd()[node],
+                    OrToolsSolverEngine.HORIZON_SEC);
+            lo[p] = Math.max(domLo, lo[p - 1] + transit[p]);
+            hi[p] = Math.min(domHi, hi[p - 1] + transit[p] + OrToolsSolverEngine.TIME_SLACK_SEC);
+            if (lo[p] > hi[p])
+                return null;
+            prev = node;
+        }
+
+        for (int p = len; p >= 0; p--)
+            lo[p] = Math.max(lo[p], lo[p + 1] - transit[p + 1] - OrToolsSolverEngine.TIME_SLACK_SEC);
+        return lo;
+    }
+
+    /**
+     * 路线距离（空路线为 0，与未使用车辆不计成本一致）
+     */
+    public long distance(int v, int[] seq) {
+        if (seq.length == 0)
+            return 0;
+        long d = 0;
+        int prev = model.getVehicleStart()[v];
+        for (int node : seq) {
+            d += matrix.dist(prev, node);
+            prev = node;
+        }
+        return d + matrix.dist(prev, model.getVehicleEnd()[v]);
+    }
+
+    /**
+     * node 在 vehicles 的路线中代价最小的可行插入位置，没有可行位置返回 null
+     */
+    public Insertion cheapest(int node, int[] vehicles) {
+        Insertion best = null;
+        for (int v : vehicles) {
+            int[] seq = routes[v];
+            for (int pos = 0; pos <= seq.length; pos++) {
+                long delta = insertDelta(v, seq, pos, node);
+                if (best != null && delta >= best.delta())
+                    continue;
+                if (schedule(v, inserted(seq, pos, node)) != null)
+                    best = new Insertion(v, pos, delta);
+            }
+        }
+        return best;
+    }
+
+    public void apply(int node, Insertion ins) {
+        routes[ins.vehicle()] = inserted(routes[ins.vehicle()], ins.position(), node);
+        vehicleOf[node] = ins.vehicle();
+    }
+
+    /**
+     * 逐个尝试把 nodes 移到 candidateVehicles 中更便宜的可行位置（移出后原路线也须可行），
+     * 只接受严格降低总距离的移动
+     *
+     * @return 被移动的车辆（原车辆与目标车辆）标记
+     */
+    public boolean[] relocate(int[] nodes, int[] candidateVehicles) {
+        boolean[] touched = new boolean[routes.length];
+        for (int node : nodes) {
+            int v = vehicleOf[node];
+            if (v < 0)
+                continue;
+            int[] seq = routes[v];
+            int pos = indexOf(seq, node);
+            int[] removed = removed(seq, pos);
+            if (schedule(v, removed) == null)
+                continue;
+
+            long gain = distance(v, seq) - distance(v, removed);
+            routes[v] = removed;
+            vehicleOf[node] = -1;
+
+            Insertion ins = cheapest(node, candidateVehicles);
+            if (ins != null && ins.delta() < gain) {
+                apply(node, ins);
+                touched[v] = true;
+                touched[ins.vehicle()] = true;
+            } else {
+                routes[v] = seq;
+                vehicleOf[node] = v;
+            }
+        }
+        return touched;
+    }
+
+    private long insertDelta(int v, int[] seq, int pos, int node) {
+        int prev = pos == 0 ? model.getVehicleStart()[v] : seq[pos - 1];
+        int next = pos == seq.length ? model.getVehicleEnd()[v] : seq[pos];
+        if (seq.length == 0)
+            return (long) matrix.dist(prev, node) + matrix.dist(node, next);
+        return (long) matrix.dist(prev, node) + matrix.dist(node, next) - matrix.dist(prev, next);
+    }
+
+    private static int[] inserted(int[] seq, int pos, int node) {
+        int[] out = new int[seq.length + 1];
+        System.arraycopy(seq, 0, out, 0, pos);
+        out[pos] = node;
+        System.arraycopy(seq, pos, out, pos + 1, seq.length - pos);
+        return out;
+    }
+
+    private static int[] removed(int[] seq, int pos) {
+        int[] out = new int[seq.length - 1];
+        System.arraycopy(seq, 0, out, 0, pos);
+        System.arraycopy(seq, pos + 1, out, pos, seq.length - pos - 1);
+        return out;
+    }
+
+    private static int indexOf(int[] seq, int node) {
+        for (int i = 0; i < seq.length; i++) {
+            if (seq[i] == node)
+                return i;
+        }
+        return -1;
+    }
+}
@@ -2,137 +2,254 @@ package net.mbi.wcloud.dispatch.solver.ortools;
 
 import com.google.ortools.Loader;
 import com.google.ortools.constraintsolver.*;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.DecompositionMode;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveControl;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveProgressListener;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class OrToolsSolverEngine {
 
+    /** 节点处最长等待（时间维度 slack） */
+    static final int TIME_SLACK_SEC = 30 * 60;
+    /** 时间维度上限 */
+    static final int HORIZON_SEC = 24 * 3600;
+    /** 搜索进度上报的最小间隔 */
+    static final long PROGRESS_INTERVAL_MS = 1000;
+
+    /**
+     * 单个搜索使用 OR-Tools 原生矩阵回调的最大节点数，超过后退回 Java 回调。
+     * 组合求解时每个 worker 各自把矩阵拷贝到 native，阈值按 worker 数的平方根缩小，保持原生矩阵总量不变
+     */
+    @Value("${dispatch.solver.ortools.native-matrix-max-nodes:2000}")
+    private int nativeMatrixMaxNodes = 2000;
+
+    private final DecompositionSolver decompositionSolver;
+    private final PortfolioSolver portfolioSolver;
+
     public SolveResult solve(SolveRequestDTO req, SolveInput in) {
         Loader.loadNativeLibraries();
 
-        SolveResult out = new SolveResult();
-
-        List<TaskNode> tasks = in.getTasks();
-        List<VehicleResource> vehicles = in.getVehicles();
-        MatrixData matrix = in.getMatrix();
+        if (req.getOptions().getDecomposition() != null
+                && req.getOptions().getDecomposition() != DecompositionMode.NONE)
+            return decompositionSolver.solve(req, in, this::solveSingle);
+        return solveSingle(req, in);
+    }
 
-        int taskCount = tasks == null ? 0 : tasks.size();
-        int vehicleCount = vehicles == null ? 0 : vehicles.size();
+    /**
+     * 整个输入编译一次；开启组合求解时多个搜索配置并行跑同一个编译模型，否则按默认配置求解
+     */
+    private SolveResult solveSingle(SolveRequestDTO req, SolveInput in) {
+        int taskCount = in.getTasks() == null ? 0 : in.getTasks().size();
+        int vehicleCount = in.getVehicles() == null ? 0 : in.getVehicles().size();
         int nodeCount = in.getIndexToNodeId() == null ? 0 : in.getIndexToNodeId().size();
 
         log.info("ORTOOLS_START planId={}, tasks={}, vehicles={}, nodes={}, timeLimit={}s",
                 req.getPlanId(), taskCount, vehicleCount, nodeCount, req.getOptions().getTimeLimitSeconds());
 
         if (taskCount == 0 || vehicleCount == 0) {
+            SolveResult out = new SolveResult();
             out.setStatus(SolveTaskStatus.FAILED.code());
             out.setMessage("No tasks or vehicles");
             return out;
         }
 
-        int[] starts = new int[vehicleCount];
-        int[] ends = new int[vehicleCount];
+        CompiledModel model = CompiledModel.compile(in);
+
+        // Warm start: previous routes + cheapest insertion of new tasks
+        WarmStart.Seed seed = WarmStart.seed(model, in.getInitialRoutes());
+        int[][] initialRoutes = seed == null ? null : seed.routes();
+        if (seed != null)
+            log.info("ORTOOLS_WARM_START planId={}, kept={}, inserted={}, left={}",
+                    req.getPlanId(), seed.kept(), seed.inserted(), seed.left());
+
+        int workers = Math.max(1, req.getOptions().getPortfolioWorkers());
+        boolean nativeMatrix = useNativeMatrix(model, workers);
+        if (workers > 1)
+            return portfolioSolver.solve(req, workers,
+                    (strategy, timeLimit) -> solveModel(req, model, strategy, timeLimit, initialRoutes,
+                            in.getControl(), in.getProgressListener(), nativeMatrix));
+        return solveModel(req, model, SearchStrategy.DEFAULT, req.getOptions().getTimeLimitSeconds(), initialRoutes,
+                in.getControl(), in.getProgressListener(), nativeMatrix);
+    }
 
-        for (int v = 0; v < vehicleCount; v++) {
-            starts[v] = in.getNodeIdToIndex().get(vehicles.get(v).getStartNodeId());
-            ends[v] = in.getNodeIdToIndex().get(vehicles.get(v).getEndNodeId());
-        }
+    /**
+     * 节点规模允许时，距离/时间以矩阵形式交给 OR-Tools 原生回调，弧代价在 C++ 侧直接查表，不再逐弧回调 Java；
+     * 超过阈值时矩阵拷贝到 native 的内存代价过高，退回 Java 回调（仍只读原始数组）；
+     * 稀疏矩阵（k 近邻）展开成 n² 会抵消稀疏的意义，同样走 Java 回调
+     */
+    boolean useNativeMatrix(CompiledModel model, int workers) {
+        return !model.getMatrix().isSparse()
+                && model.getNodeCount() <= (int) (nativeMatrixMaxNodes / Math.sqrt(workers));
+    }
 
-        RoutingIndexManager manager = new RoutingIndexManager(nodeCount, vehicleCount, starts, ends);
+    /**
+     * 基于编译模型构建一个 RoutingModel 并按给定搜索配置求解；每次调用独立建模，可在多个线程上并发执行。
+     * initialRoutes 不为空时以其为初始解（热启动），初始解不被模型接受时退回从零求解；
+     * control 收到停止请求时中断搜索，返回已找到的最优解（尚无解则按无解返回）；
+     * progress 不为空时按 PROGRESS_INTERVAL_MS 节流上报搜索找到的新解；
+     * nativeMatrix 时使用模型上共享的展开矩阵，多个 worker 不重复构建
+     */
+    private SolveResult solveModel(SolveRequestDTO req, CompiledModel model, SearchStrategy strategy,
+            int timeLimitSeconds, int[][] initialRoutes, SolveControl control, SolveProgressListener progress,
+            boolean nativeMatrix) {
+        SolveResult out = new SolveResult();
+
+        MatrixData matrix = model.getMatrix();
+        int nodeCount = model.getNodeCount();
+        int vehicleCount = model.getVehicleCount();
+        VehicleResource[] vehicles = model.getVehicles();
+
+        RoutingIndexManager manager = new RoutingIndexManager(nodeCount, vehicleCount,
+                model.getVehicleStart(), model.getVehicleEnd());
         RoutingModel routing = new RoutingModel(manager);
 
+        // 路由下标 -> 节点下标，预先展开，避免回调里再走 JNI 的 indexToNode
+        int[] indexToNode = new int[manager.getNumberOfIndices()];
+        for (int i = 0; i < indexToNode.length; i++)
+            indexToNode[i] = manager.indexToNode(i);
+
+        int[] serviceSec = model.getServiceSec();
+        int[] taskOfNode = model.getTaskOfNode();
+
         // Distance cost
-        int distCb = routing.registerTransitCallback((long fromIdx, long toIdx) -> {
-            int fromNode = manager.indexToNode(fromIdx);
-            int toNode = manager.indexToNode(toIdx);
-            return matrix.getDistMeter()[fromNode][toNode];
-        });
+        int distCb;
+        if (nativeMatrix) {
+            distCb = routing.registerTransitMatrix(model.expandedDistance());
+        } else {
+            distCb = routing.registerTransitCallback(
+                    (long fromIdx, long toIdx) -> matrix.dist(indexToNode[(int) fromIdx], indexToNode[(int) toIdx]));
+        }
         routing.setArcCostEvaluatorOfAllVehicles(distCb);
 
         // Demand
-        int demandCb = routing.registerUnaryTransitCallback((long fromIdx) -> {
-            int fromNode = manager.indexToNode(fromIdx);
-            Long nodeId = in.getIndexToNodeId().get(fromNode);
-            TaskNode t = findTaskByNodeId(tasks, nodeId);
-            return t == null ? 0 : t.getDemandWeight();
-        });
-
-        long[] caps = new long[vehicleCount];
-        for (int v = 0; v < vehicleCount; v++)
-            caps[v] = vehicles.get(v).getCapacityWeight();
-
-        routing.addDimensionWithVehicleCapacity(demandCb, 0, caps, true, "Capacity");
-
-        // Time: travel + service
-        int timeCb = routing.registerTransitCallback((long fromIdx, long toIdx) -> {
-            int fromNode = manager.indexToNode(fromIdx);
-            int toNode = manager.indexToNode(toIdx);
+        long[] demand = new long[nodeCount];
+        for (int node = 0; node < nodeCount; node++)
+            demand[node] = model.getDemand()[node];
+        int demandCb = routing.registerUnaryTransitVector(demand);
+
+        routing.addDimensionWithVehicleCapacity(demandCb, 0, model.getCapacity(), true, "Capacity");
+
+        // Time: travel + service（服务时长预先折算进出发节点所在行）
+        int timeCb;
+        if (nativeMatrix) {
+            timeCb = routing.registerTransitMatrix(model.expandedTime());
+        } else {
+            timeCb = routing.registerTransitCallback((long fromIdx, long toIdx) -> {
+                int fromNode = indexToNode[(int) fromIdx];
+                return matrix.time(fromNode, indexToNode[(int) toIdx]) + serviceSec[fromNode];
+            });
+        }
 
-            long travel = matrix.getTimeSec()[fromNode][toNode];
-            Long fromNodeId = in.getIndexToNodeId().get(fromNode);
-            TaskNode t = findTaskByNodeId(tasks, fromNodeId);
-            long service = (t == null) ? 0 : t.getServiceTimeSec();
+        log.info("ORTOOLS_TRANSIT planId={}, nodes={}, nativeMatrix={}, sparse={}, arcs={}",
+                req.getPlanId(), nodeCount, nativeMatrix, matrix.isSparse(), matrix.cellCount());
 
-            return travel + service;
-        });
+        // Candidate arcs: restrict next of task nodes to k-nearest task nodes + route ends
+        if (matrix.isSparse())
+            restrictToCandidateArcs(routing, manager, model);
 
-        routing.addDimension(timeCb, 30 * 60, 24 * 3600, false, "Time");
+        routing.addDimension(timeCb, TIME_SLACK_SEC, HORIZON_SEC, false, "Time");
         RoutingDimension timeDim = routing.getMutableDimension("Time");
 
         // Task time windows
-        for (TaskNode t : tasks) {
-            Integer nodeIdx = in.getNodeIdToIndex().get(t.getNodeId());
-            if (nodeIdx == null)
+        for (int node = 0; node < nodeCount; node++) {
+            if (taskOfNode[node] < 0)
                 continue;
-            long idx = manager.nodeToIndex(nodeIdx);
-            timeDim.cumulVar(idx).setRange(t.getTwStartSec(), t.getTwEndSec());
+            long idx = manager.nodeToIndex(node);
+            timeDim.cumulVar(idx).setRange(model.getTwStart()[node], model.getTwEnd()[node]);
         }
 
         // Vehicle shifts
         for (int v = 0; v < vehicleCount; v++) {
-            VehicleResource vr = vehicles.get(v);
-            timeDim.cumulVar(routing.start(v)).setRange(vr.getWorkStartSec(), vr.getWorkEndSec());
-            timeDim.cumulVar(routing.end(v)).setRange(vr.getWorkStartSec(), vr.getWorkEndSec());
+            timeDim.cumulVar(routing.start(v)).setRange(model.getWorkStart()[v], model.getWorkEnd()[v]);
+            timeDim.cumulVar(routing.end(v)).setRange(model.getWorkStart()[v], model.getWorkEnd()[v]);
         }
 
         // Allow drop
         if (req.getOptions().isAllowDrop()) {
             long penalty = req.getOptions().getUnassignedPenalty();
-            for (TaskNode t : tasks) {
-                Integer nodeIdx = in.getNodeIdToIndex().get(t.getNodeId());
-                if (nodeIdx == null)
+            for (int node = 0; node < nodeCount; node++) {
+                if (taskOfNode[node] < 0)
                     continue;
-                long idx = manager.nodeToIndex(nodeIdx);
+                long idx = manager.nodeToIndex(node);
                 routing.addDisjunction(new long[] { idx }, penalty);
             }
         }
 
-        RoutingSearchParameters search = main.defaultRoutingSearchParameters()
-                .toBuilder()
-                .setFirstSolutionStrategy(FirstSolutionStrategy.Value.PARALLEL_CHEAPEST_INSERTION)
-                .setLocalSearchMetaheuristic(LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH)
-                .setTimeLimit(com.google.protobuf.Duration.newBuilder()
-                        .setSeconds(req.getOptions().getTimeLimitSeconds()).build())
-                .build();
+        RoutingSearchParameters search = strategy.toParameters(timeLimitSeconds);
+
+        // Stop request: CancelSearch from the requesting thread; re-checked on every new solution
+        // in case the request lands before the search has started
+        Runnable cancel = routing::CancelSearch;
+        if (control != null)
+            routing.addAtSolutionCallback(() -> {
+                if (control.stopRequested())
+                    routing.CancelSearch();
+            });
 
         long t0 = System.currentTimeMillis();
-        Assignment solution = routing.solveWithParameters(search);
+
+        // Progress: objective + assigned count of the current solution, throttled; dropped nodes point to themselves
+        if (progress != null) {
+            long[] taskIdx = new long[model.getTasks().length];
+            int k = 0;
+            for (int node = 0; node < nodeCount; node++)
+                if (taskOfNode[node] >= 0)
+                    taskIdx[k++] = manager.nodeToIndex(node);
+            long[] lastReport = { 0 };
+            routing.addAtSolutionCallback(() -> {
+                long now = System.currentTimeMillis();
+                if (now - lastReport[0] < PROGRESS_INTERVAL_MS)
+                    return;
+                lastReport[0] = now;
+                int assigned = 0;
+                for (long idx : taskIdx)
+                    if (routing.nextVar(idx).value() != idx)
+                        assigned++;
+                progress.onProgress(routing.costVar().value(), assigned, now - t0);
+            });
+        }
+
+        Assignment initial = null;
+        Assignment solution = null;
+        if (control == null || control.register(cancel)) {
+            try {
+                if (initialRoutes != null) {
+                    routing.closeModelWithParameters(search);
+                    initial = routing.readAssignmentFromRoutes(toRoutingIndices(manager, initialRoutes), true);
+                    if (initial == null)
+                        log.warn("ORTOOLS_WARM_START_REJECTED planId={}, strategy={}", req.getPlanId(), strategy);
+                }
+                solution = initial == null ? routing.solveWithParameters(search)
+                        : routing.solveFromAssignmentWithParameters(initial, search);
+            } finally {
+                if (control != null)
+                    control.unregister(cancel);
+            }
+        }
         long solveCost = System.currentTimeMillis() - t0;
+        if (control != null && control.stopRequested())
+            log.info("ORTOOLS_STOPPED planId={}, strategy={}, stop={}, solved={}, cost={}ms",
+                    req.getPlanId(), strategy, control.stop(), solution != null, solveCost);
 
         if (solution == null) {
             out.setStatus(SolveTaskStatus.FAILED.code());
             out.setMessage("No solution");
-            for (TaskNode t : tasks) {
+            for (TaskNode t : model.getTasks()) {
                 SolveResult.UnassignedResult u = new SolveResult.UnassignedResult();
                 u.setTaskId(t.getTaskId());
                 u.setReasonCode("NO_SOLUTION");
@@ -140,29 +257,32 @@ public class OrToolsSolverEngine {
                 out.getUnassigned().add(u);
             }
             out.getKpi().setAssignedTaskCount(0);
-            out.getKpi().setUnassignedTaskCount(tasks.size());
-            log.warn("ORTOOLS_END planId={}, solved=false, cost={}ms", req.getPlanId(), solveCost);
+            out.getKpi().setUnassignedTaskCount(model.taskCount());
+            out.getKpi().setStrategy(strategy.toString());
+            log.warn("ORTOOLS_END planId={}, strategy={}, solved=false, cost={}ms", req.getPlanId(), strategy, solveCost);
             return out;
         }
 
         out.setStatus(SolveTaskStatus.SOLVED.code());
         out.setMessage("OK");
 
-        Set<Long> assignedTaskIds = new HashSet<>();
+        TaskNode[] taskArr = model.getTasks();
+        boolean[] assigned = new boolean[taskArr.length];
+        int assignedCount = 0;
+        long totalDistance = 0;
 
         for (int v = 0; v < vehicleCount; v++) {
             SolveResult.RouteResult rr = new SolveResult.RouteResult();
-            rr.setVehicleId(vehicles.get(v).getVehicleId());
+            rr.setVehicleId(vehicles[v].getVehicleId());
 
             long idx = routing.start(v);
             int seq = 0;
+            long distance = 0;
 
             while (!routing.isEnd(idx)) {
-                int node = manager.indexToNode(idx);
-                Long nodeId = in.getIndexToNodeId().get(node);
-
-                TaskNode task = findTaskByNodeId(tasks, nodeId);
-                if (task != null) {
+                int ti = taskOfNode[indexToNode[(int) idx]];
+                if (ti >= 0) {
+                    TaskNode task = taskArr[ti];
                     long eta = solution.min(timeDim.cumulVar(idx));
 
                     SolveResult.StopResult sr = new SolveResult.StopResult();
@@ -174,40 +294,89 @@ public class OrToolsSolverEngine {
                     sr.setEtdSec(eta + task.getServiceTimeSec());
 
                     rr.getStops().add(sr);
-                    assignedTaskIds.add(task.getTaskId());
+                    if (!assigned[ti]) {
+                        assigned[ti] = true;
+                        assignedCount++;
+                    }
                 }
 
-                idx = solution.value(routing.nextVar(idx));
+                long next = solution.value(routing.nextVar(idx));
+                distance += matrix.dist(indexToNode[(int) idx], indexToNode[(int) next]);
+                idx = next;
             }
 
+            if (!rr.getStops().isEmpty()) {
+                rr.setTotalDistanceM(distance);
+                rr.setTotalTimeSec(solution.min(timeDim.cumulVar(idx)) - solution.min(timeDim.cumulVar(routing.start(v))));
+                totalDistance += distance;
+            }
             out.getRoutes().add(rr);
         }
 
-        for (TaskNode t : tasks) {
-            if (!assignedTaskIds.contains(t.getTaskId())) {
+        for (int t = 0; t < taskArr.length; t++) {
+            if (!assigned[t]) {
                 SolveResult.UnassignedResult u = new SolveResult.UnassignedResult();
-                u.setTaskId(t.getTaskId());
+                u.setTaskId(taskArr[t].getTaskId());
                 u.setReasonCode("DROPPED");
                 u.setDetail("Dropped by penalty");
                 out.getUnassigned().add(u);
             }
         }
 
-        out.getKpi().setAssignedTaskCount(assignedTaskIds.size());
+        out.getKpi().setAssignedTaskCount(assignedCount);
         out.getKpi().setUnassignedTaskCount(out.getUnassigned().size());
+        out.getKpi().setTotalDistanceM(totalDistance);
+        out.getKpi().setObjective(solution.objectiveValue());
+        out.getKpi().setStrategy(strategy.toString());
 
-        log.info("ORTOOLS_END planId={}, solved=true, cost={}ms, routes={}, assigned={}, unassigned={}",
-                req.getPlanId(), solveCost, out.getRoutes().size(),
+        log.info("ORTOOLS_END planId={}, strategy={}, warmStart={}, solved=true, cost={}ms, objective={}, routes={}, "
+                + "assigned={}, unassigned={}",
+                req.getPlanId(), strategy, initial != null, solveCost, solution.objectiveValue(), out.getRoutes().size(),
                 out.getKpi().getAssignedTaskCount(), out.getKpi().getUnassignedTaskCount());
 
         return out;
     }
 
-    private TaskNode findTaskByNodeId(List<TaskNode> tasks, Long nodeId) {
-        for (TaskNode t : tasks) {
-            if (Objects.equals(t.getNodeId(), nodeId))
-                return t;
+    /**
+     * 任务节点的后继只允许为稀疏矩阵登记的任务节点、各车终点或自身（未服务）；
+     * 车场为 hub 节点，起点后继不受限，从而 OR-Tools 的局部搜索只在近邻弧上展开
+     */
+    private static void restrictToCandidateArcs(RoutingModel routing, RoutingIndexManager manager,
+            CompiledModel model) {
+        int[] taskOfNode = model.getTaskOfNode();
+        MatrixData matrix = model.getMatrix();
+        Solver solver = routing.solver();
+
+        long[] ends = new long[model.getVehicleCount()];
+        for (int v = 0; v < ends.length; v++)
+            ends[v] = routing.end(v);
+
+        for (int node = 0; node < model.getNodeCount(); node++) {
+            if (taskOfNode[node] < 0)
+                continue;
+            long idx = manager.nodeToIndex(node);
+
+            int[] cols = matrix.columns(node);
+            long[] allowed = new long[cols.length + ends.length];
+            int m = 0;
+            for (int col : cols) {
+                if (taskOfNode[col] >= 0)
+                    allowed[m++] = col == node ? idx : manager.nodeToIndex(col);
+            }
+            for (long end : ends)
+                allowed[m++] = end;
+
+            solver.addConstraint(solver.makeMemberCt(routing.nextVar(idx), Arrays.copyOf(allowed, m)));
         }
-        return null;
+    }
+
+    private static long[][] toRoutingIndices(RoutingIndexManager manager, int[][] routes) {
+        long[][] out = new long[routes.length][];
+        for (int v = 0; v < routes.length; v++) {
+            out[v] = new long[routes[v].length];
+            for (int i = 0; i < routes[v].length; i++)
+                out[v][i] = manager.nodeToIndex(routes[v][i]);
+        }
+        return out;
     }
 }
@@ -0,0 +1,141 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * 组合求解：同一个编译模型上并发跑多组搜索配置，时间预算相同，取目标值最小的解。
+ * <p>
+ * 除当前线程外，每个额外搜索占用一个本机 CPU 预算名额（dispatch.solver.portfolio.cpu-budget，所有求解共享），
+ * 在专用的 portfolioExecutor 上运行（线程数等于预算，不排队）。名额不足或没有空闲线程时按实际启动的数量降级运行，
+ * 不等待，避免组合求解把其他租户的求解饿死。
+ */
+@Slf4j
+@Component
+public class PortfolioSolver {
+
+    private final Executor portfolioExecutor;
+    private final Semaphore cpuBudget;
+    private final int maxWorkers;
+
+    public PortfolioSolver(@Qualifier("portfolioExecutor") Executor portfolioExecutor,
+            @Value("${dispatch.solver.portfolio.cpu-budget:0}") int cpuBudget,
+            @Value("${dispatch.solver.portfolio.max-workers:8}") int maxWorkers) {
+        this.portfolioExecutor = portfolioExecutor;
+        // 默认一半核数留给组合求解的额外搜索（与 portfolioExecutor 的线程数相同）
+        this.cpuBudget = new Semaphore(cpuBudget > 0 ? cpuBudget
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.maxWorkers = maxWorkers;
+    }
+
+    private static final class Worker {
+        final SearchStrategy strategy;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final CompletableFuture<SolveResult> result = new CompletableFuture<>();
+
+        Worker(SearchStrategy strategy) {
+            this.strategy = strategy;
+        }
+    }
+
+    /**
+     * @param search 按 (搜索配置, 时间上限秒) 求解一次
+     */
+    public SolveResult solve(SolveRequestDTO req, int workers,
+            BiFunction<SearchStrategy, Integer, SolveResult> search) {
+        int timeLimit = req.getOptions().getTimeLimitSeconds();
+        long deadline = System.currentTimeMillis() + timeLimit * 1000L;
+
+        int wanted = Math.max(0, Math.min(workers, maxWorkers) - 1);
+        List<SearchStrategy> strategies = SearchStrategy.portfolio(wanted + 1);
+
+        int permits = 0;
+        while (permits < wanted && cpuBudget.tryAcquire())
+            permits++;
+
+        // 名额只留给真正交给了空闲线程的搜索：线程池拒绝（线程刚释放名额还没回到池中）时剩余名额立即归还
+        List<Worker> started = new ArrayList<>(permits);
+        for (int w = 0; w < permits; w++) {
+            Worker worker = new Worker(strategies.get(w + 1));
+            try {
+                portfolioExecutor.execute(() -> runWorker(req, worker, deadline, search));
+            } catch (RejectedExecutionException e) {
+                cpuBudget.release(permits - w);
+                log.info("PORTFOLIO_EXECUTOR_BUSY planId={}, started={}, returned={}", req.getPlanId(), w,
+                        permits - w);
+                break;
+            }
+            started.add(worker);
+        }
+        int granted = started.size();
+        log.info("PORTFOLIO_START planId={}, requested={}, granted={}, budgetLeft={}, timeLimit={}s",
+                req.getPlanId(), workers, granted + 1, cpuBudget.availablePermits(), timeLimit);
+
+        long t0 = System.currentTimeMillis();
+        SolveResult best = search.apply(strategies.get(0), timeLimit);
+        logWorker(req, strategies.get(0), best, System.currentTimeMillis() - t0);
+
+        // 已交给线程但还没开始的额外搜索直接作废（名额归还），已开始的等其在截止时间前后结束
+        for (Worker worker : started) {
+            if (worker.claimed.compareAndSet(false, true)) {
+                cpuBudget.release();
+                continue;
+            }
+            SolveResult r = worker.result.join();
+            if (better(r, best))
+                best = r;
+        }
+
+        log.info("PORTFOLIO_END planId={}, workers={}, best={}, objective={}, assigned={}",
+                req.getPlanId(), granted + 1, best.getKpi().getStrategy(), best.getKpi().getObjective(),
+                best.getKpi().getAssignedTaskCount());
+        return best;
+    }
+
+    private void runWorker(SolveRequestDTO req, Worker worker, long deadline,
+            BiFunction<SearchStrategy, Integer, SolveResult> search) {
+        if (!worker.claimed.compareAndSet(false, true))
+            return;
+        long t0 = System.currentTimeMillis();
+        try {
+            // 启动耽误的时间从预算里扣除，保证整体不超过请求的时间上限太多
+            int remaining = (int) Math.max(1, (deadline - t0 + 999) / 1000);
+            SolveResult r = search.apply(worker.strategy, remaining);
+            logWorker(req, worker.strategy, r, System.currentTimeMillis() - t0);
+            worker.result.complete(r);
+        } catch (Exception e) {
+            log.error("PORTFOLIO_WORKER_FAIL planId={}, strategy={}, err={}", req.getPlanId(), worker.strategy,
+                    e.getMessage(), e);
+            worker.result.complete(null);
+        } finally {
+            cpuBudget.release();
+        }
+    }
+
+    private static boolean better(SolveResult r, SolveResult best) {
+        if (r == null || !SolveTaskStatus.SOLVED.code().equals(r.getStatus()))
+            return false;
+        if (!SolveTaskStatus.SOLVED.code().equals(best.getStatus()))
+            return true;
+        return r.getKpi().getObjective() < best.getKpi().getObjective();
+    }
+
+    private static void logWorker(SolveRequestDTO req, SearchStrategy strategy, SolveResult r, long cost) {
+        log.info("PORTFOLIO_WORKER planId={}, strategy={}, status={}, objective={}, cost={}ms",
+                req.getPlanId(), strategy, r.getStatus(), r.getKpi().getObjective(), cost);
+    }
+}
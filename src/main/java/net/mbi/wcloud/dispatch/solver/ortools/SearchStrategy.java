@@ -0,0 +1,72 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import com.google.ortools.constraintsolver.FirstSolutionStrategy;
+import com.google.ortools.constraintsolver.LocalSearchMetaheuristic;
+import com.google.ortools.constraintsolver.RoutingSearchParameters;
+import com.google.ortools.constraintsolver.main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一组搜索配置：初始解策略 + 局部搜索元启发式 + GLS 惩罚系数。
+ * <p>
+ * OR-Tools 的路由搜索参数没有随机种子，组合里同一策略重复出现时用不同的 GLS 系数拉开搜索轨迹。
+ */
+public record SearchStrategy(FirstSolutionStrategy.Value firstSolution,
+        LocalSearchMetaheuristic.Value metaheuristic,
+        double lambda) {
+
+    private static final double DEFAULT_LAMBDA = 0.1;
+
+    public static final SearchStrategy DEFAULT = new SearchStrategy(
+            FirstSolutionStrategy.Value.PARALLEL_CHEAPEST_INSERTION,
+            LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH, DEFAULT_LAMBDA);
+
+    /** 组合求解的基础配置，第一个为默认配置 */
+    private static final List<SearchStrategy> BASE = List.of(
+            DEFAULT,
+            of(FirstSolutionStrategy.Value.PATH_CHEAPEST_ARC, LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH),
+            of(FirstSolutionStrategy.Value.SAVINGS, LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH),
+            of(FirstSolutionStrategy.Value.LOCAL_CHEAPEST_INSERTION, LocalSearchMetaheuristic.Value.TABU_SEARCH),
+            of(FirstSolutionStrategy.Value.PATH_CHEAPEST_ARC, LocalSearchMetaheuristic.Value.SIMULATED_ANNEALING),
+            of(FirstSolutionStrategy.Value.SEQUENTIAL_CHEAPEST_INSERTION,
+                    LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH),
+            of(FirstSolutionStrategy.Value.GLOBAL_CHEAPEST_ARC, LocalSearchMetaheuristic.Value.TABU_SEARCH),
+            of(FirstSolutionStrategy.Value.CHRISTOFIDES, LocalSearchMetaheuristic.Value.GUIDED_LOCAL_SEARCH));
+
+    /** 基础配置轮完一遍后的 GLS 系数倍率 */
+    private static final double[] LAMBDA_SCALE = { 1.0, 2.0, 0.5, 4.0 };
+
+    private static SearchStrategy of(FirstSolutionStrategy.Value first, LocalSearchMetaheuristic.Value meta) {
+        return new SearchStrategy(first, meta, DEFAULT_LAMBDA);
+    }
+
+    /**
+     * 组合求解的前 n 个配置
+     */
+    public static List<SearchStrategy> portfolio(int n) {
+        List<SearchStrategy> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            SearchStrategy base = BASE.get(i % BASE.size());
+            double scale = LAMBDA_SCALE[(i / BASE.size()) % LAMBDA_SCALE.length];
+            out.add(new SearchStrategy(base.firstSolution, base.metaheuristic, DEFAULT_LAMBDA * scale));
+        }
+        return out;
+    }
+
+    public RoutingSearchParameters toParameters(int timeLimitSeconds) {
+        return main.defaultRoutingSearchParameters()
+                .toBuilder()
+                .setFirstSolutionStrategy(firstSolution)
+                .setLocalSearchMetaheuristic(metaheuristic)
+                .setGuidedLocalSearchLambdaCoefficient(lambda)
+                .setTimeLimit(com.google.protobuf.Duration.newBuilder().setSeconds(timeLimitSeconds).build())
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return firstSolution + "+" + metaheuristic + (lambda == DEFAULT_LAMBDA ? "" : "(lambda=" + lambda + ")");
+    }
+}
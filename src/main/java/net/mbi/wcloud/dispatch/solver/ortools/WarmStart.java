@@ -0,0 +1,94 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 热启动初始解：把上一次落库的路线（车辆ID -> 有序任务ID）映射到当前编译模型的节点下标，
+ * 再把新增任务按最便宜可行插入补进去，作为 OR-Tools 的初始解。
+ * <p>
+ * 已不存在的车辆/任务直接跳过；旧路线中因时间窗、班次或载重变化而不再可行的站点不保留，与新任务一起重新插入。
+ */
+final class WarmStart {
+
+    /**
+     * @param routes   车辆下标 -> 路线节点下标序列（不含起终点车场）
+     * @param kept     沿用旧路线的任务节点数
+     * @param inserted 插入的任务节点数（新任务及旧路线中失效的站点）
+     * @param left     仍未安排的任务节点数
+     */
+    record Seed(int[][] routes, int kept, int inserted, int left) {
+    }
+
+    private WarmStart() {
+    }
+
+    /**
+     * @return previous 为空或与当前模型没有交集时返回 null
+     */
+    static Seed seed(CompiledModel model, Map<Long, List<Long>> previous) {
+        if (previous == null || previous.isEmpty())
+            return null;
+
+        Map<Long, Integer> nodeOfTaskId = new HashMap<>();
+        TaskNode[] tasks = model.getTasks();
+        for (int t = 0; t < tasks.length; t++) {
+            if (model.getNodeOfTask()[t] >= 0)
+                nodeOfTaskId.putIfAbsent(tasks[t].getTaskId(), model.getNodeOfTask()[t]);
+        }
+
+        int vehicleCount = model.getVehicleCount();
+        InsertionHeuristic heuristic = new InsertionHeuristic(model, new int[vehicleCount][]);
+        boolean[] placed = new boolean[model.getNodeCount()];
+        int kept = 0;
+
+        // 旧路线按原顺序逐站追加，追加后不可行的站点留给后面的插入
+        for (int v = 0; v < vehicleCount; v++) {
+            List<Long> taskIds = previous.get(model.getVehicles()[v].getVehicleId());
+            if (taskIds == null)
+                continue;
+            for (Long taskId : taskIds) {
+                Integer node = nodeOfTaskId.get(taskId);
+                if (node == null || placed[node])
+                    continue;
+                int[] route = heuristic.route(v);
+                int[] seq = Arrays.copyOf(route, route.length + 1);
+                seq[route.length] = node;
+                if (heuristic.schedule(v, seq) == null)
+                    continue;
+                heuristic.apply(node, new InsertionHeuristic.Insertion(v, route.length, 0));
+                placed[node] = true;
+                kept++;
+            }
+        }
+        if (kept == 0)
+            return null;
+
+        int[] allVehicles = IntStream.range(0, vehicleCount).toArray();
+        int inserted = 0;
+        int left = 0;
+        int[] taskOfNode = model.getTaskOfNode();
+        for (int node = 0; node < model.getNodeCount(); node++) {
+            if (taskOfNode[node] < 0 || placed[node])
+                continue;
+            InsertionHeuristic.Insertion ins = heuristic.cheapest(node, allVehicles);
+            if (ins == null) {
+                left++;
+                continue;
+            }
+            heuristic.apply(node, ins);
+            placed[node] = true;
+            inserted++;
+        }
+
+        int[][] routes = new int[vehicleCount][];
+        for (int v = 0; v < vehicleCount; v++)
+            routes[v] = heuristic.route(v);
+        return new Seed(routes, kept, inserted, left);
+    }
+}
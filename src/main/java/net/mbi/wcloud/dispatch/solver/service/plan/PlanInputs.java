@@ -0,0 +1,155 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchNodeDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchPlanDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchTaskDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchTaskSolveRow;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchVehicleDO;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchNodeMapper;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 求解输入的组装工具：DO -> 求解模型的转换与节点坐标加载，全量求解与增量插入共用
+ */
+final class PlanInputs {
+
+    private PlanInputs() {
+    }
+
+    /**
+     * 方案当前生效的解版本；从未落库过结果的方案为 0
+     */
+    static long activeVersion(DispatchPlanDO plan) {
+        return plan.getActiveVersion() == null ? 0 : plan.getActiveVersion();
+    }
+
+    static VehicleResource toVehicle(DispatchVehicleDO v) {
+        VehicleResource vr = new VehicleResource();
+        vr.setVehicleId(v.getId());
+        vr.setStartNodeId(v.getStartNodeId());
+        vr.setEndNodeId(v.getEndNodeId());
+        vr.setCapacityWeight(v.getCapacityWeight() == null ? 0 : v.getCapacityWeight());
+        vr.setWorkStartSec(v.getWorkStartSec() == null ? 0 : v.getWorkStartSec());
+        vr.setWorkEndSec(v.getWorkEndSec() == null ? 24 * 3600 : v.getWorkEndSec());
+        return vr;
+    }
+
+    static TaskNode toTaskNode(DispatchTaskDO t) {
+        return toTaskNode(t.getId(), t.getNodeId(), t.getTwStartSec(), t.getTwEndSec(), t.getServiceTimeSec(),
+                t.getDemandWeight());
+    }
+
+    private static TaskNode toTaskNode(Long taskId, Long nodeId, Integer twStartSec, Integer twEndSec,
+            Integer serviceTimeSec, Integer demandWeight) {
+        TaskNode tn = new TaskNode();
+        tn.setTaskId(taskId);
+        tn.setNodeId(nodeId);
+        tn.setTwStartSec(twStartSec == null ? 0 : twStartSec);
+        tn.setTwEndSec(twEndSec == null ? 24 * 3600 : twEndSec);
+        tn.setServiceTimeSec(serviceTimeSec == null ? 0 : serviceTimeSec);
+        tn.setDemandWeight(demandWeight == null ? 0 : demandWeight);
+        return tn;
+    }
+
+    /**
+     * 流式读取任务投影：每行直接转成 TaskNode，坐标按任务下标写入原始数组，不保留整行对象，也不再二次转换
+     */
+    static final class TaskCollector implements ResultHandler<DispatchTaskSolveRow> {
+
+        private final List<TaskNode> tasks = new ArrayList<>();
+        /** 任务坐标，按任务下标对齐，缺失为 NaN */
+        private double[] lat = new double[256];
+        private double[] lng = new double[256];
+
+        @Override
+        public void handleResult(ResultContext<? extends DispatchTaskSolveRow> context) {
+            DispatchTaskSolveRow row = context.getResultObject();
+            int i = tasks.size();
+            if (i == lat.length) {
+                lat = Arrays.copyOf(lat, i * 2);
+                lng = Arrays.copyOf(lng, i * 2);
+            }
+            tasks.add(toTaskNode(row.getId(), row.getNodeId(), row.getTwStartSec(), row.getTwEndSec(),
+                    row.getServiceTimeSec(), row.getDemandWeight()));
+            boolean located = row.getLat() != null && row.getLng() != null;
+            lat[i] = located ? row.getLat() : Double.NaN;
+            lng[i] = located ? row.getLng() : Double.NaN;
+        }
+
+        List<TaskNode> tasks() {
+            return tasks;
+        }
+    }
+
+    /**
+     * 节点坐标：任务节点取 dispatch_task.lat/lng，车场等其余节点取 dispatch_node
+     *
+     * @return { lat, lng }，按节点下标对齐，缺失为 NaN
+     */
+    static double[][] coordinates(DispatchNodeMapper nodeMapper, Long tenantId, List<DispatchTaskDO> taskDOs,
+            List<Long> indexToNodeId, Map<Long, Integer> nodeIdToIndex) {
+        int m = taskDOs.size();
+        List<TaskNode> tasks = new ArrayList<>(m);
+        double[] taskLat = new double[m];
+        double[] taskLng = new double[m];
+        for (int i = 0; i < m; i++) {
+            DispatchTaskDO t = taskDOs.get(i);
+            tasks.add(toTaskNode(t));
+            boolean located = t.getLat() != null && t.getLng() != null;
+            taskLat[i] = located ? t.getLat() : Double.NaN;
+            taskLng[i] = located ? t.getLng() : Double.NaN;
+        }
+        return coordinates(nodeMapper, tenantId, tasks, taskLat, taskLng, indexToNodeId, nodeIdToIndex);
+    }
+
+    static double[][] coordinates(DispatchNodeMapper nodeMapper, Long tenantId, TaskCollector collected,
+            List<Long> indexToNodeId, Map<Long, Integer> nodeIdToIndex) {
+        return coordinates(nodeMapper, tenantId, collected.tasks, collected.lat, collected.lng, indexToNodeId,
+                nodeIdToIndex);
+    }
+
+    private static double[][] coordinates(DispatchNodeMapper nodeMapper, Long tenantId, List<TaskNode> tasks,
+            double[] taskLat, double[] taskLng, List<Long> indexToNodeId, Map<Long, Integer> nodeIdToIndex) {
+        int n = indexToNodeId.size();
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        Arrays.fill(lat, Double.NaN);
+        Arrays.fill(lng, Double.NaN);
+        for (int i = 0; i < tasks.size(); i++) {
+            Integer idx = nodeIdToIndex.get(tasks.get(i).getNodeId());
+            if (idx != null && Double.isNaN(lat[idx]) && !Double.isNaN(taskLat[i])) {
+                lat[idx] = taskLat[i];
+                lng[idx] = taskLng[i];
+            }
+        }
+
+        List<Long> missingCoordNodeIds = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (Double.isNaN(lat[i]))
+                missingCoordNodeIds.add(indexToNodeId.get(i));
+        }
+        if (!missingCoordNodeIds.isEmpty()) {
+            List<DispatchNodeDO> nodeDOs = nodeMapper.selectList(new LambdaQueryWrapper<DispatchNodeDO>()
+                    .eq(DispatchNodeDO::getTenantId, tenantId)
+                    .eq(DispatchNodeDO::getDeleted, 0)
+                    .in(DispatchNodeDO::getId, missingCoordNodeIds));
+            for (DispatchNodeDO node : nodeDOs) {
+                Integer idx = nodeIdToIndex.get(node.getId());
+                if (idx != null && node.getLat() != null && node.getLng() != null) {
+                    lat[idx] = node.getLat();
+                    lng[idx] = node.getLng();
+                }
+            }
+        }
+        return new double[][] { lat, lng };
+    }
+}
@@ -0,0 +1,12 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.InsertTasksVO;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.InsertTasksDTO;
+
+public interface PlanInsertService {
+
+    /**
+     * 把少量新任务插入方案当前已落库的线路（不重新求解），只改写受影响的线路
+     */
+    InsertTasksVO insertTasks(Long planId, InsertTasksDTO req);
+}
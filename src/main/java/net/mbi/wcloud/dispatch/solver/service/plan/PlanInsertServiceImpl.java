@@ -0,0 +1,429 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.InsertTasksVO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.*;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.*;
+import net.mbi.wcloud.dispatch.solver.framework.lock.DistributedLock;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixService;
+import net.mbi.wcloud.dispatch.solver.matrix.NeighborIndex;
+import net.mbi.wcloud.dispatch.solver.ortools.CompiledModel;
+import net.mbi.wcloud.dispatch.solver.ortools.IncrementalInsertion;
+import net.mbi.wcloud.dispatch.solver.ortools.InsertionHeuristic;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.InsertTasksDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 增量插入：读取方案当前线路，按最便宜可行位置插入新任务并做有界局部修复，只改写受影响的线路。
+ * <p>
+ * 与全量求解共用方案锁，并在求解排队或进行中时拒绝插入；矩阵只计算新任务、近邻站点与车场的整行整列及现有路线的相邻弧。
+ * 全部受影响线路先校验可行，再在一个事务里改写。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlanInsertServiceImpl implements PlanInsertService {
+
+    private final DistributedLock distributedLock;
+
+    private final DispatchPlanMapper planMapper;
+    private final DispatchTaskMapper taskMapper;
+    private final DispatchVehicleMapper vehicleMapper;
+    private final DispatchRouteMapper routeMapper;
+    private final DispatchRouteStopMapper stopMapper;
+    private final DispatchUnassignedMapper unassignedMapper;
+    private final DispatchSolveJobMapper solveJobMapper;
+    private final DispatchNodeMapper nodeMapper;
+    private final MatrixService matrixService;
+    private final SolveResultCache resultCache;
+    private final PlanReadCache readCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public InsertTasksVO insertTasks(Long planId, InsertTasksDTO req) {
+        Long tenantId = req.getTenantId();
+        String lockKey = PlanSolveServiceImpl.lockKey(tenantId, planId);
+        String owner = "insert-" + UUID.randomUUID();
+
+        // 与求解共用方案租约：求解任务从提交到结束一直持有，插入只在本次调用内持有
+        if (!distributedLock.tryLease(lockKey, owner, 60_000)) {
+            log.warn("INSERT_LOCK_BUSY tenantId={}, planId={}", tenantId, planId);
+            throw new IllegalStateException("Plan is being solved, please retry");
+        }
+        try {
+            // 兜底：租约过期后仍处于排队/执行中的求解由任务状态识别
+            Long activeJobs = solveJobMapper.selectCount(new LambdaQueryWrapper<DispatchSolveJobDO>()
+                    .eq(DispatchSolveJobDO::getTenantId, tenantId)
+                    .eq(DispatchSolveJobDO::getPlanId, planId)
+                    .eq(DispatchSolveJobDO::getDeleted, 0)
+                    .in(DispatchSolveJobDO::getStatus,
+                            SolveTaskStatus.ACCEPTED.code(),
+                            SolveTaskStatus.RUNNING.code()));
+            if (activeJobs != null && activeJobs > 0) {
+                log.warn("INSERT_SOLVE_ACTIVE tenantId={}, planId={}", tenantId, planId);
+                throw new IllegalStateException("Plan is being solved, please retry");
+            }
+            return doInsert(tenantId, planId, req);
+        } finally {
+            distributedLock.releaseLease(lockKey, owner);
+        }
+    }
+
+    private InsertTasksVO doInsert(Long tenantId, Long planId, InsertTasksDTO req) {
+        long start = System.currentTimeMillis();
+        log.info("INSERT_START tenantId={}, planId={}, tasks={}", tenantId, planId, req.getTaskIds().size());
+
+        DispatchPlanDO plan = planMapper.selectOne(new LambdaQueryWrapper<DispatchPlanDO>()
+                .eq(DispatchPlanDO::getId, planId)
+                .eq(DispatchPlanDO::getTenantId, tenantId)
+                .eq(DispatchPlanDO::getDeleted, 0));
+        if (plan == null)
+            throw new IllegalArgumentException("Plan not found");
+        // 增量插入在生效版本上原地修改
+        long version = PlanInputs.activeVersion(plan);
+
+        // 1. 当前线路
+        List<DispatchRouteDO> routeDOs = routeMapper.selectList(new LambdaQueryWrapper<DispatchRouteDO>()
+                .eq(DispatchRouteDO::getTenantId, tenantId)
+                .eq(DispatchRouteDO::getPlanId, planId)
+                .eq(DispatchRouteDO::getSolutionVersion, version)
+                .eq(DispatchRouteDO::getDeleted, 0));
+        List<DispatchRouteStopDO> stopDOs = routeDOs.isEmpty() ? List.of()
+                : stopMapper.selectList(new LambdaQueryWrapper<DispatchRouteStopDO>()
+                        .eq(DispatchRouteStopDO::getTenantId, tenantId)
+                        .eq(DispatchRouteStopDO::getPlanId, planId)
+                        .eq(DispatchRouteStopDO::getSolutionVersion, version)
+                        .eq(DispatchRouteStopDO::getDeleted, 0)
+                        .orderByAsc(DispatchRouteStopDO::getRouteId)
+                        .orderByAsc(DispatchRouteStopDO::getSeq));
+
+        Set<Long> routedTaskIds = new HashSet<>();
+        for (DispatchRouteStopDO s : stopDOs)
+            routedTaskIds.add(s.getTaskId());
+
+        // 2. 新任务（已排入线路的跳过）
+        List<DispatchTaskDO> newTaskDOs = taskMapper.selectList(new LambdaQueryWrapper<DispatchTaskDO>()
+                .eq(DispatchTaskDO::getTenantId, tenantId)
+                .eq(DispatchTaskDO::getPlanId, planId)
+                .eq(DispatchTaskDO::getDeleted, 0)
+                .eq(DispatchTaskDO::getStatus, "WAITING")
+                .in(DispatchTaskDO::getId, req.getTaskIds()));
+        newTaskDOs.removeIf(t -> routedTaskIds.contains(t.getId()));
+        if (newTaskDOs.isEmpty())
+            throw new IllegalArgumentException("No insertable tasks");
+
+        List<DispatchVehicleDO> vehicleDOs = vehicleMapper.selectList(new LambdaQueryWrapper<DispatchVehicleDO>()
+                .eq(DispatchVehicleDO::getTenantId, tenantId)
+                .eq(DispatchVehicleDO::getDeleted, 0)
+                .eq(DispatchVehicleDO::getStatus, "AVAILABLE"));
+        if (vehicleDOs.isEmpty())
+            throw new IllegalStateException("No available vehicles");
+
+        List<DispatchTaskDO> routedTaskDOs = routedTaskIds.isEmpty() ? List.of()
+                : taskMapper.selectList(new LambdaQueryWrapper<DispatchTaskDO>()
+                        .eq(DispatchTaskDO::getTenantId, tenantId)
+                        .eq(DispatchTaskDO::getPlanId, planId)
+                        .eq(DispatchTaskDO::getDeleted, 0)
+                        .in(DispatchTaskDO::getId, routedTaskIds));
+
+        // 3. 节点下标：车场 + 已排任务 + 新任务
+        List<VehicleResource> vehicles = vehicleDOs.stream().map(PlanInputs::toVehicle).collect(Collectors.toList());
+        List<DispatchTaskDO> taskDOs = new ArrayList<>(routedTaskDOs);
+        taskDOs.addAll(newTaskDOs);
+        List<TaskNode> tasks = taskDOs.stream().map(PlanInputs::toTaskNode).collect(Collectors.toList());
+
+        Set<Long> nodeIdSet = new LinkedHashSet<>();
+        for (VehicleResource v : vehicles) {
+            nodeIdSet.add(v.getStartNodeId());
+            nodeIdSet.add(v.getEndNodeId());
+        }
+        for (TaskNode t : tasks)
+            nodeIdSet.add(t.getNodeId());
+
+        List<Long> indexToNodeId = new ArrayList<>(nodeIdSet);
+        Map<Long, Integer> nodeIdToIndex = new HashMap<>();
+        for (int i = 0; i < indexToNodeId.size(); i++)
+            nodeIdToIndex.put(indexToNodeId.get(i), i);
+        int n = indexToNodeId.size();
+
+        Map<Long, Integer> nodeOfTaskId = new HashMap<>();
+        for (DispatchTaskDO t : taskDOs)
+            nodeOfTaskId.put(t.getId(), nodeIdToIndex.get(t.getNodeId()));
+
+        // 4. 现有线路 -> 节点序列（不可用车辆上的线路不参与，保持不变）
+        Map<Long, Integer> vehicleIndex = new HashMap<>();
+        for (int v = 0; v < vehicles.size(); v++)
+            vehicleIndex.put(vehicles.get(v).getVehicleId(), v);
+        Map<Long, DispatchRouteDO> routeOfVehicle = new HashMap<>();
+        Map<Long, Integer> vehicleOfRoute = new HashMap<>();
+        for (DispatchRouteDO r : routeDOs) {
+            Integer v = vehicleIndex.get(r.getVehicleId());
+            if (v != null) {
+                routeOfVehicle.put(r.getVehicleId(), r);
+                vehicleOfRoute.put(r.getId(), v);
+            }
+        }
+
+        List<List<Integer>> seqs = new ArrayList<>();
+        for (int v = 0; v < vehicles.size(); v++)
+            seqs.add(new ArrayList<>());
+        boolean[] used = new boolean[n];
+        for (DispatchRouteStopDO s : stopDOs) {
+            Integer v = vehicleOfRoute.get(s.getRouteId());
+            Integer node = nodeOfTaskId.get(s.getTaskId());
+            if (v != null && node != null && !used[node]) {
+                seqs.get(v).add(node);
+                used[node] = true;
+            }
+        }
+        int[][] routes = new int[vehicles.size()][];
+        for (int v = 0; v < routes.length; v++)
+            routes[v] = seqs.get(v).stream().mapToInt(Integer::intValue).toArray();
+
+        int[] newNodes = newTaskDOs.stream().mapToInt(t -> nodeOfTaskId.get(t.getId()))
+                .filter(node -> !used[node]).distinct().toArray();
+
+        // 5. 坐标、修复站点与稀疏矩阵
+        double[][] coords = PlanInputs.coordinates(nodeMapper, tenantId, taskDOs, indexToNodeId, nodeIdToIndex);
+        double[] lat = coords[0];
+        double[] lng = coords[1];
+        int[] repairNodes = repairNodes(lat, lng, used, newNodes, req.getRepairNeighbors());
+
+        boolean[] full = new boolean[n];
+        int[] vehicleStart = new int[vehicles.size()];
+        int[] vehicleEnd = new int[vehicles.size()];
+        for (int v = 0; v < vehicles.size(); v++) {
+            vehicleStart[v] = nodeIdToIndex.get(vehicles.get(v).getStartNodeId());
+            vehicleEnd[v] = nodeIdToIndex.get(vehicles.get(v).getEndNodeId());
+            full[vehicleStart[v]] = true;
+            full[vehicleEnd[v]] = true;
+        }
+        for (int node : newNodes)
+            full[node] = true;
+        for (int node : repairNodes)
+            full[node] = true;
+
+        long[] nodeIds = new long[n];
+        for (int i = 0; i < n; i++)
+            nodeIds[i] = indexToNodeId.get(i);
+        MatrixData matrix = matrixService.build(new MatrixRequest(tenantId, nodeIds, lat, lng,
+                IncrementalInsertion.candidateColumns(n, routes, vehicleStart, vehicleEnd, full)));
+
+        SolveInput input = new SolveInput();
+        input.setTenantId(tenantId);
+        input.setPlanId(planId);
+        input.setPlan(plan);
+        input.setVehicles(vehicles);
+        input.setTasks(tasks);
+        input.setIndexToNodeId(indexToNodeId);
+        input.setNodeIdToIndex(nodeIdToIndex);
+        input.setNodeLat(lat);
+        input.setNodeLng(lng);
+        input.setMatrix(matrix);
+        CompiledModel model = CompiledModel.compile(input);
+
+        // 6. 插入 + 修复
+        IncrementalInsertion.Result result = IncrementalInsertion.insert(model, routes, newNodes, repairNodes);
+
+        // 7. 先为全部受影响线路排时刻表，任一不可行则在任何写入之前失败
+        InsertionHeuristic heuristic = new InsertionHeuristic(model, result.routes());
+        List<RouteRewrite> rewrites = new ArrayList<>();
+        for (int v = 0; v < vehicles.size(); v++) {
+            if (!result.touched()[v])
+                continue;
+            int[] seq = heuristic.route(v);
+            long[] schedule = heuristic.schedule(v, seq);
+            if (schedule == null)
+                throw new IllegalStateException("Infeasible route after insertion, vehicle=" + vehicles.get(v).getVehicleId());
+            rewrites.add(new RouteRewrite(v, routeOfVehicle.get(vehicles.get(v).getVehicleId()), seq, schedule));
+        }
+
+        // 8. 在一个事务里改写受影响的线路、未分配明细与方案计数，读方看不到改写到一半的方案
+        InsertTasksVO vo = new InsertTasksVO();
+        Set<Integer> newNodeSet = Arrays.stream(newNodes).boxed().collect(Collectors.toSet());
+        List<Long> insertedTaskIds = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(tx -> {
+            for (RouteRewrite rw : rewrites)
+                rewriteRoute(tenantId, planId, version, model, heuristic, rw, newNodeSet, vo);
+
+            vo.getInserted().forEach(item -> insertedTaskIds.add(item.getTaskId()));
+            for (int node : result.unplaced())
+                vo.getUnassignedTaskIds().add(model.getTasks()[model.getTaskOfNode()[node]].getTaskId());
+            updateUnassigned(tenantId, planId, version, insertedTaskIds, vo.getUnassignedTaskIds());
+
+            plan.setAssignedCount((plan.getAssignedCount() == null ? 0 : plan.getAssignedCount()) + insertedTaskIds.size());
+            plan.setUnassignedCount(Math.toIntExact(unassignedMapper.selectCount(new LambdaQueryWrapper<DispatchUnassignedDO>()
+                    .eq(DispatchUnassignedDO::getTenantId, tenantId)
+                    .eq(DispatchUnassignedDO::getPlanId, planId)
+                    .eq(DispatchUnassignedDO::getSolutionVersion, version)
+                    .eq(DispatchUnassignedDO::getDeleted, 0))));
+            planMapper.updateById(plan);
+        });
+        // 提交之后失效：生效版本被原地修改，之前缓存的求解结果与落库线路不再一致
+        resultCache.invalidatePlan(tenantId, planId);
+        readCache.invalidatePlan(tenantId, planId);
+        int affected = rewrites.size();
+
+        vo.setAffectedRouteCount(affected);
+        vo.setCostMillis(System.currentTimeMillis() - start);
+        log.info("INSERT_END tenantId={}, planId={}, inserted={}, unassigned={}, repair={}, affectedRoutes={}, "
+                + "cells={}, cost={}ms",
+                tenantId, planId, insertedTaskIds.size(), vo.getUnassignedTaskIds().size(), repairNodes.length,
+                affected, matrix.cellCount(), vo.getCostMillis());
+        return vo;
+    }
+
+    /**
+     * 每个新任务附近 k 个已排站点（按坐标），去重；无坐标的新任务不取近邻
+     */
+    private static int[] repairNodes(double[] lat, double[] lng, boolean[] routed, int[] newNodes, int k) {
+        if (k <= 0)
+            return new int[0];
+
+        boolean[] isNew = new boolean[lat.length];
+        for (int node : newNodes)
+            isNew[node] = true;
+        int[] indexed = IntStream.range(0, lat.length)
+                .filter(i -> (routed[i] || isNew[i]) && !Double.isNaN(lat[i]) && !Double.isNaN(lng[i]))
+                .toArray();
+        NeighborIndex index = NeighborIndex.build(lat, lng, indexed);
+
+        boolean[] picked = new boolean[lat.length];
+        for (int node : newNodes) {
+            if (Double.isNaN(lat[node]) || Double.isNaN(lng[node]))
+                continue;
+            int taken = 0;
+            for (int near : index.nearest(node, k + newNodes.length)) {
+                if (taken == k)
+                    break;
+                if (routed[near]) {
+                    picked[near] = true;
+                    taken++;
+                }
+            }
+        }
+        return IntStream.range(0, lat.length).filter(i -> picked[i]).toArray();
+    }
+
+    /**
+     * 一条受影响线路的改写计划：插入后的站点序列与已校验可行的时刻表
+     *
+     * @param route 车辆原有线路，之前没有线路时为 null
+     */
+    private record RouteRewrite(int vehicle, DispatchRouteDO route, int[] seq, long[] schedule) {
+    }
+
+    private void rewriteRoute(Long tenantId, Long planId, long version, CompiledModel model, InsertionHeuristic heuristic,
+            RouteRewrite rw, Set<Integer> newNodes, InsertTasksVO vo) {
+        int v = rw.vehicle();
+        DispatchRouteDO route = rw.route();
+        int[] seq = rw.seq();
+        long[] schedule = rw.schedule();
+
+        if (route != null) {
+            stopMapper.update(null, new LambdaUpdateWrapper<DispatchRouteStopDO>()
+                    .eq(DispatchRouteStopDO::getTenantId, tenantId)
+                    .eq(DispatchRouteStopDO::getPlanId, planId)
+                    .eq(DispatchRouteStopDO::getRouteId, route.getId())
+                    .eq(DispatchRouteStopDO::getSolutionVersion, version)
+                    .set(DispatchRouteStopDO::getDeleted, 1));
+            if (seq.length == 0) {
+                routeMapper.update(null, new LambdaUpdateWrapper<DispatchRouteDO>()
+                        .eq(DispatchRouteDO::getId, route.getId())
+                        .set(DispatchRouteDO::getDeleted, 1));
+                return;
+            }
+        }
+        if (seq.length == 0)
+            return;
+
+        Long vehicleId = model.getVehicles()[v].getVehicleId();
+        long distance = heuristic.distance(v, seq);
+        long totalTime = schedule[seq.length + 1] - schedule[0];
+        if (route == null) {
+            route = new DispatchRouteDO();
+            route.setTenantId(tenantId);
+            route.setPlanId(planId);
+            route.setVehicleId(vehicleId);
+            route.setTotalDistanceM(distance);
+            route.setTotalTimeSec(totalTime);
+            route.setSolutionVersion(version);
+            route.setDeleted(0);
+            routeMapper.insert(route);
+        } else {
+            route.setTotalDistanceM(distance);
+            route.setTotalTimeSec(totalTime);
+            routeMapper.updateById(route);
+        }
+
+        for (int i = 0; i < seq.length; i++) {
+            TaskNode task = model.getTasks()[model.getTaskOfNode()[seq[i]]];
+            long eta = schedule[i + 1];
+
+            DispatchRouteStopDO s = new DispatchRouteStopDO();
+            s.setTenantId(tenantId);
+            s.setPlanId(planId);
+            s.setRouteId(route.getId());
+            s.setSeq(i);
+            s.setTaskId(task.getTaskId());
+            s.setNodeId(task.getNodeId());
+            s.setEtaSec(eta);
+            s.setEtdSec(eta + task.getServiceTimeSec());
+            s.setServiceTimeSec(task.getServiceTimeSec());
+            s.setSolutionVersion(version);
+            s.setDeleted(0);
+            stopMapper.insert(s);
+
+            if (newNodes.contains(seq[i])) {
+                InsertTasksVO.Item item = new InsertTasksVO.Item();
+                item.setTaskId(task.getTaskId());
+                item.setVehicleId(vehicleId);
+                item.setSeq(i);
+                item.setEtaSec(eta);
+                vo.getInserted().add(item);
+            }
+        }
+    }
+
+    /**
+     * 已插入的任务移出未分配明细，插入失败的任务记为未分配
+     */
+    private void updateUnassigned(Long tenantId, Long planId, long version, List<Long> inserted, List<Long> unplaced) {
+        List<Long> taskIds = new ArrayList<>(inserted);
+        taskIds.addAll(unplaced);
+        if (taskIds.isEmpty())
+            return;
+        unassignedMapper.update(null, new LambdaUpdateWrapper<DispatchUnassignedDO>()
+                .eq(DispatchUnassignedDO::getTenantId, tenantId)
+                .eq(DispatchUnassignedDO::getPlanId, planId)
+                .eq(DispatchUnassignedDO::getSolutionVersion, version)
+                .in(DispatchUnassignedDO::getTaskId, taskIds)
+                .set(DispatchUnassignedDO::getDeleted, 1));
+
+        for (Long taskId : unplaced) {
+            DispatchUnassignedDO u = new DispatchUnassignedDO();
+            u.setTenantId(tenantId);
+            u.setPlanId(planId);
+            u.setTaskId(taskId);
+            u.setReasonCode("NO_FEASIBLE_INSERTION");
+            u.setDetail("No feasible insertion position");
+            u.setSolutionVersion(version);
+            u.setDeleted(0);
+            unassignedMapper.insert(u);
+        }
+    }
+}
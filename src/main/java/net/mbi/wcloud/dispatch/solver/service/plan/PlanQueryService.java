@@ -13,4 +13,24 @@ public interface PlanQueryService {
     List<PlanRouteVO.Route> listRoutes(Long tenantId, Long planId);
 
     List<PlanUnassignedVO.Item> listUnassigned(Long tenantId, Long planId);
+
+    /**
+     * 带 ETag 的方案详情（读缓存）；方案不存在返回 null
+     */
+    PlanReadCache.Entry<PlanVO> readPlan(Long tenantId, Long planId);
+
+    /**
+     * 带 ETag 的生效版本线路明细（读缓存）；方案不存在返回 null
+     */
+    PlanReadCache.Entry<List<PlanRouteVO.Route>> readRoutes(Long tenantId, Long planId);
+
+    /**
+     * 带 ETag 的生效版本未分配明细（读缓存）；方案不存在返回 null
+     */
+    PlanReadCache.Entry<List<PlanUnassignedVO.Item>> readUnassigned(Long tenantId, Long planId);
+
+    /**
+     * 生效版本线路的游标分页：按车辆ID升序，取 afterVehicleId 之后的 limit 条；方案不存在返回 null
+     */
+    PlanRouteVO.Page pageRoutes(Long tenantId, Long planId, Long afterVehicleId, int limit);
 }
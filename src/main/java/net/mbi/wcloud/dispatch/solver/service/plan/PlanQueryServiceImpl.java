@@ -20,33 +20,105 @@ public class PlanQueryServiceImpl implements PlanQueryService {
     private final DispatchRouteMapper routeMapper;
     private final DispatchRouteStopMapper stopMapper;
     private final DispatchUnassignedMapper unassignedMapper;
+    private final PlanReadCache readCache;
 
     @Override
     public PlanVO getPlan(Long tenantId, Long planId) {
-        DispatchPlanDO plan = planMapper.selectOne(new LambdaQueryWrapper<DispatchPlanDO>()
-                .eq(DispatchPlanDO::getId, planId)
-                .eq(DispatchPlanDO::getTenantId, tenantId)
-                .eq(DispatchPlanDO::getDeleted, 0));
-
-        return plan == null ? null : PlanVO.fromDO(plan);
+        PlanReadCache.Entry<PlanVO> plan = readPlan(tenantId, planId);
+        return plan == null ? null : plan.body();
     }
 
     @Override
     public List<PlanRouteVO.Route> listRoutes(Long tenantId, Long planId) {
+        PlanReadCache.Entry<List<PlanRouteVO.Route>> routes = readRoutes(tenantId, planId);
+        return routes == null ? List.of() : routes.body();
+    }
+
+    @Override
+    public List<PlanUnassignedVO.Item> listUnassigned(Long tenantId, Long planId) {
+        PlanReadCache.Entry<List<PlanUnassignedVO.Item>> list = readUnassigned(tenantId, planId);
+        return list == null ? List.of() : list.body();
+    }
+
+    @Override
+    public PlanReadCache.Entry<PlanVO> readPlan(Long tenantId, Long planId) {
+        return readCache.plan(tenantId, planId, () -> {
+            DispatchPlanDO plan = planMapper.selectOne(new LambdaQueryWrapper<DispatchPlanDO>()
+                    .eq(DispatchPlanDO::getId, planId)
+                    .eq(DispatchPlanDO::getTenantId, tenantId)
+                    .eq(DispatchPlanDO::getDeleted, 0));
+            return plan == null ? null : PlanVO.fromDO(plan);
+        });
+    }
+
+    /**
+     * 生效版本取自（缓存的）方案详情，版本不变且明细未被原地修改时整个请求不查库
+     */
+    @Override
+    public PlanReadCache.Entry<List<PlanRouteVO.Route>> readRoutes(Long tenantId, Long planId) {
+        PlanReadCache.Entry<PlanVO> plan = readPlan(tenantId, planId);
+        if (plan == null)
+            return null;
+        long version = plan.body().getActiveVersion();
+        return readCache.routes(tenantId, planId, version, () -> loadRoutes(tenantId, planId, version));
+    }
+
+    @Override
+    public PlanReadCache.Entry<List<PlanUnassignedVO.Item>> readUnassigned(Long tenantId, Long planId) {
+        PlanReadCache.Entry<PlanVO> plan = readPlan(tenantId, planId);
+        if (plan == null)
+            return null;
+        long version = plan.body().getActiveVersion();
+        return readCache.unassigned(tenantId, planId, version, () -> loadUnassigned(tenantId, planId, version));
+    }
+
+    @Override
+    public PlanRouteVO.Page pageRoutes(Long tenantId, Long planId, Long afterVehicleId, int limit) {
+        PlanReadCache.Entry<PlanVO> plan = readPlan(tenantId, planId);
+        if (plan == null)
+            return null;
+        long version = plan.body().getActiveVersion();
+
+        // 多取一条判断是否还有下一页；(tenant_id, plan_id, solution_version, vehicle_id) 索引上做范围扫描
+        List<DispatchRouteDO> routes = routeMapper.selectList(new LambdaQueryWrapper<DispatchRouteDO>()
+                .eq(DispatchRouteDO::getTenantId, tenantId)
+                .eq(DispatchRouteDO::getPlanId, planId)
+                .eq(DispatchRouteDO::getSolutionVersion, version)
+                .eq(DispatchRouteDO::getDeleted, 0)
+                .gt(afterVehicleId != null, DispatchRouteDO::getVehicleId, afterVehicleId)
+                .orderByAsc(DispatchRouteDO::getVehicleId)
+                .last("limit " + (limit + 1)));
+
+        PlanRouteVO.Page page = new PlanRouteVO.Page();
+        page.setHasMore(routes.size() > limit);
+        if (page.isHasMore())
+            routes = routes.subList(0, limit);
+        page.setList(withStops(tenantId, planId, version, routes));
+        if (page.isHasMore())
+            page.setNextCursor(routes.get(routes.size() - 1).getVehicleId());
+        return page;
+    }
+
+    private List<PlanRouteVO.Route> loadRoutes(Long tenantId, Long planId, long version) {
         List<DispatchRouteDO> routes = routeMapper.selectList(new LambdaQueryWrapper<DispatchRouteDO>()
                 .eq(DispatchRouteDO::getTenantId, tenantId)
                 .eq(DispatchRouteDO::getPlanId, planId)
+                .eq(DispatchRouteDO::getSolutionVersion, version)
                 .eq(DispatchRouteDO::getDeleted, 0)
                 .orderByAsc(DispatchRouteDO::getVehicleId));
+        return withStops(tenantId, planId, version, routes);
+    }
 
+    private List<PlanRouteVO.Route> withStops(Long tenantId, Long planId, long version, List<DispatchRouteDO> routes) {
         if (routes.isEmpty())
-            return List.of();
+            return new ArrayList<>();
 
         List<Long> routeIds = routes.stream().map(DispatchRouteDO::getId).collect(Collectors.toList());
 
         List<DispatchRouteStopDO> stops = stopMapper.selectList(new LambdaQueryWrapper<DispatchRouteStopDO>()
                 .eq(DispatchRouteStopDO::getTenantId, tenantId)
                 .eq(DispatchRouteStopDO::getPlanId, planId)
+                .eq(DispatchRouteStopDO::getSolutionVersion, version)
                 .eq(DispatchRouteStopDO::getDeleted, 0)
                 .in(DispatchRouteStopDO::getRouteId, routeIds)
                 .orderByAsc(DispatchRouteStopDO::getRouteId)
@@ -67,11 +139,11 @@ public class PlanQueryServiceImpl implements PlanQueryService {
         return out;
     }
 
-    @Override
-    public List<PlanUnassignedVO.Item> listUnassigned(Long tenantId, Long planId) {
+    private List<PlanUnassignedVO.Item> loadUnassigned(Long tenantId, Long planId, long version) {
         List<DispatchUnassignedDO> list = unassignedMapper.selectList(new LambdaQueryWrapper<DispatchUnassignedDO>()
                 .eq(DispatchUnassignedDO::getTenantId, tenantId)
                 .eq(DispatchUnassignedDO::getPlanId, planId)
+                .eq(DispatchUnassignedDO::getSolutionVersion, version)
                 .eq(DispatchUnassignedDO::getDeleted, 0)
                 .orderByAsc(DispatchUnassignedDO::getId));
 
@@ -0,0 +1,161 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanRouteVO;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanUnassignedVO;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanVO;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 方案查询的读缓存：方案详情按 (租户, 方案) 缓存，线路与未分配明细按 (租户, 方案, 解版本) 缓存，
+ * 调度大屏的频繁轮询不再每次查库、分组。
+ * <p>
+ * 每个条目带按内容计算的 ETag，各实例对相同内容给出相同 ETag，客户端带 If-None-Match 轮询时未变化直接 304。
+ * 方案行或生效版本的明细变化（状态更新、结果落库、增量插入）后调用 invalidatePlan；
+ * 集群模式下失效经 Redis 主题广播到所有实例。
+ * <p>
+ * 增量插入在同一解版本上原地改写明细，解版本不足以区分新旧内容，因此每个方案另有一个修订号，
+ * 所有条目的 key 都带修订号；失效时先换新修订号，失效之前开始、之后才完成的加载写在旧修订号下，不会再被读到。
+ */
+@Component
+public class PlanReadCache {
+
+    static final String TOPIC = "dispatch:solver:plan-read-invalidate";
+
+    /**
+     * 缓存的查询结果与其 ETag
+     */
+    public record Entry<T>(T body, String etag) {
+    }
+
+    private record PlanKey(Long tenantId, Long planId) {
+    }
+
+    private record RevisionKey(Long tenantId, Long planId, long revision) {
+    }
+
+    private record VersionKey(Long tenantId, Long planId, long version, long revision) {
+    }
+
+    /** 修订号全局递增：方案的修订号被淘汰后重新分配的也是从未用过的值 */
+    private static final AtomicLong REVISION_SEQ = new AtomicLong();
+
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+    /** 方案当前的修订号，每次失效换新 */
+    private final Cache<PlanKey, Long> revisions;
+    private final Cache<RevisionKey, Entry<PlanVO>> plans;
+    private final Cache<VersionKey, Entry<List<PlanRouteVO.Route>>> routes;
+    private final Cache<VersionKey, Entry<List<PlanUnassignedVO.Item>>> unassigned;
+    /** 集群模式下的失效广播主题；单机模式为空 */
+    private final RTopic topic;
+
+    public PlanReadCache(PlanReadCacheProperties properties, SolveClusterProperties clusterProperties,
+            RedissonClient redissonClient, ObjectMapper objectMapper) {
+        Duration ttl = Duration.ofSeconds(properties.getTtlSeconds());
+        this.enabled = properties.isEnabled();
+        this.objectMapper = objectMapper;
+        this.revisions = Caffeine.newBuilder()
+                .expireAfterAccess(ttl)
+                .build();
+        this.plans = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumPlans())
+                .expireAfterWrite(ttl)
+                .build();
+        this.routes = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumRows())
+                .weigher((VersionKey k, Entry<List<PlanRouteVO.Route>> e) -> 1
+                        + e.body().stream().mapToInt(r -> 1 + r.getStops().size()).sum())
+                .expireAfterWrite(ttl)
+                .build();
+        this.unassigned = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumRows())
+                .weigher((VersionKey k, Entry<List<PlanUnassignedVO.Item>> e) -> 1 + e.body().size())
+                .expireAfterWrite(ttl)
+                .build();
+
+        if (clusterProperties.isEnabled()) {
+            this.topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+            this.topic.addListener(String.class, (channel, msg) -> {
+                int sep = msg.indexOf(':');
+                evict(Long.valueOf(msg.substring(0, sep)), Long.valueOf(msg.substring(sep + 1)));
+            });
+        } else {
+            this.topic = null;
+        }
+    }
+
+    /**
+     * @param loader 查库；方案不存在返回 null（不缓存）
+     */
+    public Entry<PlanVO> plan(Long tenantId, Long planId, Supplier<PlanVO> loader) {
+        return load(plans, new RevisionKey(tenantId, planId, revision(tenantId, planId)), loader);
+    }
+
+    public Entry<List<PlanRouteVO.Route>> routes(Long tenantId, Long planId, long version,
+            Supplier<List<PlanRouteVO.Route>> loader) {
+        return load(routes, new VersionKey(tenantId, planId, version, revision(tenantId, planId)), loader);
+    }
+
+    public Entry<List<PlanUnassignedVO.Item>> unassigned(Long tenantId, Long planId, long version,
+            Supplier<List<PlanUnassignedVO.Item>> loader) {
+        return load(unassigned, new VersionKey(tenantId, planId, version, revision(tenantId, planId)), loader);
+    }
+
+    /**
+     * 方案行或其生效版本的明细已变化（在事务提交之后调用）
+     */
+    public void invalidatePlan(Long tenantId, Long planId) {
+        evict(tenantId, planId);
+        if (topic != null)
+            topic.publishAsync(tenantId + ":" + planId);
+    }
+
+    private long revision(Long tenantId, Long planId) {
+        return revisions.get(new PlanKey(tenantId, planId), k -> REVISION_SEQ.incrementAndGet());
+    }
+
+    private void evict(Long tenantId, Long planId) {
+        // 先换修订号：之后的读取都不再命中旧条目；下面只是尽早释放旧条目占用的容量
+        revisions.put(new PlanKey(tenantId, planId), REVISION_SEQ.incrementAndGet());
+        plans.asMap().keySet().removeIf(k -> k.tenantId().equals(tenantId) && k.planId().equals(planId));
+        routes.asMap().keySet().removeIf(k -> k.tenantId().equals(tenantId) && k.planId().equals(planId));
+        unassigned.asMap().keySet().removeIf(k -> k.tenantId().equals(tenantId) && k.planId().equals(planId));
+    }
+
+    private <K, T> Entry<T> load(Cache<K, Entry<T>> cache, K key, Supplier<T> loader) {
+        if (!enabled)
+            return entry(loader.get());
+        return cache.get(key, k -> entry(loader.get()));
+    }
+
+    private <T> Entry<T> entry(T body) {
+        return body == null ? null : new Entry<>(body, etag(body));
+    }
+
+    /**
+     * 按序列化后的内容计算，取 SHA-256 前 16 字节
+     */
+    private String etag(Object body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Compute ETag failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "dispatch.solver.read-cache")
+public class PlanReadCacheProperties {
+
+    /** 关闭时每次查询都查库（ETag 仍然生效，只省响应体） */
+    private boolean enabled = true;
+
+    /** 缓存的方案详情数上限 */
+    private long maximumPlans = 10_000;
+
+    /** 线路与未分配明细的缓存容量，按停靠点 + 未分配行数计重 */
+    private long maximumRows = 2_000_000;
+
+    /** 条目有效期（秒）；正常靠落库时的失效通知更新，过期只是兜底 */
+    private long ttlSeconds = 600;
+}
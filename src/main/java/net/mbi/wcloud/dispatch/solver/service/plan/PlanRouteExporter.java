@@ -0,0 +1,126 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteStopExportRow;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteStopMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 线路停靠点导出：从数据库游标逐行读取，直接写到响应输出流，不在内存里组装整份线路列表。
+ * <p>
+ * 一行一个停靠点（带车辆ID），按线路、站序排列；NDJSON 每行一个 JSON 对象，CSV 带表头。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlanRouteExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final String CSV_HEADER = "vehicle_id,route_id,seq,task_id,node_id,eta_sec,etd_sec,service_time_sec";
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final DispatchRouteStopMapper stopMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 导出某个解版本的全部停靠点；输出流由调用方关闭
+     *
+     * @return 导出行数
+     */
+    public long export(Long tenantId, Long planId, long version, Format format, OutputStream out) {
+        long start = System.currentTimeMillis();
+        long rows;
+        try {
+            rows = format == Format.CSV
+                    ? writeCsv(tenantId, planId, version, out)
+                    : writeNdjson(tenantId, planId, version, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Export routes failed: " + e.getMessage(), e);
+        }
+        log.info("ROUTE_EXPORT tenantId={}, planId={}, version={}, format={}, rows={}, costMs={}",
+                tenantId, planId, version, format, rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private long writeNdjson(Long tenantId, Long planId, long version, OutputStream out) throws IOException {
+        long[] rows = { 0 };
+        OutputStream buf = new BufferedOutputStream(out, BUFFER_SIZE);
+        try {
+            stopMapper.streamForExport(tenantId, planId, version, ctx -> {
+                try {
+                    buf.write(objectMapper.writeValueAsBytes(ctx.getResultObject()));
+                    buf.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buf.flush();
+        return rows[0];
+    }
+
+    private long writeCsv(Long tenantId, Long planId, long version, OutputStream out) throws IOException {
+        long[] rows = { 0 };
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        try {
+            stopMapper.streamForExport(tenantId, planId, version, ctx -> {
+                try {
+                    writeCsvRow(writer, ctx.getResultObject());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return rows[0];
+    }
+
+    /**
+     * 全部是数值列，不需要转义
+     */
+    private static void writeCsvRow(Writer w, DispatchRouteStopExportRow r) throws IOException {
+        w.write(cell(r.getVehicleId()));
+        w.write(',');
+        w.write(cell(r.getRouteId()));
+        w.write(',');
+        w.write(cell(r.getSeq()));
+        w.write(',');
+        w.write(cell(r.getTaskId()));
+        w.write(',');
+        w.write(cell(r.getNodeId()));
+        w.write(',');
+        w.write(cell(r.getEtaSec()));
+        w.write(',');
+        w.write(cell(r.getEtdSec()));
+        w.write(',');
+        w.write(cell(r.getServiceTimeSec()));
+        w.write('\n');
+    }
+
+    private static String cell(Number v) {
+        return v == null ? "" : v.toString();
+    }
+}
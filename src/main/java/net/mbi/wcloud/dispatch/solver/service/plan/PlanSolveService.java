@@ -1,5 +1,6 @@
 package net.mbi.wcloud.dispatch.solver.service.plan;
 
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveTaskStatusVO;
 import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
 
 public interface PlanSolveService {
@@ -10,4 +11,11 @@ public interface PlanSolveService {
      * @return taskId
      */
     String submitSolve(SolveRequestDTO req);
+
+    /**
+     * 取消求解：排队中直接移除并标记 CANCELLED；执行中中断搜索，acceptBest 为 true 时采用已找到的最优解落库
+     *
+     * @return 任务不存在时返回 null
+     */
+    SolveTaskStatusVO cancelSolve(Long tenantId, Long planId, String taskId, boolean acceptBest);
 }
@@ -1,27 +1,40 @@
 package net.mbi.wcloud.dispatch.solver.service.plan;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.*;
 import net.mbi.wcloud.dispatch.solver.dal.mysql.*;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.*;
-import net.mbi.wcloud.dispatch.solver.framework.lock.DistributedLock;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveTaskStatusVO;
+import net.mbi.wcloud.dispatch.solver.framework.common.exception.ErrorCodeConstants;
+import net.mbi.wcloud.dispatch.solver.framework.common.exception.ServiceException;
+import net.mbi.wcloud.dispatch.solver.framework.lock.JobLease;
+import net.mbi.wcloud.dispatch.solver.framework.queue.DistributedJobQueue;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixService;
+import net.mbi.wcloud.dispatch.solver.matrix.NeighborIndex;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.QueuedSolveDTO;
 import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
 import net.mbi.wcloud.dispatch.solver.ortools.OrToolsSolverEngine;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PlanSolveServiceImpl implements PlanSolveService {
 
-    private final DistributedLock distributedLock;
+    private static final String CLAIM_SEPARATOR = "#";
+
+    private final JobLease jobLease;
 
     private final DispatchPlanMapper planMapper;
     private final DispatchTaskMapper taskMapper;
@@ -30,13 +43,27 @@ public class PlanSolveServiceImpl implements PlanSolveService {
     private final DispatchRouteStopMapper stopMapper;
     private final DispatchUnassignedMapper unassignedMapper;
     private final DispatchSolveJobMapper solveJobMapper;
+    private final DispatchNodeMapper nodeMapper;
     private final OrToolsSolverEngine solverEngine;
+    private final MatrixService matrixService;
+    private final SolveDispatcher solveDispatcher;
+    private final SolveClusterProperties clusterProperties;
+    private final DistributedJobQueue jobQueue;
+    private final ObjectMapper objectMapper;
+    private final SolveProgressHub progressHub;
+    private final SolveJobStatusCache statusCache;
+    private final SolveResultWriter resultWriter;
+    private final SolveResultCache resultCache;
+    private final PlanReadCache readCache;
+
+    /** 本实例执行中的求解：taskId -> 停止控制 */
+    private final Map<String, SolveControl> controls = new ConcurrentHashMap<>();
 
     @Override
     public String submitSolve(SolveRequestDTO req) {
         Long tenantId = req.getTenantId();
         Long planId = req.getPlanId();
-        String lockKey = "solve:" + tenantId + ":" + planId;
+        String lockKey = lockKey(tenantId, planId);
 
         log.info("SOLVE_SUBMIT tenantId={}, planId={}", tenantId, planId);
 
@@ -48,8 +75,9 @@ public class PlanSolveServiceImpl implements PlanSolveService {
             return active.getTaskId();
         }
 
-        // 2. 不存在活跃任务 -> 尝试加锁
-        if (!distributedLock.tryLock(lockKey, 60)) {
+        // 2. 不存在活跃任务 -> 以新 taskId 获取方案租约
+        String taskId = "solve-" + tenantId + "-" + planId + "-" + System.currentTimeMillis();
+        if (!jobLease.acquire(lockKey, taskId)) {
             log.warn("SOLVE_LOCK_BUSY tenantId={}, planId={}", tenantId, planId);
 
             // 3. 加锁失败，再查一次（防并发空窗）：如果别人刚创建了任务，这里能拿到同一个 taskId
@@ -64,34 +92,259 @@ public class PlanSolveServiceImpl implements PlanSolveService {
             throw new IllegalStateException("Solve submit busy, please retry");
         }
 
-        // 5. 获取锁成功：创建新任务
-        String taskId = "solve-" + tenantId + "-" + planId + "-" + System.currentTimeMillis();
-        java.time.LocalDateTime now = java.time.LocalDateTime.now();
-
-        DispatchSolveJobDO job = new DispatchSolveJobDO();
-        job.setTenantId(tenantId);
-        job.setPlanId(planId);
-        job.setTaskId(taskId);
-        job.setStatus(SolveTaskStatus.ACCEPTED.code());
-        job.setMessage(SolveTaskStatus.ACCEPTED.code());
-        job.setCreateTime(now);
-        job.setUpdateTime(now);
-        job.setDeleted(0);
-        solveJobMapper.insert(job);
-
-        markStatus(tenantId, planId,
-                SolveTaskStatus.ACCEPTED.code(),
-                SolveTaskStatus.ACCEPTED.code());
-
-        runAsync(req, taskId);
-
-        return taskId;
+        // 5. 获取租约成功：租约属于任务而不是线程，交出去之后一直续租到求解结束，由执行求解的线程/节点释放；
+        // 没交出去（幂等命中、被拒绝、异常）时在这里释放
+        boolean handedOver = false;
+        try {
+            active = findActiveJob(tenantId, planId);
+            if (active != null) {
+                log.info("SOLVE_IDEMPOTENT_AFTER_LOCK tenantId={}, planId={}, taskId={}, status={}",
+                        tenantId, planId, active.getTaskId(), active.getStatus());
+                return active.getTaskId();
+            }
+
+            java.time.LocalDateTime now = java.time.LocalDateTime.now();
+
+            DispatchSolveJobDO job = new DispatchSolveJobDO();
+            job.setTenantId(tenantId);
+            job.setPlanId(planId);
+            job.setTaskId(taskId);
+            job.setStatus(SolveTaskStatus.ACCEPTED.code());
+            job.setMessage(SolveTaskStatus.ACCEPTED.code());
+            job.setCreateTime(now);
+            job.setUpdateTime(now);
+            job.setDeleted(0);
+            solveJobMapper.insert(job);
+            statusCache.put(SolveJobStatusCache.JobState.of(job));
+
+            markStatus(tenantId, planId,
+                    SolveTaskStatus.ACCEPTED.code(),
+                    SolveTaskStatus.ACCEPTED.code());
+
+            int timeLimit = req.getOptions().getTimeLimitSeconds();
+            long cost = Math.max(1, countWaitingTasks(req)) * (long) timeLimit;
+
+            // 6a. 集群模式：只入 Redis 队列，由有空闲名额的工作节点领取执行
+            if (clusterProperties.isEnabled()) {
+                if (!enqueueCluster(req, taskId, cost))
+                    reject(job, SolveDispatcher.Admission.QUEUE_FULL);
+                handedOver = true;
+                return taskId;
+            }
+
+            // 6b. 进入本实例调度队列（优先级 + 租户公平份额）；队列满或租户预估代价超限时显式拒绝，不在请求线程上求解
+            SolveDispatcher.Admission admission = solveDispatcher.submit(
+                    new SolveDispatcher.Ticket(taskId, tenantId, req.getPriority(), cost, timeLimit),
+                    () -> runSolve(req, taskId));
+            if (admission != SolveDispatcher.Admission.ACCEPTED)
+                reject(job, admission);
+            handedOver = true;
+            return taskId;
+        } finally {
+            if (!handedOver)
+                jobLease.release(lockKey, taskId);
+        }
+    }
+
+    /**
+     * 方案级租约的 key：求解与增量插入共用，同一方案同时只有一个写入者
+     */
+    static String lockKey(Long tenantId, Long planId) {
+        return "solve:" + tenantId + ":" + planId;
+    }
+
+    private boolean enqueueCluster(SolveRequestDTO req, String taskId, long cost) {
+        QueuedSolveDTO queued = new QueuedSolveDTO();
+        queued.setTaskId(taskId);
+        queued.setCost(cost);
+        queued.setRequest(req);
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(queued);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serialize solve request failed: " + e.getMessage(), e);
+        }
+
+        boolean ok = jobQueue.offer(taskId, payload, req.getPriority(), clusterProperties.getQueueCapacity());
+        log.info("SOLVE_ENQUEUE_CLUSTER tenantId={}, planId={}, taskId={}, priority={}, accepted={}",
+                req.getTenantId(), req.getPlanId(), taskId, req.getPriority(), ok);
+        return ok;
+    }
+
+    /**
+     * 调度拒绝：任务与方案标记 REJECTED 后抛出，由调用方提示稍后重试
+     */
+    private void reject(DispatchSolveJobDO job, SolveDispatcher.Admission admission) {
+        boolean queueFull = admission == SolveDispatcher.Admission.QUEUE_FULL;
+        String reason = queueFull ? "Solve queue is full" : "Tenant solve budget exceeded";
+        markStatus(job.getTenantId(), job.getPlanId(), SolveTaskStatus.REJECTED.code(), reason);
+        job.setStatus(SolveTaskStatus.REJECTED.code());
+        job.setMessage(reason);
+        job.setUpdateTime(LocalDateTime.now());
+        solveJobMapper.updateById(job);
+        publishStatus(job);
+        if (queueFull)
+            throw new ServiceException(ErrorCodeConstants.SOLVE_QUEUE_FULL, "求解队列已满，请稍后重试");
+        throw new ServiceException(ErrorCodeConstants.SOLVE_TENANT_BUDGET_EXCEEDED, "租户排队中的求解量已达上限，请稍后重试");
+    }
+
+    /**
+     * 集群队列中领取次数用完的任务（工作节点反复失联）：任务与方案标记 FAILED。
+     * 只释放提交时的租约（owner 为 taskId，从未被领取）；失联的领取仍在续租时由它自己停下后释放
+     */
+    void failAbandoned(String taskId, String message) {
+        DispatchSolveJobDO job = solveJobMapper.selectOne(new LambdaQueryWrapper<DispatchSolveJobDO>()
+                .eq(DispatchSolveJobDO::getTaskId, taskId)
+                .eq(DispatchSolveJobDO::getDeleted, 0)
+                .last("limit 1"));
+        if (job == null)
+            return;
+
+        log.warn("SOLVE_ABANDONED tenantId={}, planId={}, taskId={}, reason={}",
+                job.getTenantId(), job.getPlanId(), taskId, message);
+        markStatus(job.getTenantId(), job.getPlanId(), SolveTaskStatus.FAILED.code(), message);
+        job.setStatus(SolveTaskStatus.FAILED.code());
+        job.setMessage(message);
+        job.setUpdateTime(LocalDateTime.now());
+        solveJobMapper.updateById(job);
+        jobLease.release(lockKey(job.getTenantId(), job.getPlanId()), taskId);
+        publishStatus(job);
     }
 
-    @Async("solveExecutor")
-    public void runAsync(SolveRequestDTO req, String taskId) {
-        String lockKey = "solve:" + req.getTenantId() + ":" + req.getPlanId();
+    /**
+     * 参与求解的任务数，用于估算调度代价
+     */
+    private long countWaitingTasks(SolveRequestDTO req) {
+        Long count = taskMapper.selectCount(new LambdaQueryWrapper<DispatchTaskDO>()
+                .eq(DispatchTaskDO::getTenantId, req.getTenantId())
+                .eq(DispatchTaskDO::getPlanId, req.getPlanId())
+                .eq(DispatchTaskDO::getDeleted, 0)
+                .eq(DispatchTaskDO::getStatus, "WAITING")
+                .in(req.getTaskIds() != null && !req.getTaskIds().isEmpty(), DispatchTaskDO::getId, req.getTaskIds()));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 在求解线程池上执行：组装输入、求解、落库并更新任务状态
+     */
+    void runSolve(SolveRequestDTO req, String taskId) {
+        runSolve(req, taskId, taskId);
+    }
+
+    /**
+     * 以 leaseOwner 接手提交时获取的方案租约后执行求解。集群模式下 leaseOwner 每次领取各不相同（见 claimOwner），
+     * 失联后被回收的旧领取不能再续租或释放新领取的租约
+     *
+     * @return 同一任务之前的领取仍持有租约（还没停下来）时返回 false，不写任何状态，由调用方放回队列稍后重试
+     */
+    boolean runSolve(SolveRequestDTO req, String taskId, String leaseOwner) {
+        // 先登记停止控制，开始执行后的取消/提前结束请求都能送达
+        SolveControl control = new SolveControl();
+        controls.put(taskId, control);
+        try {
+            // 接手提交时获取的方案租约：排队期间过期则重新获取，已被其他求解持有则放弃，避免同一方案并发求解
+            String lockKey = lockKey(req.getTenantId(), req.getPlanId());
+            // 续租时确定租约已被他人持有：停止求解并丢弃结果，方案状态由新的持有者写入，这里只把任务标记为失败
+            AtomicBoolean leaseLost = new AtomicBoolean();
+            boolean adopted;
+            try {
+                adopted = jobLease.adopt(lockKey, taskId, leaseOwner,
+                        () -> leaseLost.set(control.request(SolveControl.Stop.ABANDON)));
+            } catch (RuntimeException e) {
+                log.error("SOLVE_LEASE_ERROR tenantId={}, planId={}, taskId={}, err={}", req.getTenantId(),
+                        req.getPlanId(), taskId, e.getMessage(), e);
+                String message = "Plan lease unavailable: " + e.getMessage();
+                markStatus(req.getTenantId(), req.getPlanId(), SolveTaskStatus.FAILED.code(), message);
+                updateJobStatus(req.getTenantId(), req.getPlanId(), taskId, SolveTaskStatus.FAILED.code(), message);
+                return true;
+            }
+            if (!adopted) {
+                String holder = jobLease.owner(lockKey);
+                if (holder != null && holder.startsWith(taskId + CLAIM_SEPARATOR)) {
+                    log.warn("SOLVE_LEASE_PREVIOUS_CLAIM tenantId={}, planId={}, taskId={}, holder={}",
+                            req.getTenantId(), req.getPlanId(), taskId, holder);
+                    return false;
+                }
+                log.warn("SOLVE_LEASE_CONFLICT tenantId={}, planId={}, taskId={}, holder={}", req.getTenantId(),
+                        req.getPlanId(), taskId, holder);
+                String message = "Another solve of this plan is running";
+                markStatus(req.getTenantId(), req.getPlanId(), SolveTaskStatus.FAILED.code(), message);
+                updateJobStatus(req.getTenantId(), req.getPlanId(), taskId, SolveTaskStatus.FAILED.code(), message);
+                return true;
+            }
+            try {
+                doSolve(req, taskId, control);
+            } finally {
+                jobLease.release(lockKey, leaseOwner);
+            }
+            if (leaseLost.get())
+                updateJobStatus(req.getTenantId(), req.getPlanId(), taskId, SolveTaskStatus.FAILED.code(),
+                        "Plan lease lost");
+            return true;
+        } finally {
+            controls.remove(taskId, control);
+        }
+    }
+
+    /**
+     * 集群模式下一次领取的租约持有者：任务 + 工作节点 + 第几次领取
+     */
+    static String claimOwner(String taskId, String workerId, int attempt) {
+        return taskId + CLAIM_SEPARATOR + workerId + CLAIM_SEPARATOR + attempt;
+    }
+
+    /**
+     * 向本实例正在执行的求解发停止请求
+     *
+     * @return 任务不在本实例执行或已请求过停止时返回 false
+     */
+    boolean requestStop(String taskId, SolveControl.Stop stop) {
+        SolveControl control = controls.get(taskId);
+        return control != null && control.request(stop);
+    }
+
+    @Override
+    public SolveTaskStatusVO cancelSolve(Long tenantId, Long planId, String taskId, boolean acceptBest) {
+        DispatchSolveJobDO job = solveJobMapper.selectOne(new LambdaQueryWrapper<DispatchSolveJobDO>()
+                .eq(DispatchSolveJobDO::getTenantId, tenantId)
+                .eq(DispatchSolveJobDO::getPlanId, planId)
+                .eq(DispatchSolveJobDO::getTaskId, taskId)
+                .eq(DispatchSolveJobDO::getDeleted, 0));
+        if (job == null)
+            return null;
+
+        // 已结束的任务原样返回，重复取消幂等
+        if (!SolveTaskStatus.ACCEPTED.code().equals(job.getStatus())
+                && !SolveTaskStatus.RUNNING.code().equals(job.getStatus()))
+            return new SolveTaskStatusVO(taskId, job.getStatus(), job.getMessage());
+
+        // 1. 还在排队：直接移除，从未开始求解，由这里释放方案租约
+        if (solveDispatcher.cancel(taskId) || (clusterProperties.isEnabled() && jobQueue.cancel(taskId))) {
+            String message = "Cancelled before start";
+            markStatus(tenantId, planId, SolveTaskStatus.CANCELLED.code(), message);
+            job.setStatus(SolveTaskStatus.CANCELLED.code());
+            job.setMessage(message);
+            job.setUpdateTime(LocalDateTime.now());
+            solveJobMapper.updateById(job);
+            jobLease.release(lockKey(tenantId, planId), taskId);
+            log.info("SOLVE_CANCELLED tenantId={}, planId={}, taskId={}, queued=true", tenantId, planId, taskId);
+            publishStatus(job);
+            return new SolveTaskStatusVO(taskId, job.getStatus(), message);
+        }
+
+        // 2. 执行中：中断搜索，状态由执行线程在搜索返回后写入（CANCELLED，或采用当前最优解后 SOLVED）
+        SolveControl.Stop stop = acceptBest ? SolveControl.Stop.ACCEPT_BEST : SolveControl.Stop.CANCEL;
+        boolean signalled = requestStop(taskId, stop)
+                || (clusterProperties.isEnabled() && jobQueue.signalStop(taskId, stop.name()));
+        log.info("SOLVE_STOP_REQUESTED tenantId={}, planId={}, taskId={}, stop={}, signalled={}",
+                tenantId, planId, taskId, stop, signalled);
+        return new SolveTaskStatusVO(taskId, job.getStatus(), signalled ? "Stop requested: " + stop : job.getMessage());
+    }
+
+    private void doSolve(SolveRequestDTO req, String taskId, SolveControl control) {
         long start = System.currentTimeMillis();
+        if (abandoned(req, taskId, control))
+            return;
 
         log.info("SOLVE_START tenantId={}, planId={}, taskId={}, timeLimit={}s",
                 req.getTenantId(), req.getPlanId(), taskId, req.getOptions().getTimeLimitSeconds());
@@ -104,18 +357,48 @@ public class PlanSolveServiceImpl implements PlanSolveService {
                 SolveTaskStatus.RUNNING.code(), SolveTaskStatus.RUNNING.code());
 
         try {
-            SolveInput input = assembleInput(req);
+            SolveInput input = loadInput(req);
+
+            // 输入与参数和之前某次求解完全一致：直接复用那次的结果，不构建矩阵（持有方案租约，与插入/其他求解互斥）
+            String digest = digest(req, input);
+            SolveResultCache.Entry cached = resultCache.get(req.getTenantId(), req.getPlanId(), digest);
+            if (cached != null && !abandoned(req, taskId, control)) {
+                reuseCached(req, taskId, input, digest, cached, start);
+                return;
+            }
+
+            buildMatrix(req, input);
+            input.setControl(control);
+            input.setProgressListener((objective, assigned, elapsed) -> progressHub.progress(taskId, objective,
+                    assigned, elapsed));
             SolveResult result = solverEngine.solve(req, input);
 
             long cost = System.currentTimeMillis() - start;
             result.getKpi().setSolveMillis(cost);
 
-            persistResult(req.getTenantId(), req.getPlanId(), result);
+            if (abandoned(req, taskId, control))
+                return;
+
+            // 取消，或提前结束时还没有可行解：不落库，保留方案原有线路
+            SolveControl.Stop stop = control.stop();
+            boolean solved = SolveTaskStatus.SOLVED.code().equals(result.getStatus());
+            if (stop == SolveControl.Stop.CANCEL || (stop == SolveControl.Stop.ACCEPT_BEST && !solved)) {
+                String message = stop == SolveControl.Stop.CANCEL ? "Cancelled" : "Stopped before a solution was found";
+                markStatus(req.getTenantId(), req.getPlanId(), SolveTaskStatus.CANCELLED.code(), message);
+                updateJobStatus(req.getTenantId(), req.getPlanId(), taskId, SolveTaskStatus.CANCELLED.code(), message);
+                log.info("SOLVE_CANCELLED tenantId={}, planId={}, taskId={}, stop={}, cost={}ms",
+                        req.getTenantId(), req.getPlanId(), taskId, stop, cost);
+                return;
+            }
+
+            long version = resultWriter.write(req.getTenantId(), req.getPlanId(), result);
+            if (solved && stop == SolveControl.Stop.NONE)
+                resultCache.put(req.getTenantId(), req.getPlanId(), digest, result, version);
 
-            if (SolveTaskStatus.SOLVED.code().equals(result.getStatus())) {
+            if (solved) {
                 markSolved(req.getTenantId(), req.getPlanId(), result);
-                updateJobStatus(req.getTenantId(), req.getPlanId(), taskId,
-                        SolveTaskStatus.SOLVED.code(), "OK");
+                updateJobStatus(req.getTenantId(), req.getPlanId(), taskId, SolveTaskStatus.SOLVED.code(),
+                        stop == SolveControl.Stop.ACCEPT_BEST ? "Stopped early, best solution accepted" : "OK");
             } else {
                 markStatus(req.getTenantId(), req.getPlanId(),
                         SolveTaskStatus.FAILED.code(), result.getMessage());
@@ -123,11 +406,13 @@ public class PlanSolveServiceImpl implements PlanSolveService {
                         SolveTaskStatus.FAILED.code(), result.getMessage());
             }
 
-            log.info("SOLVE_END tenantId={}, planId={}, taskId={}, status={}, cost={}ms, assigned={}, unassigned={}",
-                    req.getTenantId(), req.getPlanId(), taskId, result.getStatus(), cost,
+            log.info("SOLVE_END tenantId={}, planId={}, taskId={}, status={}, stop={}, cost={}ms, assigned={}, "
+                    + "unassigned={}", req.getTenantId(), req.getPlanId(), taskId, result.getStatus(), stop, cost,
                     result.getKpi().getAssignedTaskCount(), result.getKpi().getUnassignedTaskCount());
 
         } catch (Exception e) {
+            if (abandoned(req, taskId, control))
+                return;
             long cost = System.currentTimeMillis() - start;
             log.error("SOLVE_FAIL tenantId={}, planId={}, taskId={}, cost={}ms, err={}",
                     req.getTenantId(), req.getPlanId(), taskId, cost, e.getMessage(), e);
@@ -136,13 +421,72 @@ public class PlanSolveServiceImpl implements PlanSolveService {
                     SolveTaskStatus.FAILED.code(), e.getMessage());
             updateJobStatus(req.getTenantId(), req.getPlanId(), taskId,
                     SolveTaskStatus.FAILED.code(), e.getMessage());
-        } finally {
-            distributedLock.unlock(lockKey);
-            log.info("SOLVE_UNLOCK tenantId={}, planId={}, taskId={}", req.getTenantId(), req.getPlanId(), taskId);
         }
     }
 
-    private SolveInput assembleInput(SolveRequestDTO req) {
+    /**
+     * 集群领取或方案租约已失去：丢弃结果，不写方案/任务状态，交给新的领取/持有者
+     */
+    private boolean abandoned(SolveRequestDTO req, String taskId, SolveControl control) {
+        if (control.stop() != SolveControl.Stop.ABANDON)
+            return false;
+        log.warn("SOLVE_ABANDONED_LOCALLY tenantId={}, planId={}, taskId={}", req.getTenantId(), req.getPlanId(),
+                taskId);
+        return true;
+    }
+
+    /**
+     * 结果缓存命中：落库版本仍是方案的生效版本时直接沿用，否则把缓存的结果写成新版本
+     */
+    private void reuseCached(SolveRequestDTO req, String taskId, SolveInput input, String digest,
+            SolveResultCache.Entry cached, long start) {
+        Long tenantId = req.getTenantId();
+        Long planId = req.getPlanId();
+        long version = cached.version();
+        boolean rewritten = version != PlanInputs.activeVersion(input.getPlan());
+        if (rewritten) {
+            version = resultWriter.write(tenantId, planId, cached.result());
+            resultCache.put(tenantId, planId, digest, cached.result(), version);
+        }
+
+        markSolved(tenantId, planId, cached.result());
+        updateJobStatus(tenantId, planId, taskId, SolveTaskStatus.SOLVED.code(), "OK (reused cached result)");
+        log.info("SOLVE_CACHE_HIT tenantId={}, planId={}, taskId={}, digest={}, version={}, rewritten={}, cost={}ms",
+                tenantId, planId, taskId, digest, version, rewritten, System.currentTimeMillis() - start);
+    }
+
+    private String digest(SolveRequestDTO req, SolveInput input) {
+        return SolveResultCache.digest(input, req.getOptions(), matrixService.resolve(req.getTenantId()).name());
+    }
+
+    /**
+     * k 近邻候选弧：k 不大于 0 或任务节点数不超过 k+1（稀疏等同于稠密）时返回 null，使用完整矩阵
+     */
+    private int[][] candidateArcs(int k, List<TaskNode> tasks, Map<Long, Integer> nodeIdToIndex,
+            double[] lat, double[] lng) {
+        if (k <= 0)
+            return null;
+
+        boolean[] hub = new boolean[lat.length];
+        Arrays.fill(hub, true);
+        for (TaskNode t : tasks)
+            hub[nodeIdToIndex.get(t.getNodeId())] = false;
+
+        int taskNodes = 0;
+        for (boolean h : hub) {
+            if (!h)
+                taskNodes++;
+        }
+        if (taskNodes <= k + 1)
+            return null;
+
+        return NeighborIndex.candidateColumns(lat, lng, hub, k);
+    }
+
+    /**
+     * 求解输入的投影：方案、车辆、任务、节点坐标与热启动线路，不含矩阵（由 buildMatrix 补上）
+     */
+    private SolveInput loadInput(SolveRequestDTO req) {
         Long tenantId = req.getTenantId();
         Long planId = req.getPlanId();
 
@@ -154,48 +498,20 @@ public class PlanSolveServiceImpl implements PlanSolveService {
         if (plan == null)
             throw new IllegalArgumentException("Plan not found");
 
-        // vehicles
-        List<DispatchVehicleDO> vehicleDOs = vehicleMapper.selectList(new LambdaQueryWrapper<DispatchVehicleDO>()
-                .eq(DispatchVehicleDO::getTenantId, tenantId)
-                .eq(DispatchVehicleDO::getDeleted, 0)
-                .eq(DispatchVehicleDO::getStatus, "AVAILABLE")
-                .in(req.getVehicleIds() != null && !req.getVehicleIds().isEmpty(), DispatchVehicleDO::getId,
-                        req.getVehicleIds()));
-
-        // tasks
-        List<DispatchTaskDO> taskDOs = taskMapper.selectList(new LambdaQueryWrapper<DispatchTaskDO>()
-                .eq(DispatchTaskDO::getTenantId, tenantId)
-                .eq(DispatchTaskDO::getPlanId, planId)
-                .eq(DispatchTaskDO::getDeleted, 0)
-                .eq(DispatchTaskDO::getStatus, "WAITING")
-                .in(req.getTaskIds() != null && !req.getTaskIds().isEmpty(), DispatchTaskDO::getId, req.getTaskIds()));
-
+        // vehicles / tasks：只查求解用到的列；任务流式读取，逐行直接转成 TaskNode
+        List<DispatchVehicleDO> vehicleDOs = vehicleMapper.selectAvailableForSolve(tenantId, req.getVehicleIds());
         if (vehicleDOs.isEmpty())
             throw new IllegalStateException("No available vehicles");
-        if (taskDOs.isEmpty())
+
+        PlanInputs.TaskCollector collected = new PlanInputs.TaskCollector();
+        taskMapper.streamWaitingForSolve(tenantId, planId, req.getTaskIds(), collected);
+        if (collected.tasks().isEmpty())
             throw new IllegalStateException("No waiting tasks");
 
-        List<VehicleResource> vehicles = vehicleDOs.stream().map(v -> {
-            VehicleResource vr = new VehicleResource();
-            vr.setVehicleId(v.getId());
-            vr.setStartNodeId(v.getStartNodeId());
-            vr.setEndNodeId(v.getEndNodeId());
-            vr.setCapacityWeight(v.getCapacityWeight() == null ? 0 : v.getCapacityWeight());
-            vr.setWorkStartSec(v.getWorkStartSec() == null ? 0 : v.getWorkStartSec());
-            vr.setWorkEndSec(v.getWorkEndSec() == null ? 24 * 3600 : v.getWorkEndSec());
-            return vr;
-        }).collect(Collectors.toList());
-
-        List<TaskNode> tasks = taskDOs.stream().map(t -> {
-            TaskNode tn = new TaskNode();
-            tn.setTaskId(t.getId());
-            tn.setNodeId(t.getNodeId());
-            tn.setTwStartSec(t.getTwStartSec() == null ? 0 : t.getTwStartSec());
-            tn.setTwEndSec(t.getTwEndSec() == null ? 24 * 3600 : t.getTwEndSec());
-            tn.setServiceTimeSec(t.getServiceTimeSec() == null ? 0 : t.getServiceTimeSec());
-            tn.setDemandWeight(t.getDemandWeight() == null ? 0 : t.getDemandWeight());
-            return tn;
-        }).collect(Collectors.toList());
+        List<VehicleResource> vehicles = new ArrayList<>(vehicleDOs.size());
+        for (DispatchVehicleDO v : vehicleDOs)
+            vehicles.add(PlanInputs.toVehicle(v));
+        List<TaskNode> tasks = collected.tasks();
 
         // Build node index: include depots + task nodes
         Set<Long> nodeIdSet = new LinkedHashSet<>();
@@ -211,17 +527,9 @@ public class PlanSolveServiceImpl implements PlanSolveService {
         for (int i = 0; i < indexToNodeId.size(); i++)
             nodeIdToIndex.put(indexToNodeId.get(i), i);
 
-        // Simple mock matrix: distance/time based on index diff (可替换百度矩阵)
-        int n = indexToNodeId.size();
-        long[][] dist = new long[n][n];
-        long[][] time = new long[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                long d = Math.abs(i - j) * 1000L;
-                dist[i][j] = d;
-                time[i][j] = Math.abs(i - j) * 120L;
-            }
-        }
+        double[][] coords = PlanInputs.coordinates(nodeMapper, tenantId, collected, indexToNodeId, nodeIdToIndex);
+        double[] lat = coords[0];
+        double[] lng = coords[1];
 
         SolveInput input = new SolveInput();
         input.setTenantId(tenantId);
@@ -231,111 +539,88 @@ public class PlanSolveServiceImpl implements PlanSolveService {
         input.setTasks(tasks);
         input.setIndexToNodeId(indexToNodeId);
         input.setNodeIdToIndex(nodeIdToIndex);
-
-        MatrixData matrix = new MatrixData();
-        matrix.setDistMeter(dist);
-        matrix.setTimeSec(time);
-        input.setMatrix(matrix);
+        input.setNodeLat(lat);
+        input.setNodeLng(lng);
+        if (req.getOptions().isWarmStart())
+            input.setInitialRoutes(loadPersistedRoutes(tenantId, planId, PlanInputs.activeVersion(plan)));
 
         return input;
     }
 
-    private void persistResult(Long tenantId, Long planId, SolveResult result) {
-        // 1) logical delete old results
-        routeMapper.update(null,
-                new com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper<DispatchRouteDO>()
-                        .eq(DispatchRouteDO::getTenantId, tenantId)
-                        .eq(DispatchRouteDO::getPlanId, planId)
-                        .set(DispatchRouteDO::getDeleted, 1));
-
-        stopMapper.update(null,
-                new com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper<DispatchRouteStopDO>()
-                        .eq(DispatchRouteStopDO::getTenantId, tenantId)
-                        .eq(DispatchRouteStopDO::getPlanId, planId)
-                        .set(DispatchRouteStopDO::getDeleted, 1));
-
-        unassignedMapper.update(null,
-                new com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper<DispatchUnassignedDO>()
-                        .eq(DispatchUnassignedDO::getTenantId, tenantId)
-                        .eq(DispatchUnassignedDO::getPlanId, planId)
-                        .set(DispatchUnassignedDO::getDeleted, 1));
-
-        // 2) insert new routes + stops
-        for (SolveResult.RouteResult rr : result.getRoutes()) {
-            DispatchRouteDO r = new DispatchRouteDO();
-            r.setTenantId(tenantId);
-            r.setPlanId(planId);
-            r.setVehicleId(rr.getVehicleId());
-            r.setTotalDistanceM(rr.getTotalDistanceM());
-            r.setTotalTimeSec(rr.getTotalTimeSec());
-            r.setDeleted(0);
-            routeMapper.insert(r);
-
-            Long routeId = r.getId();
-            for (SolveResult.StopResult sr : rr.getStops()) {
-                DispatchRouteStopDO s = new DispatchRouteStopDO();
-                s.setTenantId(tenantId);
-                s.setPlanId(planId);
-                s.setRouteId(routeId);
-                s.setSeq(sr.getSeq());
-                s.setTaskId(sr.getTaskId());
-                s.setNodeId(sr.getNodeId());
-                s.setEtaSec(sr.getEtaSec());
-                s.setEtdSec(sr.getEtdSec());
-                s.setServiceTimeSec(sr.getServiceTimeSec());
-                s.setDeleted(0);
-                stopMapper.insert(s);
-            }
-        }
+    private void buildMatrix(SolveRequestDTO req, SolveInput input) {
+        List<Long> indexToNodeId = input.getIndexToNodeId();
+        int n = indexToNodeId.size();
+        long[] nodeIds = new long[n];
+        for (int i = 0; i < n; i++)
+            nodeIds[i] = indexToNodeId.get(i);
+        input.setMatrix(matrixService.build(new MatrixRequest(input.getTenantId(), nodeIds, input.getNodeLat(),
+                input.getNodeLng(), candidateArcs(req.getOptions().getNeighborCount(), input.getTasks(),
+                        input.getNodeIdToIndex(), input.getNodeLat(), input.getNodeLng()))));
+    }
 
-        // 3) insert unassigned
-        for (SolveResult.UnassignedResult ur : result.getUnassigned()) {
-            DispatchUnassignedDO u = new DispatchUnassignedDO();
-            u.setTenantId(tenantId);
-            u.setPlanId(planId);
-            u.setTaskId(ur.getTaskId());
-            u.setReasonCode(ur.getReasonCode());
-            u.setDetail(ur.getDetail());
-            u.setDeleted(0);
-            unassignedMapper.insert(u);
+    /**
+     * 热启动：读取计划生效版本的路线，返回 车辆ID -> 按 seq 排列的任务ID
+     */
+    private Map<Long, List<Long>> loadPersistedRoutes(Long tenantId, Long planId, long version) {
+        List<DispatchRouteDO> routes = routeMapper.selectList(new LambdaQueryWrapper<DispatchRouteDO>()
+                .eq(DispatchRouteDO::getTenantId, tenantId)
+                .eq(DispatchRouteDO::getPlanId, planId)
+                .eq(DispatchRouteDO::getSolutionVersion, version)
+                .eq(DispatchRouteDO::getDeleted, 0));
+        if (routes.isEmpty())
+            return Collections.emptyMap();
+
+        Map<Long, Long> vehicleOfRoute = new HashMap<>();
+        for (DispatchRouteDO r : routes)
+            vehicleOfRoute.put(r.getId(), r.getVehicleId());
+
+        List<DispatchRouteStopDO> stops = stopMapper.selectList(new LambdaQueryWrapper<DispatchRouteStopDO>()
+                .eq(DispatchRouteStopDO::getTenantId, tenantId)
+                .eq(DispatchRouteStopDO::getPlanId, planId)
+                .eq(DispatchRouteStopDO::getSolutionVersion, version)
+                .eq(DispatchRouteStopDO::getDeleted, 0)
+                .orderByAsc(DispatchRouteStopDO::getRouteId)
+                .orderByAsc(DispatchRouteStopDO::getSeq));
+
+        Map<Long, List<Long>> out = new HashMap<>();
+        for (DispatchRouteStopDO s : stops) {
+            Long vehicleId = vehicleOfRoute.get(s.getRouteId());
+            if (vehicleId != null)
+                out.computeIfAbsent(vehicleId, k -> new ArrayList<>()).add(s.getTaskId());
         }
+
+        log.info("SOLVE_WARM_START tenantId={}, planId={}, routes={}, stops={}",
+                tenantId, planId, out.size(), stops.size());
+        return out;
     }
 
     private void markSolved(Long tenantId, Long planId, SolveResult result) {
-        DispatchPlanDO plan = planMapper.selectOne(new LambdaQueryWrapper<DispatchPlanDO>()
+        planMapper.update(null, new LambdaUpdateWrapper<DispatchPlanDO>()
                 .eq(DispatchPlanDO::getId, planId)
                 .eq(DispatchPlanDO::getTenantId, tenantId)
-                .eq(DispatchPlanDO::getDeleted, 0));
-
-        if (plan == null)
-            return;
-
-        plan.setStatus(SolveTaskStatus.SOLVED.code());
-        plan.setMessage("OK");
-        plan.setAssignedCount(result.getKpi().getAssignedTaskCount());
-        plan.setUnassignedCount(result.getKpi().getUnassignedTaskCount());
-        plan.setSolveMillis(result.getKpi().getSolveMillis());
-        planMapper.updateById(plan);
+                .eq(DispatchPlanDO::getDeleted, 0)
+                .set(DispatchPlanDO::getStatus, SolveTaskStatus.SOLVED.code())
+                .set(DispatchPlanDO::getMessage, "OK")
+                .set(DispatchPlanDO::getAssignedCount, result.getKpi().getAssignedTaskCount())
+                .set(DispatchPlanDO::getUnassignedCount, result.getKpi().getUnassignedTaskCount())
+                .set(DispatchPlanDO::getSolveMillis, result.getKpi().getSolveMillis()));
+        readCache.invalidatePlan(tenantId, planId);
     }
 
     private void markStatus(Long tenantId, Long planId, String status, String message) {
-        DispatchPlanDO plan = planMapper.selectOne(new LambdaQueryWrapper<DispatchPlanDO>()
+        planMapper.update(null, new LambdaUpdateWrapper<DispatchPlanDO>()
                 .eq(DispatchPlanDO::getId, planId)
                 .eq(DispatchPlanDO::getTenantId, tenantId)
-                .eq(DispatchPlanDO::getDeleted, 0));
-
-        if (plan == null)
-            return;
-
-        plan.setStatus(status);
-        plan.setMessage(message);
-        planMapper.updateById(plan);
+                .eq(DispatchPlanDO::getDeleted, 0)
+                .set(DispatchPlanDO::getStatus, status)
+                .set(DispatchPlanDO::getMessage, message));
+        readCache.invalidatePlan(tenantId, planId);
     }
 
     private void updateJobStatus(Long tenantId, Long planId, String taskId, String status, String message) {
         LocalDateTime now = LocalDateTime.now();
         solveJobMapper.update(null,
-                new com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper<DispatchSolveJobDO>()
+                new LambdaUpdateWrapper<DispatchSolveJobDO>()
                         .eq(DispatchSolveJobDO::getTenantId, tenantId)
                         .eq(DispatchSolveJobDO::getPlanId, planId)
                         .eq(DispatchSolveJobDO::getTaskId, taskId)
@@ -343,10 +628,39 @@ public class PlanSolveServiceImpl implements PlanSolveService {
                         .set(DispatchSolveJobDO::getStatus, status)
                         .set(DispatchSolveJobDO::getMessage, message)
                         .set(DispatchSolveJobDO::getUpdateTime, now));
+        publishStatus(new SolveJobStatusCache.JobState(taskId, tenantId, planId, status, message));
     }
 
+    private void publishStatus(DispatchSolveJobDO job) {
+        publishStatus(SolveJobStatusCache.JobState.of(job));
+    }
+
+    /**
+     * 状态落库后：写穿状态缓存，并推送给进度订阅者
+     */
+    private void publishStatus(SolveJobStatusCache.JobState state) {
+        statusCache.put(state);
+        progressHub.status(new SolveTaskStatusVO(state.taskId(), state.status(), state.message()));
+    }
+
+    /**
+     * 方案的活跃任务：先查状态缓存（包括"没有活跃任务"），缓存没有再查库，查库结果回填缓存
+     */
     private DispatchSolveJobDO findActiveJob(Long tenantId, Long planId) {
-        return solveJobMapper.selectOne(
+        SolveJobStatusCache.JobState cached = statusCache.activeJob(tenantId, planId);
+        if (cached == SolveJobStatusCache.NONE)
+            return null;
+        if (cached != null) {
+            DispatchSolveJobDO job = new DispatchSolveJobDO();
+            job.setTenantId(tenantId);
+            job.setPlanId(planId);
+            job.setTaskId(cached.taskId());
+            job.setStatus(cached.status());
+            job.setMessage(cached.message());
+            return job;
+        }
+
+        DispatchSolveJobDO job = solveJobMapper.selectOne(
                 new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<DispatchSolveJobDO>()
                         .eq(DispatchSolveJobDO::getTenantId, tenantId)
                         .eq(DispatchSolveJobDO::getPlanId, planId)
@@ -356,5 +670,10 @@ public class PlanSolveServiceImpl implements PlanSolveService {
                                 SolveTaskStatus.RUNNING.code())
                         .orderByDesc(DispatchSolveJobDO::getUpdateTime)
                         .last("limit 1"));
+        if (job != null)
+            statusCache.put(SolveJobStatusCache.JobState.of(job));
+        else
+            statusCache.putNoActive(tenantId, planId);
+        return job;
     }
 }
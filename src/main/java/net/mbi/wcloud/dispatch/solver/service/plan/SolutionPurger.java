@@ -0,0 +1,94 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteStopMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchUnassignedMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * 旧解版本的后台清理：版本切换后延迟 delayMillis 再物理删除旧版本的路线/停靠点/未分配，
+ * 给切换前已读到旧版本号的查询留出读完的时间；每条 DELETE 限量 batchSize 行，避免长事务与大范围锁。
+ * <p>
+ * 待清理记录只在本实例内存里，实例重启丢失也无妨：下一次切换版本时会把更早的版本一并清掉。
+ */
+@Slf4j
+@Component
+public class SolutionPurger {
+
+    private record PlanKey(Long tenantId, Long planId) {
+    }
+
+    private final DispatchRouteMapper routeMapper;
+    private final DispatchRouteStopMapper stopMapper;
+    private final DispatchUnassignedMapper unassignedMapper;
+    private final long delayMillis;
+    private final int batchSize;
+
+    /** 方案 -> [生效版本, 可清理时间]；同一方案只保留最新一次切换 */
+    private final Map<PlanKey, long[]> pending = new ConcurrentHashMap<>();
+
+    public SolutionPurger(DispatchRouteMapper routeMapper,
+            DispatchRouteStopMapper stopMapper,
+            DispatchUnassignedMapper unassignedMapper,
+            @Value("${dispatch.solver.purge.delay-ms:60000}") long delayMillis,
+            @Value("${dispatch.solver.purge.batch-size:5000}") int batchSize) {
+        this.routeMapper = routeMapper;
+        this.stopMapper = stopMapper;
+        this.unassignedMapper = unassignedMapper;
+        this.delayMillis = delayMillis;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * 登记一次版本切换：activeVersion 之前的版本在延迟之后清理
+     */
+    public void schedule(Long tenantId, Long planId, long activeVersion) {
+        pending.put(new PlanKey(tenantId, planId), new long[] { activeVersion, System.currentTimeMillis() + delayMillis });
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.solver.purge.interval-ms:30000}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<PlanKey, long[]> e : pending.entrySet()) {
+            long[] due = e.getValue();
+            if (due[1] > now || !pending.remove(e.getKey(), due))
+                continue;
+            try {
+                purgePlan(e.getKey().tenantId(), e.getKey().planId(), due[0]);
+            } catch (RuntimeException ex) {
+                log.warn("SOLUTION_PURGE_FAIL tenantId={}, planId={}, activeVersion={}, err={}",
+                        e.getKey().tenantId(), e.getKey().planId(), due[0], ex.getMessage());
+            }
+        }
+    }
+
+    private void purgePlan(Long tenantId, Long planId, long activeVersion) {
+        long start = System.currentTimeMillis();
+        int stops = drain(() -> stopMapper.purgeStale(tenantId, planId, activeVersion, batchSize));
+        int routes = drain(() -> routeMapper.purgeStale(tenantId, planId, activeVersion, batchSize));
+        int unassigned = drain(() -> unassignedMapper.purgeStale(tenantId, planId, activeVersion, batchSize));
+        log.info("SOLUTION_PURGE tenantId={}, planId={}, activeVersion={}, routes={}, stops={}, unassigned={}, cost={}ms",
+                tenantId, planId, activeVersion, routes, stops, unassigned, System.currentTimeMillis() - start);
+    }
+
+    private int drain(IntSupplier deleteBatch) {
+        int total = 0;
+        int n;
+        do {
+            n = deleteBatch.getAsInt();
+            total += n;
+        } while (n >= batchSize);
+        return total;
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,34 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "dispatch.solver.cluster")
+public class SolveClusterProperties {
+
+    /** 集群模式：提交只入 Redis 队列，由工作节点领取执行；关闭时在接收请求的实例本地调度 */
+    private boolean enabled = false;
+
+    /** 本实例是否作为工作节点领取任务（仅接收请求的 API 节点设为 false） */
+    private boolean worker = true;
+
+    /** 工作节点标识，默认 pid@host */
+    private String workerId = ManagementFactory.getRuntimeMXBean().getName();
+
+    /** 租约时长：超过该时长未续租的任务视为工作节点失联，重新入队 */
+    private long leaseMillis = 30_000;
+
+    /** 工作节点放回的任务（本地名额被抢占、之前的领取还没停下）在该时长内不会被再次领取 */
+    private long releaseBackoffMillis = 3_000;
+
+    /** 同一任务最多被领取的次数，超过后标记 FAILED，避免反复拖垮工作节点 */
+    private int maxAttempts = 3;
+
+    /** 集群队列排队任务数上限，0 表示不限 */
+    private int queueCapacity = 1000;
+}
@@ -0,0 +1,347 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 求解任务调度：任务先进入本实例的调度队列，由调度器决定何时交给 solveExecutor 执行，提交方立即返回。
+ * <p>
+ * 调度规则：
+ * <ul>
+ * <li>同时执行数不超过 maxRunning，单租户同时执行数不超过 tenantMaxRunning；</li>
+ * <li>租户之间按加权公平份额（虚拟时间）轮转：每启动一个任务，租户虚拟时间增加 预估代价 / 权重，
+ * 总是先启动虚拟时间最小的租户，单个租户提交大量任务不会阻塞其他租户；</li>
+ * <li>同一租户内按优先级从高到低、同优先级先进先出；</li>
+ * <li>准入：队列满或租户排队+执行中的预估代价（任务数 × 时间上限秒）超限时拒绝，由提交方标记为 REJECTED。</li>
+ * </ul>
+ * 排队位置与预计开始时间由同一套规则对当前队列做一次推演得出（执行中任务按时间上限估算剩余时长）。
+ * <p>
+ * 线程池被辅助搜索占满而拒绝启动时，任务放回队列，由定时重试（redrain-interval-ms）再次调度，
+ * 不依赖下一个任务结束或新任务提交。
+ */
+@Slf4j
+@Component
+public class SolveDispatcher {
+
+    public enum Admission {
+        ACCEPTED,
+        QUEUE_FULL,
+        TENANT_BUDGET_EXCEEDED
+    }
+
+    /**
+     * @param cost 预估代价：任务数 × 时间上限（秒）
+     */
+    public record Ticket(String taskId, Long tenantId, int priority, long cost, int timeLimitSeconds) {
+    }
+
+    /**
+     * @param position            排队位置（从 1 开始）
+     * @param expectedStartMillis 预计开始时间（epoch 毫秒）
+     */
+    public record QueueInfo(int position, long expectedStartMillis) {
+    }
+
+    private final ThreadPoolTaskExecutor solveExecutor;
+    private final SolveSchedulerProperties properties;
+
+    private final FairQueue queue = new FairQueue();
+    /** 执行中的任务：taskId -> 运行信息 */
+    private final Map<String, Running> running = new HashMap<>();
+    private long seq;
+    /** 上次调度被线程池拒绝，等待定时重试 */
+    private boolean stalled;
+
+    public SolveDispatcher(@Qualifier("solveExecutor") ThreadPoolTaskExecutor solveExecutor,
+            SolveSchedulerProperties properties) {
+        this.solveExecutor = solveExecutor;
+        this.properties = properties;
+    }
+
+    public synchronized Admission submit(Ticket ticket, Runnable job) {
+        if (queue.size >= properties.getQueueCapacity()) {
+            log.warn("SOLVE_DISPATCH_REJECTED taskId={}, tenantId={}, reason=QUEUE_FULL, queued={}, running={}",
+                    ticket.taskId(), ticket.tenantId(), queue.size, running.size());
+            return Admission.QUEUE_FULL;
+        }
+
+        long load = queue.queuedCost(ticket.tenantId()) + runningCost(ticket.tenantId());
+        long limit = properties.getTenantMaxQueuedCost();
+        if (limit > 0 && load > 0 && load + ticket.cost() > limit) {
+            log.warn("SOLVE_DISPATCH_REJECTED taskId={}, tenantId={}, reason=TENANT_BUDGET_EXCEEDED, load={}, cost={}, "
+                    + "limit={}", ticket.taskId(), ticket.tenantId(), load, ticket.cost(), limit);
+            return Admission.TENANT_BUDGET_EXCEEDED;
+        }
+
+        queue.enqueue(new Job(ticket, job, seq++), properties.weightOf(ticket.tenantId()));
+        log.info("SOLVE_ENQUEUE taskId={}, tenantId={}, priority={}, cost={}, queued={}, running={}",
+                ticket.taskId(), ticket.tenantId(), ticket.priority(), ticket.cost(), queue.size, running.size());
+        drain();
+        return Admission.ACCEPTED;
+    }
+
+    /**
+     * 排队中任务的位置与预计开始时间；已开始、已结束或不在本实例的任务返回 null
+     */
+    public synchronized QueueInfo queueInfo(String taskId) {
+        if (running.containsKey(taskId) || !queue.contains(taskId))
+            return null;
+
+        long now = System.currentTimeMillis();
+        FairQueue sim = queue.copy();
+        PriorityQueue<long[]> ends = new PriorityQueue<>(Comparator.comparingLong(e -> e[0]));
+        for (Running r : running.values())
+            ends.add(new long[] { Math.max(now, r.expectedEnd), r.job.ticket.tenantId() });
+
+        long time = now;
+        int idle = properties.getMaxRunning() - running.size();
+        int position = 0;
+        while (true) {
+            Job next = idle > 0 ? sim.poll(properties.getTenantMaxRunning()) : null;
+            if (next != null) {
+                position++;
+                if (next.ticket.taskId().equals(taskId))
+                    return new QueueInfo(position, time);
+                idle--;
+                ends.add(new long[] { time + next.ticket.timeLimitSeconds() * 1000L, next.ticket.tenantId() });
+                continue;
+            }
+            long[] end = ends.poll();
+            if (end == null)
+                return null;
+            time = Math.max(time, end[0]);
+            sim.finished(end[1]);
+            idle++;
+        }
+    }
+
+    /**
+     * 从排队中移除（取消）；已开始或不在本实例排队的任务返回 false
+     */
+    public synchronized boolean cancel(String taskId) {
+        boolean removed = queue.remove(taskId);
+        if (removed)
+            log.info("SOLVE_DEQUEUE_CANCELLED taskId={}, queued={}", taskId, queue.size);
+        return removed;
+    }
+
+    /**
+     * 本实例还能立即开始的任务数（集群模式下工作节点据此领取）
+     */
+    public synchronized int freeSlots() {
+        return Math.max(0, properties.getMaxRunning() - running.size() - queue.size);
+    }
+
+    /**
+     * 本实例排队中的任务数
+     */
+    public synchronized int queued() {
+        return queue.size;
+    }
+
+    /**
+     * 线程池拒绝后的重试：辅助搜索的线程释放后，即使没有任务结束或新提交，排队的任务也能启动
+     */
+    @Scheduled(fixedDelayString = "${dispatch.solver.scheduler.redrain-interval-ms:1000}")
+    public synchronized void redrain() {
+        if (!stalled)
+            return;
+        log.info("SOLVE_DISPATCH_REDRAIN queued={}, running={}", queue.size, running.size());
+        drain();
+    }
+
+    private void drain() {
+        stalled = false;
+        while (running.size() < properties.getMaxRunning()) {
+            Job next = queue.poll(properties.getTenantMaxRunning());
+            if (next == null)
+                return;
+
+            long now = System.currentTimeMillis();
+            Running r = new Running(next, now + next.ticket.timeLimitSeconds() * 1000L);
+            running.put(next.ticket.taskId(), r);
+            try {
+                solveExecutor.execute(() -> run(r));
+            } catch (RejectedExecutionException e) {
+                // 线程池被辅助搜索占满：放回队列，由 redrain 定时重试（任务结束或新任务提交时也会再调度）
+                running.remove(next.ticket.taskId());
+                queue.requeue(next);
+                stalled = true;
+                log.warn("SOLVE_DISPATCH_EXECUTOR_BUSY taskId={}, active={}", next.ticket.taskId(),
+                        solveExecutor.getActiveCount());
+                return;
+            }
+            log.info("SOLVE_DISPATCH taskId={}, tenantId={}, waited={}ms, queued={}, running={}",
+                    next.ticket.taskId(), next.ticket.tenantId(), now - next.enqueuedAt, queue.size, running.size());
+        }
+    }
+
+    private void run(Running r) {
+        try {
+            r.job.task.run();
+        } finally {
+            synchronized (this) {
+                running.remove(r.job.ticket.taskId());
+                queue.finished(r.job.ticket.tenantId());
+                drain();
+            }
+        }
+    }
+
+    private long runningCost(Long tenantId) {
+        long cost = 0;
+        for (Running r : running.values()) {
+            if (r.job.ticket.tenantId().equals(tenantId))
+                cost += r.job.ticket.cost();
+        }
+        return cost;
+    }
+
+    private static final class Job {
+        final Ticket ticket;
+        final Runnable task;
+        final long seq;
+        final long enqueuedAt = System.currentTimeMillis();
+
+        Job(Ticket ticket, Runnable task, long seq) {
+            this.ticket = ticket;
+            this.task = task;
+            this.seq = seq;
+        }
+    }
+
+    private record Running(Job job, long expectedEnd) {
+    }
+
+    private static final class TenantQueue {
+        final PriorityQueue<Job> pending = new PriorityQueue<>(
+                Comparator.<Job>comparingInt(j -> -j.ticket.priority()).thenComparingLong(j -> j.seq));
+        int weight;
+        int running;
+        double vtime;
+        long queuedCost;
+
+        TenantQueue copy() {
+            TenantQueue t = new TenantQueue();
+            t.pending.addAll(pending);
+            t.weight = weight;
+            t.running = running;
+            t.vtime = vtime;
+            t.queuedCost = queuedCost;
+            return t;
+        }
+    }
+
+    /**
+     * 按租户分组的加权公平队列（虚拟时间）；非线程安全，由外层加锁
+     */
+    private static final class FairQueue {
+        final Map<Long, TenantQueue> tenants = new HashMap<>();
+        /** 最近一次启动任务时该租户的虚拟时间，新活跃的租户从这里起步，不能攒下空闲期的份额 */
+        double clock;
+        int size;
+
+        void enqueue(Job job, int weight) {
+            TenantQueue t = tenants.computeIfAbsent(job.ticket.tenantId(), k -> new TenantQueue());
+            t.weight = weight;
+            if (t.pending.isEmpty() && t.running == 0)
+                t.vtime = Math.max(t.vtime, clock);
+            t.pending.add(job);
+            t.queuedCost += job.ticket.cost();
+            size++;
+        }
+
+        /**
+         * 取下一个可启动的任务：未达到单租户并发上限的租户中虚拟时间最小者（相同则比队首先后），取其优先级最高的任务
+         */
+        Job poll(int tenantMaxRunning) {
+            TenantQueue best = null;
+            for (TenantQueue t : tenants.values()) {
+                if (t.pending.isEmpty() || t.running >= tenantMaxRunning)
+                    continue;
+                if (best == null || t.vtime < best.vtime
+                        || (t.vtime == best.vtime && t.pending.peek().seq < best.pending.peek().seq))
+                    best = t;
+            }
+            if (best == null)
+                return null;
+
+            Job job = best.pending.poll();
+            best.queuedCost -= job.ticket.cost();
+            best.running++;
+            size--;
+            clock = Math.max(clock, best.vtime);
+            best.vtime += (double) job.ticket.cost() / best.weight;
+            return job;
+        }
+
+        void requeue(Job job) {
+            TenantQueue t = tenants.get(job.ticket.tenantId());
+            t.running--;
+            t.vtime -= (double) job.ticket.cost() / t.weight;
+            t.pending.add(job);
+            t.queuedCost += job.ticket.cost();
+            size++;
+        }
+
+        void finished(long tenantId) {
+            TenantQueue t = tenants.get(tenantId);
+            if (t == null)
+                return;
+            t.running--;
+            // 空闲且没有份额盈余的租户移除，重新提交时虚拟时间会从 clock 起步，结果相同
+            if (t.pending.isEmpty() && t.running <= 0 && t.vtime <= clock)
+                tenants.remove(tenantId);
+        }
+
+        long queuedCost(Long tenantId) {
+            TenantQueue t = tenants.get(tenantId);
+            return t == null ? 0 : t.queuedCost;
+        }
+
+        boolean remove(String taskId) {
+            for (Map.Entry<Long, TenantQueue> e : tenants.entrySet()) {
+                TenantQueue t = e.getValue();
+                for (Job j : t.pending) {
+                    if (!j.ticket.taskId().equals(taskId))
+                        continue;
+                    t.pending.remove(j);
+                    t.queuedCost -= j.ticket.cost();
+                    size--;
+                    if (t.pending.isEmpty() && t.running == 0 && t.vtime <= clock)
+                        tenants.remove(e.getKey());
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean contains(String taskId) {
+            for (TenantQueue t : tenants.values()) {
+                for (Job j : t.pending) {
+                    if (j.ticket.taskId().equals(taskId))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        FairQueue copy() {
+            FairQueue q = new FairQueue();
+            for (Map.Entry<Long, TenantQueue> e : tenants.entrySet())
+                q.tenants.put(e.getKey(), e.getValue().copy());
+            q.clock = clock;
+            q.size = size;
+            return q;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchSolveJobDO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 求解任务状态缓存（写穿）：任务状态每次落库后同步写入，状态查询与提交时的幂等检查优先读缓存，
+ * 数据库只承担状态变化的写入。
+ * <p>
+ * 单实例只用本地 Caffeine；多实例（集群模式或显式开启）以 Redis 为准，本地只做 nearTtlMillis 的近端缓存。
+ * "没有活跃任务"也会缓存（{@link #NONE}）：任务进入终态或查库确认没有活跃任务时写入，新任务写入时覆盖；
+ * 缓存缺失一律回源数据库，不会因为缓存缺失而重复创建任务。
+ */
+@Slf4j
+@Component
+public class SolveJobStatusCache {
+
+    static final String JOB_PREFIX = "dispatch:solver:job:";
+    static final String ACTIVE_PREFIX = "dispatch:solver:job-active:";
+    /** 方案 -> 活跃任务映射里表示"没有活跃任务"的值 */
+    static final String NO_ACTIVE = "";
+
+    /**
+     * 任务当前状态
+     */
+    public record JobState(String taskId, Long tenantId, Long planId, String status, String message) {
+
+        public static JobState of(DispatchSolveJobDO job) {
+            return new JobState(job.getTaskId(), job.getTenantId(), job.getPlanId(), job.getStatus(),
+                    job.getMessage());
+        }
+
+        /** ACCEPTED / RUNNING */
+        public boolean active() {
+            return SolveTaskStatus.ACCEPTED.code().equals(status) || SolveTaskStatus.RUNNING.code().equals(status);
+        }
+
+        public boolean belongsTo(Long tenantId, Long planId) {
+            return this.tenantId.equals(tenantId) && this.planId.equals(planId);
+        }
+    }
+
+    /**
+     * {@link #activeJob} 的返回值：缓存确认方案当前没有活跃任务
+     */
+    public static final JobState NONE = new JobState(null, null, null, null, null);
+
+    private record PlanKey(Long tenantId, Long planId) {
+    }
+
+    private final boolean enabled;
+    /** taskId -> 状态 */
+    private final Cache<String, JobState> jobs;
+    /** 方案 -> 活跃任务 taskId，没有活跃任务时为 NO_ACTIVE */
+    private final Cache<PlanKey, String> activeByPlan;
+    /** 多实例共享层；只用本地缓存时为空 */
+    private final RedissonClient redis;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public SolveJobStatusCache(SolveStatusCacheProperties properties, SolveClusterProperties clusterProperties,
+            RedissonClient redissonClient, ObjectMapper objectMapper) {
+        boolean shared = properties.isRedis() || clusterProperties.isEnabled();
+        Duration localTtl = shared ? Duration.ofMillis(properties.getNearTtlMillis())
+                : Duration.ofSeconds(properties.getTtlSeconds());
+
+        this.enabled = properties.isEnabled();
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(localTtl)
+                .build();
+        this.activeByPlan = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(localTtl)
+                .build();
+        this.redis = shared ? redissonClient : null;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofSeconds(properties.getTtlSeconds());
+    }
+
+    /**
+     * 写入状态变化，在数据库更新成功之后调用
+     */
+    public void put(JobState state) {
+        if (!enabled)
+            return;
+
+        PlanKey plan = new PlanKey(state.tenantId(), state.planId());
+        jobs.put(state.taskId(), state);
+        if (state.active())
+            activeByPlan.put(plan, state.taskId());
+        else
+            activeByPlan.asMap().replace(plan, state.taskId(), NO_ACTIVE);
+
+        if (redis == null)
+            return;
+        try {
+            bucket(JOB_PREFIX + state.taskId()).set(objectMapper.writeValueAsString(state), ttl);
+            RBucket<String> active = bucket(ACTIVE_PREFIX + state.tenantId() + ":" + state.planId());
+            if (state.active())
+                active.set(state.taskId(), ttl);
+            else if (active.compareAndSet(state.taskId(), NO_ACTIVE))
+                active.expire(ttl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // 写 Redis 失败：删掉本实例的条目，读取回源数据库，不让各实例看到不一致的状态
+            log.warn("SOLVE_STATUS_CACHE_WRITE_FAIL taskId={}, err={}", state.taskId(), e.getMessage());
+            jobs.invalidate(state.taskId());
+            activeByPlan.invalidate(plan);
+        }
+    }
+
+    /**
+     * 任务状态；未缓存返回 null，由调用方查库后 put
+     */
+    public JobState get(String taskId) {
+        if (!enabled)
+            return null;
+
+        JobState state = jobs.getIfPresent(taskId);
+        if (state != null || redis == null)
+            return state;
+        try {
+            String json = bucket(JOB_PREFIX + taskId).get();
+            if (json == null)
+                return null;
+            state = objectMapper.readValue(json, JobState.class);
+            jobs.put(taskId, state);
+            return state;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("SOLVE_STATUS_CACHE_READ_FAIL taskId={}, err={}", taskId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 查库确认方案没有活跃任务后调用；已有条目（其他线程/实例刚写入的新任务）时不覆盖
+     */
+    public void putNoActive(Long tenantId, Long planId) {
+        if (!enabled)
+            return;
+
+        PlanKey plan = new PlanKey(tenantId, planId);
+        activeByPlan.asMap().putIfAbsent(plan, NO_ACTIVE);
+        if (redis == null)
+            return;
+        try {
+            bucket(ACTIVE_PREFIX + tenantId + ":" + planId).setIfAbsent(NO_ACTIVE, ttl);
+        } catch (RuntimeException e) {
+            log.warn("SOLVE_STATUS_CACHE_WRITE_FAIL tenantId={}, planId={}, err={}", tenantId, planId,
+                    e.getMessage());
+            activeByPlan.invalidate(plan);
+        }
+    }
+
+    /**
+     * 方案当前的活跃任务（ACCEPTED / RUNNING）；确认没有活跃任务返回 {@link #NONE}，未缓存返回 null
+     */
+    public JobState activeJob(Long tenantId, Long planId) {
+        if (!enabled)
+            return null;
+
+        PlanKey plan = new PlanKey(tenantId, planId);
+        String taskId = activeByPlan.getIfPresent(plan);
+        if (taskId == null && redis != null) {
+            try {
+                taskId = bucket(ACTIVE_PREFIX + tenantId + ":" + planId).get();
+            } catch (RuntimeException e) {
+                log.warn("SOLVE_STATUS_CACHE_READ_FAIL tenantId={}, planId={}, err={}", tenantId, planId,
+                        e.getMessage());
+                return null;
+            }
+            if (taskId != null)
+                activeByPlan.put(plan, taskId);
+        }
+        if (taskId == null)
+            return null;
+        if (NO_ACTIVE.equals(taskId))
+            return NONE;
+
+        JobState state = get(taskId);
+        return state != null && state.active() ? state : null;
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redis.getBucket(key, StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,199 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveProgressVO;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveTaskStatusVO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 求解进度推送中心：求解线程上报进度与状态变化，按 taskId 扇出给本实例的 SSE 订阅者，
+ * 订阅者不再各自轮询数据库。
+ * <p>
+ * 集群模式下任务可能在其他节点执行，事件经 Redis 主题广播，每个节点只推给自己的订阅者；
+ * 终态事件推送后关闭该任务的全部连接。
+ */
+@Slf4j
+@Component
+public class SolveProgressHub {
+
+    static final String TOPIC = "dispatch:solver:progress";
+
+    static final String EVENT_STATUS = "status";
+    static final String EVENT_PROGRESS = "progress";
+
+    /**
+     * 广播的事件，progress 与 status 二选一
+     */
+    record Event(String taskId, String name, SolveProgressVO progress, SolveTaskStatusVO status) {
+    }
+
+    private final Executor sseExecutor;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    /** 集群模式下的广播主题；单机模式为空，事件直接在本实例扇出 */
+    private final RTopic topic;
+
+    /** taskId -> 本实例的订阅者 */
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    /** taskId -> 已推送的最优目标值；组合求解多个搜索并行上报，只推送更优的解 */
+    private final Map<String, Long> bestObjective = new ConcurrentHashMap<>();
+
+    public SolveProgressHub(@Qualifier("sseExecutor") Executor sseExecutor,
+            SolveClusterProperties clusterProperties,
+            RedissonClient redissonClient,
+            ObjectMapper objectMapper,
+            @Value("${dispatch.solver.sse-timeout-ms:1800000}") long timeoutMillis) {
+        this.sseExecutor = sseExecutor;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        if (clusterProperties.isEnabled()) {
+            this.topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+            this.topic.addListener(String.class, (channel, msg) -> {
+                try {
+                    deliver(objectMapper.readValue(msg, Event.class));
+                } catch (JsonProcessingException e) {
+                    log.warn("SSE_EVENT_DECODE_FAIL err={}", e.getMessage());
+                }
+            });
+        } else {
+            this.topic = null;
+        }
+    }
+
+    /**
+     * 订阅任务事件：先登记再读取当前状态推给订阅者，登记之后的状态变化不会漏掉；
+     * 当前已是终态时推送后直接关闭
+     *
+     * @param current 读取任务当前状态
+     */
+    public SseEmitter subscribe(String taskId, Supplier<SolveTaskStatusVO> current) {
+        SseEmitter emitter = newEmitter();
+        subscribers.compute(taskId, (k, list) -> {
+            List<SseEmitter> l = list == null ? new CopyOnWriteArrayList<>() : list;
+            l.add(emitter);
+            return l;
+        });
+        Runnable remove = () -> unsubscribe(taskId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        SolveTaskStatusVO status = current.get();
+        if (send(taskId, emitter, EVENT_STATUS, status) && SolveTaskStatus.isTerminal(status.getStatus())) {
+            unsubscribe(taskId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * 搜索进度（求解线程上调用），比已推送的更差的解直接忽略
+     */
+    public void progress(String taskId, long objective, int assignedTaskCount, long elapsedMillis) {
+        // 单机模式没有订阅者时不需要记录
+        if (topic == null && !subscribers.containsKey(taskId))
+            return;
+
+        boolean[] improved = { false };
+        bestObjective.compute(taskId, (k, best) -> {
+            if (best != null && best <= objective)
+                return best;
+            improved[0] = true;
+            return objective;
+        });
+        if (!improved[0])
+            return;
+
+        SolveProgressVO vo = new SolveProgressVO();
+        vo.setTaskId(taskId);
+        vo.setObjective(objective);
+        vo.setAssignedTaskCount(assignedTaskCount);
+        vo.setElapsedMillis(elapsedMillis);
+        publish(new Event(taskId, EVENT_PROGRESS, vo, null));
+    }
+
+    /**
+     * 任务状态变化；终态推送后关闭该任务的全部连接
+     */
+    public void status(SolveTaskStatusVO status) {
+        if (SolveTaskStatus.isTerminal(status.getStatus()))
+            bestObjective.remove(status.getTaskId());
+        publish(new Event(status.getTaskId(), EVENT_STATUS, null, status));
+    }
+
+    private void publish(Event event) {
+        if (topic == null) {
+            deliver(event);
+            return;
+        }
+        try {
+            topic.publishAsync(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.warn("SSE_EVENT_ENCODE_FAIL taskId={}, err={}", event.taskId(), e.getMessage());
+        }
+    }
+
+    private void deliver(Event event) {
+        boolean terminal = event.status() != null && SolveTaskStatus.isTerminal(event.status().getStatus());
+        List<SseEmitter> list = terminal ? subscribers.remove(event.taskId()) : subscribers.get(event.taskId());
+        if (list == null)
+            return;
+
+        Object data = event.progress() != null ? event.progress() : event.status();
+        sseExecutor.execute(() -> {
+            for (SseEmitter emitter : list) {
+                if (send(event.taskId(), emitter, event.name(), data) && terminal)
+                    emitter.complete();
+            }
+        });
+    }
+
+    private boolean send(String taskId, SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或连接已关闭
+            log.debug("SSE_SEND_FAIL taskId={}, event={}, err={}", taskId, name, e.getMessage());
+            unsubscribe(taskId, emitter);
+            return false;
+        }
+    }
+
+    private void unsubscribe(String taskId, SseEmitter emitter) {
+        subscribers.computeIfPresent(taskId, (k, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    /**
+     * 本实例的订阅者数
+     */
+    int subscriberCount(String taskId) {
+        List<SseEmitter> list = subscribers.get(taskId);
+        return list == null ? 0 : list.size();
+    }
+}
@@ -0,0 +1,169 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveOptionsDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 求解结果缓存（内容寻址）：以求解输入的投影（车辆、任务、节点坐标、热启动线路）+ 矩阵提供者 + 求解参数的
+ * SHA-256 为键，输入未变的重复提交（重试、任务结束后的重复点击）直接复用上次的结果，不再求解。
+ * 摘要不含矩阵本身，求解线程不必先构建 O(n²) 的矩阵就能判断是否命中；同一提供者下矩阵由节点坐标决定。
+ * <p>
+ * 键带租户与方案，不同租户/方案的相同输入互不命中；任务、车辆、坐标、提供者任一变化都会改变摘要，
+ * 旧条目自然失效。增量插入会原地修改生效版本的线路，插入后整方案失效。
+ * 只缓存完整求解成功的结果（取消、提前结束、失败不缓存），本实例内有效。
+ */
+@Component
+public class SolveResultCache {
+
+    /**
+     * 缓存的结果与其落库版本；版本仍是方案的生效版本时无需重写
+     */
+    public record Entry(SolveResult result, long version) {
+    }
+
+    private record Key(Long tenantId, Long planId, String digest) {
+    }
+
+    private final boolean enabled;
+    private final Cache<Key, Entry> entries;
+
+    public SolveResultCache(SolveResultCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumRows())
+                .weigher((Key k, Entry e) -> weight(e.result()))
+                .expireAfterWrite(Duration.ofSeconds(properties.getTtlSeconds()))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return 未缓存或已关闭时返回 null
+     */
+    public Entry get(Long tenantId, Long planId, String digest) {
+        return enabled ? entries.getIfPresent(new Key(tenantId, planId, digest)) : null;
+    }
+
+    public void put(Long tenantId, Long planId, String digest, SolveResult result, long version) {
+        if (enabled)
+            entries.put(new Key(tenantId, planId, digest), new Entry(result, version));
+    }
+
+    /**
+     * 方案的线路被求解以外的途径修改（增量插入）后调用
+     */
+    public void invalidatePlan(Long tenantId, Long planId) {
+        entries.asMap().keySet().removeIf(k -> k.tenantId().equals(tenantId) && k.planId().equals(planId));
+    }
+
+    long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private static int weight(SolveResult result) {
+        int rows = 1 + result.getUnassigned().size();
+        for (SolveResult.RouteResult r : result.getRoutes())
+            rows += 1 + r.getStops().size();
+        return rows;
+    }
+
+    /**
+     * 输入摘要：按组装顺序写入车辆、任务、节点坐标、矩阵提供者、热启动线路与全部求解参数，不读取矩阵。
+     * 组装顺序不同只会导致未命中，不会误命中
+     */
+    public static String digest(SolveInput input, SolveOptionsDTO options, String matrixProvider) {
+        Digest d = new Digest();
+        d.put(input.getTenantId()).put(input.getPlanId());
+
+        d.put(input.getVehicles().size());
+        for (VehicleResource v : input.getVehicles())
+            d.put(v.getVehicleId()).put(v.getStartNodeId()).put(v.getEndNodeId()).put(v.getCapacityWeight())
+                    .put(v.getWorkStartSec()).put(v.getWorkEndSec());
+
+        d.put(input.getTasks().size());
+        for (TaskNode t : input.getTasks())
+            d.put(t.getTaskId()).put(t.getNodeId()).put(t.getTwStartSec()).put(t.getTwEndSec())
+                    .put(t.getServiceTimeSec()).put(t.getDemandWeight());
+
+        List<Long> nodes = input.getIndexToNodeId();
+        d.put(nodes.size());
+        for (int i = 0; i < nodes.size(); i++)
+            d.put(nodes.get(i)).put(input.getNodeLat()[i]).put(input.getNodeLng()[i]);
+
+        d.put(matrixProvider);
+
+        Map<Long, List<Long>> initial = input.getInitialRoutes() == null ? Map.of()
+                : new TreeMap<>(input.getInitialRoutes());
+        d.put(initial.size());
+        initial.forEach((vehicleId, tasks) -> {
+            d.put(vehicleId).put(tasks.size());
+            tasks.forEach(d::put);
+        });
+
+        d.put(options.getTimeLimitSeconds()).put(options.isAllowDrop() ? 1 : 0).put(options.getUnassignedPenalty())
+                .put(options.getNeighborCount()).put(options.getDecomposition().name())
+                .put(options.getClusterMaxTasks()).put(options.getPortfolioWorkers())
+                .put(options.isWarmStart() ? 1 : 0);
+        return d.hex();
+    }
+
+    /**
+     * 定长写入的 SHA-256，字段之间不会因拼接产生歧义
+     */
+    private static final class Digest {
+        private final MessageDigest sha;
+        private final ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+
+        Digest() {
+            try {
+                sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        Digest put(long v) {
+            sha.update(buf.clear().putLong(v).array());
+            return this;
+        }
+
+        Digest put(Long v) {
+            return put(v == null ? Long.MIN_VALUE : v);
+        }
+
+        Digest put(double v) {
+            return put(Double.doubleToLongBits(v));
+        }
+
+        Digest put(String v) {
+            byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+            put(bytes.length);
+            sha.update(bytes);
+            return this;
+        }
+
+        String hex() {
+            return HexFormat.of().formatHex(sha.digest());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "dispatch.solver.result-cache")
+public class SolveResultCacheProperties {
+
+    /** 关闭时每次提交都完整求解 */
+    private boolean enabled = true;
+
+    /** 缓存容量，按结果的停靠点 + 未分配行数计重 */
+    private long maximumRows = 1_000_000;
+
+    /** 条目有效期（秒），也限制了路网矩阵数据更新后仍复用旧结果的时间 */
+    private long ttlSeconds = 1800;
+}
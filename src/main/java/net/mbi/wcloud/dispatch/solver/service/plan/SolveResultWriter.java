@@ -0,0 +1,181 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchPlanDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteStopDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchUnassignedDO;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchPlanMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteStopMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchUnassignedMapper;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * 求解结果落库：每次求解写入一个新的解版本，在一个事务里按 batchSize 分批多行 INSERT 写入路线、停靠点与未分配明细，
+ * 最后把方案的 active_version 切到新版本（比较并设置），读取方只读生效版本；旧版本交给 SolutionPurger 在后台清理。
+ * <p>
+ * 路线的自增主键由多行 INSERT 一次回填，停靠点据此关联；各阶段耗时记入 dispatch.solve.persist（tag: phase）。
+ */
+@Slf4j
+@Component
+public class SolveResultWriter {
+
+    private final DispatchRouteMapper routeMapper;
+    private final DispatchRouteStopMapper stopMapper;
+    private final DispatchUnassignedMapper unassignedMapper;
+    private final DispatchPlanMapper planMapper;
+    private final SolutionPurger purger;
+    private final PlanReadCache readCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+
+    public SolveResultWriter(DispatchRouteMapper routeMapper,
+            DispatchRouteStopMapper stopMapper,
+            DispatchUnassignedMapper unassignedMapper,
+            DispatchPlanMapper planMapper,
+            SolutionPurger purger,
+            PlanReadCache readCache,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${dispatch.solver.persist.batch-size:500}") int batchSize) {
+        this.routeMapper = routeMapper;
+        this.stopMapper = stopMapper;
+        this.unassignedMapper = unassignedMapper;
+        this.planMapper = planMapper;
+        this.purger = purger;
+        this.readCache = readCache;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @return 新的生效版本
+     */
+    public long write(Long tenantId, Long planId, SolveResult result) {
+        DispatchPlanDO plan = planMapper.selectOne(new LambdaQueryWrapper<DispatchPlanDO>()
+                .eq(DispatchPlanDO::getId, planId)
+                .eq(DispatchPlanDO::getTenantId, tenantId)
+                .eq(DispatchPlanDO::getDeleted, 0));
+        if (plan == null)
+            throw new IllegalStateException("Plan not found, planId=" + planId);
+        long current = PlanInputs.activeVersion(plan);
+        long version = current + 1;
+
+        long[] phases = new long[4];
+        long start = System.nanoTime();
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            // 1) routes, ids filled back by the multi-row insert
+            long t = System.nanoTime();
+            List<DispatchRouteDO> routes = new ArrayList<>(result.getRoutes().size());
+            for (SolveResult.RouteResult rr : result.getRoutes()) {
+                DispatchRouteDO r = new DispatchRouteDO();
+                r.setTenantId(tenantId);
+                r.setPlanId(planId);
+                r.setVehicleId(rr.getVehicleId());
+                r.setTotalDistanceM(rr.getTotalDistanceM());
+                r.setTotalTimeSec(rr.getTotalTimeSec());
+                r.setSolutionVersion(version);
+                r.setDeleted(0);
+                routes.add(r);
+            }
+            insertInBatches(routes, routeMapper::insertBatch);
+            phases[0] = System.nanoTime() - t;
+
+            // 2) stops
+            t = System.nanoTime();
+            List<DispatchRouteStopDO> stops = new ArrayList<>();
+            for (int i = 0; i < routes.size(); i++) {
+                Long routeId = routes.get(i).getId();
+                if (routeId == null)
+                    throw new IllegalStateException("Route id not generated, vehicle=" + routes.get(i).getVehicleId());
+                for (SolveResult.StopResult sr : result.getRoutes().get(i).getStops()) {
+                    DispatchRouteStopDO s = new DispatchRouteStopDO();
+                    s.setTenantId(tenantId);
+                    s.setPlanId(planId);
+                    s.setRouteId(routeId);
+                    s.setSeq(sr.getSeq());
+                    s.setTaskId(sr.getTaskId());
+                    s.setNodeId(sr.getNodeId());
+                    s.setEtaSec(sr.getEtaSec());
+                    s.setEtdSec(sr.getEtdSec());
+                    s.setServiceTimeSec(sr.getServiceTimeSec());
+                    s.setSolutionVersion(version);
+                    s.setDeleted(0);
+                    stops.add(s);
+                }
+            }
+            insertInBatches(stops, stopMapper::insertBatch);
+            phases[1] = System.nanoTime() - t;
+
+            // 3) unassigned
+            t = System.nanoTime();
+            List<DispatchUnassignedDO> unassigned = new ArrayList<>(result.getUnassigned().size());
+            for (SolveResult.UnassignedResult ur : result.getUnassigned()) {
+                DispatchUnassignedDO u = new DispatchUnassignedDO();
+                u.setTenantId(tenantId);
+                u.setPlanId(planId);
+                u.setTaskId(ur.getTaskId());
+                u.setReasonCode(ur.getReasonCode());
+                u.setDetail(ur.getDetail());
+                u.setSolutionVersion(version);
+                u.setDeleted(0);
+                unassigned.add(u);
+            }
+            insertInBatches(unassigned, unassignedMapper::insertBatch);
+            phases[2] = System.nanoTime() - t;
+
+            // 4) switch the plan to the new version; fails (and rolls back) if someone else switched it meanwhile
+            t = System.nanoTime();
+            if (planMapper.switchActiveVersion(tenantId, planId, current, version) == 0)
+                throw new IllegalStateException("Plan solution version changed concurrently, planId=" + planId);
+            phases[3] = System.nanoTime() - t;
+        });
+        readCache.invalidatePlan(tenantId, planId);
+        purger.schedule(tenantId, planId, version);
+
+        long total = System.nanoTime() - start;
+        record("routes", phases[0]);
+        record("stops", phases[1]);
+        record("unassigned", phases[2]);
+        record("switch", phases[3]);
+        record("total", total);
+
+        log.info("SOLVE_PERSIST tenantId={}, planId={}, version={}, routes={}, unassigned={}, batchSize={}, "
+                + "routesMs={}, stopsMs={}, unassignedMs={}, switchMs={}, totalMs={}", tenantId, planId, version,
+                result.getRoutes().size(), result.getUnassigned().size(), batchSize, millis(phases[0]),
+                millis(phases[1]), millis(phases[2]), millis(phases[3]), millis(total));
+        return version;
+    }
+
+    private <T> void insertInBatches(List<T> rows, ToIntFunction<List<T>> insert) {
+        for (int from = 0; from < rows.size(); from += batchSize)
+            insert.applyAsInt(rows.subList(from, Math.min(rows.size(), from + batchSize)));
+    }
+
+    private void record(String phase, long nanos) {
+        Timer.builder("dispatch.solve.persist")
+                .tag("phase", phase)
+                .description("Solve result persistence time by phase")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,38 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "dispatch.solver.scheduler")
+public class SolveSchedulerProperties {
+
+    /** 本实例同时执行的求解任务数（不宜超过 solveExecutor 核心线程数） */
+    private int maxRunning = 4;
+
+    /** 本实例排队任务数上限，超过后拒绝 */
+    private int queueCapacity = 200;
+
+    /** 单租户同时执行的求解任务数 */
+    private int tenantMaxRunning = 2;
+
+    /**
+     * 单租户排队+执行中任务的预估代价上限（任务数 × 时间上限秒），超过后拒绝；0 表示不限。
+     * 租户没有排队/执行中任务时总是受理，避免单个大方案永远无法提交
+     */
+    private long tenantMaxQueuedCost = 2_000_000;
+
+    /** 公平份额权重：tenantId -> weight，未配置的租户取 defaultWeight */
+    private Map<Long, Integer> tenantWeights = new HashMap<>();
+
+    private int defaultWeight = 1;
+
+    public int weightOf(Long tenantId) {
+        return Math.max(1, tenantWeights.getOrDefault(tenantId, defaultWeight));
+    }
+}
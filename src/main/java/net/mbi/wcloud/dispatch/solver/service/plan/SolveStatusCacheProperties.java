@@ -0,0 +1,26 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "dispatch.solver.status-cache")
+public class SolveStatusCacheProperties {
+
+    /** 关闭时状态查询与幂等检查全部直接查库 */
+    private boolean enabled = true;
+
+    /** 多实例共享：状态写入 Redis；集群模式下总是开启（任务可能在其他节点上结束） */
+    private boolean redis = false;
+
+    /** 本地缓存的任务数上限 */
+    private long maximumSize = 10_000;
+
+    /** 缓存条目有效期（秒）：开启 Redis 时为 Redis 中的过期时间，否则为本地过期时间 */
+    private long ttlSeconds = 3600;
+
+    /** 开启 Redis 时本地只做近端缓存，条目最多保留这么久，其他实例写入的状态变化最多延迟这么久可见 */
+    private long nearTtlMillis = 1000;
+}
@@ -0,0 +1,138 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.mbi.wcloud.dispatch.solver.framework.queue.DistributedJobQueue;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.QueuedSolveDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveControl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 集群模式下的求解工作节点：按本实例空闲名额从 Redis 队列领取任务，交给 SolveDispatcher 执行；
+ * 执行期间定期续租，结束后出队。工作节点宕机时租约过期，任务由任意节点的回收任务重新入队。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SolveWorker {
+
+    private final DistributedJobQueue jobQueue;
+    private final SolveDispatcher solveDispatcher;
+    private final PlanSolveServiceImpl solveService;
+    private final SolveClusterProperties properties;
+    private final ObjectMapper objectMapper;
+
+    /** 本节点已领取、尚未结束的任务：taskId -> 这次领取的租约持有者 */
+    private final Map<String, String> claimed = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${dispatch.solver.cluster.poll-interval-ms:1000}")
+    public void poll() {
+        if (!properties.isEnabled() || !properties.isWorker())
+            return;
+
+        // 其他节点收到的取消/提前结束请求
+        for (String taskId : claimed.keySet()) {
+            String signal = jobQueue.stopSignal(taskId);
+            if (signal != null && solveService.requestStop(taskId, SolveControl.Stop.valueOf(signal)))
+                log.info("SOLVE_WORKER_STOP taskId={}, stop={}", taskId, signal);
+        }
+
+        for (int free = solveDispatcher.freeSlots(); free > 0; free--) {
+            DistributedJobQueue.Claim claim = jobQueue.claim(properties.getWorkerId(), properties.getLeaseMillis());
+            if (claim == null)
+                return;
+            start(claim);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.solver.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        for (Map.Entry<String, String> e : claimed.entrySet()) {
+            String jobId = e.getKey();
+            if (jobQueue.heartbeat(jobId, properties.getWorkerId(), properties.getLeaseMillis()))
+                continue;
+
+            // 领取已被回收（可能已由其他节点重新领取）：停止本地求解并丢弃结果，不再写任何状态
+            claimed.remove(jobId, e.getValue());
+            boolean queued = solveDispatcher.cancel(jobId);
+            if (!queued)
+                solveService.requestStop(jobId, SolveControl.Stop.ABANDON);
+            log.warn("SOLVE_WORKER_LEASE_LOST taskId={}, workerId={}, queued={}", jobId, properties.getWorkerId(),
+                    queued);
+        }
+    }
+
+    /**
+     * 回收失联工作节点的任务；所有节点都可以执行，脚本保证同一任务只被回收一次
+     */
+    @Scheduled(fixedDelayString = "${dispatch.solver.cluster.reap-interval-ms:15000}")
+    public void reap() {
+        if (!properties.isEnabled())
+            return;
+
+        DistributedJobQueue.Reaped reaped = jobQueue.reapExpired(properties.getMaxAttempts());
+        if (reaped.requeued() > 0)
+            log.warn("SOLVE_WORKER_REQUEUE count={}", reaped.requeued());
+        for (String taskId : reaped.dead())
+            solveService.failAbandoned(taskId, "Solve worker lost " + properties.getMaxAttempts() + " times");
+    }
+
+    private void start(DistributedJobQueue.Claim claim) {
+        String workerId = properties.getWorkerId();
+        QueuedSolveDTO queued;
+        try {
+            queued = objectMapper.readValue(claim.payload(), QueuedSolveDTO.class);
+        } catch (Exception e) {
+            log.error("SOLVE_WORKER_BAD_PAYLOAD taskId={}, err={}", claim.jobId(), e.getMessage());
+            jobQueue.complete(claim.jobId(), workerId);
+            solveService.failAbandoned(claim.jobId(), "Bad queued payload");
+            return;
+        }
+
+        SolveRequestDTO req = queued.getRequest();
+        String taskId = claim.jobId();
+        String leaseOwner = PlanSolveServiceImpl.claimOwner(taskId, workerId, claim.attempt());
+        claimed.put(taskId, leaseOwner);
+        SolveDispatcher.Admission admission = solveDispatcher.submit(
+                new SolveDispatcher.Ticket(taskId, req.getTenantId(), req.getPriority(), queued.getCost(),
+                        req.getOptions().getTimeLimitSeconds()),
+                () -> run(req, taskId, leaseOwner));
+
+        if (admission != SolveDispatcher.Admission.ACCEPTED) {
+            // 本地名额被其他任务抢先占用：按原优先级放回，退避一段时间后再由任意节点领取
+            claimed.remove(taskId, leaseOwner);
+            jobQueue.release(taskId, workerId, req.getPriority(), properties.getReleaseBackoffMillis());
+            log.info("SOLVE_WORKER_RELEASE taskId={}, workerId={}, reason={}", taskId, workerId, admission);
+            return;
+        }
+        log.info("SOLVE_WORKER_CLAIM taskId={}, tenantId={}, planId={}, workerId={}, attempt={}",
+                taskId, req.getTenantId(), req.getPlanId(), workerId, claim.attempt());
+    }
+
+    private void run(SolveRequestDTO req, String taskId, String leaseOwner) {
+        String workerId = properties.getWorkerId();
+        // 开始执行前领取已失效：已由其他节点接手
+        if (!leaseOwner.equals(claimed.get(taskId)))
+            return;
+
+        // 之前失联的领取还没停下来：放回队列，等它释放方案租约后再执行
+        boolean retry = false;
+        try {
+            retry = !solveService.runSolve(req, taskId, leaseOwner);
+        } finally {
+            // 执行期间领取已失效时不出队，队列里的任务已属于新的领取
+            if (claimed.remove(taskId, leaseOwner)) {
+                if (retry)
+                    jobQueue.release(taskId, workerId, req.getPriority(), properties.getReleaseBackoffMillis());
+                else
+                    jobQueue.complete(taskId, workerId);
+            }
+        }
+    }
+}
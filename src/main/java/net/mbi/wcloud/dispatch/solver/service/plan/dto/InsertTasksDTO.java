@@ -0,0 +1,32 @@
+package net.mbi.wcloud.dispatch.solver.service.plan.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(name = "InsertTasksDTO", description = "增量插入任务请求参数")
+public class InsertTasksDTO {
+
+    @Schema(description = "租户ID", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull
+    private Long tenantId;
+
+    @Schema(description = "待插入的任务ID列表（须为本方案下 WAITING 状态、尚未排入线路的任务）", example = "[90101]",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty
+    @Size(max = 50)
+    private List<Long> taskIds;
+
+    @Schema(description = "局部修复的近邻站点数（插入后，每个新任务附近的这些已排站点可在相关线路间重定位；0-不修复）",
+            example = "10", minimum = "0", maximum = "100")
+    @Min(0)
+    @Max(100)
+    private int repairNeighbors = 10;
+}
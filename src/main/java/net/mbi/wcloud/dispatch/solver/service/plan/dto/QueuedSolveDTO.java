@@ -0,0 +1,17 @@
+package net.mbi.wcloud.dispatch.solver.service.plan.dto;
+
+import lombok.Data;
+
+/**
+ * 集群队列中的求解任务内容
+ */
+@Data
+public class QueuedSolveDTO {
+
+    private String taskId;
+
+    /** 预估代价：任务数 × 时间上限（秒），工作节点本地调度用 */
+    private long cost;
+
+    private SolveRequestDTO request;
+}
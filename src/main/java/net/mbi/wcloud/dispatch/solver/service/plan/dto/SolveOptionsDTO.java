@@ -4,6 +4,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.Data;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.DecompositionMode;
 
 @Data
 @Schema(name = "SolveOptionsDTO", description = "调度求解参数选项")
@@ -20,4 +21,28 @@ public class SolveOptionsDTO {
     @Schema(description = "未分配任务惩罚值（目标函数权重，值越大越倾向于分配更多任务）", example = "10000", minimum = "0")
     @Min(0)
     private long unassignedPenalty = 10000;
+
+    @Schema(description = "候选弧近邻数 k（0-不过滤，使用完整稠密图；大于 0 时每个任务节点只与最近的 k 个任务节点及车场相连，"
+            + "只计算 O(n·k) 个矩阵单元格，适用于数千站点的大规模求解）", example = "30", minimum = "0", maximum = "500")
+    @Min(0)
+    @Max(500)
+    private int neighborCount = 0;
+
+    @Schema(description = "分解求解模式（NONE-不分解；SWEEP-按车场极角扫描分区；KMEANS-按经纬度聚类分区），"
+            + "分区后并行求解各子问题，再对相邻分区做边界修复并合并结果", example = "NONE")
+    private DecompositionMode decomposition = DecompositionMode.NONE;
+
+    @Schema(description = "分解模式下每个分区的目标任务数", example = "300", minimum = "20")
+    @Min(20)
+    private int clusterMaxTasks = 300;
+
+    @Schema(description = "组合求解的并发搜索数（0/1-单一默认搜索；大于 1 时以不同初始解策略与元启发式并行求解、取最优，"
+            + "实际并发数受本机 CPU 预算限制）", example = "4", minimum = "0", maximum = "32")
+    @Min(0)
+    @Max(32)
+    private int portfolioWorkers = 0;
+
+    @Schema(description = "是否热启动（true-以当前已落库的路线为初始解，新增任务先按最便宜可行位置插入再继续优化；"
+            + "适用于已求解计划追加少量任务后的重新求解）", example = "false")
+    private boolean warmStart = false;
 }
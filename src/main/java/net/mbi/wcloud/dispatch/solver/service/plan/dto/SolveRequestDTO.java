@@ -2,6 +2,8 @@ package net.mbi.wcloud.dispatch.solver.service.plan.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -24,6 +26,12 @@ public class SolveRequestDTO {
     @Schema(description = "指定参与求解的车辆ID列表（为空表示全部车辆参与求解）", example = "[30001,30002]")
     private List<Long> vehicleIds;
 
+    @Schema(description = "调度优先级（0-9，越大越先执行；只在同一租户的排队任务之间比较，租户之间按公平份额轮转）",
+            example = "5", minimum = "0", maximum = "9")
+    @Min(0)
+    @Max(9)
+    private int priority = 5;
+
     @Schema(description = "求解参数选项（时间限制、惩罚系数、策略开关等）", requiredMode = Schema.RequiredMode.REQUIRED)
     @Valid
     @NotNull
@@ -0,0 +1,14 @@
+package net.mbi.wcloud.dispatch.solver.service.plan.model;
+
+/**
+ * 大规模方案的分解求解模式
+ */
+public enum DecompositionMode {
+
+    /** 不分解，整体一个 RoutingModel */
+    NONE,
+    /** 以车场为中心按极角扫描，等任务数切分 */
+    SWEEP,
+    /** 按经纬度 k-means 聚类 */
+    KMEANS
+}
@@ -1,9 +1,224 @@
 package net.mbi.wcloud.dispatch.solver.service.plan.model;
 
-import lombok.Data;
+import lombok.Getter;
 
-@Data
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 距离/时间矩阵：整块单一缓冲区，按行主序存放，每个单元格依次为 距离、时间，下标与 SolveInput.indexToNodeId 对齐。
+ * <p>
+ * 缓冲区可放在堆内或堆外（direct ByteBuffer），堆外时大矩阵不再参与 GC 扫描与拷贝；
+ * 精度 INT 为 int 米 / int 秒，SHORT 为 16 位无符号量化（距离单位 10 米，时间单位 1 秒），超出范围按上限截断。
+ * <p>
+ * 稀疏模式（k 近邻候选弧）下只存放每行登记的列，行内列下标升序、按二分查找定位，
+ * 未登记的单元格读出 UNREACHABLE，占用 O(n·k) 而非 O(n²)。
+ */
 public class MatrixData {
-    private long[][] distMeter;
-    private long[][] timeSec;
+
+    public enum Precision {
+        /** 4 + 4 字节 / 单元格 */
+        INT(8),
+        /** 2 + 2 字节 / 单元格，距离最大约 655 公里，时间最大约 18 小时 */
+        SHORT(4);
+
+        private final int cellBytes;
+
+        Precision(int cellBytes) {
+            this.cellBytes = cellBytes;
+        }
+
+        public int cellBytes() {
+            return cellBytes;
+        }
+    }
+
+    /** SHORT 精度下距离的量化单位（米） */
+    public static final int SHORT_DIST_UNIT_METER = 10;
+
+    /** 稀疏模式下未登记单元格的距离/时间 */
+    public static final int UNREACHABLE = 1_000_000_000;
+
+    private static final int SHORT_MAX = 0xFFFF;
+
+    @Getter
+    private final int size;
+    @Getter
+    private final Precision precision;
+    @Getter
+    private final boolean offHeap;
+
+    private final ByteBuffer buf;
+    private final int rowBytes;
+    private final int cellBytes;
+
+    /** 稀疏模式：行 i 的列为 colIdx[rowStart[i] .. rowStart[i+1])，稠密模式为 null */
+    private final int[] rowStart;
+    private final int[] colIdx;
+
+    private MatrixData(int size, Precision precision, boolean offHeap, int[] rowStart, int[] colIdx) {
+        long cells = rowStart == null ? (long) size * size : colIdx.length;
+        long total = cells * precision.cellBytes();
+        if (total > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Matrix too large: size=" + size + ", precision=" + precision);
+
+        this.size = size;
+        this.precision = precision;
+        this.offHeap = offHeap;
+        this.cellBytes = precision.cellBytes();
+        this.rowBytes = size * cellBytes;
+        this.rowStart = rowStart;
+        this.colIdx = colIdx;
+        this.buf = (offHeap ? ByteBuffer.allocateDirect((int) total) : ByteBuffer.allocate((int) total))
+                .order(ByteOrder.nativeOrder());
+    }
+
+    public static MatrixData allocate(int size) {
+        return new MatrixData(size, Precision.INT, false, null, null);
+    }
+
+    public static MatrixData allocate(int size, Precision precision, boolean offHeap) {
+        return new MatrixData(size, precision, offHeap, null, null);
+    }
+
+    /**
+     * 稀疏矩阵，columns[i] 为第 i 行需要存放的列下标（升序、无重复）
+     */
+    public static MatrixData allocateSparse(int[][] columns, Precision precision, boolean offHeap) {
+        int size = columns.length;
+        int[] rowStart = new int[size + 1];
+        for (int i = 0; i < size; i++)
+            rowStart[i + 1] = Math.addExact(rowStart[i], columns[i].length);
+
+        int[] colIdx = new int[rowStart[size]];
+        for (int i = 0; i < size; i++)
+            System.arraycopy(columns[i], 0, colIdx, rowStart[i], columns[i].length);
+
+        return new MatrixData(size, precision, offHeap, rowStart, colIdx);
+    }
+
+    public boolean isSparse() {
+        return rowStart != null;
+    }
+
+    /**
+     * 第 row 行存放的列下标（升序），稠密模式为全部列
+     */
+    public int[] columns(int row) {
+        if (rowStart == null) {
+            int[] all = new int[size];
+            for (int j = 0; j < size; j++)
+                all[j] = j;
+            return all;
+        }
+        return Arrays.copyOfRange(colIdx, rowStart[row], rowStart[row + 1]);
+    }
+
+    /**
+     * 取 nodes 对应的子矩阵（子矩阵下标 i 对应原下标 nodes[i]），精度、堆内外与稀疏模式保持不变
+     */
+    public MatrixData subMatrix(int[] nodes) {
+        int m = nodes.length;
+        if (rowStart == null) {
+            MatrixData out = new MatrixData(m, precision, offHeap, null, null);
+            for (int i = 0; i < m; i++) {
+                int src = nodes[i] * rowBytes;
+                int dst = i * out.rowBytes;
+                for (int j = 0; j < m; j++)
+                    out.buf.put(dst + j * cellBytes, buf, src + nodes[j] * cellBytes, cellBytes);
+            }
+            return out;
+        }
+
+        int[] localOf = new int[size];
+        Arrays.fill(localOf, -1);
+        for (int i = 0; i < m; i++)
+            localOf[nodes[i]] = i;
+
+        int[][] columns = new int[m][];
+        for (int i = 0; i < m; i++) {
+            int from = rowStart[nodes[i]];
+            int to = rowStart[nodes[i] + 1];
+            int[] cols = new int[to - from];
+            int c = 0;
+            for (int k = from; k < to; k++) {
+                if (localOf[colIdx[k]] >= 0)
+                    cols[c++] = localOf[colIdx[k]];
+            }
+            columns[i] = Arrays.copyOf(cols, c);
+            Arrays.sort(columns[i]);
+        }
+
+        MatrixData out = allocateSparse(columns, precision, offHeap);
+        for (int i = 0; i < m; i++) {
+            for (int j : columns[i]) {
+                int src = offset(nodes[i], nodes[j]);
+                out.buf.put(out.offset(i, j), buf, src, cellBytes);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 存放的单元格数
+     */
+    public long cellCount() {
+        return rowStart == null ? (long) size * size : colIdx.length;
+    }
+
+    public int dist(int from, int to) {
+        int off = offset(from, to);
+        if (off < 0)
+            return UNREACHABLE;
+        if (precision == Precision.INT)
+            return buf.getInt(off);
+        return (buf.getShort(off) & SHORT_MAX) * SHORT_DIST_UNIT_METER;
+    }
+
+    public int time(int from, int to) {
+        int off = offset(from, to);
+        if (off < 0)
+            return UNREACHABLE;
+        if (precision == Precision.INT)
+            return buf.getInt(off + 4);
+        return buf.getShort(off + 2) & SHORT_MAX;
+    }
+
+    /**
+     * 写入一个单元格，超出当前精度范围的值按上限截断
+     */
+    public void set(int from, int to, long distMeter, long timeSec) {
+        int off = offset(from, to);
+        if (off < 0)
+            throw new IllegalArgumentException("Cell not in sparse matrix: " + from + " -> " + to);
+        if (precision == Precision.INT) {
+            buf.putInt(off, saturate(distMeter, Integer.MAX_VALUE));
+            buf.putInt(off + 4, saturate(timeSec, Integer.MAX_VALUE));
+        } else {
+            long dist = (distMeter + SHORT_DIST_UNIT_METER / 2) / SHORT_DIST_UNIT_METER;
+            buf.putShort(off, (short) saturate(dist, SHORT_MAX));
+            buf.putShort(off + 2, (short) saturate(timeSec, SHORT_MAX));
+        }
+    }
+
+    /**
+     * 矩阵占用的字节数（堆内或堆外，稀疏模式含行列索引）
+     */
+    public long bytes() {
+        if (rowStart == null)
+            return buf.capacity();
+        return buf.capacity() + 4L * (rowStart.length + colIdx.length);
+    }
+
+    private int offset(int from, int to) {
+        if (rowStart == null)
+            return from * rowBytes + to * cellBytes;
+        int k = Arrays.binarySearch(colIdx, rowStart[from], rowStart[from + 1], to);
+        return k < 0 ? -1 : k * cellBytes;
+    }
+
+    private static int saturate(long v, int max) {
+        return v > max ? max : (int) Math.max(v, 0);
+    }
 }
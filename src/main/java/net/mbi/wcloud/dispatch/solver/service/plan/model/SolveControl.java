@@ -0,0 +1,63 @@
+package net.mbi.wcloud.dispatch.solver.service.plan.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 求解过程的外部控制：取消，或提前结束并采用当前最优解。
+ * <p>
+ * 正在运行的搜索登记自己的中断动作（RoutingModel.CancelSearch），收到请求时立即中断；
+ * 请求之后才开始的搜索登记失败，直接跳过。
+ */
+public final class SolveControl {
+
+    public enum Stop {
+        NONE,
+        /** 取消：丢弃结果 */
+        CANCEL,
+        /** 提前结束：采用已找到的最优解 */
+        ACCEPT_BEST,
+        /** 放弃：集群领取或方案租约已失去，执行权已在别处，丢弃结果，也不再写任何状态 */
+        ABANDON
+    }
+
+    private Stop stop = Stop.NONE;
+    private final List<Runnable> searches = new ArrayList<>();
+
+    /**
+     * @return 已经请求过停止时返回 false，以第一次请求为准；ABANDON 可以覆盖之前的取消/提前结束
+     */
+    public synchronized boolean request(Stop s) {
+        if (s == Stop.NONE || stop == Stop.ABANDON || (stop != Stop.NONE && s != Stop.ABANDON))
+            return false;
+        stop = s;
+        for (Runnable cancel : searches)
+            cancel.run();
+        return true;
+    }
+
+    public synchronized Stop stop() {
+        return stop;
+    }
+
+    public synchronized boolean stopRequested() {
+        return stop != Stop.NONE;
+    }
+
+    /**
+     * 登记正在运行的搜索的中断动作；已请求停止时不登记并返回 false
+     */
+    public synchronized boolean register(Runnable cancel) {
+        if (stop != Stop.NONE)
+            return false;
+        searches.add(cancel);
+        return true;
+    }
+
+    /**
+     * 搜索结束后注销，之后不会再被调用（模型的 native 对象可以安全释放）
+     */
+    public synchronized void unregister(Runnable cancel) {
+        searches.remove(cancel);
+    }
+}
@@ -20,5 +20,18 @@ public class SolveInput {
     private List<Long> indexToNodeId;
     private Map<Long, Integer> nodeIdToIndex;
 
+    /** 节点坐标（按节点下标对齐，缺失为 NaN） */
+    private double[] nodeLat;
+    private double[] nodeLng;
+
     private MatrixData matrix;
+
+    /** 热启动：上一次落库的路线，车辆ID -> 按站序排列的任务ID；为空表示从零求解 */
+    private Map<Long, List<Long>> initialRoutes;
+
+    /** 取消/提前结束控制；为空表示不可中断 */
+    private SolveControl control;
+
+    /** 搜索进度回调（在求解线程上调用）；为空表示不上报。分解求解的子问题不上报，各自的目标值无法直接比较 */
+    private SolveProgressListener progressListener;
 }
@@ -0,0 +1,15 @@
+package net.mbi.wcloud.dispatch.solver.service.plan.model;
+
+/**
+ * 搜索进度回调：搜索每找到一个新解（节流后）调用一次，运行在求解线程上，实现方不能阻塞
+ */
+@FunctionalInterface
+public interface SolveProgressListener {
+
+    /**
+     * @param objective         当前解的目标值（越小越好）
+     * @param assignedTaskCount 当前解已分配的任务数
+     * @param elapsedMillis     自搜索开始的耗时
+     */
+    void onProgress(long objective, int assignedTaskCount, long elapsedMillis);
+}
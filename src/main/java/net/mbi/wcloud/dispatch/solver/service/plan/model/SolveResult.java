@@ -16,17 +16,31 @@ public class SolveResult {
     private List<RouteResult> routes = new ArrayList<>();
     private List<UnassignedResult> unassigned = new ArrayList<>();
 
+    /** 分解求解时每个分区的求解情况，非分解模式为空 */
+    private List<ClusterResult> clusters = new ArrayList<>();
+
     @Data
     public static class KPI {
         private int assignedTaskCount;
         private int unassignedTaskCount;
         private long solveMillis;
+        private long totalDistanceM;
+        /** 求解器目标值（距离 + 丢弃惩罚） */
+        private long objective;
+        /** 产出该解的搜索配置 */
+        private String strategy;
+        /** 分解求解的边界修复耗时 */
+        private long repairMillis;
     }
 
     @Data
     public static class RouteResult {
         private Long vehicleId;
         private long totalDistanceM;
+        /** 求解器目标值（距离 + 丢弃惩罚） */
+        private long objective;
+        /** 产出该解的搜索配置 */
+        private String strategy;
         private long totalTimeSec;
         private List<StopResult> stops = new ArrayList<>();
     }
@@ -47,4 +61,14 @@ public class SolveResult {
         private String reasonCode;
         private String detail;
     }
+
+    @Data
+    public static class ClusterResult {
+        private int cluster;
+        private int taskCount;
+        private int vehicleCount;
+        private String status;
+        private int assignedTaskCount;
+        private long solveMillis;
+    }
 }
@@ -8,7 +8,11 @@ public enum SolveTaskStatus {
     ACCEPTED("ACCEPTED"),
     RUNNING("RUNNING"),
     SOLVED("SOLVED"),
-    FAILED("FAILED");
+    FAILED("FAILED"),
+    /** 求解线程池与队列已满，未受理 */
+    REJECTED("REJECTED"),
+    /** 按请求取消（排队中直接移除，执行中中断搜索并丢弃结果） */
+    CANCELLED("CANCELLED");
 
     private final String code;
 
@@ -19,4 +23,12 @@ public enum SolveTaskStatus {
     public String code() {
         return code;
     }
+
+    /**
+     * 是否为终态（之后状态不再变化）
+     */
+    public static boolean isTerminal(String code) {
+        return SOLVED.code.equals(code) || FAILED.code.equals(code) || REJECTED.code.equals(code)
+                || CANCELLED.code.equals(code);
+    }
 }
@@ -49,6 +49,12 @@ WHERE
     tenant_id = 1
     AND id IN (1, 2);
 
+DELETE FROM
+    dispatch_node
+WHERE
+    tenant_id = 1
+    AND id IN (100, 101);
+
 -- ---------------------------------------------------------
 -- 1) 插入方案：dispatch_plan
 -- ---------------------------------------------------------
@@ -193,8 +199,8 @@ VALUES
         1,
         'TASK-001',
         201,
-        NULL,
-        NULL,
+        31.2304,
+        121.4737,
         0,
         86400,
         300,
@@ -214,8 +220,8 @@ VALUES
         1,
         'TASK-002',
         202,
-        NULL,
-        NULL,
+        31.2231,
+        121.4802,
         0,
         86400,
         300,
@@ -235,8 +241,8 @@ VALUES
         1,
         'TASK-003',
         203,
-        NULL,
-        NULL,
+        31.2397,
+        121.4998,
         0,
         86400,
         300,
@@ -256,8 +262,8 @@ VALUES
         1,
         'TASK-004',
         204,
-        NULL,
-        NULL,
+        31.2155,
+        121.4551,
         0,
         86400,
         300,
@@ -277,8 +283,8 @@ VALUES
         1,
         'TASK-005',
         205,
-        NULL,
-        NULL,
+        31.2452,
+        121.4612,
         0,
         86400,
         300,
@@ -298,8 +304,8 @@ VALUES
         1,
         'TASK-006',
         206,
-        NULL,
-        NULL,
+        31.2089,
+        121.4921,
         0,
         86400,
         300,
@@ -320,8 +326,8 @@ VALUES
         1,
         'TASK-OVERLOAD',
         207,
-        NULL,
-        NULL,
+        31.2362,
+        121.4423,
         0,
         86400,
         300,
@@ -336,5 +342,51 @@ VALUES
         0
     );
 
+-- ---------------------------------------------------------
+-- 4) 插入节点：dispatch_node
+--    车场节点坐标（任务节点坐标直接取 dispatch_task.lat/lng）
+-- ---------------------------------------------------------
+INSERT INTO
+    dispatch_node (
+        id,
+        tenant_id,
+        node_code,
+        node_type,
+        lat,
+        lng,
+        creator,
+        create_time,
+        updater,
+        update_time,
+        deleted
+    )
+VALUES
+    (
+        100,
+        1,
+        'DEPOT-100',
+        'DEPOT',
+        31.2286,
+        121.4660,
+        'admin',
+        NOW(),
+        'admin',
+        NOW(),
+        0
+    ),
+    (
+        101,
+        1,
+        'DEPOT-101',
+        'DEPOT',
+        31.2201,
+        121.4880,
+        'admin',
+        NOW(),
+        'admin',
+        NOW(),
+        0
+    );
+
 SET
     FOREIGN_KEY_CHECKS = 1;
\ No newline at end of file
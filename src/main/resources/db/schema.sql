@@ -31,6 +31,7 @@ CREATE TABLE dispatch_plan (
     assigned_count INT NULL COMMENT '已分配任务数',
     unassigned_count INT NULL COMMENT '未分配任务数',
     solve_millis BIGINT NULL COMMENT '求解耗时（毫秒）',
+    active_version BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '当前生效的解版本（路线/停靠点/未分配按此版本读取）',
     creator VARCHAR(64) NULL COMMENT '创建者',
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updater VARCHAR(64) NULL COMMENT '更新者',
@@ -115,14 +116,14 @@ CREATE TABLE dispatch_route (
     driver_id BIGINT UNSIGNED NULL COMMENT '司机ID（可选）',
     total_distance_m BIGINT NULL COMMENT '该路线总距离（米）',
     total_time_sec BIGINT NULL COMMENT '该路线总时间（秒）',
+    solution_version BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '解版本',
     creator VARCHAR(64) NULL COMMENT '创建者',
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updater VARCHAR(64) NULL COMMENT '更新者',
     update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     deleted TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
     PRIMARY KEY (id),
-    KEY idx_tenant_plan (tenant_id, plan_id),
-    KEY idx_tenant_plan_vehicle (tenant_id, plan_id, vehicle_id)
+    KEY idx_tenant_plan_version (tenant_id, plan_id, solution_version, vehicle_id)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '调度路线';
 
 -- =========================================================
@@ -141,13 +142,14 @@ CREATE TABLE dispatch_route_stop (
     eta_sec BIGINT NULL COMMENT '预计到达（秒）',
     etd_sec BIGINT NULL COMMENT '预计离开（秒）',
     service_time_sec INT NULL COMMENT '服务时长（秒）',
+    solution_version BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '解版本',
     creator VARCHAR(64) NULL COMMENT '创建者',
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updater VARCHAR(64) NULL COMMENT '更新者',
     update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     deleted TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
     PRIMARY KEY (id),
-    KEY idx_tenant_plan_route (tenant_id, plan_id, route_id),
+    KEY idx_tenant_plan_version_route (tenant_id, plan_id, solution_version, route_id, seq),
     KEY idx_tenant_plan_task (tenant_id, plan_id, task_id),
     KEY idx_route_seq (route_id, seq)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '路线停靠点';
@@ -164,13 +166,14 @@ CREATE TABLE dispatch_unassigned (
     task_id BIGINT UNSIGNED NOT NULL COMMENT '任务ID',
     reason_code VARCHAR(64) NULL COMMENT '原因码：NO_SOLUTION/DROPPED/...',
     detail VARCHAR(255) NULL COMMENT '原因详情',
+    solution_version BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '解版本',
     creator VARCHAR(64) NULL COMMENT '创建者',
     create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updater VARCHAR(64) NULL COMMENT '更新者',
     update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     deleted TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
     PRIMARY KEY (id),
-    KEY idx_tenant_plan (tenant_id, plan_id),
+    KEY idx_tenant_plan_version (tenant_id, plan_id, solution_version),
     KEY idx_tenant_plan_task (tenant_id, plan_id, task_id)
 ) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '未分配任务';
 
@@ -195,5 +198,48 @@ CREATE TABLE dispatch_solve_job (
 
 CREATE INDEX idx_tenant_plan_status_update ON dispatch_solve_job(tenant_id, plan_id, status, deleted, update_time);
 
+-- =========================================================
+-- 8) 节点表：dispatch_node（车场/网点等非任务节点坐标）
+-- =========================================================
+DROP TABLE IF EXISTS dispatch_node;
+
+CREATE TABLE dispatch_node (
+    id BIGINT UNSIGNED NOT NULL COMMENT '节点ID（与 dispatch_vehicle.start_node_id / dispatch_task.node_id 同一编号空间）',
+    tenant_id BIGINT UNSIGNED NOT NULL COMMENT '租户编号',
+    node_code VARCHAR(64) NOT NULL COMMENT '节点编码',
+    node_type VARCHAR(32) NOT NULL DEFAULT 'DEPOT' COMMENT '节点类型：DEPOT/CUSTOMER/...',
+    lat DOUBLE NULL COMMENT '纬度',
+    lng DOUBLE NULL COMMENT '经度',
+    creator VARCHAR(64) NULL COMMENT '创建者',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updater VARCHAR(64) NULL COMMENT '更新者',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_tenant_node_code (tenant_id, node_code),
+    KEY idx_tenant_type (tenant_id, node_type)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '节点';
+
+-- =========================================================
+-- 9) 节点距离表：dispatch_node_distance（预计算的点对距离/时间，供 table 矩阵提供者使用）
+-- =========================================================
+DROP TABLE IF EXISTS dispatch_node_distance;
+
+CREATE TABLE dispatch_node_distance (
+    id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT '主键',
+    tenant_id BIGINT UNSIGNED NOT NULL COMMENT '租户编号',
+    from_node_id BIGINT UNSIGNED NOT NULL COMMENT '起点节点ID',
+    to_node_id BIGINT UNSIGNED NOT NULL COMMENT '终点节点ID',
+    distance_m BIGINT NOT NULL COMMENT '距离（米）',
+    time_sec BIGINT NOT NULL COMMENT '行驶时间（秒）',
+    creator VARCHAR(64) NULL COMMENT '创建者',
+    create_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updater VARCHAR(64) NULL COMMENT '更新者',
+    update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '是否删除：0-未删除，1-已删除',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_tenant_from_to (tenant_id, from_node_id, to_node_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '节点距离';
+
 SET
     FOREIGN_KEY_CHECKS = 1;
\ No newline at end of file
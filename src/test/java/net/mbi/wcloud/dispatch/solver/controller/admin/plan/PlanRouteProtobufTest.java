@@ -0,0 +1,135 @@
+package net.mbi.wcloud.dispatch.solver.controller.admin.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanRouteVO;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchSolveJobMapper;
+import net.mbi.wcloud.dispatch.solver.framework.queue.DistributedJobQueue;
+import net.mbi.wcloud.dispatch.solver.framework.web.CommonResultResponseBodyAdvice;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanInsertService;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanQueryService;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanReadCache;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanRouteExporter;
+import net.mbi.wcloud.dispatch.solver.service.plan.PlanSolveService;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveClusterProperties;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveDispatcher;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveJobStatusCache;
+import net.mbi.wcloud.dispatch.solver.service.plan.SolveProgressHub;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 单测目标：
+ * 1) 编码结果是合法的 protobuf：按 plan_route.proto 的字段编号可逐层解出，null 字段不写
+ * 2) 同样的线路，protobuf 体积远小于 JSON
+ * 3) 同一路径按 Accept 协商：x-protobuf 返回二进制且不被 CommonResult 包装，ETag 与 JSON 不同；
+ *    If-None-Match 命中返回 304；方案不存在返回 404
+ */
+class PlanRouteProtobufTest {
+
+    private final PlanQueryService planQueryService = mock(PlanQueryService.class);
+
+    private final MockMvc mvc = MockMvcBuilders
+            .standaloneSetup(new PlanController(mock(PlanSolveService.class), planQueryService,
+                    mock(PlanInsertService.class), mock(DispatchSolveJobMapper.class), mock(SolveDispatcher.class),
+                    mock(SolveProgressHub.class), mock(SolveJobStatusCache.class), new SolveClusterProperties(),
+                    mock(DistributedJobQueue.class), mock(PlanRouteExporter.class)))
+            .setControllerAdvice(new CommonResultResponseBodyAdvice())
+            .build();
+
+    @Test
+    void encode_shouldFollowProtoFieldNumbers() throws Exception {
+        byte[] bytes = PlanRouteProtobuf.encode(List.of(route(30001L, 2)));
+
+        UnknownFieldSet list = UnknownFieldSet.parseFrom(bytes);
+        List<ByteString> routes = list.getField(1).getLengthDelimitedList();
+        assertEquals(1, routes.size());
+
+        UnknownFieldSet route = UnknownFieldSet.parseFrom(routes.get(0));
+        assertEquals(List.of(20001L), route.getField(1).getVarintList());
+        assertEquals(List.of(10001L), route.getField(2).getVarintList());
+        assertEquals(List.of(30001L), route.getField(3).getVarintList());
+        assertEquals(List.of(15230L), route.getField(4).getVarintList());
+        assertFalse(route.hasField(5));
+        assertEquals(2, route.getField(6).getLengthDelimitedList().size());
+
+        UnknownFieldSet stop = UnknownFieldSet.parseFrom(route.getField(6).getLengthDelimitedList().get(1));
+        assertEquals(List.of(2L), stop.getField(2).getVarintList());
+        assertEquals(List.of(90002L), stop.getField(3).getVarintList());
+        assertEquals(List.of(2700L), stop.getField(6).getVarintList());
+        assertFalse(stop.hasField(7));
+
+        assertEquals(0, PlanRouteProtobuf.encode(List.of()).length);
+    }
+
+    @Test
+    void encode_shouldBeMuchSmallerThanJson() throws Exception {
+        List<PlanRouteVO.Route> routes = new ArrayList<>();
+        for (long v = 0; v < 50; v++)
+            routes.add(route(30000L + v, 40));
+
+        int json = new ObjectMapper().writeValueAsBytes(routes).length;
+        int proto = PlanRouteProtobuf.encode(routes).length;
+        assertTrue(proto * 4 < json, "proto=" + proto + ", json=" + json);
+    }
+
+    @Test
+    void getRoutes_shouldNegotiateProtobuf_withoutWrapping() throws Exception {
+        List<PlanRouteVO.Route> routes = List.of(route(30001L, 2));
+        when(planQueryService.readRoutes(1L, 10001L)).thenReturn(new PlanReadCache.Entry<>(routes, "\"abc\""));
+
+        MvcResult res = mvc.perform(get("/plans/10001/routes").param("tenantId", "1")
+                .accept(PlanRouteProtobuf.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PlanRouteProtobuf.MEDIA_TYPE))
+                .andExpect(header().string("ETag", "\"abc-pb\""))
+                .andReturn();
+        assertArrayEquals(PlanRouteProtobuf.encode(routes), res.getResponse().getContentAsByteArray());
+
+        mvc.perform(get("/plans/10001/routes").param("tenantId", "1")
+                .accept(PlanRouteProtobuf.MEDIA_TYPE).header("If-None-Match", "\"abc-pb\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc-pb\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().bytes(new byte[0]));
+
+        mvc.perform(get("/plans/10001/routes").param("tenantId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(jsonPath("$.data[0].vehicleId").value(30001));
+
+        mvc.perform(get("/plans/404/routes").param("tenantId", "1").accept(PlanRouteProtobuf.MEDIA_TYPE))
+                .andExpect(status().isNotFound());
+    }
+
+    private static PlanRouteVO.Route route(Long vehicleId, int stops) {
+        PlanRouteVO.Route r = new PlanRouteVO.Route();
+        r.setId(20001L);
+        r.setPlanId(10001L);
+        r.setVehicleId(vehicleId);
+        r.setTotalDistanceM(15230L);
+        for (int i = 1; i <= stops; i++) {
+            PlanRouteVO.Stop s = new PlanRouteVO.Stop();
+            s.setId(50000L + i);
+            s.setSeq(i);
+            s.setTaskId(90000L + i);
+            s.setNodeId(80000L + i);
+            s.setEtaSec(1200L * i);
+            s.setEtdSec(1200L * i + 300);
+            r.getStops().add(s);
+        }
+        return r;
+    }
+}
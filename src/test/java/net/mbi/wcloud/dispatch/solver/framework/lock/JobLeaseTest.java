@@ -0,0 +1,149 @@
+package net.mbi.wcloud.dispatch.solver.framework.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：
+ * 1) 租约属于 owner：其他 owner 获取失败，其他线程可以释放
+ * 2) 看门狗持续续租，租约在别处释放或被他人接管后停止续租
+ * 3) 提交时的租约交接给执行者（排队期间过期时重新获取），不能接管其他执行者持有的租约
+ * 4) 续租出错（Redis 抖动）时继续续租；确定被他人持有后停止续租并通知执行者
+ */
+class JobLeaseTest {
+
+    private final FakeLock lock = new FakeLock();
+    private final JobLease lease = new JobLease(lock, 30_000);
+
+    @Test
+    void acquire_shouldBeOwnedByJob_andReleasableFromAnyThread() throws Exception {
+        assertTrue(lease.acquire("solve:1:1", "task-a"));
+        assertFalse(lease.acquire("solve:1:1", "task-b"));
+
+        CompletableFuture.runAsync(() -> lease.release("solve:1:1", "task-a")).get();
+
+        assertNull(lock.owners.get("solve:1:1"));
+        assertTrue(lease.acquire("solve:1:1", "task-b"));
+    }
+
+    @Test
+    void renew_shouldKeepLease_untilReleasedElsewhere() {
+        lease.acquire("solve:1:1", "task-a");
+
+        lease.renew();
+        lease.renew();
+        assertEquals(2, lock.renewals);
+
+        // 另一节点上的执行者释放租约：本实例续租失败后不再续租
+        lock.releaseLease("solve:1:1", "task-a");
+        lease.renew();
+        lease.renew();
+        assertEquals(3, lock.renewals);
+    }
+
+    @Test
+    void adopt_shouldReacquireExpiredLease_butNotTakeOverOthers() {
+        // 排队期间租约过期
+        assertTrue(lease.adopt("solve:1:1", "task-a", "task-a", null));
+        assertEquals("task-a", lock.owners.get("solve:1:1"));
+
+        assertFalse(lease.adopt("solve:1:1", "task-b", "task-b", null));
+        assertEquals("task-a", lock.owners.get("solve:1:1"));
+    }
+
+    @Test
+    void adopt_shouldHandOverFromSubmitter_butNotFromPreviousClaim() {
+        lease.acquire("solve:1:1", "task-a");
+        assertTrue(lease.adopt("solve:1:1", "task-a", "task-a#w1#1", null));
+        assertEquals("task-a#w1#1", lease.owner("solve:1:1"));
+
+        // 第一次领取失联但还在续租：第二次领取不能接手
+        assertFalse(lease.adopt("solve:1:1", "task-a", "task-a#w2#2", null));
+
+        // 续租的是领取者，不再是提交者
+        lease.renew();
+        assertEquals("task-a#w1#1", lock.owners.get("solve:1:1"));
+        lease.release("solve:1:1", "task-a#w1#1");
+        assertTrue(lease.adopt("solve:1:1", "task-a", "task-a#w2#2", null));
+    }
+
+    @Test
+    void renew_shouldRetryOnError_andNotifyOnlyOnDefiniteLoss() {
+        AtomicInteger lost = new AtomicInteger();
+        lease.acquire("solve:1:1", "task-a");
+        lease.adopt("solve:1:1", "task-a", "task-a#w1#1", lost::incrementAndGet);
+
+        lock.failing = true;
+        lease.renew();
+        lease.renew();
+        lock.failing = false;
+        lease.renew();
+        assertEquals(0, lost.get());
+        assertEquals(3, lock.renewals);
+
+        // 租约过期后被其他求解获取
+        lock.owners.put("solve:1:1", "task-b");
+        lease.renew();
+        lease.renew();
+        assertEquals(1, lost.get());
+        assertEquals(4, lock.renewals);
+    }
+
+    /**
+     * 只记录 key -> owner，语义与 Redis 脚本一致（不模拟过期）
+     */
+    private static class FakeLock implements DistributedLock {
+        final Map<String, String> owners = new HashMap<>();
+        int renewals;
+        boolean failing;
+
+        @Override
+        public boolean tryLock(String key, int ttlSeconds) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unlock(String key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized boolean tryLease(String key, String owner, long leaseMillis) {
+            owners.putIfAbsent(key, owner);
+            return owner.equals(owners.get(key));
+        }
+
+        @Override
+        public synchronized boolean renewLease(String key, String owner, long leaseMillis) {
+            renewals++;
+            if (failing)
+                throw new IllegalStateException("redis unavailable");
+            return owner.equals(owners.get(key));
+        }
+
+        @Override
+        public synchronized boolean handoverLease(String key, String fromOwner, String toOwner, long leaseMillis) {
+            String cur = owners.get(key);
+            if (cur != null && !cur.equals(fromOwner) && !cur.equals(toOwner))
+                return false;
+            owners.put(key, toOwner);
+            return true;
+        }
+
+        @Override
+        public synchronized String leaseOwner(String key) {
+            return owners.get(key);
+        }
+
+        @Override
+        public synchronized void releaseLease(String key, String owner) {
+            owners.remove(key, owner);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package net.mbi.wcloud.dispatch.solver.framework.queue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 单测用的本地替身：与 RedissonDistributedJobQueue 的 Lua 脚本语义一致（排序、租约、回收），时钟可注入
+ */
+public class InMemoryDistributedJobQueue implements DistributedJobQueue {
+
+    private final LongSupplier clock;
+    private long seq;
+
+    /** score -> jobId，score 相同时按入队顺序 */
+    private final TreeMap<long[], String> pending = new TreeMap<>(
+            (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    private final Map<String, String> payload = new HashMap<>();
+    private final Map<String, Long> inflight = new HashMap<>();
+    private final Map<String, String> owner = new HashMap<>();
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final Map<String, String> stop = new HashMap<>();
+    private final Map<String, Long> notBefore = new HashMap<>();
+
+    public InMemoryDistributedJobQueue(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized boolean offer(String jobId, String body, int priority, int capacity) {
+        if (payload.containsKey(jobId))
+            return true;
+        if (capacity > 0 && pending.size() >= capacity)
+            return false;
+        payload.put(jobId, body);
+        pending.put(new long[] { (9L - priority) * 10_000_000_000_000L + clock.getAsLong(), seq++ }, jobId);
+        return true;
+    }
+
+    @Override
+    public synchronized Claim claim(String workerId, long leaseMillis) {
+        long now = clock.getAsLong();
+        Map.Entry<long[], String> head = null;
+        int scanned = 0;
+        for (Map.Entry<long[], String> e : pending.entrySet()) {
+            if (scanned++ == 32)
+                break;
+            if (notBefore.getOrDefault(e.getValue(), 0L) <= now) {
+                head = e;
+                break;
+            }
+        }
+        if (head == null)
+            return null;
+        String id = head.getValue();
+        pending.remove(head.getKey());
+        notBefore.remove(id);
+        inflight.put(id, clock.getAsLong() + leaseMillis);
+        owner.put(id, workerId);
+        int attempt = attempts.merge(id, 1, Integer::sum);
+        return new Claim(id, payload.getOrDefault(id, ""), attempt);
+    }
+
+    @Override
+    public synchronized boolean heartbeat(String jobId, String workerId, long leaseMillis) {
+        if (!workerId.equals(owner.get(jobId)))
+            return false;
+        inflight.put(jobId, clock.getAsLong() + leaseMillis);
+        return true;
+    }
+
+    @Override
+    public synchronized void complete(String jobId, String workerId) {
+        if (!workerId.equals(owner.get(jobId)))
+            return;
+        inflight.remove(jobId);
+        owner.remove(jobId);
+        payload.remove(jobId);
+        attempts.remove(jobId);
+        stop.remove(jobId);
+    }
+
+    @Override
+    public synchronized boolean cancel(String jobId) {
+        if (!pending.values().remove(jobId))
+            return false;
+        payload.remove(jobId);
+        attempts.remove(jobId);
+        notBefore.remove(jobId);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean signalStop(String jobId, String signal) {
+        if (!owner.containsKey(jobId))
+            return false;
+        stop.put(jobId, signal);
+        return true;
+    }
+
+    @Override
+    public synchronized String stopSignal(String jobId) {
+        return stop.get(jobId);
+    }
+
+    @Override
+    public synchronized void release(String jobId, String workerId, int priority, long backoffMillis) {
+        if (!workerId.equals(owner.get(jobId)))
+            return;
+        inflight.remove(jobId);
+        owner.remove(jobId);
+        attempts.merge(jobId, -1, Integer::sum);
+        long due = clock.getAsLong() + backoffMillis;
+        notBefore.put(jobId, due);
+        pending.put(new long[] { (9L - priority) * 10_000_000_000_000L + due, seq++ }, jobId);
+    }
+
+    @Override
+    public synchronized Reaped reapExpired(int maxAttempts) {
+        long now = clock.getAsLong();
+        List<String> expired = new ArrayList<>();
+        inflight.forEach((id, deadline) -> {
+            if (deadline <= now)
+                expired.add(id);
+        });
+
+        int requeued = 0;
+        List<String> dead = new ArrayList<>();
+        for (String id : expired) {
+            inflight.remove(id);
+            owner.remove(id);
+            if (attempts.getOrDefault(id, 0) >= maxAttempts) {
+                payload.remove(id);
+                attempts.remove(id);
+                stop.remove(id);
+                dead.add(id);
+            } else {
+                pending.put(new long[] { 0, seq++ }, id);
+                requeued++;
+            }
+        }
+        return new Reaped(requeued, dead);
+    }
+
+    @Override
+    public synchronized Integer position(String jobId) {
+        int i = 1;
+        for (String id : pending.values()) {
+            if (id.equals(jobId))
+                return i;
+            i++;
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,65 @@
+package net.mbi.wcloud.dispatch.solver.matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：kd 树近邻与暴力求解一致；候选列对称、包含 hub 与自身
+ */
+class NeighborIndexTest {
+
+    @Test
+    void nearest_shouldMatchBruteForce() {
+        int n = 500;
+        int k = 8;
+        Random rnd = new Random(42);
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 31.0 + rnd.nextDouble() * 0.5;
+            lng[i] = 121.2 + rnd.nextDouble() * 0.5;
+        }
+
+        int[] all = IntStream.range(0, n).toArray();
+        NeighborIndex index = NeighborIndex.build(lat, lng, all);
+        double cos0 = Math.cos(Math.toRadians(Arrays.stream(lat).average().orElse(0)));
+
+        for (int q = 0; q < n; q += 37) {
+            int node = q;
+            int[] expected = IntStream.range(0, n).filter(j -> j != node).boxed()
+                    .sorted(Comparator.comparingDouble(j -> sq((lng[j] - lng[node]) * cos0) + sq(lat[j] - lat[node])))
+                    .limit(k).mapToInt(Integer::intValue).sorted().toArray();
+            int[] actual = index.nearest(node, k);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual, "node " + node);
+        }
+    }
+
+    @Test
+    void candidateColumns_shouldBeSymmetric_andConnectHubs() {
+        // 0 为车场（hub），1..5 沿经线等距排列，5 缺坐标
+        double[] lat = { 31.0, 31.01, 31.02, 31.03, 31.04, Double.NaN };
+        double[] lng = { 121.0, 121.0, 121.0, 121.0, 121.0, Double.NaN };
+        boolean[] hub = { true, false, false, false, false, false };
+
+        int[][] cols = NeighborIndex.candidateColumns(lat, lng, hub, 1);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5 }, cols[0]);
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5 }, cols[5]);
+        // 1 的最近邻是 2，2 因对称闭包同时连向 1 和 3
+        assertArrayEquals(new int[] { 0, 1, 2, 5 }, cols[1]);
+        for (int i = 0; i < cols.length; i++)
+            for (int j : cols[i])
+                assertTrue(Arrays.binarySearch(cols[j], i) >= 0, i + " -> " + j + " not symmetric");
+    }
+
+    private static double sq(double v) {
+        return v * v;
+    }
+}
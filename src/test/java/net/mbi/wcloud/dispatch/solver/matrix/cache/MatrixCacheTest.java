@@ -0,0 +1,88 @@
+package net.mbi.wcloud.dispatch.solver.matrix.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：
+ * 1) 重叠节点集再次求解时，只把新增节点对应的行/列标记为缺失
+ * 2) 节点坐标变化后，以其为起点的整行与以其为终点的列都不再命中
+ */
+class MatrixCacheTest {
+
+    @Test
+    void lookup_afterStore_shouldOnlyMissNewNodes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MatrixCache cache = new MatrixCache(new MatrixProperties(), registry);
+
+        // 第一次：节点 100, 201, 202
+        MatrixRequest first = request(100L, 201L, 202L);
+        MatrixData m1 = MatrixData.allocate(3);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                m1.set(i, j, (i + 1) * 100 + j, (i + 1) * 10 + j);
+        cache.store("haversine", first, new int[] { 0, 1, 2 }, new int[] { 0, 1, 2 }, m1);
+
+        // 第二次：节点 202, 100, 203（203 为新增）
+        MatrixRequest second = request(202L, 100L, 203L);
+        MatrixData m2 = MatrixData.allocate(3);
+        byte[] rowState = new byte[3];
+        boolean[] missingCol = new boolean[3];
+        cache.lookup("haversine", second, new int[] { 0, 1, 2 }, m2, rowState, missingCol);
+
+        assertEquals(MatrixCache.ROW_PARTIAL, rowState[0]);
+        assertEquals(MatrixCache.ROW_PARTIAL, rowState[1]);
+        assertEquals(MatrixCache.ROW_ABSENT, rowState[2]);
+        assertArrayEquals(new boolean[] { false, false, true }, missingCol);
+
+        // 202 -> 100 即第一次的 (2, 0)
+        assertEquals(300, m2.dist(0, 1));
+        assertEquals(30, m2.time(0, 1));
+
+        // 其他提供者 / 其他租户互不可见
+        byte[] otherState = new byte[3];
+        cache.lookup("table", second, new int[] { 0 }, MatrixData.allocate(3), otherState, new boolean[3]);
+        assertEquals(MatrixCache.ROW_ABSENT, otherState[0]);
+
+        assertTrue(registry.get("dispatch.matrix.cache.cells").tag("result", "hit").counter().count() > 0);
+    }
+
+    @Test
+    void lookup_afterCoordinateChange_shouldMissMovedNode() {
+        MatrixCache cache = new MatrixCache(new MatrixProperties(), new SimpleMeterRegistry());
+        MatrixData m = MatrixData.allocate(2);
+        m.set(0, 1, 1500, 180);
+        m.set(1, 0, 1600, 190);
+        cache.store("haversine", request(100L, 201L), new int[] { 0, 1 }, new int[] { 0, 1 }, m);
+
+        MatrixRequest moved = new MatrixRequest(1L, new long[] { 100L, 201L },
+                new double[] { 0, 31.2 }, new double[] { 0, 121.5 });
+        byte[] rowState = new byte[2];
+        boolean[] missingCol = new boolean[2];
+        cache.lookup("haversine", moved, new int[] { 0, 1 }, MatrixData.allocate(2), rowState, missingCol);
+
+        assertEquals(MatrixCache.ROW_PARTIAL, rowState[0]);
+        assertEquals(MatrixCache.ROW_ABSENT, rowState[1]);
+        assertArrayEquals(new boolean[] { false, true }, missingCol);
+
+        // 回写新坐标的行后整行替换，再查全部命中
+        MatrixData fresh = MatrixData.allocate(2);
+        fresh.set(0, 1, 1700, 200);
+        fresh.set(1, 0, 1800, 210);
+        cache.store("haversine", moved, new int[] { 0, 1 }, new int[] { 0, 1 }, fresh);
+        MatrixData out = MatrixData.allocate(2);
+        cache.lookup("haversine", moved, new int[] { 0, 1 }, out, rowState, new boolean[2]);
+        assertArrayEquals(new byte[] { MatrixCache.ROW_HIT, MatrixCache.ROW_HIT }, rowState);
+        assertEquals(1800, out.dist(1, 0));
+    }
+
+    private MatrixRequest request(long... nodeIds) {
+        double[] coords = new double[nodeIds.length];
+        return new MatrixRequest(1L, nodeIds, coords, coords);
+    }
+}
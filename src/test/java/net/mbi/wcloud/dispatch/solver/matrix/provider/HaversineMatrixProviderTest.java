@@ -0,0 +1,54 @@
+package net.mbi.wcloud.dispatch.solver.matrix.provider;
+
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：球面距离矩阵的数值与缺坐标处理
+ */
+class HaversineMatrixProviderTest {
+
+    @Test
+    void fill_shouldComputeSymmetricDistanceAndTimeBySpeed() {
+        MatrixProperties props = new MatrixProperties();
+        props.getHaversine().setDetourFactor(1.0);
+        props.getHaversine().setSpeedKmh(36); // 10 m/s
+
+        HaversineMatrixProvider provider = new HaversineMatrixProvider(props);
+
+        // 赤道上经度相差 0.01 度，约 1111.95 米
+        MatrixRequest req = new MatrixRequest(1L,
+                new long[] { 100L, 200L },
+                new double[] { 0.0, 0.0 },
+                new double[] { 0.0, 0.01 });
+
+        MatrixData out = MatrixData.allocate(2);
+        int[] all = { 0, 1 };
+        provider.fill(req, all, all, out);
+
+        assertEquals(0, out.dist(0, 0));
+        assertEquals(1112, out.dist(0, 1));
+        assertEquals(out.dist(0, 1), out.dist(1, 0));
+        assertEquals(111, out.time(0, 1));
+    }
+
+    @Test
+    void fill_missingCoordinate_shouldFail() {
+        HaversineMatrixProvider provider = new HaversineMatrixProvider(new MatrixProperties());
+
+        MatrixRequest req = new MatrixRequest(1L,
+                new long[] { 100L, 200L },
+                new double[] { 31.2, Double.NaN },
+                new double[] { 121.4, Double.NaN });
+
+        MatrixData out = MatrixData.allocate(2);
+        int[] all = { 0, 1 };
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> provider.fill(req, all, all, out));
+        assertTrue(ex.getMessage().contains("200"));
+    }
+}
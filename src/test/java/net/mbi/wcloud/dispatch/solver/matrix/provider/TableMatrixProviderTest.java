@@ -0,0 +1,102 @@
+package net.mbi.wcloud.dispatch.solver.matrix.provider;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchNodeDistanceDO;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchNodeDistanceMapper;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单测目标：
+ * 1) 表中的点对直接写入矩阵，缺失的点对按球面距离补齐，对角线为 0
+ * 2) 同一节点在请求中出现多次时，每个下标都写入
+ * 3) 稀疏矩阵只写登记的列
+ */
+class TableMatrixProviderTest {
+
+    private final DispatchNodeDistanceMapper mapper = mock(DispatchNodeDistanceMapper.class);
+    private final TableMatrixProvider provider = new TableMatrixProvider(mapper,
+            new HaversineMatrixProvider(new MatrixProperties()));
+
+    @BeforeAll
+    static void initTableInfo() {
+        // LambdaQueryWrapper.select 需要实体的列信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""),
+                DispatchNodeDistanceDO.class);
+    }
+
+    @Test
+    void fill_shouldUseTableRows_andFallBackToHaversine() {
+        when(mapper.selectList(any())).thenReturn(List.of(row(100L, 200L, 5000, 600), row(200L, 100L, 5100, 610)));
+        MatrixRequest req = request(new long[] { 100L, 200L, 300L });
+
+        MatrixData out = MatrixData.allocate(3);
+        int[] all = { 0, 1, 2 };
+        provider.fill(req, all, all, out);
+
+        assertEquals(0, out.dist(0, 0));
+        assertEquals(5000, out.dist(0, 1));
+        assertEquals(600, out.time(0, 1));
+        assertEquals(5100, out.dist(1, 0));
+        assertTrue(out.dist(0, 2) > 0);
+        verify(mapper, times(1)).selectList(any(Wrapper.class));
+    }
+
+    @Test
+    void fill_duplicateNode_shouldFillEveryIndex() {
+        when(mapper.selectList(any())).thenReturn(List.of(row(100L, 200L, 5000, 600)));
+        MatrixRequest req = request(new long[] { 100L, 200L, 100L });
+
+        MatrixData out = MatrixData.allocate(3);
+        int[] all = { 0, 1, 2 };
+        provider.fill(req, all, all, out);
+
+        assertEquals(5000, out.dist(0, 1));
+        assertEquals(5000, out.dist(2, 1));
+        assertEquals(0, out.dist(0, 2));
+    }
+
+    @Test
+    void fillCandidates_shouldOnlyWriteRegisteredColumns() {
+        when(mapper.selectList(any())).thenReturn(List.of(row(100L, 200L, 5000, 600), row(100L, 300L, 7000, 800)));
+        MatrixRequest req = request(new long[] { 100L, 200L, 300L });
+
+        MatrixData out = MatrixData.allocateSparse(new int[][] { { 0, 1 }, { 1 }, { 2 } },
+                MatrixData.Precision.INT, false);
+        provider.fillCandidates(req, new int[] { 0, 1, 2 }, out);
+
+        assertEquals(5000, out.dist(0, 1));
+        assertEquals(MatrixData.UNREACHABLE, out.dist(0, 2));
+    }
+
+    private static MatrixRequest request(long[] nodeIds) {
+        double[] lat = new double[nodeIds.length];
+        double[] lng = new double[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++) {
+            lat[i] = 31.2;
+            lng[i] = 121.4 + nodeIds[i] / 10000.0;
+        }
+        return new MatrixRequest(1L, nodeIds, lat, lng);
+    }
+
+    private static DispatchNodeDistanceDO row(long from, long to, long dist, long time) {
+        DispatchNodeDistanceDO d = new DispatchNodeDistanceDO();
+        d.setFromNodeId(from);
+        d.setToNodeId(to);
+        d.setDistanceM(dist);
+        d.setTimeSec(time);
+        return d;
+    }
+}
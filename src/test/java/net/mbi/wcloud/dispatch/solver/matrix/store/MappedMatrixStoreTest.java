@@ -0,0 +1,140 @@
+package net.mbi.wcloud.dispatch.solver.matrix.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProperties;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRequest;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixRowSource;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：
+ * 1) 矩阵写入后重启（新实例）仍可读出；追加节点不改变数据文件大小
+ * 2) 节点坐标变化后旧行/列不再命中
+ * 3) 作废租户后切换到新的一代，旧数据不可见、旧文件删除；同一次作废重复执行只生效一次
+ * 4) 区域写满后新节点不入库，其未命中计入指标
+ */
+class MappedMatrixStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void store_thenReopen_shouldReadBack_andAppendWithoutRewrite() throws Exception {
+        MatrixRequest first = request(100L, 201L);
+        MatrixData m = MatrixData.allocate(2);
+        m.set(0, 1, 1500, 180);
+        m.set(1, 0, 1600, 190);
+
+        MappedMatrixStore store = new MappedMatrixStore(properties(true), meterRegistry);
+        store.store("haversine", first, new int[] { 0, 1 }, new int[] { 0, 1 }, m);
+        store.close();
+
+        Path data = dir.resolve("tenant-1").resolve("haversine").resolve("matrix.0.dat");
+        long sizeBefore = Files.size(data);
+
+        // 只读实例，节点顺序不同且含新节点 202
+        MappedMatrixStore reader = new MappedMatrixStore(properties(false), meterRegistry);
+        MatrixRequest second = request(201L, 100L, 202L);
+        MatrixData out = MatrixData.allocate(3);
+        byte[] rowState = new byte[3];
+        boolean[] missingCol = new boolean[3];
+        reader.lookup("haversine", second, new int[] { 0, 1, 2 }, out, rowState, missingCol);
+        reader.close();
+
+        assertEquals(MatrixRowSource.ROW_PARTIAL, rowState[0]);
+        assertEquals(MatrixRowSource.ROW_ABSENT, rowState[2]);
+        assertArrayEquals(new boolean[] { false, false, true }, missingCol);
+        assertEquals(1600, out.dist(0, 1));
+        assertEquals(180, out.time(1, 0));
+
+        // 追加 202 后文件大小不变，只多写了一条索引
+        MappedMatrixStore writer = new MappedMatrixStore(properties(true), meterRegistry);
+        writer.store("haversine", second, new int[] { 2 }, new int[] { 1, 0, 2 }, out);
+        writer.close();
+        assertEquals(sizeBefore, Files.size(data));
+        assertEquals(3 * 16, Files.size(data.resolveSibling("nodes.0.idx")));
+    }
+
+    @Test
+    void lookup_afterCoordinateChange_shouldMissMovedNode() {
+        MappedMatrixStore store = new MappedMatrixStore(properties(true), meterRegistry);
+        MatrixData m = MatrixData.allocate(2);
+        m.set(0, 1, 1500, 180);
+        m.set(1, 0, 1600, 190);
+        store.store("haversine", request(100L, 201L), new int[] { 0, 1 }, new int[] { 0, 1 }, m);
+
+        // 201 移动了位置
+        MatrixRequest moved = new MatrixRequest(1L, new long[] { 100L, 201L },
+                new double[] { 0, 31.2 }, new double[] { 0, 121.5 });
+        byte[] rowState = new byte[2];
+        boolean[] missingCol = new boolean[2];
+        store.lookup("haversine", moved, new int[] { 0, 1 }, MatrixData.allocate(2), rowState, missingCol);
+        store.close();
+
+        assertEquals(MatrixRowSource.ROW_PARTIAL, rowState[0]);
+        assertEquals(MatrixRowSource.ROW_ABSENT, rowState[1]);
+        assertArrayEquals(new boolean[] { false, true }, missingCol);
+    }
+
+    @Test
+    void invalidateTenant_shouldSwitchGeneration_once() {
+        MappedMatrixStore store = new MappedMatrixStore(properties(true), meterRegistry);
+        MatrixData m = MatrixData.allocate(2);
+        m.set(0, 1, 1500, 180);
+        store.store("haversine", request(100L, 201L), new int[] { 0, 1 }, new int[] { 0, 1 }, m);
+
+        Path region = dir.resolve("tenant-1").resolve("haversine");
+        store.invalidateTenant(1L, "inv-1");
+        store.invalidateTenant(1L, "inv-1");
+
+        byte[] rowState = new byte[2];
+        store.lookup("haversine", request(100L, 201L), new int[] { 0, 1 }, MatrixData.allocate(2), rowState,
+                new boolean[2]);
+        store.close();
+
+        assertArrayEquals(new byte[] { MatrixRowSource.ROW_ABSENT, MatrixRowSource.ROW_ABSENT }, rowState);
+        assertFalse(Files.exists(region.resolve("matrix.0.dat")));
+        assertTrue(Files.exists(region.resolve("matrix.1.dat")));
+        assertFalse(Files.exists(region.resolve("matrix.2.dat")));
+    }
+
+    @Test
+    void lookup_regionFull_shouldCountMisses() {
+        MatrixProperties p = properties(true);
+        p.getStore().setCapacity(2);
+        MappedMatrixStore store = new MappedMatrixStore(p, meterRegistry);
+        MatrixRequest req = request(100L, 201L, 202L);
+        MatrixData m = MatrixData.allocate(3);
+        store.store("haversine", req, new int[] { 0, 1, 2 }, new int[] { 0, 1, 2 }, m);
+
+        byte[] rowState = new byte[3];
+        store.lookup("haversine", req, new int[] { 0, 1, 2 }, MatrixData.allocate(3), rowState, new boolean[3]);
+        store.close();
+
+        assertEquals(MatrixRowSource.ROW_ABSENT, rowState[2]);
+        assertEquals(1.0, meterRegistry.counter("dispatch.matrix.store.full.misses").count());
+    }
+
+    private MatrixProperties properties(boolean writable) {
+        MatrixProperties p = new MatrixProperties();
+        p.getStore().setEnabled(true);
+        p.getStore().setDir(dir.toString());
+        p.getStore().setCapacity(16);
+        p.getStore().setWritable(writable);
+        return p;
+    }
+
+    private MatrixRequest request(long... nodeIds) {
+        double[] coords = new double[nodeIds.length];
+        return new MatrixRequest(1L, nodeIds, coords, coords);
+    }
+}
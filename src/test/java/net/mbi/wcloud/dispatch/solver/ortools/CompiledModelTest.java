@@ -0,0 +1,64 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：
+ * 1) 展开矩阵与原矩阵一致，时间矩阵按出发节点加上服务时长
+ * 2) 同一编译模型只展开一次，多次调用（组合求解的各 worker）拿到同一份数组
+ */
+class CompiledModelTest {
+
+    @Test
+    void expanded_shouldMatchMatrix_andBeBuiltOnce() {
+        CompiledModel model = model();
+
+        long[][] dist = model.expandedDistance();
+        long[][] time = model.expandedTime();
+        assertEquals(1200, dist[0][1]);
+        assertEquals(1250, dist[1][0]);
+        // 车场无服务时长，任务节点 1 服务 300 秒
+        assertEquals(180, time[0][1]);
+        assertEquals(190 + 300, time[1][0]);
+
+        assertSame(dist, model.expandedDistance());
+        assertSame(time, model.expandedTime());
+    }
+
+    private static CompiledModel model() {
+        TaskNode t = new TaskNode();
+        t.setTaskId(100L);
+        t.setNodeId(2L);
+        t.setTwEndSec(86_400);
+        t.setServiceTimeSec(300);
+        t.setDemandWeight(1);
+
+        VehicleResource v = new VehicleResource();
+        v.setVehicleId(10L);
+        v.setStartNodeId(1L);
+        v.setEndNodeId(1L);
+        v.setCapacityWeight(10);
+        v.setWorkEndSec(86_400);
+
+        MatrixData m = MatrixData.allocate(2);
+        m.set(0, 1, 1200, 180);
+        m.set(1, 0, 1250, 190);
+
+        SolveInput in = new SolveInput();
+        in.setTasks(List.of(t));
+        in.setVehicles(List.of(v));
+        in.setIndexToNodeId(List.of(1L, 2L));
+        in.setNodeIdToIndex(Map.of(1L, 0, 2L, 1));
+        in.setMatrix(m);
+        return CompiledModel.compile(in);
+    }
+}
@@ -0,0 +1,109 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.DecompositionMode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：分区求解的进度汇总后上报——全部分区都有解后才上报，目标值为各分区当前最优之和，
+ * 分区内不改进的解不上报
+ */
+class DecompositionSolverTest {
+
+    @Test
+    void solve_shouldReportAggregatedClusterProgress() {
+        DecompositionSolver solver = new DecompositionSolver(Runnable::run);
+        SolveInput in = input();
+        List<long[]> events = new CopyOnWriteArrayList<>();
+        in.setProgressListener((objective, assigned, elapsed) -> events.add(new long[] { objective, assigned }));
+
+        SolveRequestDTO req = new SolveRequestDTO();
+        req.setPlanId(1L);
+        req.getOptions().setDecomposition(DecompositionMode.SWEEP);
+        req.getOptions().setClusterMaxTasks(2);
+
+        // 第一个分区：500 -> 400；第二个分区：300 -> 350（不改进）-> 200
+        long[][] objectives = { { 500, 400 }, { 300, 350, 200 } };
+        int[] cluster = { 0 };
+        solver.solve(req, in, (subReq, sub) -> {
+            assertNotNull(sub.getProgressListener());
+            for (long objective : objectives[cluster[0]])
+                sub.getProgressListener().onProgress(objective, sub.getTasks().size(), 0);
+            cluster[0]++;
+            SolveResult r = new SolveResult();
+            r.setStatus(SolveTaskStatus.SOLVED.code());
+            return r;
+        });
+
+        assertEquals(2, events.size());
+        assertEquals(700, events.get(0)[0]);
+        assertEquals(600, events.get(1)[0]);
+        assertEquals(4, events.get(1)[1]);
+    }
+
+    /**
+     * 两个车场各带两个近处任务，坐标相距较远
+     */
+    private static SolveInput input() {
+        double[] lat = { 31.0, 32.0, 31.01, 31.02, 32.01, 32.02 };
+        double[] lng = { 121.0, 122.0, 121.01, 121.02, 122.01, 122.02 };
+        int n = lat.length;
+
+        List<VehicleResource> vehicles = new ArrayList<>();
+        for (int d = 0; d < 2; d++) {
+            VehicleResource v = new VehicleResource();
+            v.setVehicleId(10L + d);
+            v.setStartNodeId(1L + d);
+            v.setEndNodeId(1L + d);
+            v.setCapacityWeight(10);
+            v.setWorkEndSec(86_400);
+            vehicles.add(v);
+        }
+        List<TaskNode> tasks = new ArrayList<>();
+        for (int i = 2; i < n; i++) {
+            TaskNode t = new TaskNode();
+            t.setTaskId(100L + i);
+            t.setNodeId(1L + i);
+            t.setTwEndSec(86_400);
+            t.setDemandWeight(1);
+            tasks.add(t);
+        }
+
+        List<Long> indexToNodeId = new ArrayList<>();
+        Map<Long, Integer> nodeIdToIndex = new HashMap<>();
+        MatrixData m = MatrixData.allocate(n);
+        for (int i = 0; i < n; i++) {
+            indexToNodeId.add(1L + i);
+            nodeIdToIndex.put(1L + i, i);
+            for (int j = 0; j < n; j++) {
+                long d = i == j ? 0 : (long) (Math.hypot(lat[i] - lat[j], lng[i] - lng[j]) * 100_000);
+                m.set(i, j, d, d / 10);
+            }
+        }
+
+        SolveInput in = new SolveInput();
+        in.setPlanId(1L);
+        in.setVehicles(vehicles);
+        in.setTasks(tasks);
+        in.setIndexToNodeId(indexToNodeId);
+        in.setNodeIdToIndex(nodeIdToIndex);
+        in.setNodeLat(lat);
+        in.setNodeLng(lng);
+        in.setMatrix(m);
+        return in;
+    }
+}
@@ -0,0 +1,97 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：稀疏候选列覆盖插入/修复需要的弧，新任务插入最便宜可行位置，无可行位置时报告未插入
+ *
+ * 直线路网：节点 0 为车场，节点 i 距车场 i 公里
+ */
+class IncrementalInsertionTest {
+
+    @Test
+    void candidateColumns_shouldKeepRouteArcs_andFullRows() {
+        boolean[] full = { true, false, true, false, false };
+        int[][] cols = IncrementalInsertion.candidateColumns(5, new int[][] { { 1, 3 } }, new int[] { 0 },
+                new int[] { 0 }, full);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, cols[0]);
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, cols[2]);
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, cols[1]);
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, cols[3]);
+        // 不在路线上的普通节点只连 full 节点与自身
+        assertArrayEquals(new int[] { 0, 2, 4 }, cols[4]);
+    }
+
+    @Test
+    void insert_shouldPlaceCheapest_orReportUnplaced() {
+        IncrementalInsertion.Result ok = IncrementalInsertion.insert(model(3, 10), new int[][] { { 1, 3 } },
+                new int[] { 2 }, new int[] { 1, 3 });
+        assertArrayEquals(new int[] { 1, 2, 3 }, ok.routes()[0]);
+        assertTrue(ok.touched()[0]);
+        assertEquals(0, ok.unplaced().length);
+
+        // 容量 2 已满
+        IncrementalInsertion.Result full = IncrementalInsertion.insert(model(3, 2), new int[][] { { 1, 3 } },
+                new int[] { 2 }, new int[0]);
+        assertArrayEquals(new int[] { 1, 3 }, full.routes()[0]);
+        assertFalse(full.touched()[0]);
+        assertArrayEquals(new int[] { 2 }, full.unplaced());
+    }
+
+    /**
+     * taskCount 个任务（每个需求 1），单车容量 capacity、时间窗全天
+     */
+    private static CompiledModel model(int taskCount, int capacity) {
+        int n = taskCount + 1;
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Integer> idx = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ids.add((long) i);
+            idx.put((long) i, i);
+        }
+
+        List<TaskNode> tasks = new ArrayList<>();
+        for (int i = 1; i < n; i++) {
+            TaskNode t = new TaskNode();
+            t.setTaskId(100L + i);
+            t.setNodeId((long) i);
+            t.setTwStartSec(0);
+            t.setTwEndSec(86_400);
+            t.setDemandWeight(1);
+            tasks.add(t);
+        }
+
+        VehicleResource v = new VehicleResource();
+        v.setVehicleId(1L);
+        v.setStartNodeId(0L);
+        v.setEndNodeId(0L);
+        v.setCapacityWeight(capacity);
+        v.setWorkStartSec(0);
+        v.setWorkEndSec(86_400);
+
+        MatrixData m = MatrixData.allocate(n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                m.set(i, j, Math.abs(i - j) * 1000L, Math.abs(i - j) * 100L);
+
+        SolveInput in = new SolveInput();
+        in.setTasks(tasks);
+        in.setVehicles(List.of(v));
+        in.setIndexToNodeId(ids);
+        in.setNodeIdToIndex(idx);
+        in.setMatrix(m);
+        return CompiledModel.compile(in);
+    }
+}
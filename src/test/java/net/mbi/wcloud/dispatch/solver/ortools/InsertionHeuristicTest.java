@@ -0,0 +1,103 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：路线时刻推算与求解器约束一致（时间窗、等待 slack、载重），最便宜插入只选可行位置
+ *
+ * 直线路网：节点 0 为车场，节点 i 距车场 i 公里、行驶 i×100 秒
+ */
+class InsertionHeuristicTest {
+
+    @Test
+    void schedule_shouldDelayDeparture_butLimitWaitBetweenStops() {
+        // 任务 1 时间窗从 10000 开始：出车可推后，不算等待
+        CompiledModel model = model(new int[][] { { 10_000, 20_000 }, { 0, 86_400 } }, 10);
+        InsertionHeuristic h = new InsertionHeuristic(model, new int[1][]);
+
+        long[] eta = h.schedule(0, new int[] { 1, 2 });
+        assertNotNull(eta);
+        assertEquals(10_000, eta[1]);
+        assertEquals(10_100, eta[2]);
+
+        // 反过来先去 2 再去 1：到 1 时约 400 秒，需等待远超 1800 秒；出车推后即可满足
+        assertNotNull(h.schedule(0, new int[] { 2, 1 }));
+        long[] reversed = h.schedule(0, new int[] { 2, 1 });
+        assertTrue(reversed[2] - reversed[1] - 100 <= OrToolsSolverEngine.TIME_SLACK_SEC);
+    }
+
+    @Test
+    void cheapest_shouldRespectCapacity_andPickMinimalDetour() {
+        CompiledModel model = model(new int[][] { { 0, 86_400 }, { 0, 86_400 } }, 1);
+        InsertionHeuristic h = new InsertionHeuristic(model, new int[][] { { 1 } });
+
+        // 容量 1 已满，无可行插入
+        assertNull(h.cheapest(2, new int[] { 0 }));
+
+        CompiledModel roomy = model(new int[][] { { 0, 86_400 }, { 0, 86_400 } }, 10);
+        InsertionHeuristic h2 = new InsertionHeuristic(roomy, new int[][] { { 1 } });
+        InsertionHeuristic.Insertion ins = h2.cheapest(2, new int[] { 0 });
+        assertNotNull(ins);
+        // 0 -> 1 -> 2 -> 0 比 0 -> 2 -> 1 -> 0 等长，取第一个：增加 2 公里
+        assertEquals(2000, ins.delta());
+        h2.apply(2, ins);
+        assertEquals(0, h2.vehicleOf(2));
+        assertEquals(4000, h2.distance(0, h2.route(0)));
+    }
+
+    /**
+     * 任务 i（节点 i，i 从 1 开始）时间窗为 tw[i-1]，每个任务需求 1，单车容量 capacity
+     */
+    private static CompiledModel model(int[][] tw, int capacity) {
+        int n = tw.length + 1;
+        SolveInput in = new SolveInput();
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Integer> idx = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ids.add((long) i);
+            idx.put((long) i, i);
+        }
+
+        List<TaskNode> tasks = new ArrayList<>();
+        for (int i = 1; i < n; i++) {
+            TaskNode t = new TaskNode();
+            t.setTaskId(100L + i);
+            t.setNodeId((long) i);
+            t.setTwStartSec(tw[i - 1][0]);
+            t.setTwEndSec(tw[i - 1][1]);
+            t.setDemandWeight(1);
+            tasks.add(t);
+        }
+
+        VehicleResource v = new VehicleResource();
+        v.setVehicleId(1L);
+        v.setStartNodeId(0L);
+        v.setEndNodeId(0L);
+        v.setCapacityWeight(capacity);
+        v.setWorkStartSec(0);
+        v.setWorkEndSec(86_400);
+
+        MatrixData m = MatrixData.allocate(n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                m.set(i, j, Math.abs(i - j) * 1000L, Math.abs(i - j) * 100L);
+
+        in.setTasks(tasks);
+        in.setVehicles(List.of(v));
+        in.setIndexToNodeId(ids);
+        in.setNodeIdToIndex(idx);
+        in.setMatrix(m);
+        return CompiledModel.compile(in);
+    }
+}
@@ -0,0 +1,92 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：
+ * 1) 并发搜索数受 CPU 预算约束，取目标值最小的已求解结果，名额用完归还
+ * 2) 专用线程池没有空闲线程时不排队：按已启动的数量降级，被拒绝的名额立即归还
+ */
+class PortfolioSolverTest {
+
+    @Test
+    void solve_shouldBoundWorkersByBudget_andPickLowestObjective() {
+        // 同步执行器：额外搜索在提交时即运行
+        PortfolioSolver solver = new PortfolioSolver(Runnable::run, 2, 8);
+        SolveRequestDTO req = new SolveRequestDTO();
+        req.setPlanId(1L);
+
+        List<SearchStrategy> seen = new CopyOnWriteArrayList<>();
+        SolveResult best = solver.solve(req, 8, (strategy, timeLimit) -> {
+            seen.add(strategy);
+            SolveResult r = new SolveResult();
+            int i = seen.size();
+            // 第二个搜索失败，第三个目标值最小
+            r.setStatus(i == 2 ? SolveTaskStatus.FAILED.code() : SolveTaskStatus.SOLVED.code());
+            r.getKpi().setObjective(i == 3 ? 100 : 500);
+            r.getKpi().setStrategy(strategy.toString());
+            return r;
+        });
+
+        // 预算 2 个额外名额 + 当前线程
+        assertEquals(3, seen.size());
+        assertEquals(Set.copyOf(SearchStrategy.portfolio(3)), Set.copyOf(seen));
+        assertEquals(100, best.getKpi().getObjective());
+
+        // 名额已归还，再次求解仍能拿到 2 个
+        seen.clear();
+        solver.solve(req, 8, (strategy, timeLimit) -> {
+            seen.add(strategy);
+            SolveResult r = new SolveResult();
+            r.setStatus(SolveTaskStatus.SOLVED.code());
+            return r;
+        });
+        assertEquals(3, seen.size());
+    }
+
+    @Test
+    void solve_executorBusy_shouldDegrade_andReturnPermit() {
+        // 只有一个空闲线程：第一个额外搜索同步运行，第二个被拒绝
+        AtomicInteger accepted = new AtomicInteger();
+        Executor oneThread = task -> {
+            if (accepted.incrementAndGet() > 1)
+                throw new RejectedExecutionException("no idle thread");
+            task.run();
+        };
+        PortfolioSolver solver = new PortfolioSolver(oneThread, 3, 8);
+        SolveRequestDTO req = new SolveRequestDTO();
+        req.setPlanId(1L);
+
+        List<SearchStrategy> seen = new CopyOnWriteArrayList<>();
+        solver.solve(req, 8, (strategy, timeLimit) -> {
+            seen.add(strategy);
+            SolveResult r = new SolveResult();
+            r.setStatus(SolveTaskStatus.SOLVED.code());
+            return r;
+        });
+        assertEquals(2, seen.size());
+
+        // 被拒绝的名额已归还：线程空闲后能拿满 3 个额外名额
+        accepted.set(-10);
+        seen.clear();
+        solver.solve(req, 8, (strategy, timeLimit) -> {
+            seen.add(strategy);
+            SolveResult r = new SolveResult();
+            r.setStatus(SolveTaskStatus.SOLVED.code());
+            return r;
+        });
+        assertEquals(4, seen.size());
+    }
+}
@@ -0,0 +1,131 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveControl;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：停止请求中断正在运行的 OR-Tools 搜索
+ * 1) 提前结束：远早于时间上限返回，并带回已找到的最优解；搜索期间按间隔上报进度
+ * 2) 搜索开始前已取消：不求解直接返回
+ */
+class SolveControlTest {
+
+    private final OrToolsSolverEngine engine = new OrToolsSolverEngine(null, null);
+
+    @Test
+    void acceptBest_shouldInterruptRunningSearch_andKeepBestSolution() throws Exception {
+        SolveRequestDTO req = req(60);
+        SolveInput in = input(120);
+        SolveControl control = new SolveControl();
+        in.setControl(control);
+        List<long[]> progress = new java.util.concurrent.CopyOnWriteArrayList<>();
+        in.setProgressListener((objective, assigned, elapsed) -> progress.add(new long[] { objective, assigned }));
+
+        CompletableFuture.runAsync(() -> control.request(SolveControl.Stop.ACCEPT_BEST),
+                CompletableFuture.delayedExecutor(2, TimeUnit.SECONDS));
+
+        long t0 = System.currentTimeMillis();
+        SolveResult r = engine.solve(req, in);
+        long cost = System.currentTimeMillis() - t0;
+
+        assertTrue(cost < 20_000, "search should stop early, took " + cost + "ms");
+        assertEquals(SolveTaskStatus.SOLVED.code(), r.getStatus());
+        assertEquals(120, r.getKpi().getAssignedTaskCount());
+        assertFalse(progress.isEmpty());
+        assertEquals(120, progress.get(0)[1]);
+    }
+
+    @Test
+    void cancel_beforeSearch_shouldSkipSolving() {
+        SolveInput in = input(20);
+        SolveControl control = new SolveControl();
+        control.request(SolveControl.Stop.CANCEL);
+        in.setControl(control);
+
+        SolveResult r = engine.solve(req(60), in);
+
+        assertNotEquals(SolveTaskStatus.SOLVED.code(), r.getStatus());
+        assertFalse(control.request(SolveControl.Stop.ACCEPT_BEST));
+        assertEquals(SolveControl.Stop.CANCEL, control.stop());
+    }
+
+    private static SolveRequestDTO req(int timeLimitSeconds) {
+        SolveRequestDTO req = new SolveRequestDTO();
+        req.setPlanId(1L);
+        req.getOptions().setTimeLimitSeconds(timeLimitSeconds);
+        return req;
+    }
+
+    /**
+     * 平面随机点，节点 0 为车场，5 辆车容量充足、时间窗全天
+     */
+    private static SolveInput input(int taskCount) {
+        int n = taskCount + 1;
+        Random rnd = new Random(7);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Integer> idx = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            x[i] = rnd.nextDouble() * 50_000;
+            y[i] = rnd.nextDouble() * 50_000;
+            ids.add((long) i);
+            idx.put((long) i, i);
+        }
+
+        List<TaskNode> tasks = new ArrayList<>();
+        for (int i = 1; i < n; i++) {
+            TaskNode t = new TaskNode();
+            t.setTaskId(100L + i);
+            t.setNodeId((long) i);
+            t.setTwStartSec(0);
+            t.setTwEndSec(86_400);
+            t.setDemandWeight(1);
+            tasks.add(t);
+        }
+
+        List<VehicleResource> vehicles = new ArrayList<>();
+        for (int v = 0; v < 5; v++) {
+            VehicleResource vr = new VehicleResource();
+            vr.setVehicleId(v + 1L);
+            vr.setStartNodeId(0L);
+            vr.setEndNodeId(0L);
+            vr.setCapacityWeight(taskCount);
+            vr.setWorkStartSec(0);
+            vr.setWorkEndSec(86_400);
+            vehicles.add(vr);
+        }
+
+        MatrixData m = MatrixData.allocate(n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                long d = Math.round(Math.hypot(x[i] - x[j], y[i] - y[j]));
+                m.set(i, j, d, d / 10);
+            }
+
+        SolveInput in = new SolveInput();
+        in.setTasks(tasks);
+        in.setVehicles(vehicles);
+        in.setIndexToNodeId(ids);
+        in.setNodeIdToIndex(idx);
+        in.setMatrix(m);
+        return in;
+    }
+}
@@ -0,0 +1,103 @@
+package net.mbi.wcloud.dispatch.solver.ortools;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：旧路线按车辆ID/任务ID映射回节点下标，已不存在的任务跳过，新任务按最便宜可行位置插入
+ *
+ * 直线路网：节点 0 为车场，节点 i 距车场 i 公里；任务 i 的ID为 100+i
+ */
+class WarmStartTest {
+
+    @Test
+    void seed_shouldKeepPreviousOrder_andInsertNewTasks() {
+        CompiledModel model = model(4);
+
+        // 旧路线：车辆 1 依次服务任务 102、101，任务 999 已删除；车辆 2 不在模型中
+        Map<Long, List<Long>> previous = Map.of(
+                1L, List.of(102L, 999L, 101L),
+                2L, List.of(103L));
+
+        WarmStart.Seed seed = WarmStart.seed(model, previous);
+        assertNotNull(seed);
+        assertEquals(2, seed.kept());
+        assertEquals(2, seed.inserted());
+        assertEquals(0, seed.left());
+
+        int[] route = seed.routes()[0];
+        assertEquals(4, route.length);
+        // 保留旧顺序 2 在 1 之前
+        assertTrue(indexOf(route, 2) < indexOf(route, 1));
+    }
+
+    @Test
+    void seed_shouldReturnNull_whenNothingMatches() {
+        CompiledModel model = model(2);
+        assertNull(WarmStart.seed(model, null));
+        assertNull(WarmStart.seed(model, Map.of(9L, List.of(101L))));
+    }
+
+    private static int indexOf(int[] seq, int node) {
+        for (int i = 0; i < seq.length; i++) {
+            if (seq[i] == node)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * taskCount 个任务，单车（ID 1）容量充足、时间窗全天
+     */
+    private static CompiledModel model(int taskCount) {
+        int n = taskCount + 1;
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Integer> idx = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ids.add((long) i);
+            idx.put((long) i, i);
+        }
+
+        List<TaskNode> tasks = new ArrayList<>();
+        for (int i = 1; i < n; i++) {
+            TaskNode t = new TaskNode();
+            t.setTaskId(100L + i);
+            t.setNodeId((long) i);
+            t.setTwStartSec(0);
+            t.setTwEndSec(86_400);
+            t.setDemandWeight(1);
+            tasks.add(t);
+        }
+
+        VehicleResource v = new VehicleResource();
+        v.setVehicleId(1L);
+        v.setStartNodeId(0L);
+        v.setEndNodeId(0L);
+        v.setCapacityWeight(10);
+        v.setWorkStartSec(0);
+        v.setWorkEndSec(86_400);
+
+        MatrixData m = MatrixData.allocate(n);
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                m.set(i, j, Math.abs(i - j) * 1000L, Math.abs(i - j) * 100L);
+
+        SolveInput in = new SolveInput();
+        in.setTasks(tasks);
+        in.setVehicles(List.of(v));
+        in.setIndexToNodeId(ids);
+        in.setNodeIdToIndex(idx);
+        in.setMatrix(m);
+        return CompiledModel.compile(in);
+    }
+}
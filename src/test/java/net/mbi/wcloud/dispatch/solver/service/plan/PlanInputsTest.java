@@ -0,0 +1,76 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchNodeDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchTaskSolveRow;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchNodeMapper;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单测目标：
+ * 1) 流式任务行逐行转成 TaskNode（空值取默认），超过初始容量时坐标数组扩容
+ * 2) 节点坐标优先取任务坐标，缺失的再查 dispatch_node
+ */
+class PlanInputsTest {
+
+    @Test
+    void taskCollector_shouldConvertRows_andGrowCoordinateArrays() {
+        PlanInputs.TaskCollector collector = new PlanInputs.TaskCollector();
+        DefaultResultContext<DispatchTaskSolveRow> ctx = new DefaultResultContext<>();
+        for (long i = 0; i < 300; i++) {
+            ctx.nextResultObject(row(100 + i, 1000 + i, i == 5 ? null : 31.0 + i / 1000.0));
+            collector.handleResult(ctx);
+        }
+
+        List<TaskNode> tasks = collector.tasks();
+        assertEquals(300, tasks.size());
+        assertEquals(399L, tasks.get(299).getTaskId());
+        assertEquals(0, tasks.get(0).getTwStartSec());
+        assertEquals(24 * 3600, tasks.get(0).getTwEndSec());
+        assertEquals(120, tasks.get(0).getServiceTimeSec());
+    }
+
+    @Test
+    void coordinates_shouldPreferTaskCoordinates_andFallBackToNodes() {
+        PlanInputs.TaskCollector collector = new PlanInputs.TaskCollector();
+        DefaultResultContext<DispatchTaskSolveRow> ctx = new DefaultResultContext<>();
+        ctx.nextResultObject(row(100, 2L, 31.5));
+        collector.handleResult(ctx);
+        ctx.nextResultObject(row(101, 3L, null));
+        collector.handleResult(ctx);
+
+        DispatchNodeMapper nodeMapper = mock(DispatchNodeMapper.class);
+        DispatchNodeDO depot = new DispatchNodeDO();
+        depot.setId(1L);
+        depot.setLat(31.0);
+        depot.setLng(121.0);
+        when(nodeMapper.selectList(any())).thenReturn(List.of(depot));
+
+        double[][] coords = PlanInputs.coordinates(nodeMapper, 1L, collector, List.of(1L, 2L, 3L),
+                Map.of(1L, 0, 2L, 1, 3L, 2));
+
+        assertEquals(31.0, coords[0][0]);
+        assertEquals(31.5, coords[0][1]);
+        assertEquals(121.5, coords[1][1]);
+        assertTrue(Double.isNaN(coords[0][2]));
+        verify(nodeMapper, times(1)).selectList(any());
+    }
+
+    private static DispatchTaskSolveRow row(long id, long nodeId, Double lat) {
+        DispatchTaskSolveRow r = new DispatchTaskSolveRow();
+        r.setId(id);
+        r.setNodeId(nodeId);
+        r.setLat(lat);
+        r.setLng(lat == null ? null : lat + 90);
+        r.setServiceTimeSec(120);
+        return r;
+    }
+}
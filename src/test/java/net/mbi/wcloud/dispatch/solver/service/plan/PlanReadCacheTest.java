@@ -0,0 +1,111 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanRouteVO;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.PlanVO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标（单机模式）：
+ * 1) 命中缓存不再调用加载；相同内容的 ETag 相同，内容变化 ETag 变化
+ * 2) 线路按解版本缓存，版本切换后读新版本
+ * 3) invalidatePlan 清掉该方案的详情与全部版本明细，不影响其他租户/方案；方案不存在不缓存
+ * 4) 加载期间到达的失效（同一解版本原地改写）：加载完成的旧内容不会再被读到
+ */
+class PlanReadCacheTest {
+
+    private final PlanReadCache cache = new PlanReadCache(new PlanReadCacheProperties(),
+            new SolveClusterProperties(), null, new ObjectMapper());
+
+    @Test
+    void routes_shouldBeCachedPerVersion_withContentEtag() {
+        AtomicInteger loads = new AtomicInteger();
+
+        PlanReadCache.Entry<List<PlanRouteVO.Route>> v1 = cache.routes(1L, 1001L, 1, () -> {
+            loads.incrementAndGet();
+            return List.of(route(10L));
+        });
+        PlanReadCache.Entry<List<PlanRouteVO.Route>> again = cache.routes(1L, 1001L, 1, () -> {
+            loads.incrementAndGet();
+            return List.of(route(99L));
+        });
+        assertEquals(1, loads.get());
+        assertSame(v1, again);
+
+        PlanReadCache.Entry<List<PlanRouteVO.Route>> v2 = cache.routes(1L, 1001L, 2, () -> List.of(route(20L)));
+        assertNotEquals(v1.etag(), v2.etag());
+        PlanReadCache.Entry<List<PlanRouteVO.Route>> sameContent = cache.routes(2L, 1001L, 1, () -> List.of(route(10L)));
+        assertEquals(v1.etag(), sameContent.etag());
+        assertTrue(v1.etag().startsWith("\"") && v1.etag().endsWith("\""));
+    }
+
+    @Test
+    void invalidatePlan_shouldDropPlanAndAllVersions_ofThatPlanOnly() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.plan(1L, 1001L, () -> plan(1L));
+        cache.routes(1L, 1001L, 3, () -> List.of(route(10L)));
+        cache.routes(1L, 1002L, 3, () -> List.of(route(10L)));
+
+        cache.invalidatePlan(1L, 1001L);
+
+        cache.plan(1L, 1001L, () -> {
+            loads.incrementAndGet();
+            return plan(2L);
+        });
+        cache.routes(1L, 1001L, 3, () -> {
+            loads.incrementAndGet();
+            return List.of(route(11L));
+        });
+        cache.routes(1L, 1002L, 3, () -> {
+            loads.incrementAndGet();
+            return List.of(route(12L));
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateDuringLoad_shouldNotServeStaleRoutes_ofSameVersion() {
+        // 读取查到旧明细后、放入缓存前，增量插入在同一解版本上改写并失效
+        PlanReadCache.Entry<List<PlanRouteVO.Route>> stale = cache.routes(1L, 1001L, 3, () -> {
+            cache.invalidatePlan(1L, 1001L);
+            return List.of(route(10L));
+        });
+
+        PlanReadCache.Entry<List<PlanRouteVO.Route>> fresh = cache.routes(1L, 1001L, 3, () -> List.of(route(11L)));
+        assertNotEquals(stale.etag(), fresh.etag());
+        assertEquals(11L, fresh.body().get(0).getVehicleId());
+    }
+
+    @Test
+    void plan_missing_shouldReturnNull_andNotCache() {
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(cache.plan(1L, 404L, () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.plan(1L, 404L, () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    private static PlanRouteVO.Route route(Long vehicleId) {
+        PlanRouteVO.Route r = new PlanRouteVO.Route();
+        r.setPlanId(1001L);
+        r.setVehicleId(vehicleId);
+        return r;
+    }
+
+    private static PlanVO plan(Long activeVersion) {
+        PlanVO vo = new PlanVO();
+        vo.setId(1001L);
+        vo.setActiveVersion(activeVersion);
+        return vo;
+    }
+}
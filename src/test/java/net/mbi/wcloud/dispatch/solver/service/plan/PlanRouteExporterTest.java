@@ -0,0 +1,100 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteStopExportRow;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteStopMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 单测目标：
+ * 1) NDJSON：游标每回调一行写出一个 JSON 对象，行数与返回值一致
+ * 2) CSV：表头 + 数值行，空值输出空单元格
+ * 3) 没有停靠点时 CSV 只有表头、NDJSON 为空
+ */
+class PlanRouteExporterTest {
+
+    private final DispatchRouteStopMapper stopMapper = mock(DispatchRouteStopMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PlanRouteExporter exporter = new PlanRouteExporter(stopMapper, objectMapper);
+
+    @Test
+    void ndjson_shouldWriteOneObjectPerStop() throws Exception {
+        stream(3L, List.of(row(10L, 1, 100L, null), row(10L, 2, 101L, 300)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export(1L, 1001L, 3L, PlanRouteExporter.Format.NDJSON, out);
+
+        assertEquals(2, rows);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(10L, first.get("vehicleId").asLong());
+        assertEquals(100L, first.get("taskId").asLong());
+        assertEquals(2, objectMapper.readTree(lines[1]).get("seq").asInt());
+    }
+
+    @Test
+    void csv_shouldWriteHeaderAndNumericRows() {
+        stream(3L, List.of(row(10L, 1, 100L, null), row(10L, 2, 101L, 300)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export(1L, 1001L, 3L, PlanRouteExporter.Format.CSV, out);
+
+        assertEquals(2, rows);
+        assertEquals(PlanRouteExporter.CSV_HEADER + "\n"
+                + "10,500,1,100,2000,3600,3900,\n"
+                + "10,500,2,101,2000,3600,3900,300\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void empty_shouldWriteHeaderOnlyForCsv() {
+        stream(3L, List.of());
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+
+        assertEquals(0, exporter.export(1L, 1001L, 3L, PlanRouteExporter.Format.CSV, csv));
+        assertEquals(0, exporter.export(1L, 1001L, 3L, PlanRouteExporter.Format.NDJSON, ndjson));
+
+        assertEquals(PlanRouteExporter.CSV_HEADER + "\n", csv.toString(StandardCharsets.UTF_8));
+        assertEquals(0, ndjson.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stream(long version, List<DispatchRouteStopExportRow> rows) {
+        doAnswer(inv -> {
+            ResultHandler<DispatchRouteStopExportRow> handler = inv.getArgument(3);
+            DefaultResultContext<DispatchRouteStopExportRow> ctx = new DefaultResultContext<>();
+            for (DispatchRouteStopExportRow r : rows) {
+                ctx.nextResultObject(r);
+                handler.handleResult(ctx);
+            }
+            return null;
+        }).when(stopMapper).streamForExport(eq(1L), eq(1001L), eq(version), any(ResultHandler.class));
+    }
+
+    private static DispatchRouteStopExportRow row(Long vehicleId, int seq, Long taskId, Integer serviceTimeSec) {
+        DispatchRouteStopExportRow r = new DispatchRouteStopExportRow();
+        r.setVehicleId(vehicleId);
+        r.setRouteId(500L);
+        r.setSeq(seq);
+        r.setTaskId(taskId);
+        r.setNodeId(2000L);
+        r.setEtaSec(3600L);
+        r.setEtdSec(3900L);
+        r.setServiceTimeSec(serviceTimeSec);
+        return r;
+    }
+}
@@ -1,18 +1,36 @@
 package net.mbi.wcloud.dispatch.solver.service.plan;
 
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchPlanDO;
 import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchSolveJobDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchTaskSolveRow;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchVehicleDO;
 import net.mbi.wcloud.dispatch.solver.dal.mysql.*;
-import net.mbi.wcloud.dispatch.solver.framework.lock.DistributedLock;
+import net.mbi.wcloud.dispatch.solver.framework.common.exception.ErrorCodeConstants;
+import net.mbi.wcloud.dispatch.solver.framework.common.exception.ServiceException;
+import net.mbi.wcloud.dispatch.solver.framework.lock.JobLease;
+import net.mbi.wcloud.dispatch.solver.framework.queue.DistributedJobQueue;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixProvider;
+import net.mbi.wcloud.dispatch.solver.matrix.MatrixService;
 import net.mbi.wcloud.dispatch.solver.ortools.OrToolsSolverEngine;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.QueuedSolveDTO;
 import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
 import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -23,15 +41,24 @@ import static org.mockito.Mockito.*;
  *
  * 覆盖场景：
  * 1) 直接幂等命中：findActiveJob != null -> 直接返回 taskId
- * 2) tryLock 失败后再次查询幂等命中 -> 返回 taskId
- * 3) 正常创建：无活跃任务 + tryLock 成功 -> insert job + markStatus(ACCEPTED) + runAsync
- * 被触发（但这里 stub 掉）
+ * 2) 租约获取失败后再次查询幂等命中 -> 返回 taskId
+ * 3) 正常创建：无活跃任务 + 租约获取成功 -> insert job + markStatus(ACCEPTED) + 交给 SolveDispatcher 调度，租约随任务交出不释放
+ * 4) 调度队列饱和：submit 被拒绝 -> 任务与方案标记 REJECTED，抛出 SOLVE_QUEUE_FULL，释放租约
+ * 5) 集群模式：只写入集群队列，不交给本实例调度
+ * 6) 取消排队中的任务：移出队列，任务与方案标记 CANCELLED，释放租约
+ * 7) 取消其他节点执行中的任务：只发停止信号，状态由执行节点写入
+ * 8) 状态缓存命中活跃任务：幂等返回，不查库
+ * 9) 状态缓存确认没有活跃任务：直接创建任务，不查库
+ * 12) 同一任务之前的领取仍持有方案租约：不写任何状态，交由工作节点放回队列
+ * 13) 执行中确定失去方案租约：停止求解，不写方案状态，只把任务标记为 FAILED
+ * 10) 结果缓存命中且仍是生效版本：求解线程持有方案租约时直接沿用结果，不构建矩阵、不求解
+ * 11) 执行时方案租约已被其他求解持有：任务与方案都标记 FAILED，方案读缓存失效
  */
 @ExtendWith(org.mockito.junit.jupiter.MockitoExtension.class)
 class PlanSolveServiceImplTest {
 
     @Mock
-    private DistributedLock distributedLock;
+    private JobLease jobLease;
 
     @Mock
     private DispatchPlanMapper planMapper;
@@ -48,15 +75,42 @@ class PlanSolveServiceImplTest {
     @Mock
     private DispatchSolveJobMapper solveJobMapper;
     @Mock
+    private DispatchNodeMapper nodeMapper;
+    @Mock
     private OrToolsSolverEngine solverEngine;
+    @Mock
+    private MatrixService matrixService;
+    @Mock
+    private SolveDispatcher solveDispatcher;
+    @Mock
+    private DistributedJobQueue jobQueue;
+    @Mock
+    private SolveProgressHub progressHub;
+    @Mock
+    private SolveJobStatusCache statusCache;
+    @Mock
+    private SolveResultWriter resultWriter;
+    @Mock
+    private SolveResultCache resultCache;
+    @Mock
+    private PlanReadCache readCache;
+
+    private final SolveClusterProperties clusterProperties = new SolveClusterProperties();
 
-    /** 用 spy 来 stub runAsync，避免单测跑进 solver/组装逻辑 */
-    private PlanSolveServiceImpl serviceSpy;
+    private PlanSolveServiceImpl service;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // LambdaUpdateWrapper.set 需要实体的列信息
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, DispatchPlanDO.class);
+        TableInfoHelper.initTableInfo(assistant, DispatchSolveJobDO.class);
+    }
 
     @BeforeEach
     void setUp() {
-        PlanSolveServiceImpl real = new PlanSolveServiceImpl(
-                distributedLock,
+        service = new PlanSolveServiceImpl(
+                jobLease,
                 planMapper,
                 taskMapper,
                 vehicleMapper,
@@ -64,11 +118,18 @@ class PlanSolveServiceImplTest {
                 stopMapper,
                 unassignedMapper,
                 solveJobMapper,
-                solverEngine);
-        serviceSpy = spy(real);
-
-        // 关键：stub 掉 runAsync，避免执行 markStatus(RUNNING)+solverEngine.solve+unlock 等
-        doNothing().when(serviceSpy).runAsync(any(SolveRequestDTO.class), anyString());
+                nodeMapper,
+                solverEngine,
+                matrixService,
+                solveDispatcher,
+                clusterProperties,
+                jobQueue,
+                new ObjectMapper(),
+                progressHub,
+                statusCache,
+                resultWriter,
+                resultCache,
+                readCache);
     }
 
     @Test
@@ -91,15 +152,15 @@ class PlanSolveServiceImplTest {
         when(solveJobMapper.selectOne(any())).thenReturn(active);
 
         // when
-        String taskId = serviceSpy.submitSolve(req);
+        String taskId = service.submitSolve(req);
 
         // then
         assertEquals(existTaskId, taskId);
 
-        verify(distributedLock, never()).tryLock(anyString(), anyInt());
+        verify(jobLease, never()).acquire(anyString(), anyString());
         verify(solveJobMapper, never()).insert(any(DispatchSolveJobDO.class));
-        verify(planMapper, never()).updateById(any(DispatchPlanDO.class));
-        verify(serviceSpy, never()).runAsync(any(SolveRequestDTO.class), anyString());
+        verify(planMapper, never()).update(any(), any());
+        verify(solveDispatcher, never()).submit(any(SolveDispatcher.Ticket.class), any(Runnable.class));
     }
 
     @Test
@@ -120,26 +181,26 @@ class PlanSolveServiceImplTest {
 
         when(solveJobMapper.selectOne(any()))
                 .thenReturn(null) // 第一次 findActiveJob
-                .thenReturn(active); // tryLock 失败后第二次 findActiveJob
+                .thenReturn(active); // 租约获取失败后第二次 findActiveJob
 
-        when(distributedLock.tryLock(eq("solve:" + tenantId + ":" + planId), eq(60)))
+        when(jobLease.acquire(eq("solve:" + tenantId + ":" + planId), anyString()))
                 .thenReturn(false);
 
         // when
-        String taskId = serviceSpy.submitSolve(req);
+        String taskId = service.submitSolve(req);
 
         // then
         assertEquals(existTaskId, taskId);
 
-        verify(distributedLock, times(1)).tryLock(eq("solve:" + tenantId + ":" + planId), eq(60));
+        verify(jobLease, times(1)).acquire(eq("solve:" + tenantId + ":" + planId), anyString());
 
         verify(solveJobMapper, never()).insert(any(DispatchSolveJobDO.class));
-        verify(planMapper, never()).updateById(any(DispatchPlanDO.class));
-        verify(serviceSpy, never()).runAsync(any(SolveRequestDTO.class), anyString());
+        verify(planMapper, never()).update(any(), any());
+        verify(solveDispatcher, never()).submit(any(SolveDispatcher.Ticket.class), any(Runnable.class));
     }
 
     @Test
-    void submitSolve_noActive_andLockSuccess_shouldCreateJob_markAccepted_andTriggerRunAsync() {
+    void submitSolve_noActive_andLockSuccess_shouldCreateJob_markAccepted_andDispatch() {
         // given
         long tenantId = 1L;
         long planId = 1001L;
@@ -147,21 +208,15 @@ class PlanSolveServiceImplTest {
 
         when(solveJobMapper.selectOne(any())).thenReturn(null);
 
-        when(distributedLock.tryLock(eq("solve:" + tenantId + ":" + planId), eq(60)))
+        when(jobLease.acquire(eq("solve:" + tenantId + ":" + planId), anyString()))
                 .thenReturn(true);
 
-        DispatchPlanDO plan = new DispatchPlanDO();
-        plan.setId(planId);
-        plan.setTenantId(tenantId);
-        plan.setDeleted(0);
-
-        when(planMapper.selectOne(any())).thenReturn(plan);
-        when(planMapper.updateById(any(DispatchPlanDO.class))).thenReturn(1);
-
         when(solveJobMapper.insert(any(DispatchSolveJobDO.class))).thenReturn(1);
+        when(solveDispatcher.submit(any(SolveDispatcher.Ticket.class), any(Runnable.class)))
+                .thenReturn(SolveDispatcher.Admission.ACCEPTED);
 
         // when
-        String taskId = serviceSpy.submitSolve(req);
+        String taskId = service.submitSolve(req);
 
         // then
         assertNotNull(taskId);
@@ -176,15 +231,267 @@ class PlanSolveServiceImplTest {
         assertEquals(SolveTaskStatus.ACCEPTED.code(), inserted.getStatus());
         assertEquals(0, inserted.getDeleted());
 
-        ArgumentCaptor<DispatchPlanDO> planCaptor = ArgumentCaptor.forClass(DispatchPlanDO.class);
-        verify(planMapper, times(1)).updateById(planCaptor.capture());
-        DispatchPlanDO updated = planCaptor.getValue();
-        assertEquals(SolveTaskStatus.ACCEPTED.code(), updated.getStatus());
-        assertEquals(SolveTaskStatus.ACCEPTED.code(), updated.getMessage());
+        verify(planMapper, times(1)).update(isNull(), any());
+        assertTrue(lastPlanUpdate().contains(SolveTaskStatus.ACCEPTED.code()));
+
+        ArgumentCaptor<SolveDispatcher.Ticket> ticketCaptor = ArgumentCaptor.forClass(SolveDispatcher.Ticket.class);
+        verify(solveDispatcher, times(1)).submit(ticketCaptor.capture(), any(Runnable.class));
+        assertEquals(taskId, ticketCaptor.getValue().taskId());
+        assertEquals(tenantId, ticketCaptor.getValue().tenantId());
+
+        // 租约以 taskId 获取并交给求解任务，提交方不释放
+        verify(jobLease, times(1)).acquire(eq("solve:" + tenantId + ":" + planId), eq(taskId));
+        verify(jobLease, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void submitSolve_queueFull_shouldMarkRejected_andThrow_andUnlock() {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        SolveRequestDTO req = buildReq(tenantId, planId);
+
+        when(solveJobMapper.selectOne(any())).thenReturn(null);
+        when(jobLease.acquire(eq("solve:" + tenantId + ":" + planId), anyString()))
+                .thenReturn(true);
+
+        when(solveDispatcher.submit(any(SolveDispatcher.Ticket.class), any(Runnable.class)))
+                .thenReturn(SolveDispatcher.Admission.QUEUE_FULL);
+
+        // when
+        ServiceException ex = assertThrows(ServiceException.class, () -> service.submitSolve(req));
+
+        // then
+        assertEquals(ErrorCodeConstants.SOLVE_QUEUE_FULL, ex.getCode());
+        assertTrue(lastPlanUpdate().contains(SolveTaskStatus.REJECTED.code()));
+        ArgumentCaptor<DispatchSolveJobDO> jobCaptor = ArgumentCaptor.forClass(DispatchSolveJobDO.class);
+        verify(solveJobMapper, times(1)).updateById(jobCaptor.capture());
+        assertEquals(SolveTaskStatus.REJECTED.code(), jobCaptor.getValue().getStatus());
+        verify(jobLease, times(1)).release(eq("solve:" + tenantId + ":" + planId), anyString());
+    }
+
+    @Test
+    void submitSolve_clusterMode_shouldOnlyEnqueue() throws Exception {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        SolveRequestDTO req = buildReq(tenantId, planId);
+        req.setPriority(8);
+        clusterProperties.setEnabled(true);
+
+        when(solveJobMapper.selectOne(any())).thenReturn(null);
+        when(jobLease.acquire(eq("solve:" + tenantId + ":" + planId), anyString()))
+                .thenReturn(true);
+        when(jobQueue.offer(anyString(), anyString(), eq(8), anyInt())).thenReturn(true);
+
+        // when
+        String taskId = service.submitSolve(req);
+
+        // then
+        ArgumentCaptor<String> payloadCaptor = ArgumentCaptor.forClass(String.class);
+        verify(jobQueue, times(1)).offer(eq(taskId), payloadCaptor.capture(), eq(8), anyInt());
+        QueuedSolveDTO queued = new ObjectMapper().readValue(payloadCaptor.getValue(), QueuedSolveDTO.class);
+        assertEquals(taskId, queued.getTaskId());
+        assertEquals(planId, queued.getRequest().getPlanId());
+        verify(solveDispatcher, never()).submit(any(SolveDispatcher.Ticket.class), any(Runnable.class));
+        verify(jobLease, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void cancelSolve_queued_shouldDequeue_markCancelled_andReleaseLease() {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        DispatchSolveJobDO job = buildJob(tenantId, planId, "t1", SolveTaskStatus.ACCEPTED.code());
+        when(solveJobMapper.selectOne(any())).thenReturn(job);
+        when(solveDispatcher.cancel("t1")).thenReturn(true);
+
+        // when
+        var vo = service.cancelSolve(tenantId, planId, "t1", false);
+
+        // then
+        assertEquals(SolveTaskStatus.CANCELLED.code(), vo.getStatus());
+        assertTrue(lastPlanUpdate().contains(SolveTaskStatus.CANCELLED.code()));
+        verify(solveJobMapper, times(1)).updateById(job);
+        assertEquals(SolveTaskStatus.CANCELLED.code(), job.getStatus());
+        verify(jobLease, times(1)).release("solve:" + tenantId + ":" + planId, "t1");
+        verify(progressHub, times(1)).status(argThat(s -> SolveTaskStatus.CANCELLED.code().equals(s.getStatus())));
+        verify(statusCache, times(1)).put(argThat(s -> !s.active()));
+    }
+
+    @Test
+    void cancelSolve_runningOnOtherNode_shouldOnlySignalStop() {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        clusterProperties.setEnabled(true);
+        DispatchSolveJobDO job = buildJob(tenantId, planId, "t1", SolveTaskStatus.RUNNING.code());
+        when(solveJobMapper.selectOne(any())).thenReturn(job);
+        when(jobQueue.signalStop("t1", "ACCEPT_BEST")).thenReturn(true);
+
+        // when
+        var vo = service.cancelSolve(tenantId, planId, "t1", true);
+
+        // then
+        assertEquals(SolveTaskStatus.RUNNING.code(), vo.getStatus());
+        verify(jobQueue, times(1)).signalStop("t1", "ACCEPT_BEST");
+        verify(solveJobMapper, never()).updateById(any(DispatchSolveJobDO.class));
+        verify(jobLease, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void submitSolve_activeJobCached_shouldReturnSameTaskId_withoutQueryingDb() {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        when(statusCache.activeJob(tenantId, planId)).thenReturn(new SolveJobStatusCache.JobState(
+                "t1", tenantId, planId, SolveTaskStatus.RUNNING.code(), "RUNNING"));
 
-        verify(serviceSpy, times(1)).runAsync(eq(req), eq(taskId));
+        // when
+        String taskId = service.submitSolve(buildReq(tenantId, planId));
+
+        // then
+        assertEquals("t1", taskId);
+        verifyNoInteractions(solveJobMapper, jobLease, solveDispatcher);
+    }
+
+    @Test
+    void submitSolve_noActiveJobCached_shouldCreateJob_withoutQueryingDb() {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        when(statusCache.activeJob(tenantId, planId)).thenReturn(SolveJobStatusCache.NONE);
+        when(jobLease.acquire(eq("solve:" + tenantId + ":" + planId), anyString())).thenReturn(true);
+        when(solveDispatcher.submit(any(SolveDispatcher.Ticket.class), any(Runnable.class)))
+                .thenReturn(SolveDispatcher.Admission.ACCEPTED);
+
+        // when
+        String taskId = service.submitSolve(buildReq(tenantId, planId));
+
+        // then
+        verify(solveJobMapper, never()).selectOne(any());
+        verify(solveJobMapper, times(1)).insert(any(DispatchSolveJobDO.class));
+        verify(statusCache, times(1)).put(argThat(s -> s.taskId().equals(taskId) && s.active()));
+    }
+
+    @Test
+    void runSolve_resultCached_shouldReuseResult_withoutBuildingMatrix() {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        DispatchPlanDO plan = new DispatchPlanDO();
+        plan.setId(planId);
+        plan.setActiveVersion(3L);
+        plan.setStatus(SolveTaskStatus.SOLVED.code());
+        when(planMapper.selectOne(any())).thenReturn(plan);
+
+        DispatchVehicleDO vehicle = new DispatchVehicleDO();
+        vehicle.setId(10L);
+        vehicle.setStartNodeId(1L);
+        vehicle.setEndNodeId(1L);
+        when(vehicleMapper.selectAvailableForSolve(eq(tenantId), any())).thenReturn(List.of(vehicle));
+
+        DispatchTaskSolveRow row = new DispatchTaskSolveRow();
+        row.setId(100L);
+        row.setNodeId(2L);
+        row.setLat(31.2);
+        row.setLng(121.4);
+        doAnswer(inv -> {
+            DefaultResultContext<DispatchTaskSolveRow> context = new DefaultResultContext<>();
+            context.nextResultObject(row);
+            inv.<PlanInputs.TaskCollector>getArgument(3).handleResult(context);
+            return null;
+        }).when(taskMapper).streamWaitingForSolve(eq(tenantId), eq(planId), any(), any());
+
+        MatrixProvider provider = mock(MatrixProvider.class);
+        when(provider.name()).thenReturn("haversine");
+        when(matrixService.resolve(tenantId)).thenReturn(provider);
+        when(resultCache.get(eq(tenantId), eq(planId), anyString()))
+                .thenReturn(new SolveResultCache.Entry(new SolveResult(), 3L));
+
+        when(jobLease.adopt(eq("solve:1:1001"), eq("t2"), eq("t2"), any())).thenReturn(true);
+
+        // when：缓存在求解线程上、持有方案租约时查询
+        assertTrue(service.runSolve(buildReq(tenantId, planId), "t2", "t2"));
+
+        // then
+        assertTrue(lastPlanUpdate().contains(SolveTaskStatus.SOLVED.code()));
+        verify(statusCache).put(argThat(s -> "t2".equals(s.taskId())
+                && SolveTaskStatus.SOLVED.code().equals(s.status())));
+        verify(matrixService, never()).build(any());
+        verifyNoInteractions(solverEngine, resultWriter);
+        verify(jobLease).release("solve:1:1001", "t2");
+    }
+
+    @Test
+    void runSolve_leaseConflict_shouldMarkJobAndPlanFailed() {
+        // given
+        long tenantId = 1L;
+        long planId = 1001L;
+        when(jobLease.adopt(eq("solve:" + tenantId + ":" + planId), eq("t1"), eq("t1"), any())).thenReturn(false);
+
+        // when
+        service.runSolve(buildReq(tenantId, planId), "t1");
+
+        // then
+        assertTrue(lastPlanUpdate().contains(SolveTaskStatus.FAILED.code()));
+        verify(readCache, times(1)).invalidatePlan(tenantId, planId);
+        verify(solveJobMapper, times(1)).update(isNull(), any());
+        verify(statusCache, times(1)).put(argThat(s -> "t1".equals(s.taskId())
+                && SolveTaskStatus.FAILED.code().equals(s.status())));
+        verify(jobLease, never()).release(anyString(), anyString());
+        verifyNoInteractions(matrixService, solverEngine);
+    }
+
+    @Test
+    void runSolve_previousClaimHoldsLease_shouldNotWriteStatus() {
+        String lockKey = "solve:1:1001";
+        when(jobLease.adopt(eq(lockKey), eq("t1"), eq("t1#w2#2"), any())).thenReturn(false);
+        when(jobLease.owner(lockKey)).thenReturn("t1#w1#1");
+
+        assertFalse(service.runSolve(buildReq(1L, 1001L), "t1", "t1#w2#2"));
+
+        verify(planMapper, never()).update(any(), any());
+        verify(solveJobMapper, never()).update(any(), any());
+        verifyNoInteractions(matrixService, solverEngine);
+    }
+
+    @Test
+    void runSolve_leaseLost_shouldOnlyFailJob() {
+        // 接手后看门狗立即发现租约已被他人持有
+        when(jobLease.adopt(eq("solve:1:1001"), eq("t1"), eq("t1"), any())).thenAnswer(inv -> {
+            inv.<Runnable>getArgument(3).run();
+            return true;
+        });
+
+        assertTrue(service.runSolve(buildReq(1L, 1001L), "t1", "t1"));
+
+        verify(planMapper, never()).update(any(), any());
+        verify(solveJobMapper, times(1)).update(isNull(), any());
+        verify(statusCache).put(argThat(s -> "t1".equals(s.taskId())
+                && SolveTaskStatus.FAILED.code().equals(s.status())));
+        verify(jobLease).release("solve:1:1001", "t1");
+        verifyNoInteractions(matrixService, solverEngine);
+    }
+
+    /**
+     * 最近一次方案状态更新里 set 的值
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Collection<Object> lastPlanUpdate() {
+        ArgumentCaptor<LambdaUpdateWrapper<DispatchPlanDO>> captor = (ArgumentCaptor) ArgumentCaptor
+                .forClass(LambdaUpdateWrapper.class);
+        verify(planMapper, atLeastOnce()).update(isNull(), captor.capture());
+        return captor.getValue().getParamNameValuePairs().values();
+    }
 
-        verify(distributedLock, never()).unlock(anyString());
+    private DispatchSolveJobDO buildJob(long tenantId, long planId, String taskId, String status) {
+        DispatchSolveJobDO job = new DispatchSolveJobDO();
+        job.setTenantId(tenantId);
+        job.setPlanId(planId);
+        job.setTaskId(taskId);
+        job.setStatus(status);
+        return job;
     }
 
     private SolveRequestDTO buildReq(long tenantId, long planId) {
@@ -0,0 +1,55 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteStopMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchUnassignedMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单测目标：
+ * 1) 未到延迟时间不清理
+ * 2) 到期后按 batchSize 分批删除，直到某一批不满
+ * 3) 同一方案多次切换只按最新版本清理一次
+ */
+class SolutionPurgerTest {
+
+    private final DispatchRouteMapper routeMapper = mock(DispatchRouteMapper.class);
+    private final DispatchRouteStopMapper stopMapper = mock(DispatchRouteStopMapper.class);
+    private final DispatchUnassignedMapper unassignedMapper = mock(DispatchUnassignedMapper.class);
+
+    @Test
+    void purge_beforeDelay_shouldKeepPending() {
+        SolutionPurger purger = new SolutionPurger(routeMapper, stopMapper, unassignedMapper, 60_000, 100);
+        purger.schedule(1L, 1001L, 2L);
+
+        purger.purge();
+
+        assertEquals(1, purger.pendingCount());
+        verifyNoInteractions(routeMapper, stopMapper, unassignedMapper);
+    }
+
+    @Test
+    void purge_whenDue_shouldDeleteInBatchesUntilShortBatch() {
+        SolutionPurger purger = new SolutionPurger(routeMapper, stopMapper, unassignedMapper, 0, 100);
+        when(stopMapper.purgeStale(1L, 1001L, 3L, 100)).thenReturn(100, 100, 40);
+        when(routeMapper.purgeStale(1L, 1001L, 3L, 100)).thenReturn(12);
+        when(unassignedMapper.purgeStale(1L, 1001L, 3L, 100)).thenReturn(0);
+
+        purger.schedule(1L, 1001L, 2L);
+        purger.schedule(1L, 1001L, 3L);
+        purger.purge();
+
+        assertEquals(0, purger.pendingCount());
+        verify(stopMapper, times(3)).purgeStale(1L, 1001L, 3L, 100);
+        verify(routeMapper, times(1)).purgeStale(1L, 1001L, 3L, 100);
+        verify(unassignedMapper, times(1)).purgeStale(1L, 1001L, 3L, 100);
+        verify(stopMapper, never()).purgeStale(anyLong(), anyLong(), eq(2L), anyInt());
+
+        purger.purge();
+        verify(routeMapper, times(1)).purgeStale(anyLong(), anyLong(), anyLong(), anyInt());
+    }
+}
@@ -0,0 +1,138 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 单测目标：
+ * 1) 租户之间按公平份额轮转，同租户内按优先级执行
+ * 2) 单租户并发上限生效
+ * 3) 排队位置与调度顺序一致
+ * 4) 队列满、租户预估代价超限时拒绝
+ * 5) 线程池拒绝启动后，定时重试在线程释放时启动排队的任务
+ */
+class SolveDispatcherTest {
+
+    private final Deque<Runnable> started = new ArrayDeque<>();
+    private final List<String> ran = new ArrayList<>();
+    /** 模拟线程池被辅助搜索占满 */
+    private boolean saturated;
+    private SolveSchedulerProperties properties;
+    private SolveDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        // 线程池只记录提交的任务，由测试按顺序手动执行
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        doAnswer(inv -> {
+            if (saturated)
+                throw new RejectedExecutionException("saturated");
+            return started.add(inv.getArgument(0));
+        }).when(executor).execute(any(Runnable.class));
+
+        properties = new SolveSchedulerProperties();
+        properties.setMaxRunning(1);
+        properties.setTenantMaxRunning(1);
+        properties.setQueueCapacity(10);
+        properties.setTenantMaxQueuedCost(0);
+        dispatcher = new SolveDispatcher(executor, properties);
+    }
+
+    @Test
+    void submit_shouldShareFairlyAcrossTenants_andOrderByPriorityWithinTenant() {
+        submit("a1", 1L, 5);
+        submit("a2", 1L, 1);
+        submit("a3", 1L, 9);
+        submit("b1", 2L, 5);
+
+        assertEquals(1, started.size());
+        assertEquals(3, dispatcher.queued());
+        // 租户 1 已用掉一份，租户 2 先执行；租户 1 内优先级高者在前
+        assertEquals(1, dispatcher.queueInfo("b1").position());
+        assertEquals(2, dispatcher.queueInfo("a3").position());
+        assertEquals(3, dispatcher.queueInfo("a2").position());
+        assertTrue(dispatcher.queueInfo("a2").expectedStartMillis() > dispatcher.queueInfo("b1").expectedStartMillis());
+        assertNull(dispatcher.queueInfo("a1"));
+
+        runAll();
+
+        assertEquals(List.of("a1", "b1", "a3", "a2"), ran);
+        assertEquals(0, dispatcher.queued());
+    }
+
+    @Test
+    void submit_shouldRespectTenantConcurrencyLimit() {
+        properties.setMaxRunning(2);
+
+        submit("a1", 1L, 5);
+        submit("a2", 1L, 5);
+        submit("b1", 2L, 5);
+
+        // 总并发 2，但租户 1 只能占 1 个
+        assertEquals(2, started.size());
+        assertEquals(1, dispatcher.queued());
+        assertEquals(1, dispatcher.queueInfo("a2").position());
+
+        runAll();
+        assertEquals(List.of("a1", "b1", "a2"), ran);
+    }
+
+    @Test
+    void submit_shouldRejectWhenQueueFullOrTenantBudgetExceeded() {
+        properties.setQueueCapacity(1);
+        properties.setTenantMaxQueuedCost(150);
+
+        assertEquals(SolveDispatcher.Admission.ACCEPTED, submit("a1", 1L, 5));
+        // 租户 1 已有 100 的负载，再加 100 超过上限
+        assertEquals(SolveDispatcher.Admission.TENANT_BUDGET_EXCEEDED, submit("a2", 1L, 5));
+        assertEquals(SolveDispatcher.Admission.ACCEPTED, submit("b1", 2L, 5));
+        assertEquals(SolveDispatcher.Admission.QUEUE_FULL, submit("c1", 3L, 5));
+
+        runAll();
+        assertEquals(List.of("a1", "b1"), ran);
+    }
+
+    @Test
+    void redrain_afterExecutorRejected_shouldStartQueuedJob() {
+        saturated = true;
+        assertEquals(SolveDispatcher.Admission.ACCEPTED, submit("a1", 1L, 5));
+        assertTrue(started.isEmpty());
+        assertEquals(1, dispatcher.queued());
+
+        // 线程仍被占满：重试后继续排队
+        dispatcher.redrain();
+        assertEquals(1, dispatcher.queued());
+
+        saturated = false;
+        dispatcher.redrain();
+        assertEquals(0, dispatcher.queued());
+        runAll();
+        assertEquals(List.of("a1"), ran);
+
+        // 没有被拒绝过时重试不做任何事
+        dispatcher.redrain();
+        assertTrue(started.isEmpty());
+    }
+
+    private SolveDispatcher.Admission submit(String taskId, Long tenantId, int priority) {
+        return dispatcher.submit(new SolveDispatcher.Ticket(taskId, tenantId, priority, 100, 10),
+                () -> ran.add(taskId));
+    }
+
+    private void runAll() {
+        while (!started.isEmpty())
+            started.poll().run();
+    }
+}
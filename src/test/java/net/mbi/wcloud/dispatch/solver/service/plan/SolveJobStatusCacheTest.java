@@ -0,0 +1,79 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标（单实例，只用本地缓存）：
+ * 1) 活跃任务按方案可查，进入终态后返回"没有活跃任务"，但状态仍可按 taskId 读取
+ * 2) 同一方案的旧任务结束时不会清掉新任务的活跃标记
+ * 3) 查库确认没有活跃任务后缓存 NONE，新任务写入时覆盖；NONE 不覆盖已有的活跃任务
+ * 4) 关闭后一律返回 null（回源数据库）
+ */
+class SolveJobStatusCacheTest {
+
+    @Test
+    void activeJob_shouldFollowStateTransitions() {
+        SolveJobStatusCache cache = cache(new SolveStatusCacheProperties());
+
+        cache.put(state("t1", SolveTaskStatus.ACCEPTED));
+        assertEquals("t1", cache.activeJob(1L, 1001L).taskId());
+
+        cache.put(state("t1", SolveTaskStatus.RUNNING));
+        assertEquals(SolveTaskStatus.RUNNING.code(), cache.activeJob(1L, 1001L).status());
+
+        cache.put(state("t1", SolveTaskStatus.SOLVED));
+        assertSame(SolveJobStatusCache.NONE, cache.activeJob(1L, 1001L));
+        assertEquals(SolveTaskStatus.SOLVED.code(), cache.get("t1").status());
+        assertNull(cache.activeJob(1L, 1002L));
+    }
+
+    @Test
+    void put_finishedOldJob_shouldNotClearNewActiveJob() {
+        SolveJobStatusCache cache = cache(new SolveStatusCacheProperties());
+
+        cache.put(state("t2", SolveTaskStatus.ACCEPTED));
+        cache.put(state("t1", SolveTaskStatus.FAILED));
+
+        assertEquals("t2", cache.activeJob(1L, 1001L).taskId());
+    }
+
+    @Test
+    void putNoActive_shouldBeCached_untilNewJobIsPut() {
+        SolveJobStatusCache cache = cache(new SolveStatusCacheProperties());
+
+        cache.putNoActive(1L, 1001L);
+        assertSame(SolveJobStatusCache.NONE, cache.activeJob(1L, 1001L));
+
+        cache.put(state("t1", SolveTaskStatus.ACCEPTED));
+        assertEquals("t1", cache.activeJob(1L, 1001L).taskId());
+
+        cache.putNoActive(1L, 1001L);
+        assertEquals("t1", cache.activeJob(1L, 1001L).taskId());
+    }
+
+    @Test
+    void disabled_shouldAlwaysMiss() {
+        SolveStatusCacheProperties properties = new SolveStatusCacheProperties();
+        properties.setEnabled(false);
+        SolveJobStatusCache cache = cache(properties);
+
+        cache.put(state("t1", SolveTaskStatus.RUNNING));
+        cache.putNoActive(1L, 1002L);
+
+        assertNull(cache.get("t1"));
+        assertNull(cache.activeJob(1L, 1002L));
+        assertNull(cache.activeJob(1L, 1001L));
+    }
+
+    private static SolveJobStatusCache cache(SolveStatusCacheProperties properties) {
+        return new SolveJobStatusCache(properties, new SolveClusterProperties(), null, new ObjectMapper());
+    }
+
+    private static SolveJobStatusCache.JobState state(String taskId, SolveTaskStatus status) {
+        return new SolveJobStatusCache.JobState(taskId, 1L, 1001L, status.code(), status.code());
+    }
+}
@@ -0,0 +1,86 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveProgressVO;
+import net.mbi.wcloud.dispatch.solver.controller.admin.plan.vo.SolveTaskStatusVO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveTaskStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标（单机模式，推送线程用同步执行器）：
+ * 1) 订阅时先推送当前状态；进度只推送更优的解
+ * 2) 终态推送后关闭连接并移除订阅者
+ * 3) 订阅时已是终态：推送后直接关闭
+ */
+class SolveProgressHubTest {
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    private final SolveProgressHub hub = new SolveProgressHub(Runnable::run, new SolveClusterProperties(), null,
+            new ObjectMapper(), 60_000) {
+        @Override
+        SseEmitter newEmitter() {
+            RecordingEmitter e = new RecordingEmitter();
+            emitters.add(e);
+            return e;
+        }
+    };
+
+    @Test
+    void progress_shouldFanOutOnlyImprovingSolutions_andCloseOnTerminalStatus() {
+        hub.subscribe("t1", () -> new SolveTaskStatusVO("t1", SolveTaskStatus.RUNNING.code(), "RUNNING"));
+        hub.subscribe("t1", () -> new SolveTaskStatusVO("t1", SolveTaskStatus.RUNNING.code(), "RUNNING"));
+        assertEquals(2, hub.subscriberCount("t1"));
+
+        hub.progress("t1", 1000, 10, 100);
+        hub.progress("t1", 1200, 12, 200);
+        hub.progress("t1", 900, 12, 300);
+        hub.progress("t2", 500, 1, 100);
+        hub.status(new SolveTaskStatusVO("t1", SolveTaskStatus.SOLVED.code(), "OK"));
+
+        for (RecordingEmitter e : emitters) {
+            assertEquals(4, e.sent.size());
+            assertEquals(1000, ((SolveProgressVO) e.sent.get(1)).getObjective());
+            assertEquals(900, ((SolveProgressVO) e.sent.get(2)).getObjective());
+            assertEquals(SolveTaskStatus.SOLVED.code(), ((SolveTaskStatusVO) e.sent.get(3)).getStatus());
+            assertTrue(e.completed);
+        }
+        assertEquals(0, hub.subscriberCount("t1"));
+    }
+
+    @Test
+    void subscribe_toFinishedTask_shouldSendStatusAndComplete() {
+        hub.subscribe("t1", () -> new SolveTaskStatusVO("t1", SolveTaskStatus.CANCELLED.code(), "Cancelled"));
+
+        RecordingEmitter e = emitters.get(0);
+        assertEquals(1, e.sent.size());
+        assertTrue(e.completed);
+        assertEquals(0, hub.subscriberCount("t1"));
+    }
+
+    /**
+     * 记录写出的事件数据，不依赖 servlet 容器
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<Object> sent = new ArrayList<>();
+        boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .filter(d -> !(d.getData() instanceof String))
+                    .forEach(d -> sent.add(d.getData()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveOptionsDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.MatrixData;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveInput;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.TaskNode;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.VehicleResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：
+ * 1) 相同输入 + 参数得到相同摘要；任务、坐标、矩阵提供者、参数、租户任一变化摘要都变化，摘要不读取矩阵
+ * 2) 条目按租户/方案隔离，增量插入后整方案失效
+ * 3) 缓存按结果行数限重
+ */
+class SolveResultCacheTest {
+
+    @Test
+    void digest_shouldBeStableForSameInput_andChangeWithAnyInput() {
+        String base = SolveResultCache.digest(input(1L), new SolveOptionsDTO(), "haversine");
+        assertEquals(base, SolveResultCache.digest(input(1L), new SolveOptionsDTO(), "haversine"));
+        assertEquals(64, base.length());
+
+        SolveInput taskChanged = input(1L);
+        taskChanged.getTasks().get(0).setTwEndSec(3600);
+        assertNotEquals(base, SolveResultCache.digest(taskChanged, new SolveOptionsDTO(), "haversine"));
+
+        SolveInput moved = input(1L);
+        moved.getNodeLat()[1] = 31.26;
+        assertNotEquals(base, SolveResultCache.digest(moved, new SolveOptionsDTO(), "haversine"));
+
+        assertNotEquals(base, SolveResultCache.digest(input(1L), new SolveOptionsDTO(), "table"));
+
+        SolveOptionsDTO options = new SolveOptionsDTO();
+        options.setTimeLimitSeconds(30);
+        assertNotEquals(base, SolveResultCache.digest(input(1L), options, "haversine"));
+
+        assertNotEquals(base, SolveResultCache.digest(input(2L), new SolveOptionsDTO(), "haversine"));
+
+        SolveInput warm = input(1L);
+        warm.setInitialRoutes(Map.of(10L, List.of(100L)));
+        assertNotEquals(base, SolveResultCache.digest(warm, new SolveOptionsDTO(), "haversine"));
+
+        // 不读取矩阵：查缓存时尚未构建
+        SolveInput noMatrix = input(1L);
+        noMatrix.setMatrix(null);
+        assertEquals(base, SolveResultCache.digest(noMatrix, new SolveOptionsDTO(), "haversine"));
+    }
+
+    @Test
+    void get_shouldBeScopedToTenantAndPlan_andInvalidatedPerPlan() {
+        SolveResultCache cache = new SolveResultCache(new SolveResultCacheProperties());
+        SolveResult result = result(2);
+        cache.put(1L, 1001L, "abc", result, 4L);
+        cache.put(1L, 1002L, "abc", result, 1L);
+
+        assertSame(result, cache.get(1L, 1001L, "abc").result());
+        assertEquals(4L, cache.get(1L, 1001L, "abc").version());
+        assertNull(cache.get(2L, 1001L, "abc"));
+        assertNull(cache.get(1L, 1001L, "abd"));
+
+        cache.invalidatePlan(1L, 1001L);
+        assertNull(cache.get(1L, 1001L, "abc"));
+        assertNotNull(cache.get(1L, 1002L, "abc"));
+    }
+
+    @Test
+    void put_shouldEvictByResultRows() {
+        SolveResultCacheProperties properties = new SolveResultCacheProperties();
+        properties.setMaximumRows(20);
+        SolveResultCache cache = new SolveResultCache(properties);
+
+        // 1 + (1 + 8) rows each
+        for (int i = 0; i < 5; i++)
+            cache.put(1L, 1001L, "d" + i, result(8), i);
+
+        assertTrue(cache.size() <= 2);
+    }
+
+    private static SolveInput input(Long tenantId) {
+        VehicleResource v = new VehicleResource();
+        v.setVehicleId(10L);
+        v.setStartNodeId(1L);
+        v.setEndNodeId(1L);
+        v.setCapacityWeight(100);
+        v.setWorkEndSec(86400);
+
+        TaskNode t = new TaskNode();
+        t.setTaskId(100L);
+        t.setNodeId(2L);
+        t.setTwEndSec(86400);
+        t.setServiceTimeSec(300);
+        t.setDemandWeight(5);
+
+        MatrixData matrix = MatrixData.allocate(2);
+        matrix.set(0, 1, 1200, 180);
+        matrix.set(1, 0, 1250, 190);
+
+        SolveInput input = new SolveInput();
+        input.setTenantId(tenantId);
+        input.setPlanId(1001L);
+        input.setVehicles(new ArrayList<>(List.of(v)));
+        input.setTasks(new ArrayList<>(List.of(t)));
+        input.setIndexToNodeId(List.of(1L, 2L));
+        input.setNodeLat(new double[] { 31.23, 31.25 });
+        input.setNodeLng(new double[] { 121.47, 121.50 });
+        input.setMatrix(matrix);
+        return input;
+    }
+
+    private static SolveResult result(int stops) {
+        SolveResult r = new SolveResult();
+        SolveResult.RouteResult route = new SolveResult.RouteResult();
+        for (int i = 0; i < stops; i++)
+            route.getStops().add(new SolveResult.StopResult());
+        r.getRoutes().add(route);
+        return r;
+    }
+}
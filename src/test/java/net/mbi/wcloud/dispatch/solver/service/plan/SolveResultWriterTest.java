@@ -0,0 +1,149 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchPlanDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchRouteStopDO;
+import net.mbi.wcloud.dispatch.solver.dal.dataobject.DispatchUnassignedDO;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchPlanMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchRouteStopMapper;
+import net.mbi.wcloud.dispatch.solver.dal.mysql.DispatchUnassignedMapper;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单测目标：
+ * 1) 路线、停靠点、未分配按 batchSize 分批多行写入，不再逐行 insert
+ * 2) 停靠点关联批量回填的路线主键
+ * 3) 整个写入在一个事务内提交，各阶段耗时有记录
+ * 4) 写入新版本后比较并切换生效版本，旧版本交给后台清理；切换冲突时回滚
+ */
+class SolveResultWriterTest {
+
+    private final DispatchRouteMapper routeMapper = mock(DispatchRouteMapper.class);
+    private final DispatchRouteStopMapper stopMapper = mock(DispatchRouteStopMapper.class);
+    private final DispatchUnassignedMapper unassignedMapper = mock(DispatchUnassignedMapper.class);
+    private final DispatchPlanMapper planMapper = mock(DispatchPlanMapper.class);
+    private final SolutionPurger purger = mock(SolutionPurger.class);
+    private final PlanReadCache readCache = mock(PlanReadCache.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void write_shouldInsertInBatches_andLinkStopsToGeneratedRouteIds() {
+        AtomicLong ids = new AtomicLong(100);
+        List<List<DispatchRouteDO>> routeBatches = new ArrayList<>();
+        when(routeMapper.insertBatch(anyList())).thenAnswer(inv -> {
+            List<DispatchRouteDO> rows = inv.getArgument(0);
+            rows.forEach(r -> r.setId(ids.incrementAndGet()));
+            routeBatches.add(new ArrayList<>(rows));
+            return rows.size();
+        });
+        List<DispatchRouteStopDO> stops = new ArrayList<>();
+        when(stopMapper.insertBatch(anyList())).thenAnswer(inv -> {
+            List<DispatchRouteStopDO> rows = inv.getArgument(0);
+            stops.addAll(rows);
+            return rows.size();
+        });
+        List<DispatchUnassignedDO> unassigned = new ArrayList<>();
+        when(unassignedMapper.insertBatch(anyList())).thenAnswer(inv -> {
+            List<DispatchUnassignedDO> rows = inv.getArgument(0);
+            unassigned.addAll(rows);
+            return rows.size();
+        });
+        when(planMapper.selectOne(any())).thenReturn(plan(3L));
+        when(planMapper.switchActiveVersion(1L, 1001L, 3L, 4L)).thenReturn(1);
+
+        long version = writer().write(1L, 1001L, result(3, 3, 1));
+
+        assertEquals(2, routeBatches.size());
+        assertEquals(2, routeBatches.get(0).size());
+        assertEquals(1, routeBatches.get(1).size());
+        verify(stopMapper, times(5)).insertBatch(anyList());
+        verify(unassignedMapper, times(1)).insertBatch(anyList());
+        verify(routeMapper, never()).insert(any(DispatchRouteDO.class));
+        verify(stopMapper, never()).insert(any(DispatchRouteStopDO.class));
+        verify(unassignedMapper, never()).insert(any(DispatchUnassignedDO.class));
+
+        assertEquals(9, stops.size());
+        for (int i = 0; i < 9; i++)
+            assertEquals(101L + i / 3, stops.get(i).getRouteId());
+
+        assertEquals(4L, version);
+        routeBatches.forEach(b -> b.forEach(r -> assertEquals(4L, r.getSolutionVersion())));
+        stops.forEach(st -> assertEquals(4L, st.getSolutionVersion()));
+        assertEquals(4L, unassigned.get(0).getSolutionVersion());
+        verify(routeMapper, never()).delete(any());
+        verify(purger).schedule(1L, 1001L, 4L);
+        verify(readCache).invalidatePlan(1L, 1001L);
+
+        verify(txManager, times(1)).getTransaction(any());
+        verify(txManager, times(1)).commit(any());
+        assertEquals(1, registry.get("dispatch.solve.persist").tag("phase", "stops").timer().count());
+    }
+
+    @Test
+    void write_whenVersionSwitchedConcurrently_shouldRollBack_andNotSchedulePurge() {
+        when(routeMapper.insertBatch(anyList())).thenAnswer(inv -> {
+            List<DispatchRouteDO> rows = inv.getArgument(0);
+            rows.forEach(r -> r.setId(1L));
+            return rows.size();
+        });
+        when(planMapper.selectOne(any())).thenReturn(plan(null));
+        when(planMapper.switchActiveVersion(1L, 1001L, 0L, 1L)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> writer().write(1L, 1001L, result(1, 1, 0)));
+
+        verify(txManager).rollback(any());
+        verify(txManager, never()).commit(any());
+        verify(purger, never()).schedule(anyLong(), anyLong(), anyLong());
+    }
+
+    private SolveResultWriter writer() {
+        return new SolveResultWriter(routeMapper, stopMapper, unassignedMapper, planMapper, purger, readCache,
+                new TransactionTemplate(txManager), registry, 2);
+    }
+
+    private static DispatchPlanDO plan(Long activeVersion) {
+        DispatchPlanDO plan = new DispatchPlanDO();
+        plan.setId(1001L);
+        plan.setTenantId(1L);
+        plan.setActiveVersion(activeVersion);
+        return plan;
+    }
+
+    private static SolveResult result(int routes, int stopsPerRoute, int unassigned) {
+        SolveResult r = new SolveResult();
+        long task = 1;
+        for (int v = 0; v < routes; v++) {
+            SolveResult.RouteResult rr = new SolveResult.RouteResult();
+            rr.setVehicleId(10L + v);
+            for (int s = 0; s < stopsPerRoute; s++) {
+                SolveResult.StopResult sr = new SolveResult.StopResult();
+                sr.setSeq(s);
+                sr.setTaskId(task++);
+                sr.setNodeId(task);
+                rr.getStops().add(sr);
+            }
+            r.getRoutes().add(rr);
+        }
+        for (int u = 0; u < unassigned; u++) {
+            SolveResult.UnassignedResult ur = new SolveResult.UnassignedResult();
+            ur.setTaskId(task++);
+            ur.setReasonCode("DROPPED");
+            r.getUnassigned().add(ur);
+        }
+        return r;
+    }
+}
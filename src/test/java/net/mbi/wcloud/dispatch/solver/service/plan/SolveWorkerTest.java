@@ -0,0 +1,194 @@
+package net.mbi.wcloud.dispatch.solver.service.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.mbi.wcloud.dispatch.solver.framework.queue.InMemoryDistributedJobQueue;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.QueuedSolveDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.dto.SolveRequestDTO;
+import net.mbi.wcloud.dispatch.solver.service.plan.model.SolveControl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单测目标（集群队列用本地替身 InMemoryDistributedJobQueue）：
+ * 1) 工作节点按空闲名额、按优先级领取，执行结束后出队
+ * 2) 续租中的任务不会被回收
+ * 3) 工作节点失联：租约过期后任务重新入队由其他节点执行，领取次数用完后标记失败
+ * 4) 续租失败：本地求解被放弃（不写状态、不出队），每次领取使用不同的方案租约持有者
+ * 5) 放回队列的任务保持原优先级，退避期内不会被再次领取
+ */
+class SolveWorkerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final InMemoryDistributedJobQueue queue = new InMemoryDistributedJobQueue(clock::get);
+    private final PlanSolveServiceImpl solveService = mock(PlanSolveServiceImpl.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        when(solveService.runSolve(any(SolveRequestDTO.class), anyString(), anyString())).thenReturn(true);
+    }
+
+    @Test
+    void poll_shouldClaimByPriorityUpToFreeSlots_andCompleteAfterRun() throws Exception {
+        Node node = new Node("w1", 2);
+        offer("j1", 1);
+        offer("j2", 9);
+        offer("j3", 5);
+
+        node.worker.poll();
+
+        assertEquals(2, node.started.size());
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.position("j1"));
+
+        node.runAll();
+        verify(solveService).runSolve(any(SolveRequestDTO.class), eq("j2"), eq("j2#w1#1"));
+        verify(solveService).runSolve(any(SolveRequestDTO.class), eq("j3"), eq("j3#w1#1"));
+
+        node.worker.poll();
+        node.runAll();
+        verify(solveService).runSolve(any(SolveRequestDTO.class), eq("j1"), eq("j1#w1#1"));
+        assertEquals(0, queue.size());
+        // 已出队：租约过期也不会再被回收
+        clock.addAndGet(60_000);
+        assertEquals(0, queue.reapExpired(3).requeued());
+    }
+
+    @Test
+    void heartbeat_shouldKeepLease() throws Exception {
+        Node node = new Node("w1", 1);
+        offer("j1", 5);
+        node.worker.poll();
+
+        clock.addAndGet(20_000);
+        node.worker.heartbeat();
+        clock.addAndGet(20_000);
+
+        assertEquals(0, queue.reapExpired(3).requeued());
+    }
+
+    @Test
+    void reap_shouldRequeueJobOfLostWorker_andFailAfterMaxAttempts() throws Exception {
+        Node lost = new Node("w1", 1);
+        Node other = new Node("w2", 1);
+        other.properties.setMaxAttempts(2);
+        offer("j1", 5);
+
+        // w1 领取后失联：不执行、不续租
+        lost.worker.poll();
+        assertEquals(1, lost.started.size());
+
+        clock.addAndGet(31_000);
+        other.worker.reap();
+        assertEquals(1, queue.size());
+
+        other.worker.poll();
+        assertEquals(1, other.started.size());
+
+        // w2 也失联，领取次数用完
+        clock.addAndGet(31_000);
+        other.worker.reap();
+        assertEquals(0, queue.size());
+        verify(solveService).failAbandoned(eq("j1"), anyString());
+    }
+
+    @Test
+    void heartbeat_leaseLost_shouldAbandonLocalSolve_andLetNewClaimRun() throws Exception {
+        Node lost = new Node("w1", 1);
+        Node other = new Node("w2", 1);
+        offer("j1", 5);
+
+        // w1 开始执行后长时间没能续租，任务被回收并由 w2 领取
+        lost.worker.poll();
+        Runnable stale = lost.started.poll();
+        clock.addAndGet(31_000);
+        other.worker.reap();
+        other.worker.poll();
+
+        lost.worker.heartbeat();
+        verify(solveService).requestStop("j1", SolveControl.Stop.ABANDON);
+
+        // 旧的执行不再求解，也不会把新领取的任务出队
+        stale.run();
+        verify(solveService, never()).runSolve(any(SolveRequestDTO.class), eq("j1"), eq("j1#w1#1"));
+        other.runAll();
+        verify(solveService).runSolve(any(SolveRequestDTO.class), eq("j1"), eq("j1#w2#2"));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void run_previousClaimStillHoldsLease_shouldReleaseBackToQueue() throws Exception {
+        when(solveService.runSolve(any(SolveRequestDTO.class), eq("j1"), anyString())).thenReturn(false);
+        Node node = new Node("w2", 1);
+        offer("j1", 5);
+
+        node.worker.poll();
+        node.runAll();
+
+        assertEquals(1, queue.size());
+        verify(solveService, never()).failAbandoned(anyString(), anyString());
+
+        // 放回后仍排在低优先级任务之前，但退避期内不会被领取
+        offer("j2", 1);
+        assertEquals(1, queue.position("j1"));
+        node.worker.poll();
+        node.runAll();
+        verify(solveService).runSolve(any(SolveRequestDTO.class), eq("j2"), eq("j2#w2#1"));
+        verify(solveService, times(1)).runSolve(any(SolveRequestDTO.class), eq("j1"), anyString());
+
+        clock.addAndGet(node.properties.getReleaseBackoffMillis());
+        node.worker.poll();
+        node.runAll();
+        // 放回不计入领取次数
+        verify(solveService, times(2)).runSolve(any(SolveRequestDTO.class), eq("j1"), eq("j1#w2#1"));
+    }
+
+    private void offer(String taskId, int priority) throws Exception {
+        SolveRequestDTO req = new SolveRequestDTO();
+        req.setTenantId(1L);
+        req.setPlanId(1001L);
+        req.setPriority(priority);
+        QueuedSolveDTO queued = new QueuedSolveDTO();
+        queued.setTaskId(taskId);
+        queued.setCost(100);
+        queued.setRequest(req);
+        assertTrue(queue.offer(taskId, objectMapper.writeValueAsString(queued), priority, 0));
+    }
+
+    /**
+     * 一个工作节点：线程池只记录提交的任务，由测试手动执行
+     */
+    private class Node {
+        final Deque<Runnable> started = new ArrayDeque<>();
+        final SolveClusterProperties properties = new SolveClusterProperties();
+        final SolveWorker worker;
+
+        Node(String workerId, int slots) {
+            ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+            doAnswer(inv -> started.add(inv.getArgument(0))).when(executor).execute(any(Runnable.class));
+
+            SolveSchedulerProperties scheduler = new SolveSchedulerProperties();
+            scheduler.setMaxRunning(slots);
+            scheduler.setTenantMaxRunning(slots);
+
+            properties.setEnabled(true);
+            properties.setWorkerId(workerId);
+            worker = new SolveWorker(queue, new SolveDispatcher(executor, scheduler), solveService, properties,
+                    objectMapper);
+        }
+
+        void runAll() {
+            while (!started.isEmpty())
+                started.poll().run();
+        }
+    }
+}
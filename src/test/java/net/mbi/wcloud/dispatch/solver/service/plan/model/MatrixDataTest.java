@@ -0,0 +1,54 @@
+package net.mbi.wcloud.dispatch.solver.service.plan.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单测目标：扁平矩阵在各精度 / 堆内外下的读写与截断，稀疏模式只存登记的单元格
+ */
+class MatrixDataTest {
+
+    @Test
+    void intPrecision_offHeap_shouldRoundTripAndSaturate() {
+        MatrixData m = MatrixData.allocate(3, MatrixData.Precision.INT, true);
+        m.set(1, 2, 15230, 3720);
+        m.set(2, 1, Long.MAX_VALUE, -5);
+
+        assertEquals(15230, m.dist(1, 2));
+        assertEquals(3720, m.time(1, 2));
+        assertEquals(Integer.MAX_VALUE, m.dist(2, 1));
+        assertEquals(0, m.time(2, 1));
+        assertEquals(0, m.dist(0, 0));
+        assertEquals(3 * 3 * 8, m.bytes());
+    }
+
+    @Test
+    void shortPrecision_shouldQuantizeDistanceToTenMeters() {
+        MatrixData m = MatrixData.allocate(2, MatrixData.Precision.SHORT, false);
+        m.set(0, 1, 15234, 3720);
+        m.set(1, 0, 10_000_000, 100_000);
+
+        assertEquals(15230, m.dist(0, 1));
+        assertEquals(3720, m.time(0, 1));
+        assertEquals(65535 * MatrixData.SHORT_DIST_UNIT_METER, m.dist(1, 0));
+        assertEquals(65535, m.time(1, 0));
+        assertEquals(2 * 2 * 4, m.bytes());
+    }
+
+    @Test
+    void sparse_shouldOnlyStoreCandidateCells() {
+        int[][] cols = { { 0, 1, 2 }, { 0, 1 }, { 0, 2 } };
+        MatrixData m = MatrixData.allocateSparse(cols, MatrixData.Precision.INT, false);
+        m.set(0, 2, 900, 90);
+        m.set(2, 0, 800, 80);
+
+        assertTrue(m.isSparse());
+        assertEquals(7, m.cellCount());
+        assertEquals(900, m.dist(0, 2));
+        assertEquals(80, m.time(2, 0));
+        assertEquals(MatrixData.UNREACHABLE, m.dist(1, 2));
+        assertArrayEquals(new int[] { 0, 2 }, m.columns(2));
+        assertThrows(IllegalArgumentException.class, () -> m.set(1, 2, 1, 1));
+    }
+}